@@ -49,6 +49,23 @@ public interface AlertPublishPlugin extends Closeable {
 
     void onAlert(AlertStreamEvent event) throws Exception;
 
+    /**
+     * Publish a batch of alerts drained from the publisher queue, plugins able to send a batch at once should override it.
+     */
+    default void onAlerts(List<AlertStreamEvent> events) throws Exception {
+        for (AlertStreamEvent event : events) {
+            onAlert(event);
+        }
+    }
+
+    /**
+     * Whether the alert is persisted once onAlert returns without failure, tuples are acked only after durable
+     * plugins confirm.
+     */
+    default boolean isDurable() {
+        return false;
+    }
+
     List<AlertStreamEvent> dedup(AlertStreamEvent event);
 
     PublishStatus getStatus();
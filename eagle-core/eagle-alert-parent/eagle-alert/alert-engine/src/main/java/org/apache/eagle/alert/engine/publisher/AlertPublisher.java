@@ -30,7 +30,19 @@ public interface AlertPublisher extends AlertPublishListener, Serializable {
 
     String getName();
 
-    void nextEvent(PublishPartition partition, AlertStreamEvent event);
+    default void nextEvent(PublishPartition partition, AlertStreamEvent event) {
+        nextEvent(partition, event, null);
+    }
+
+    /**
+     * @param callback notified once the event is published, or dropped, could be from another thread
+     */
+    void nextEvent(PublishPartition partition, AlertStreamEvent event, AlertPublishCallback callback);
+
+    /**
+     * @return queue depth, drops and latency of each publishment.
+     */
+    Map<String, Long> getMetrics();
 
     void close();
 
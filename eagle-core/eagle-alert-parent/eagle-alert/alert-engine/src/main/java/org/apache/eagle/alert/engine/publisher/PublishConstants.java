@@ -46,6 +46,17 @@ public class PublishConstants {
     public static final String SEVERITYS = "severitys";
     public static final String URL_TEMPLATE = "urltemplate";
 
+    // publisher queue and worker constants
+    public static final String PUBLISH_ASYNC = "publish_async";
+    public static final String PUBLISH_CONCURRENCY = "publish_concurrency";
+    public static final String PUBLISH_QUEUE_SIZE = "publish_queue_size";
+    public static final String PUBLISH_BATCH_SIZE = "publish_batch_size";
+    public static final String PUBLISH_OVERFLOW_POLICY = "publish_overflow_policy";
+    public static final String PUBLISH_SPILL_DIR = "publish_spill_dir";
+    public static final String PUBLISH_SPILL_SIZE = "publish_spill_size";
+    public static final String PUBLISH_DURABLE = "publish_durable";
+    public static final String PUBLISH_CLOSE_TIMEOUT_MS = "publish_close_timeout_ms";
+
     public static final String ALERT_EMAIL_TIME_PROPERTY = "timestamp";
     public static final String ALERT_EMAIL_COUNT_PROPERTY = "count";
     public static final String ALERT_EMAIL_ALERTLIST_PROPERTY = "alertList";
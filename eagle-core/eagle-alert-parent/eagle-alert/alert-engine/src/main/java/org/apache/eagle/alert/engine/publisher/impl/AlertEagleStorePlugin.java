@@ -33,6 +33,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -42,6 +43,7 @@ public class AlertEagleStorePlugin extends AbstractPublishPlugin implements Aler
     private transient IMetadataServiceClient client;
 
     @Override
+    @SuppressWarnings("rawtypes")
     public void init(Config config, Publishment publishment, Map conf) throws Exception {
         super.init(config, publishment, conf);
         client = new MetadataServiceClientImpl(config);
@@ -58,15 +60,32 @@ public class AlertEagleStorePlugin extends AbstractPublishPlugin implements Aler
 
     @Override
     public void onAlert(AlertStreamEvent event) throws Exception {
-        List<AlertStreamEvent> eventList = this.dedup(event);
-        if (eventList == null || eventList.isEmpty()) {
-            return;
-        }
+        onAlerts(Collections.singletonList(event));
+    }
+
+    /**
+     * Store the whole batch in one request.
+     */
+    @Override
+    public void onAlerts(List<AlertStreamEvent> events) throws Exception {
         List<AlertPublishEvent> alertEvents = new ArrayList<>();
-        for (AlertStreamEvent e : eventList) {
-            alertEvents.add(AlertPublishEvent.createAlertPublishEvent(e));
+        for (AlertStreamEvent event : events) {
+            List<AlertStreamEvent> eventList = this.dedup(event);
+            if (eventList == null || eventList.isEmpty()) {
+                continue;
+            }
+            for (AlertStreamEvent e : eventList) {
+                alertEvents.add(AlertPublishEvent.createAlertPublishEvent(e));
+            }
         }
-        client.addAlertPublishEvents(alertEvents);
+        if (!alertEvents.isEmpty()) {
+            client.addAlertPublishEvents(alertEvents);
+        }
+    }
+
+    @Override
+    public boolean isDurable() {
+        return true;
     }
 
     @Override
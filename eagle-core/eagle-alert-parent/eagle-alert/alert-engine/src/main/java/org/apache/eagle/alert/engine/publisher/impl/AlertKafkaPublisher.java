@@ -74,6 +74,14 @@ public class AlertKafkaPublisher extends AbstractPublishPlugin implements AlertP
         this.emit(this.topic, this.dedup(event));
     }
 
+    /**
+     * Only sync mode waits for the broker to confirm.
+     */
+    @Override
+    public boolean isDurable() {
+        return mode == KafkaWriteMode.sync;
+    }
+
     @SuppressWarnings("rawtypes")
     @Override
     public void update(String dedupIntervalMin, Map<String, Object> pluginProperties) {
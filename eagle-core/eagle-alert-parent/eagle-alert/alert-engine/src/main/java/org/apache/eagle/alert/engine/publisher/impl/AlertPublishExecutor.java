@@ -0,0 +1,338 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.alert.engine.publisher.impl;
+
+import org.apache.eagle.alert.engine.model.AlertStreamEvent;
+import org.apache.eagle.alert.engine.publisher.AlertPublishCallback;
+import org.apache.eagle.alert.engine.publisher.AlertPublishPlugin;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publish alerts of one publishment through a bounded queue drained by its own workers, so that a slow
+ * or failing plugin only backs up its own queue instead of the bolt and the other publishments.
+ *
+ * <p>Workers drain up to batchSize alerts at once into {@link AlertPublishPlugin#onAlerts}. Callbacks of
+ * durable plugins complete after the plugin returns, callbacks of the other plugins complete once the alert
+ * is queued. If the queue is full, the alert is handled by the {@link PublishOverflowPolicy}, and spilled alerts
+ * beyond spillSize are dropped.</p>
+ */
+public class AlertPublishExecutor implements Closeable {
+    private static final Logger LOG = LoggerFactory.getLogger(AlertPublishExecutor.class);
+    private static final long POLL_INTERVAL_MS = 100;
+    private static final AtomicInteger THREAD_ID = new AtomicInteger();
+
+    private final String name;
+    private final AlertPublishPlugin plugin;
+    private final AlertPublishExecutorSettings settings;
+    private final BlockingDeque<PendingAlert> queue;
+    private final ExecutorService workers;
+    private final Object spillLock = new Object();
+    private final AlertSpillQueue spillQueue;
+    // callbacks of the spilled alerts in the same order, empty for non-durable plugins whose alerts have none
+    private final LinkedList<AlertPublishCallback> spilledCallbacks = new LinkedList<>();
+    private volatile boolean closed = false;
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong latencyMs = new AtomicLong();
+    private final AtomicLong maxLatencyMs = new AtomicLong();
+
+    public AlertPublishExecutor(String name, AlertPublishPlugin plugin, AlertPublishExecutorSettings settings) throws IOException {
+        this.name = name;
+        this.plugin = plugin;
+        this.settings = settings;
+        if (settings.isAsync()) {
+            this.queue = new LinkedBlockingDeque<>(Math.max(1, settings.getQueueSize()));
+            this.spillQueue = settings.getOverflowPolicy() == PublishOverflowPolicy.spill
+                ? new AlertSpillQueue(new File(settings.getSpillDir()), name) : null;
+            int concurrency = Math.max(1, settings.getConcurrency());
+            this.workers = Executors.newFixedThreadPool(concurrency, runnable -> {
+                Thread thread = new Thread(runnable, "alert-publisher-" + name + "-" + THREAD_ID.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            for (int i = 0; i < concurrency; i++) {
+                workers.submit(this::work);
+            }
+        } else {
+            this.queue = null;
+            this.spillQueue = null;
+            this.workers = null;
+        }
+        LOG.info("Created publisher {} with {}", name, settings);
+    }
+
+    public AlertPublishPlugin getPlugin() {
+        return plugin;
+    }
+
+    public void submit(AlertStreamEvent event, AlertPublishCallback callback) {
+        if (closed) {
+            LOG.warn("Publisher {} is closed, drop alert {}", name, event.getAlertId());
+            drop(callback);
+            return;
+        }
+        if (!settings.isAsync()) {
+            publish(Collections.singletonList(new PendingAlert(event, callback)));
+            return;
+        }
+        PendingAlert pending;
+        if (settings.isDurable()) {
+            pending = new PendingAlert(event, callback);
+        } else {
+            complete(callback, true);
+            pending = new PendingAlert(event, null);
+        }
+        switch (settings.getOverflowPolicy()) {
+            case drop_oldest:
+                while (!queue.offerLast(pending)) {
+                    PendingAlert oldest = queue.pollFirst();
+                    if (oldest != null) {
+                        drop(oldest.callback);
+                    }
+                }
+                break;
+            case spill:
+                synchronized (spillLock) {
+                    // once spilling, newer alerts go to the spill file until it is read back, to keep the order
+                    if (spillQueue.size() > 0 || !queue.offerLast(pending)) {
+                        spill(pending);
+                    }
+                }
+                break;
+            default:
+                try {
+                    queue.putLast(pending);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    drop(pending.callback);
+                }
+        }
+    }
+
+    private void spill(PendingAlert pending) {
+        if (spillQueue.size() >= settings.getSpillSize()) {
+            drop(pending.callback);
+            return;
+        }
+        try {
+            spillQueue.add(pending.event);
+            if (pending.callback != null) {
+                spilledCallbacks.add(pending.callback);
+            }
+            spilled.incrementAndGet();
+        } catch (IOException e) {
+            LOG.error("Failed to spill alert of publisher {} into {}", name, spillQueue.getFile(), e);
+            drop(pending.callback);
+        }
+    }
+
+    private void work() {
+        List<PendingAlert> batch = new ArrayList<>();
+        while (true) {
+            readSpilled();
+            PendingAlert first;
+            try {
+                first = queue.pollFirst(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (first == null) {
+                if (closed && getSpillDepth() == 0) {
+                    return;
+                }
+                continue;
+            }
+            batch.add(first);
+            queue.drainTo(batch, Math.max(1, settings.getBatchSize()) - 1);
+            publish(batch);
+            batch.clear();
+        }
+    }
+
+    private void readSpilled() {
+        if (spillQueue == null) {
+            return;
+        }
+        synchronized (spillLock) {
+            try {
+                while (spillQueue.size() > 0 && queue.remainingCapacity() > 0) {
+                    queue.offerLast(new PendingAlert(spillQueue.poll(), spilledCallbacks.poll()));
+                }
+            } catch (IOException e) {
+                LOG.error("Failed to read spilled alerts of publisher {} from {}, drop them", name, spillQueue.getFile(), e);
+                dropSpilled();
+            }
+        }
+    }
+
+    private void publish(List<PendingAlert> batch) {
+        List<AlertStreamEvent> events = new ArrayList<>(batch.size());
+        for (PendingAlert pending : batch) {
+            events.add(pending.event);
+        }
+        long start = System.currentTimeMillis();
+        boolean successful;
+        try {
+            LOG.debug("Execute alert publisher {}", plugin.getClass().getCanonicalName());
+            plugin.onAlerts(events);
+            PublishStatus status = plugin.getStatus();
+            successful = status == null || status.successful;
+        } catch (Throwable ex) {
+            LOG.error("Fail invoking publisher {}'s onAlert, continue ", name, ex);
+            successful = false;
+        }
+        long latency = System.currentTimeMillis() - start;
+        batches.incrementAndGet();
+        latencyMs.addAndGet(latency);
+        long max = maxLatencyMs.get();
+        while (latency > max && !maxLatencyMs.compareAndSet(max, latency)) {
+            max = maxLatencyMs.get();
+        }
+        (successful ? published : failed).addAndGet(batch.size());
+        for (PendingAlert pending : batch) {
+            complete(pending.callback, successful);
+        }
+    }
+
+    private void drop(AlertPublishCallback callback) {
+        long count = dropped.incrementAndGet();
+        if (count % 1000 == 1) {
+            LOG.warn("Publisher {} has dropped {} alerts", name, count);
+        }
+        complete(callback, false);
+    }
+
+    private void dropSpilled() {
+        for (int i = spillQueue.size(); i > 0; i--) {
+            drop(spilledCallbacks.poll());
+        }
+        spilledCallbacks.clear();
+        try {
+            spillQueue.clear();
+        } catch (IOException e) {
+            LOG.error("Failed to clear spill file {}", spillQueue.getFile(), e);
+        }
+    }
+
+    private void complete(AlertPublishCallback callback, boolean successful) {
+        if (callback != null) {
+            try {
+                callback.onComplete(successful);
+            } catch (Throwable t) {
+                LOG.error("Failed to complete alert of publisher {}", name, t);
+            }
+        }
+    }
+
+    private int getSpillDepth() {
+        return spillQueue == null ? 0 : spillQueue.size();
+    }
+
+    /**
+     * @return queue depth, spilled alerts not read back yet, published, failed, dropped and spilled alerts,
+     *     batches, average and max latency of a batch in ms.
+     */
+    public Map<String, Long> getMetrics() {
+        long batchCount = batches.get();
+        Map<String, Long> metrics = new HashMap<>();
+        metrics.put("queueDepth", queue == null ? 0L : queue.size());
+        metrics.put("spillDepth", (long) getSpillDepth());
+        metrics.put("published", published.get());
+        metrics.put("failed", failed.get());
+        metrics.put("dropped", dropped.get());
+        metrics.put("spilled", spilled.get());
+        metrics.put("batches", batchCount);
+        metrics.put("avgLatencyMs", batchCount == 0 ? 0 : latencyMs.get() / batchCount);
+        metrics.put("maxLatencyMs", maxLatencyMs.get());
+        return metrics;
+    }
+
+    /**
+     * Stop accepting alerts, wait up to closeTimeoutMs for the queued ones to be published, then close the plugin.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (workers != null) {
+            workers.shutdown();
+            try {
+                if (!workers.awaitTermination(settings.getCloseTimeoutMs(), TimeUnit.MILLISECONDS)) {
+                    LOG.warn("Publisher {} is not drained in {} ms, drop {} queued alerts", name, settings.getCloseTimeoutMs(),
+                        queue.size() + getSpillDepth());
+                    workers.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                workers.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+            PendingAlert pending;
+            while ((pending = queue.pollFirst()) != null) {
+                drop(pending.callback);
+            }
+            if (spillQueue != null) {
+                synchronized (spillLock) {
+                    dropSpilled();
+                    try {
+                        spillQueue.close();
+                    } catch (IOException e) {
+                        LOG.error("Failed to close spill file {}", spillQueue.getFile(), e);
+                    }
+                }
+            }
+        }
+        try {
+            plugin.close();
+        } catch (Exception e) {
+            LOG.error("Error when close publish plugin {}!", plugin.getClass().getCanonicalName(), e);
+        }
+    }
+
+    private static final class PendingAlert {
+        private final AlertStreamEvent event;
+        private final AlertPublishCallback callback;
+
+        private PendingAlert(AlertStreamEvent event, AlertPublishCallback callback) {
+            this.event = event;
+            this.callback = callback;
+        }
+    }
+}
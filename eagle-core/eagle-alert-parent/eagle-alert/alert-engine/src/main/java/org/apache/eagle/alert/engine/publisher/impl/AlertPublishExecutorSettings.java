@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.alert.engine.publisher.impl;
+
+import org.apache.eagle.alert.engine.coordinator.Publishment;
+import org.apache.eagle.alert.engine.publisher.AlertPublishPlugin;
+import org.apache.eagle.alert.engine.publisher.PublishConstants;
+
+import java.util.Map;
+
+/**
+ * Queue and worker settings of one publishment, read from its properties.
+ */
+public class AlertPublishExecutorSettings {
+    public static final int DEFAULT_CONCURRENCY = 1;
+    public static final int DEFAULT_QUEUE_SIZE = 1000;
+    public static final int DEFAULT_BATCH_SIZE = 100;
+    public static final int DEFAULT_SPILL_SIZE = 100000;
+    public static final long DEFAULT_CLOSE_TIMEOUT_MS = 10000;
+
+    private boolean async = true;
+    private int concurrency = DEFAULT_CONCURRENCY;
+    private int queueSize = DEFAULT_QUEUE_SIZE;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private PublishOverflowPolicy overflowPolicy = PublishOverflowPolicy.block;
+    private String spillDir = System.getProperty("java.io.tmpdir");
+    private int spillSize = DEFAULT_SPILL_SIZE;
+    private boolean durable = false;
+    private long closeTimeoutMs = DEFAULT_CLOSE_TIMEOUT_MS;
+
+    public static AlertPublishExecutorSettings fromPublishment(Publishment publishment, AlertPublishPlugin plugin) {
+        AlertPublishExecutorSettings settings = new AlertPublishExecutorSettings();
+        settings.durable = plugin.isDurable();
+        Map<String, Object> properties = publishment.getProperties();
+        if (properties == null) {
+            return settings;
+        }
+        settings.async = getBoolean(properties, PublishConstants.PUBLISH_ASYNC, settings.async);
+        settings.concurrency = (int) getLong(properties, PublishConstants.PUBLISH_CONCURRENCY, settings.concurrency);
+        settings.queueSize = (int) getLong(properties, PublishConstants.PUBLISH_QUEUE_SIZE, settings.queueSize);
+        settings.batchSize = (int) getLong(properties, PublishConstants.PUBLISH_BATCH_SIZE, settings.batchSize);
+        if (properties.get(PublishConstants.PUBLISH_OVERFLOW_POLICY) != null) {
+            settings.overflowPolicy = PublishOverflowPolicy.fromString(properties.get(PublishConstants.PUBLISH_OVERFLOW_POLICY).toString());
+        }
+        if (properties.get(PublishConstants.PUBLISH_SPILL_DIR) != null) {
+            settings.spillDir = properties.get(PublishConstants.PUBLISH_SPILL_DIR).toString();
+        }
+        settings.spillSize = (int) getLong(properties, PublishConstants.PUBLISH_SPILL_SIZE, settings.spillSize);
+        settings.durable = getBoolean(properties, PublishConstants.PUBLISH_DURABLE, settings.durable);
+        settings.closeTimeoutMs = getLong(properties, PublishConstants.PUBLISH_CLOSE_TIMEOUT_MS, settings.closeTimeoutMs);
+        return settings;
+    }
+
+    private static boolean getBoolean(Map<String, Object> properties, String key, boolean defaultValue) {
+        Object value = properties.get(key);
+        return value == null ? defaultValue : Boolean.parseBoolean(value.toString().trim());
+    }
+
+    private static long getLong(Map<String, Object> properties, String key, long defaultValue) {
+        Object value = properties.get(key);
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        return value == null ? defaultValue : Long.parseLong(value.toString().trim());
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    public void setAsync(boolean async) {
+        this.async = async;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * More than one worker calls the plugin concurrently, which has to be thread-safe then.
+     */
+    public void setConcurrency(int concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public void setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public PublishOverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public void setOverflowPolicy(PublishOverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    public String getSpillDir() {
+        return spillDir;
+    }
+
+    public void setSpillDir(String spillDir) {
+        this.spillDir = spillDir;
+    }
+
+    public int getSpillSize() {
+        return spillSize;
+    }
+
+    /**
+     * Alerts spilled while this many are not read back yet are dropped.
+     */
+    public void setSpillSize(int spillSize) {
+        this.spillSize = spillSize;
+    }
+
+    public boolean isDurable() {
+        return durable;
+    }
+
+    public void setDurable(boolean durable) {
+        this.durable = durable;
+    }
+
+    public long getCloseTimeoutMs() {
+        return closeTimeoutMs;
+    }
+
+    public void setCloseTimeoutMs(long closeTimeoutMs) {
+        this.closeTimeoutMs = closeTimeoutMs;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("async=%s, concurrency=%d, queueSize=%d, batchSize=%d, overflowPolicy=%s, spillSize=%d, durable=%s",
+            async, concurrency, queueSize, batchSize, overflowPolicy, spillSize, durable);
+    }
+}
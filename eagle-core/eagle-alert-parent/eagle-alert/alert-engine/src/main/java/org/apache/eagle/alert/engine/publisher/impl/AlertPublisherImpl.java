@@ -28,6 +28,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import org.apache.eagle.alert.engine.coordinator.PublishPartition;
 import org.apache.eagle.alert.engine.coordinator.Publishment;
 import org.apache.eagle.alert.engine.model.AlertStreamEvent;
+import org.apache.eagle.alert.engine.publisher.AlertPublishCallback;
 import org.apache.eagle.alert.engine.publisher.AlertPublishPlugin;
 import org.apache.eagle.alert.engine.publisher.AlertPublisher;
 import org.slf4j.Logger;
@@ -43,8 +44,8 @@ public class AlertPublisherImpl implements AlertPublisher {
 
     private final String name;
 
-    // <publishId, PublishPlugin>
-    private volatile Map<String, AlertPublishPlugin> publishPluginMapping = new ConcurrentHashMap<>(1);
+    // <publishId, PublishPlugin with its queue and workers>
+    private volatile Map<String, AlertPublishExecutor> publishPluginMapping = new ConcurrentHashMap<>(1);
     //private volatile Map<PublishPartition, AlertPublishPlugin> publishPluginMapping = new ConcurrentHashMap<>(1);
 
     private Config config;
@@ -66,37 +67,51 @@ public class AlertPublisherImpl implements AlertPublisher {
     }
 
     @Override
-    public void nextEvent(PublishPartition partition, AlertStreamEvent event) {
+    public void nextEvent(PublishPartition partition, AlertStreamEvent event, AlertPublishCallback callback) {
         if (LOG.isDebugEnabled()) {
             LOG.debug(event.toString());
         }
-        notifyAlert(partition, event);
+        notifyAlert(partition, event, callback);
     }
 
-    private void notifyAlert(PublishPartition partition, AlertStreamEvent event) {
+    private void notifyAlert(PublishPartition partition, AlertStreamEvent event, AlertPublishCallback callback) {
         // remove the column values for publish plugin match
         partition.getColumnValues().clear();
         if (!publishPluginMapping.containsKey(partition.getPublishId())) {
             LOG.warn("PublishPartition {} is not found in publish plugin map", partition);
+            complete(callback);
             return;
         }
-        AlertPublishPlugin plugin = publishPluginMapping.get(partition.getPublishId());
-        if (plugin == null) {
+        AlertPublishExecutor executor = publishPluginMapping.get(partition.getPublishId());
+        if (executor == null) {
             LOG.warn("PublishPartition {} has problems while initializing publish plugin", partition);
+            complete(callback);
             return;
         }
         event.ensureAlertId();
-        try {
-            LOG.debug("Execute alert publisher {}", plugin.getClass().getCanonicalName());
-            plugin.onAlert(event);
-        } catch (Exception ex) {
-            LOG.error("Fail invoking publisher's onAlert, continue ", ex);
+        executor.submit(event, callback);
+    }
+
+    /**
+     * Alerts without a publish plugin are done with, the same as before they are queued.
+     */
+    private void complete(AlertPublishCallback callback) {
+        if (callback != null) {
+            callback.onComplete(true);
         }
     }
 
+    @Override
+    public Map<String, Long> getMetrics() {
+        Map<String, Long> metrics = new HashMap<>();
+        publishPluginMapping.forEach((publishId, executor) ->
+            executor.getMetrics().forEach((key, value) -> metrics.put(publishId + "." + key, value)));
+        return metrics;
+    }
+
     @Override
     public void close() {
-        publishPluginMapping.values().forEach(plugin -> plugin.close());
+        publishPluginMapping.values().forEach(executor -> executor.close());
     }
 
     @Override
@@ -123,37 +138,37 @@ public class AlertPublisherImpl implements AlertPublisher {
         }
 
         // copy and swap to avoid concurrency issue
-        Map<String, AlertPublishPlugin> newPublishMap = new HashMap<>(publishPluginMapping);
+        Map<String, AlertPublishExecutor> newPublishMap = new HashMap<>(publishPluginMapping);
 
         // added
         for (Publishment publishment : added) {
             LOG.debug("OnPublishmentChange : add publishment : {} ", publishment);
 
-            AlertPublishPlugin plugin = AlertPublishPluginsFactory.createNotificationPlugin(publishment, config, conf);
-            if (plugin != null) {
-                newPublishMap.put(publishment.getName(), plugin);
+            AlertPublishExecutor executor = createExecutor(publishment);
+            if (executor != null) {
+                newPublishMap.put(publishment.getName(), executor);
             } else {
                 LOG.error("OnPublishChange alertPublisher {} failed due to invalid format", publishment);
             }
         }
         //removed
-        List<AlertPublishPlugin> toBeClosed = new ArrayList<>();
+        List<AlertPublishExecutor> toBeClosed = new ArrayList<>();
         for (Publishment publishment : removed) {
-            AlertPublishPlugin publishPlugin = newPublishMap.remove(publishment.getName());
-            if (publishPlugin != null) {
-                toBeClosed.add(publishPlugin);
+            AlertPublishExecutor executor = newPublishMap.remove(publishment.getName());
+            if (executor != null) {
+                toBeClosed.add(executor);
             }
         }
         // updated
         for (Publishment publishment : afterModified) {
             // for updated publishment, need to init them too
-            AlertPublishPlugin newPlugin = AlertPublishPluginsFactory.createNotificationPlugin(publishment, config, conf);
-            if (newPlugin != null) {
-                AlertPublishPlugin oldPlugin = newPublishMap.get(publishment.getName());
-                if (oldPlugin != null) {
-                    toBeClosed.add(oldPlugin);
+            AlertPublishExecutor newExecutor = createExecutor(publishment);
+            if (newExecutor != null) {
+                AlertPublishExecutor oldExecutor = newPublishMap.get(publishment.getName());
+                if (oldExecutor != null) {
+                    toBeClosed.add(oldExecutor);
                 }
-                newPublishMap.put(publishment.getName(), newPlugin);
+                newPublishMap.put(publishment.getName(), newExecutor);
             } else {
                 LOG.error("OnPublishChange alertPublisher {} failed due to invalid format", publishment);
             }
@@ -162,10 +177,25 @@ public class AlertPublisherImpl implements AlertPublisher {
         // now do the swap
         publishPluginMapping = newPublishMap;
 
-        // safely close : it depend on plugin to check if want to wait all data to be flushed.
+        // safely close : queued alerts are drained before closing the plugin.
         closePlugins(toBeClosed);
     }
 
+    private AlertPublishExecutor createExecutor(Publishment publishment) {
+        AlertPublishPlugin plugin = AlertPublishPluginsFactory.createNotificationPlugin(publishment, config, conf);
+        if (plugin == null) {
+            return null;
+        }
+        try {
+            return new AlertPublishExecutor(publishment.getName(), plugin,
+                AlertPublishExecutorSettings.fromPublishment(publishment, plugin));
+        } catch (Exception ex) {
+            LOG.error("Failed to create queue and workers of publishment {}", publishment.getName(), ex);
+            plugin.close();
+            return null;
+        }
+    }
+
     private Set<PublishPartition> getPublishPartitions(Publishment publish) {
         List<String> streamIds = new ArrayList<>();
         // add the publish to the bolt
@@ -183,12 +213,12 @@ public class AlertPublisherImpl implements AlertPublisher {
         return publishPartitions;
     }
 
-    private void closePlugins(List<AlertPublishPlugin> toBeClosed) {
-        for (AlertPublishPlugin p : toBeClosed) {
+    private void closePlugins(List<AlertPublishExecutor> toBeClosed) {
+        for (AlertPublishExecutor p : toBeClosed) {
             try {
                 p.close();
             } catch (Exception e) {
-                LOG.error("Error when close publish plugin {}!", p.getClass().getCanonicalName(), e);
+                LOG.error("Error when close publish plugin {}!", p.getPlugin().getClass().getCanonicalName(), e);
             }
         }
     }
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.alert.engine.publisher.impl;
+
+import org.apache.eagle.alert.engine.model.AlertStreamEvent;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+
+/**
+ * FIFO of alerts in a local file, each one java serialized and prefixed by its length. The file is truncated
+ * whenever all alerts are read back, so it only grows as long as the publisher lags behind.
+ */
+class AlertSpillQueue implements Closeable {
+    private final File file;
+    private final RandomAccessFile raf;
+    private long readPosition = 0;
+    private long writePosition = 0;
+    private int size = 0;
+
+    AlertSpillQueue(File dir, String name) throws IOException {
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Failed to create spill directory " + dir);
+        }
+        this.file = File.createTempFile("alert-spill-" + name.replaceAll("[^A-Za-z0-9_.-]", "_") + "-", ".bin", dir);
+        this.file.deleteOnExit();
+        this.raf = new RandomAccessFile(file, "rw");
+    }
+
+    synchronized void add(AlertStreamEvent event) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(event);
+        }
+        raf.seek(writePosition);
+        raf.writeInt(bytes.size());
+        raf.write(bytes.toByteArray());
+        writePosition = raf.getFilePointer();
+        size++;
+    }
+
+    /**
+     * @return the oldest alert, or null if empty.
+     */
+    synchronized AlertStreamEvent poll() throws IOException {
+        if (size == 0) {
+            return null;
+        }
+        raf.seek(readPosition);
+        byte[] bytes = new byte[raf.readInt()];
+        raf.readFully(bytes);
+        readPosition = raf.getFilePointer();
+        size--;
+        if (size == 0) {
+            raf.setLength(0);
+            readPosition = 0;
+            writePosition = 0;
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (AlertStreamEvent) in.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+
+    synchronized void clear() throws IOException {
+        raf.setLength(0);
+        readPosition = 0;
+        writePosition = 0;
+        size = 0;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        raf.close();
+        if (!file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.alert.engine.publisher.impl;
+
+/**
+ * What a publisher does with an alert when its queue is full.
+ */
+public enum PublishOverflowPolicy {
+
+    /**
+     * Wait for room in the queue, slowing down the bolt.
+     */
+    block,
+    /**
+     * Drop the oldest queued alert.
+     */
+    drop_oldest,
+    /**
+     * Append the alert to a local file, read back when the queue has room.
+     */
+    spill;
+
+    public static PublishOverflowPolicy fromString(String policy) {
+        for (PublishOverflowPolicy one : PublishOverflowPolicy.values()) {
+            if (one.name().equalsIgnoreCase(policy) || one.name().replace("_", "-").equalsIgnoreCase(policy)) {
+                return one;
+            }
+        }
+        // default policy is block
+        return block;
+    }
+
+}
@@ -16,6 +16,8 @@
  */
 package org.apache.eagle.alert.engine.runner;
 
+import backtype.storm.Constants;
+import backtype.storm.metric.api.IMetric;
 import backtype.storm.metric.api.MultiCountMetric;
 import backtype.storm.task.OutputCollector;
 import backtype.storm.task.TopologyContext;
@@ -40,10 +42,12 @@ import org.slf4j.LoggerFactory;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.stream.Collectors;
 
 public class AlertPublisherBolt extends AbstractStreamBolt implements AlertPublishSpecListener {
     private static final Logger LOG = LoggerFactory.getLogger(AlertPublisherBolt.class);
+    private static final long serialVersionUID = 61182341211892872L;
     private final AlertPublisher alertPublisher;
     private volatile Map<String, Publishment> cachedPublishments = new HashMap<>();
     private volatile Map<String, PolicyDefinition> policyDefinitionMap;
@@ -54,6 +58,8 @@ public class AlertPublisherBolt extends AbstractStreamBolt implements AlertPubli
     private boolean logEventEnabled;
     private TopologyContext context;
     private AlertStreamFilter alertFilter;
+    // tuples completed by the publishers, acked or failed on the executor thread
+    private transient Queue<CompletedTuple> completedTuples;
 
     public AlertPublisherBolt(String alertPublisherName, Config config, IMetadataChangeNotifyService coordinatorService) {
         super(alertPublisherName, coordinatorService, config);
@@ -70,6 +76,8 @@ public class AlertPublisherBolt extends AbstractStreamBolt implements AlertPubli
         coordinatorService.init(config, MetadataType.ALERT_PUBLISH_BOLT);
         this.alertPublisher.init(config, stormConf);
         streamContext = new StreamContextImpl(config, context.registerMetric("eagle.publisher", new MultiCountMetric(), 60), context);
+        context.registerMetric("eagle.publisher.queue", (IMetric) alertPublisher::getMetrics, 60);
+        this.completedTuples = new ConcurrentLinkedQueue<>();
         this.context = context;
         this.alertTemplateEngine = AlertTemplateProvider.createAlertTemplateEngine();
         this.alertTemplateEngine.init(config);
@@ -78,6 +86,10 @@ public class AlertPublisherBolt extends AbstractStreamBolt implements AlertPubli
 
     @Override
     public void execute(Tuple input) {
+        if (isTickTuple(input)) {
+            ackCompletedTuples();
+            return;
+        }
         try {
             streamContext.counter().incr("receive_count");
             PublishPartition partition = (PublishPartition) input.getValueByField(AlertConstants.FIELD_0);
@@ -97,10 +109,13 @@ public class AlertPublisherBolt extends AbstractStreamBolt implements AlertPubli
 
             AlertStreamEvent filteredEvent = alertFilter.filter(event);
             if (filteredEvent != null) {
-                alertPublisher.nextEvent(partition, filteredEvent);
+                // completed once queued, or once published by durable publishers, maybe on their worker threads
+                alertPublisher.nextEvent(partition, filteredEvent, published -> completedTuples.offer(new CompletedTuple(input, published)));
+            } else {
+                this.collector.ack(input);
+                streamContext.counter().incr("ack_count");
             }
-            this.collector.ack(input);
-            streamContext.counter().incr("ack_count");
+            ackCompletedTuples();
         } catch (Throwable ex) {
             streamContext.counter().incr("fail_count");
             LOG.error(ex.getMessage(), ex);
@@ -108,9 +123,38 @@ public class AlertPublisherBolt extends AbstractStreamBolt implements AlertPubli
         }
     }
 
+    private static boolean isTickTuple(Tuple input) {
+        return Constants.SYSTEM_COMPONENT_ID.equals(input.getSourceComponent())
+            && Constants.SYSTEM_TICK_STREAM_ID.equals(input.getSourceStreamId());
+    }
+
+    private void ackCompletedTuples() {
+        CompletedTuple completed;
+        while ((completed = completedTuples.poll()) != null) {
+            if (completed.published) {
+                this.collector.ack(completed.tuple);
+                streamContext.counter().incr("ack_count");
+            } else {
+                this.collector.fail(completed.tuple);
+                streamContext.counter().incr("fail_count");
+            }
+        }
+    }
+
+    /**
+     * Tick every second to ack tuples completed by the publishers while no alert comes in.
+     */
+    @Override
+    public Map<String, Object> getComponentConfiguration() {
+        Map<String, Object> conf = new HashMap<>();
+        conf.put(backtype.storm.Config.TOPOLOGY_TICK_TUPLE_FREQ_SECS, 1);
+        return conf;
+    }
+
     @Override
     public void cleanup() {
         alertPublisher.close();
+        ackCompletedTuples();
         super.cleanup();
     }
 
@@ -188,6 +232,16 @@ public class AlertPublisherBolt extends AbstractStreamBolt implements AlertPubli
         }
     }
 
+    private static class CompletedTuple {
+        private final Tuple tuple;
+        private final boolean published;
+
+        private CompletedTuple(Tuple tuple, boolean published) {
+            this.tuple = tuple;
+            this.published = published;
+        }
+    }
+
     private class AlertContextEnrichFilter implements AlertStreamFilter {
         private final AlertPublisherBolt alertPublisherBolt;
 
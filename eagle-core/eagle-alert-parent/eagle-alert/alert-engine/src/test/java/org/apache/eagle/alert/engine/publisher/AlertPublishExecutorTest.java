@@ -0,0 +1,273 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.alert.engine.publisher;
+
+import com.typesafe.config.Config;
+import org.apache.eagle.alert.engine.coordinator.Publishment;
+import org.apache.eagle.alert.engine.model.AlertStreamEvent;
+import org.apache.eagle.alert.engine.publisher.impl.AlertPublishExecutor;
+import org.apache.eagle.alert.engine.publisher.impl.AlertPublishExecutorSettings;
+import org.apache.eagle.alert.engine.publisher.impl.PublishOverflowPolicy;
+import org.apache.eagle.alert.engine.publisher.impl.PublishStatus;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class AlertPublishExecutorTest {
+    private final List<AlertPublishExecutor> executors = new ArrayList<>();
+    private final Map<String, Boolean> completed = new ConcurrentHashMap<>();
+
+    @After
+    public void tearDown() {
+        executors.forEach(AlertPublishExecutor::close);
+    }
+
+    private AlertPublishExecutor createExecutor(String name, BlockingPlugin plugin, int queueSize, int batchSize,
+                                                PublishOverflowPolicy overflowPolicy, boolean durable) throws Exception {
+        return createExecutor(name, plugin, queueSize, batchSize, overflowPolicy, durable, new AlertPublishExecutorSettings());
+    }
+
+    private AlertPublishExecutor createExecutor(String name, BlockingPlugin plugin, int queueSize, int batchSize,
+                                                PublishOverflowPolicy overflowPolicy, boolean durable,
+                                                AlertPublishExecutorSettings settings) throws Exception {
+        settings.setQueueSize(queueSize);
+        settings.setBatchSize(batchSize);
+        settings.setOverflowPolicy(overflowPolicy);
+        settings.setDurable(durable);
+        settings.setCloseTimeoutMs(1000);
+        AlertPublishExecutor executor = new AlertPublishExecutor(name, plugin, settings);
+        executors.add(executor);
+        return executor;
+    }
+
+    private void submit(AlertPublishExecutor executor, String id) {
+        AlertStreamEvent event = new AlertStreamEvent();
+        event.setPolicyId(id);
+        executor.submit(event, published -> completed.put(id, published));
+    }
+
+    private static void waitFor(CountDownLatch latch) throws InterruptedException {
+        Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+    }
+
+    private static void waitPublished(BlockingPlugin plugin, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (plugin.ids().size() < count) {
+            Assert.assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void testSlowPublisherDoesNotBlockOthers() throws Exception {
+        BlockingPlugin slow = new BlockingPlugin(1);
+        BlockingPlugin fast = new BlockingPlugin(0);
+        AlertPublishExecutor slowExecutor = createExecutor("slow", slow, 10, 1, PublishOverflowPolicy.block, false);
+        AlertPublishExecutor fastExecutor = createExecutor("fast", fast, 10, 1, PublishOverflowPolicy.block, false);
+
+        submit(slowExecutor, "a1");
+        waitFor(slow.entered);
+        submit(slowExecutor, "a2");
+        submit(fastExecutor, "b1");
+        waitPublished(fast, 1);
+        Assert.assertEquals(Collections.singletonList("b1"), fast.ids());
+        Assert.assertTrue(slow.ids().isEmpty());
+        // not durable, completed once queued
+        Assert.assertTrue(completed.get("a2"));
+
+        slow.release.countDown();
+        waitPublished(slow, 2);
+        Assert.assertEquals(2, slowExecutor.getMetrics().get("published").longValue());
+    }
+
+    @Test
+    public void testDurableCompletedAfterPublished() throws Exception {
+        BlockingPlugin plugin = new BlockingPlugin(1);
+        AlertPublishExecutor executor = createExecutor("durable", plugin, 10, 1, PublishOverflowPolicy.block, true);
+        submit(executor, "a1");
+        waitFor(plugin.entered);
+        Assert.assertFalse(completed.containsKey("a1"));
+
+        plugin.release.countDown();
+        waitPublished(plugin, 1);
+        executor.close();
+        Assert.assertTrue(completed.get("a1"));
+    }
+
+    @Test
+    public void testFailedPublishIsNotCompleted() throws Exception {
+        BlockingPlugin plugin = new BlockingPlugin(0);
+        plugin.fail = true;
+        AlertPublishExecutor executor = createExecutor("failing", plugin, 10, 1, PublishOverflowPolicy.block, true);
+        submit(executor, "a1");
+        executor.close();
+        Assert.assertFalse(completed.get("a1"));
+        Assert.assertEquals(1, executor.getMetrics().get("failed").longValue());
+    }
+
+    @Test
+    public void testDropOldest() throws Exception {
+        BlockingPlugin plugin = new BlockingPlugin(1);
+        AlertPublishExecutor executor = createExecutor("drop", plugin, 2, 10, PublishOverflowPolicy.drop_oldest, true);
+        submit(executor, "a1");
+        waitFor(plugin.entered);
+        for (int i = 2; i <= 5; i++) {
+            submit(executor, "a" + i);
+        }
+        Assert.assertFalse(completed.get("a2"));
+        Assert.assertFalse(completed.get("a3"));
+        Assert.assertEquals(2, executor.getMetrics().get("dropped").longValue());
+
+        plugin.release.countDown();
+        waitPublished(plugin, 3);
+        Assert.assertEquals(Arrays.asList("a1", "a4", "a5"), plugin.ids());
+        // the queued ones are drained in one batch
+        Assert.assertEquals(2, plugin.batches.size());
+    }
+
+    @Test
+    public void testSpillKeepsOrder() throws Exception {
+        BlockingPlugin plugin = new BlockingPlugin(1);
+        AlertPublishExecutor executor = createExecutor("spill", plugin, 2, 3, PublishOverflowPolicy.spill, true);
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            submit(executor, "a" + i);
+            expected.add("a" + i);
+            if (i == 0) {
+                waitFor(plugin.entered);
+            }
+        }
+        Assert.assertEquals(17, executor.getMetrics().get("spillDepth").longValue());
+
+        plugin.release.countDown();
+        waitPublished(plugin, 20);
+        Assert.assertEquals(expected, plugin.ids());
+        Assert.assertEquals(17, executor.getMetrics().get("spilled").longValue());
+        Assert.assertEquals(0, executor.getMetrics().get("spillDepth").longValue());
+        executor.close();
+        Assert.assertEquals(20, completed.size());
+        Assert.assertFalse(completed.containsValue(false));
+    }
+
+    @Test
+    public void testSpillDepthIsCapped() throws Exception {
+        BlockingPlugin plugin = new BlockingPlugin(1);
+        AlertPublishExecutorSettings settings = new AlertPublishExecutorSettings();
+        settings.setSpillSize(5);
+        AlertPublishExecutor executor = createExecutor("spill-capped", plugin, 2, 10, PublishOverflowPolicy.spill, true, settings);
+        submit(executor, "a0");
+        waitFor(plugin.entered);
+        for (int i = 1; i < 11; i++) {
+            submit(executor, "a" + i);
+        }
+        Assert.assertEquals(5, executor.getMetrics().get("spillDepth").longValue());
+        Assert.assertEquals(3, executor.getMetrics().get("dropped").longValue());
+        Assert.assertFalse(completed.get("a8"));
+        Assert.assertFalse(completed.get("a10"));
+
+        plugin.release.countDown();
+        waitPublished(plugin, 8);
+        Assert.assertEquals(Arrays.asList("a0", "a1", "a2", "a3", "a4", "a5", "a6", "a7"), plugin.ids());
+        executor.close();
+        Assert.assertTrue(completed.get("a7"));
+    }
+
+    @Test
+    public void testClosePublishesQueuedAlerts() throws Exception {
+        BlockingPlugin plugin = new BlockingPlugin(0);
+        AlertPublishExecutor executor = createExecutor("close", plugin, 100, 10, PublishOverflowPolicy.block, true);
+        for (int i = 0; i < 50; i++) {
+            submit(executor, "a" + i);
+        }
+        executor.close();
+        Assert.assertEquals(50, plugin.ids().size());
+        Assert.assertTrue(plugin.closed);
+
+        submit(executor, "late");
+        Assert.assertFalse(completed.get("late"));
+    }
+
+    private static class BlockingPlugin implements AlertPublishPlugin {
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch release;
+        private final List<List<String>> batches = Collections.synchronizedList(new ArrayList<>());
+        private volatile boolean fail = false;
+        private volatile boolean closed = false;
+
+        private BlockingPlugin(int blocked) {
+            this.release = new CountDownLatch(blocked);
+        }
+
+        private List<String> ids() {
+            List<String> ids = new ArrayList<>();
+            synchronized (batches) {
+                batches.forEach(ids::addAll);
+            }
+            return ids;
+        }
+
+        @Override
+        public void onAlerts(List<AlertStreamEvent> events) throws Exception {
+            entered.countDown();
+            release.await();
+            if (fail) {
+                throw new IllegalStateException("publish failure");
+            }
+            List<String> ids = new ArrayList<>();
+            events.forEach(event -> ids.add(event.getPolicyId()));
+            batches.add(ids);
+        }
+
+        @Override
+        public void onAlert(AlertStreamEvent event) throws Exception {
+            onAlerts(Collections.singletonList(event));
+        }
+
+        @Override
+        @SuppressWarnings("rawtypes")
+        public void init(Config config, Publishment publishment, Map configProperties) {
+        }
+
+        @Override
+        public void update(String dedupIntervalMin, Map<String, Object> pluginProperties) {
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        @Override
+        public List<AlertStreamEvent> dedup(AlertStreamEvent event) {
+            return Collections.singletonList(event);
+        }
+
+        @Override
+        public PublishStatus getStatus() {
+            return null;
+        }
+    }
+}
@@ -20,6 +20,9 @@ import org.apache.eagle.app.Application;
 import com.typesafe.config.Config;
 import org.apache.eagle.metadata.model.ApplicationEntity;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Execution Runtime Adapter.
  */
@@ -58,4 +61,20 @@ public interface ExecutionRuntime<E extends Environment, P> {
      * @return status
      */
     ApplicationEntity.Status status(Application<E, P> executor, Config config);
+
+    /**
+     * Check status of several application processes, one by one unless overridden by runtime
+     * able to check them together.
+     *
+     * @param executors
+     * @param configs config of each executor
+     * @return status of each executor, in the same order
+     */
+    default List<ApplicationEntity.Status> status(List<Application<E, P>> executors, List<Config> configs) {
+        List<ApplicationEntity.Status> statuses = new ArrayList<>(executors.size());
+        for (int i = 0; i < executors.size(); i++) {
+            statuses.add(status(executors.get(i), configs.get(i)));
+        }
+        return statuses;
+    }
 }
@@ -17,34 +17,46 @@
 
 package org.apache.eagle.app.environment.builder;
 
-import com.google.common.base.Preconditions;
 import org.apache.eagle.app.utils.Clock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Transform counter metrics into rates per second, emitting nothing for the first sample of a counter.
+ *
+ * <p>The previous sample of each counter is kept in a {@link CounterValueTable} keyed by a 64 bit hash of the
+ * dimension field values and the metric name, computed from the event fields without building any string.
+ * Counters not seen within heartbeat of processing time are expired, so heartbeat should span several sample
+ * periods. A decreasing counter is taken as a 32 or 64 bit wraparound if it was close to the boundary and
+ * starts over near zero, otherwise as a reset: the sample only replaces the previous one and no rate is
+ * emitted.</p>
+ */
 public class CounterToRateFunction implements TransformFunction {
     private static final Logger LOG = LoggerFactory.getLogger(CounterToRateFunction.class);
-    private final Map<String, CounterValue> cache;
-    private MetricDescriptor metricDescriptor;
+    private static final CountMetricFilter COUNT_METRIC_FILTER = metricName -> metricName.endsWith("count");
+    private static final double UINT32_RANGE = 4294967296.0;
+    // a 32 bit counter is taken as wrapped only from and to within this distance of the boundary
+    private static final double UINT32_WRAP_MARGIN = UINT32_RANGE / 16;
+    private static final double UINT64_RANGE = 18446744073709551616.0;
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    // not a char, so "a" + "bc" and "ab" + "c" differ
+    private static final int SEPARATOR = 0x10000;
+
+    private final MetricDescriptor metricDescriptor;
+    private final long heartbeatMillis;
+    private final Clock clock;
+    private transient CounterValueTable table;
+    private transient long lastPurgeTime;
     private Collector collector;
 
     public CounterToRateFunction(MetricDescriptor metricDescriptor, long heartbeat, TimeUnit unit, final Clock clock) {
-        final long heartbeatMillis = TimeUnit.MILLISECONDS.convert(heartbeat, unit);
-        this.cache = new LinkedHashMap<String, CounterValue>(16, 0.75f, true) {
-            protected boolean removeEldestEntry(Map.Entry<String, CounterValue> eldest) {
-                final long now = clock.now();
-                final long lastMod = eldest.getValue().getTimestamp();
-                final boolean expired = (now - lastMod) > heartbeatMillis;
-                if (expired) {
-                    LOG.debug("heartbeat interval exceeded, expiring {}", eldest.getKey());
-                }
-                return expired;
-            }
-        };
+        this.heartbeatMillis = TimeUnit.MILLISECONDS.convert(heartbeat, unit);
+        this.clock = clock;
         this.metricDescriptor = metricDescriptor;
     }
 
@@ -56,165 +68,113 @@ public class CounterToRateFunction implements TransformFunction {
     @Override
     public void open(Collector collector) {
         this.collector = collector;
+        this.table = new CounterValueTable(heartbeatMillis);
+        this.lastPurgeTime = clock.now();
     }
 
     @Override
+    @SuppressWarnings( {"rawtypes", "unchecked"})
     public void transform(Map event) {
-        Metric metric = toMetric(event);
-        LOG.debug("received {} metrics", metric);
-        if (new DefaultCountMetricFilter().apply(metric.getMetricName())) {
-            final String metricName = metric.getMetricName();
-            final CounterValue prev = cache.get(metricName);
-            if (prev != null) {
-                final double rate = prev.computeRate(metric);
-                event.put(metricDescriptor.getValueField(), rate);
-                collector.collect(event.toString(), event);
-            } else {
-                CounterValue current = new CounterValue(metric);
-                cache.put(metricName, current);
+        final String metricName = metricDescriptor.getMetricNameSelector().getMetricName(event);
+        final long key = keyOf(metricName, event);
+        if (!COUNT_METRIC_FILTER.apply(metricName)) {
+            collector.collect(key, event);
+            return;
+        }
+        final long now = clock.now();
+        if (now - lastPurgeTime > heartbeatMillis) {
+            table.purgeExpired(now);
+            lastPurgeTime = now;
+        }
+        final long timestamp = metricDescriptor.getTimestampSelector().getTimestamp(event);
+        final double value = getCurrentValue(event);
+        final int slot = table.find(key, now);
+        if (slot >= 0) {
+            final double rate = computeRate(timestamp - table.timestampAt(slot), table.valueAt(slot), value);
+            table.updateAt(slot, timestamp, value, now);
+            if (Double.isNaN(rate)) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("counter {} was reset", metricName);
+                }
+                return;
             }
+            event.put(metricDescriptor.getValueField(), rate);
+            collector.collect(key, event);
         } else {
-            collector.collect(event.toString(), event);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("first sample of counter {}", metricName);
+            }
+            table.put(key, timestamp, value, now);
         }
-
     }
 
     @Override
     public void close() {
-        cache.clear();
-    }
-
-    private Metric toMetric(Map event) {
-
-        String metricName = "";
-        for (String dimensionField : metricDescriptor.getDimensionFields()) {
-            metricName += event.get(dimensionField) + "-";
-        }
-        metricName += metricDescriptor.getMetricNameSelector().getMetricName(event);
-
-        long timestamp = metricDescriptor.getTimestampSelector().getTimestamp(event);
-
-        return new Metric(metricName, timestamp, getCurrentValue(event));
-    }
-
-    private double getCurrentValue(Map event) {
-        double[] values;
-        if (event.containsKey(metricDescriptor.getValueField())) {
-            values = new double[] {(double) event.get(metricDescriptor.getValueField())};
-        } else {
-            LOG.warn("Event has no value field '{}': {}, use 0 by default", metricDescriptor.getValueField(), event);
-            values = new double[] {0};
+        if (table != null) {
+            table.clear();
         }
-        return values[0];
     }
 
-    protected static class CounterValue {
-        private long timestamp;
-        private double value;
-
-        public CounterValue(long timestamp, double value) {
-            this.timestamp = timestamp;
-            this.value = value;
-        }
-
-        public CounterValue(Metric m) {
-            this(m.getTimestamp(), m.getNumberValue().doubleValue());
-        }
-
-        public long getTimestamp() {
-            return timestamp;
-        }
-
-        public double computeRate(Metric m) {
-            final long currentTimestamp = m.getTimestamp();
-            final double currentValue = m.getNumberValue().doubleValue();
-
-            final long durationMillis = currentTimestamp - timestamp;
-            final double delta = currentValue - value;
-
-            timestamp = currentTimestamp;
-            value = currentValue;
-
-            return computeRate(durationMillis, delta);
-        }
-
-        private double computeRate(long durationMillis, double delta) {
-            final double millisPerSecond = 1000.0;
-            final double duration = durationMillis / millisPerSecond;
-            return (duration <= 0.0 || delta <= 0.0) ? 0.0 : delta / duration;
-        }
-
-        @Override
-        public String toString() {
-            return "CounterValue{" + "timestamp=" + timestamp + ", value=" + value + '}';
+    private long keyOf(String metricName, Map<?, ?> event) {
+        long hash = FNV_OFFSET_BASIS;
+        List<String> dimensionFields = metricDescriptor.getDimensionFields();
+        if (dimensionFields != null) {
+            for (int i = 0; i < dimensionFields.size(); i++) {
+                hash = hash(hash, event.get(dimensionFields.get(i)));
+            }
         }
+        hash = hash(hash, metricName);
+        // murmur3 finalizer, spreading the bits used to pick a slot
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
     }
 
-
-    protected final class Metric {
-        private final String metricName;
-        private final long timestamp;
-        private final Object value;
-
-        public Metric(String metricName, long timestamp, Object value) {
-            this.metricName = Preconditions.checkNotNull(metricName, "metricName");
-            this.timestamp = timestamp;
-            this.value = Preconditions.checkNotNull(value, "value");
-        }
-
-        public String getMetricName() {
-            return metricName;
-        }
-
-        public long getTimestamp() {
-            return timestamp;
-        }
-
-        public Object getValue() {
-            return value;
-        }
-
-        public Number getNumberValue() {
-            return (Number) value;
-        }
-
-        public boolean hasNumberValue() {
-            return (value instanceof Number);
-        }
-
-        public boolean isCounter() {
-            return metricName.endsWith("count");
-        }
-
-        @Override
-        public boolean equals(Object obj) {
-            if (obj == null || !(obj instanceof Metric)) {
-                return false;
+    private static long hash(long hash, Object value) {
+        if (value instanceof CharSequence) {
+            CharSequence chars = (CharSequence) value;
+            for (int i = 0; i < chars.length(); i++) {
+                hash = (hash ^ chars.charAt(i)) * FNV_PRIME;
             }
-            Metric m = (Metric) obj;
-            return metricName.equals(m.getMetricName())
-                && timestamp == m.getTimestamp()
-                && value.equals(m.getValue());
-        }
-
-        @Override
-        public int hashCode() {
-            int result = metricName.hashCode();
-            result = 31 * result + (int) (timestamp ^ (timestamp >>> 32));
-            result = 31 * result + value.hashCode();
-            return result;
+        } else if (value != null) {
+            hash = (hash ^ value.hashCode()) * FNV_PRIME;
         }
+        return (hash ^ SEPARATOR) * FNV_PRIME;
+    }
 
-        @Override
-        public String toString() {
-            return "Metric{metricName=" + metricName + ", timestamp=" + timestamp + ", value=" + value + '}';
+    private double getCurrentValue(Map<?, ?> event) {
+        Object value = event.get(metricDescriptor.getValueField());
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
         }
+        LOG.warn("Event has no value field '{}': {}, use 0 by default", metricDescriptor.getValueField(), event);
+        return 0;
     }
 
-    private class DefaultCountMetricFilter implements CountMetricFilter {
-        @Override
-        public Boolean apply(String metricName) {
-            return metricName.endsWith("count");
+    /**
+     * @return rate per second, or NaN if the counter was reset.
+     */
+    static double computeRate(long durationMillis, double previous, double current) {
+        if (durationMillis <= 0) {
+            return 0.0;
+        }
+        double delta = current - previous;
+        if (delta < 0) {
+            if (previous > 0 && current < 0) {
+                // signed 64 bit wraparound
+                delta += UINT64_RANGE;
+            } else if (previous < UINT32_RANGE && previous >= UINT32_RANGE - UINT32_WRAP_MARGIN
+                && current >= 0 && current < UINT32_WRAP_MARGIN) {
+                // unsigned 32 bit wraparound
+                delta += UINT32_RANGE;
+            } else {
+                // reset, e.g. the process restarted
+                return Double.NaN;
+            }
         }
+        return delta / (durationMillis / 1000.0);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.eagle.app.environment.builder;
+
+import java.util.Arrays;
+
+/**
+ * Last timestamp and value of each counter, keyed by a 64 bit hash in an open-addressed table with linear
+ * probing, so neither lookups nor updates allocate. A counter not seen for ttl, by the processing time passed
+ * as now rather than by its event timestamp, is expired: it is dropped when looked up, and all expired counters
+ * are purged before the table grows.
+ */
+class CounterValueTable {
+    private static final long EMPTY = 0L;
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private final long ttlMillis;
+    private long[] keys;
+    private long[] timestamps;
+    private double[] values;
+    private long[] lastSeen;
+    private int size = 0;
+
+    CounterValueTable(long ttlMillis) {
+        this(ttlMillis, DEFAULT_CAPACITY);
+    }
+
+    CounterValueTable(long ttlMillis, int initialCapacity) {
+        this.ttlMillis = ttlMillis;
+        int capacity = Integer.highestOneBit(Math.max(initialCapacity, 4) - 1) << 1;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        timestamps = new long[capacity];
+        values = new double[capacity];
+        lastSeen = new long[capacity];
+        size = 0;
+    }
+
+    /**
+     * EMPTY marks a free slot, so a key hashing to it is moved aside.
+     */
+    private static long normalize(long key) {
+        return key == EMPTY ? 1L : key;
+    }
+
+    private int slotOf(long key) {
+        int mask = keys.length - 1;
+        int slot = (int) (key ^ (key >>> 32)) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private boolean isExpired(int slot, long now) {
+        return now - lastSeen[slot] > ttlMillis;
+    }
+
+    /**
+     * @return slot of the live counter, or -1 if absent or expired.
+     */
+    int find(long key, long now) {
+        key = normalize(key);
+        int slot = slotOf(key);
+        if (keys[slot] == EMPTY) {
+            return -1;
+        }
+        if (isExpired(slot, now)) {
+            removeAt(slot);
+            return -1;
+        }
+        return slot;
+    }
+
+    long timestampAt(int slot) {
+        return timestamps[slot];
+    }
+
+    double valueAt(int slot) {
+        return values[slot];
+    }
+
+    void updateAt(int slot, long timestamp, double value, long now) {
+        timestamps[slot] = timestamp;
+        values[slot] = value;
+        lastSeen[slot] = now;
+    }
+
+    void put(long key, long timestamp, double value, long now) {
+        key = normalize(key);
+        int slot = slotOf(key);
+        if (keys[slot] == EMPTY) {
+            if ((size + 1) * 2 > keys.length) {
+                purgeExpired(now);
+                if ((size + 1) * 2 > keys.length) {
+                    rehash(keys.length * 2, Long.MIN_VALUE);
+                }
+                slot = slotOf(key);
+            }
+            keys[slot] = key;
+            size++;
+        }
+        updateAt(slot, timestamp, value, now);
+    }
+
+    /**
+     * Drop all expired counters.
+     */
+    void purgeExpired(long now) {
+        rehash(keys.length, now);
+    }
+
+    private void rehash(int capacity, long now) {
+        long[] oldKeys = keys;
+        long[] oldTimestamps = timestamps;
+        double[] oldValues = values;
+        long[] oldLastSeen = lastSeen;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY && (now == Long.MIN_VALUE || now - oldLastSeen[i] <= ttlMillis)) {
+                int slot = slotOf(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                timestamps[slot] = oldTimestamps[i];
+                values[slot] = oldValues[i];
+                lastSeen[slot] = oldLastSeen[i];
+                size++;
+            }
+        }
+    }
+
+    /**
+     * Backward shift deletion, moving later entries of the probe sequence into the hole so lookups never
+     * stop early.
+     */
+    private void removeAt(int slot) {
+        int mask = keys.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = (int) (keys[next] ^ (keys[next] >>> 32)) & mask;
+            // move the entry if its home is not within (hole, next]
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                timestamps[hole] = timestamps[next];
+                values[hole] = values[next];
+                lastSeen[hole] = lastSeen[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = EMPTY;
+        size--;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return keys.length;
+    }
+
+    void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+}
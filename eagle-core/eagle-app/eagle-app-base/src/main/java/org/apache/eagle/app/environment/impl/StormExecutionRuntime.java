@@ -37,6 +37,9 @@ import org.slf4j.LoggerFactory;
 import scala.Int;
 import storm.trident.spout.RichSpoutBatchExecutor;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -184,42 +187,85 @@ public class StormExecutionRuntime implements ExecutionRuntime<StormEnvironment,
 
     @Override
     public ApplicationEntity.Status status(Application<StormEnvironment, StormTopology> executor, com.typesafe.config.Config config) {
-        String appId = config.getString("appId");
-        LOG.info("Fetching {} status", appId);
-        List<TopologySummary> topologySummaries ;
-        ApplicationEntity.Status status = null;
-        try {
-            if (Objects.equals(config.getString("mode"), ApplicationEntity.Mode.CLUSTER.name())) {
-                Nimbus.Client stormClient = NimbusClient.getConfiguredClient(getStormConfig(config)).getClient();
-                topologySummaries = stormClient.getClusterInfo().get_topologies();
-            } else {
-                topologySummaries = getLocalCluster().getClusterInfo().get_topologies();
-            }
+        return status(Collections.singletonList(executor), Collections.singletonList(config)).get(0);
+    }
 
-            for (TopologySummary topologySummary : topologySummaries) {
-                if (topologySummary.get_name().equalsIgnoreCase(appId)) {
-                    if (topologySummary.get_status().equalsIgnoreCase("ACTIVE")) {
-                        status = ApplicationEntity.Status.RUNNING;
-                    } else if (topologySummary.get_status().equalsIgnoreCase("INACTIVE")) {
-                        status = ApplicationEntity.Status.STOPPED;
-                    } else if (topologySummary.get_status().equalsIgnoreCase("KILLED")) {
-                        status = ApplicationEntity.Status.STOPPING;
-                    } else {
-                        LOG.error("Unknown storm topology ({}) status: {}", topologySummary.get_status(),topologySummary.get_status());
-                        status = ApplicationEntity.Status.UNKNOWN;
-                    }
+    /**
+     * Topology summaries are fetched once per storm cluster and indexed by topology name,
+     * instead of once per application.
+     */
+    @Override
+    public List<ApplicationEntity.Status> status(List<Application<StormEnvironment, StormTopology>> executors, List<com.typesafe.config.Config> configs) {
+        // topology status by name of each storm cluster, null if the cluster is unreachable
+        Map<String, Map<String, ApplicationEntity.Status>> clusterTopologies = new HashMap<>();
+        List<ApplicationEntity.Status> statuses = new ArrayList<>(configs.size());
+        for (com.typesafe.config.Config config : configs) {
+            String appId = config.getString("appId");
+            String cluster = getClusterKey(config);
+            if (!clusterTopologies.containsKey(cluster)) {
+                try {
+                    clusterTopologies.put(cluster, getTopologyStatus(config));
+                } catch (TException e) {
+                    LOG.error("Got error to fetch topologies of storm cluster {}", cluster, e);
+                    clusterTopologies.put(cluster, null);
                 }
             }
-            //If not exist, return removed
-            if (status == null) {
-                status = ApplicationEntity.Status.REMOVED;
+            Map<String, ApplicationEntity.Status> topologies = clusterTopologies.get(cluster);
+            ApplicationEntity.Status status;
+            if (topologies == null) {
+                status = ApplicationEntity.Status.UNKNOWN;
+            } else {
+                status = topologies.get(appId.toLowerCase());
+                //If not exist, return removed
+                if (status == null) {
+                    status = ApplicationEntity.Status.REMOVED;
+                }
+            }
+            LOG.debug("{} status is {}", appId, status);
+            statuses.add(status);
+        }
+        LOG.info("Fetched status of {} applications from {} storm clusters", configs.size(), clusterTopologies.size());
+        return statuses;
+    }
+
+    private String getClusterKey(com.typesafe.config.Config config) {
+        if (Objects.equals(config.getString("mode"), ApplicationEntity.Mode.CLUSTER.name())) {
+            Config conf = getStormConfig(config);
+            return conf.get(Config.NIMBUS_HOST) + ":" + conf.get(Config.NIMBUS_THRIFT_PORT);
+        }
+        return ApplicationEntity.Mode.LOCAL.name();
+    }
+
+    private Map<String, ApplicationEntity.Status> getTopologyStatus(com.typesafe.config.Config config) throws TException {
+        List<TopologySummary> topologySummaries;
+        if (Objects.equals(config.getString("mode"), ApplicationEntity.Mode.CLUSTER.name())) {
+            NimbusClient nimbusClient = NimbusClient.getConfiguredClient(getStormConfig(config));
+            try {
+                topologySummaries = nimbusClient.getClient().getClusterInfo().get_topologies();
+            } finally {
+                nimbusClient.close();
             }
-        } catch (TException e) {
-            LOG.error("Got error to fetch status of {}", appId, e);
-            status = ApplicationEntity.Status.UNKNOWN;
+        } else {
+            topologySummaries = getLocalCluster().getClusterInfo().get_topologies();
+        }
+        Map<String, ApplicationEntity.Status> topologies = new HashMap<>(topologySummaries.size());
+        for (TopologySummary topologySummary : topologySummaries) {
+            topologies.put(topologySummary.get_name().toLowerCase(), getTopologyStatus(topologySummary));
+        }
+        return topologies;
+    }
+
+    private static ApplicationEntity.Status getTopologyStatus(TopologySummary topologySummary) {
+        if (topologySummary.get_status().equalsIgnoreCase("ACTIVE")) {
+            return ApplicationEntity.Status.RUNNING;
+        } else if (topologySummary.get_status().equalsIgnoreCase("INACTIVE")) {
+            return ApplicationEntity.Status.STOPPED;
+        } else if (topologySummary.get_status().equalsIgnoreCase("KILLED")) {
+            return ApplicationEntity.Status.STOPPING;
+        } else {
+            LOG.error("Unknown storm topology ({}) status: {}", topologySummary.get_name(), topologySummary.get_status());
+            return ApplicationEntity.Status.UNKNOWN;
         }
-        LOG.info("{} status is {}", appId, status);
-        return status;
     }
 
     public static class Provider implements ExecutionRuntimeProvider<StormEnvironment,StormTopology> {
@@ -41,7 +41,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
@@ -199,6 +202,34 @@ public class ApplicationAction implements Serializable {
         return this.runtime.status(this.application, this.effectiveConfig);
     }
 
+    /**
+     * Check status of several applications, those sharing the same runtime are checked together.
+     *
+     * @return status by application uuid
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, ApplicationEntity.Status> getStatus(Collection<ApplicationAction> actions) {
+        Map<ExecutionRuntime, List<ApplicationAction>> actionsByRuntime = new IdentityHashMap<>();
+        for (ApplicationAction action : actions) {
+            actionsByRuntime.computeIfAbsent(action.runtime, runtime -> new ArrayList<>()).add(action);
+        }
+        Map<String, ApplicationEntity.Status> statuses = new HashMap<>(actions.size());
+        for (Map.Entry<ExecutionRuntime, List<ApplicationAction>> entry : actionsByRuntime.entrySet()) {
+            List<ApplicationAction> runtimeActions = entry.getValue();
+            List<Application> executors = new ArrayList<>(runtimeActions.size());
+            List<Config> configs = new ArrayList<>(runtimeActions.size());
+            for (ApplicationAction action : runtimeActions) {
+                executors.add(action.application);
+                configs.add(action.effectiveConfig);
+            }
+            List<ApplicationEntity.Status> runtimeStatuses = entry.getKey().status(executors, configs);
+            for (int i = 0; i < runtimeActions.size(); i++) {
+                statuses.put(runtimeActions.get(i).metadata.getUuid(), runtimeStatuses.get(i));
+            }
+        }
+        return statuses;
+    }
+
     public ApplicationEntity getMetadata() {
         return metadata;
     }
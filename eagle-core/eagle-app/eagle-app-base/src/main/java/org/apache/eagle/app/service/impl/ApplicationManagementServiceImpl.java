@@ -33,6 +33,8 @@ import org.apache.eagle.metadata.service.SiteEntityService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -257,4 +259,24 @@ public class ApplicationManagementServiceImpl implements ApplicationManagementSe
             throw e;
         }
     }
+
+    /**
+     * Get status of executable applications, checked in batch by execution runtime.
+     *
+     * @return status by application uuid
+     */
+    public Map<String, ApplicationEntity.Status> getStatus(Collection<ApplicationEntity> applicationEntities) {
+        List<ApplicationAction> applicationActions = new ArrayList<>(applicationEntities.size());
+        for (ApplicationEntity applicationEntity : applicationEntities) {
+            try {
+                Application application = applicationProviderService.getApplicationProviderByType(applicationEntity.getDescriptor().getType()).getApplication();
+                if (application.isExecutable()) {
+                    applicationActions.add(new ApplicationAction(application, applicationEntity, config, alertMetadataService));
+                }
+            } catch (RuntimeException e) {
+                LOGGER.error("Failed to check status of application {}", applicationEntity.getAppId(), e);
+            }
+        }
+        return ApplicationAction.getStatus(applicationActions);
+    }
 }
\ No newline at end of file
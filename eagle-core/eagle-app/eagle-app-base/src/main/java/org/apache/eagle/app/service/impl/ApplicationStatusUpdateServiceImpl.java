@@ -25,7 +25,11 @@ import org.apache.eagle.metadata.service.ApplicationStatusUpdateService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 @Singleton
@@ -45,6 +49,9 @@ public class ApplicationStatusUpdateServiceImpl extends ApplicationStatusUpdateS
         this.applicationManagementService = applicationManagementService;
     }
 
+    /**
+     * Check status of all executable applications in one batch, and persist only changed ones.
+     */
     @Override
     protected void runOneIteration() throws Exception {
         LOG.info("Updating application status");
@@ -54,12 +61,14 @@ public class ApplicationStatusUpdateServiceImpl extends ApplicationStatusUpdateS
                 LOG.info("No application installed yet");
                 return;
             }
+            List<ApplicationEntity> executableEntities = new ArrayList<>(applicationEntities.size());
             for (ApplicationEntity applicationEntity : applicationEntities) {
                 if (applicationEntity.getDescriptor().isExecutable()) {
-                    updateApplicationEntityStatus(applicationEntity);
+                    executableEntities.add(applicationEntity);
                 }
             }
-            LOG.info("Updated {} application status", applicationEntities.size());
+            int changed = updateApplicationEntityStatus(executableEntities);
+            LOG.info("Checked {} application status, {} changed", executableEntities.size(), changed);
         } catch (Exception e) {
             LOG.error("Failed to update application status", e);
         }
@@ -72,61 +81,67 @@ public class ApplicationStatusUpdateServiceImpl extends ApplicationStatusUpdateS
 
     @Override
     public void updateApplicationEntityStatus(ApplicationEntity applicationEntity) {
-        String appUuid = applicationEntity.getUuid();
-        ApplicationEntity.Status preStatus = applicationEntity.getStatus();
         try {
-            ApplicationEntity.Status currentStatus = applicationManagementService.getStatus(new ApplicationOperations.CheckStatusOperation(appUuid));
-            if (preStatus == ApplicationEntity.Status.STARTING) {
-                if (currentStatus == ApplicationEntity.Status.RUNNING) {
-                    // applicationEntityService.delete(applicationEntity);
-                    // applicationEntity.setStatus(ApplicationEntity.Status.RUNNING);
-                    // applicationEntityService.create(applicationEntity);
-                    currentStatus = ApplicationEntity.Status.RUNNING;
-                    // handle the topology corruption case:
-                } else if (currentStatus == ApplicationEntity.Status.REMOVED) {
-                    // applicationEntityService.delete(applicationEntity);
-                    // applicationEntity.setStatus(ApplicationEntity.Status.INITIALIZED);
-                    // applicationEntityService.create(applicationEntity);
-                    currentStatus = ApplicationEntity.Status.INITIALIZED;
-                }
-            } else if (preStatus == ApplicationEntity.Status.STOPPING) {
-                if (currentStatus == ApplicationEntity.Status.REMOVED) {
-                    // applicationEntityService.delete(applicationEntity);
-                    // applicationEntity.setStatus(ApplicationEntity.Status.INITIALIZED);
-                    // applicationEntityService.create(applicationEntity);
-                    currentStatus = ApplicationEntity.Status.INITIALIZED;
-                }
-            } else if (preStatus == ApplicationEntity.Status.RUNNING) {
-                // handle the topology corruption case:
-                if (currentStatus == ApplicationEntity.Status.REMOVED) {
-                    // applicationEntityService.delete(applicationEntity);
-                    // applicationEntity.setStatus(ApplicationEntity.Status.INITIALIZED);
-                    // applicationEntityService.create(applicationEntity);
-                    currentStatus = ApplicationEntity.Status.INITIALIZED;
-                }
-            } else if (preStatus == ApplicationEntity.Status.INITIALIZED) {
-                //corner case: when Storm service go down, app status-> initialized,
-                //then when storm server is up again, storm topology will be launched automatically->active
-                if (currentStatus == ApplicationEntity.Status.RUNNING) {
-                    // applicationEntityService.delete(applicationEntity);
-                    // applicationEntity.setStatus(ApplicationEntity.Status.RUNNING);
-                    // applicationEntityService.create(applicationEntity);
-                    currentStatus = ApplicationEntity.Status.RUNNING;
-                }
-            }
+            updateApplicationEntityStatus(Collections.singletonList(applicationEntity));
+        } catch (RuntimeException e) {
+            LOG.error(e.getMessage(), e);
+        }
+    }
 
-            if (currentStatus == ApplicationEntity.Status.REMOVED) {
-                currentStatus = ApplicationEntity.Status.INITIALIZED;
+    /**
+     * @return number of entities whose status changed
+     */
+    private int updateApplicationEntityStatus(Collection<ApplicationEntity> applicationEntities) {
+        Map<String, ApplicationEntity.Status> currentStatuses = applicationManagementService.getStatus(applicationEntities);
+        List<ApplicationEntity> changedEntities = new ArrayList<>();
+        for (ApplicationEntity applicationEntity : applicationEntities) {
+            ApplicationEntity.Status currentStatus = currentStatuses.get(applicationEntity.getUuid());
+            if (currentStatus == null) {
+                continue;
             }
-
+            ApplicationEntity.Status preStatus = applicationEntity.getStatus();
+            currentStatus = resolveStatus(preStatus, currentStatus);
             // "STOPPED" is not used in Eagle, so just do nothing.
             if (preStatus != currentStatus) {
                 LOG.info("Application {} status changed from {} to {}", applicationEntity.getAppId(), preStatus, currentStatus);
+                applicationEntity.setStatus(currentStatus);
+                changedEntities.add(applicationEntity);
             }
-            applicationEntity.setStatus(currentStatus);
-            applicationEntityService.update(applicationEntity);
-        } catch (RuntimeException e) {
-            LOG.error(e.getMessage(), e);
         }
+        if (!changedEntities.isEmpty()) {
+            applicationEntityService.updateStatus(changedEntities);
+        }
+        return changedEntities.size();
+    }
+
+    static ApplicationEntity.Status resolveStatus(ApplicationEntity.Status preStatus, ApplicationEntity.Status currentStatus) {
+        if (preStatus == ApplicationEntity.Status.STARTING) {
+            if (currentStatus == ApplicationEntity.Status.RUNNING) {
+                currentStatus = ApplicationEntity.Status.RUNNING;
+                // handle the topology corruption case:
+            } else if (currentStatus == ApplicationEntity.Status.REMOVED) {
+                currentStatus = ApplicationEntity.Status.INITIALIZED;
+            }
+        } else if (preStatus == ApplicationEntity.Status.STOPPING) {
+            if (currentStatus == ApplicationEntity.Status.REMOVED) {
+                currentStatus = ApplicationEntity.Status.INITIALIZED;
+            }
+        } else if (preStatus == ApplicationEntity.Status.RUNNING) {
+            // handle the topology corruption case:
+            if (currentStatus == ApplicationEntity.Status.REMOVED) {
+                currentStatus = ApplicationEntity.Status.INITIALIZED;
+            }
+        } else if (preStatus == ApplicationEntity.Status.INITIALIZED) {
+            //corner case: when Storm service go down, app status-> initialized,
+            //then when storm server is up again, storm topology will be launched automatically->active
+            if (currentStatus == ApplicationEntity.Status.RUNNING) {
+                currentStatus = ApplicationEntity.Status.RUNNING;
+            }
+        }
+
+        if (currentStatus == ApplicationEntity.Status.REMOVED) {
+            currentStatus = ApplicationEntity.Status.INITIALIZED;
+        }
+        return currentStatus;
     }
 }
\ No newline at end of file
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.app.environment;
+
+import backtype.storm.generated.StormTopology;
+import backtype.storm.testing.TestWordSpout;
+import backtype.storm.topology.TopologyBuilder;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import org.apache.eagle.app.Application;
+import org.apache.eagle.app.StormApplication;
+import org.apache.eagle.app.environment.impl.StormEnvironment;
+import org.apache.eagle.app.environment.impl.StormExecutionRuntime;
+import org.apache.eagle.metadata.model.ApplicationEntity;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+public class StormExecutionRuntimeTest {
+
+    @Test
+    public void testBatchStatusWithLocalCluster() {
+        StormExecutionRuntime runtime = new StormExecutionRuntime();
+        runtime.prepare(new StormEnvironment(ConfigFactory.load()));
+        Application<StormEnvironment, StormTopology> application = new WordSpoutApplication();
+        Config runningConfig = getConfig("status_running_app");
+        Config removedConfig = getConfig("status_removed_app");
+
+        runtime.start(application, runningConfig);
+        try {
+            List<ApplicationEntity.Status> statuses = runtime.status(Arrays.asList(application, application), Arrays.asList(runningConfig, removedConfig));
+            Assert.assertEquals(Arrays.asList(ApplicationEntity.Status.RUNNING, ApplicationEntity.Status.REMOVED), statuses);
+            Assert.assertEquals(ApplicationEntity.Status.RUNNING, runtime.status(application, runningConfig));
+        } finally {
+            runtime.stop(application, runningConfig);
+        }
+    }
+
+    private static Config getConfig(String appId) {
+        return ConfigFactory.parseMap(new HashMap<String, String>() {
+            {
+                put("appId", appId);
+                put("mode", ApplicationEntity.Mode.LOCAL.name());
+            }
+        });
+    }
+
+    private static class WordSpoutApplication extends StormApplication {
+        @Override
+        public StormTopology execute(Config config, StormEnvironment environment) {
+            TopologyBuilder builder = new TopologyBuilder();
+            builder.setSpout("word_spout", new TestWordSpout(false));
+            return builder.createTopology();
+        }
+    }
+}
@@ -26,7 +26,6 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
@@ -68,11 +67,12 @@ public class CounterToRateFunctionTest {
     }
 
 
-    @Test
-    public void testToMetricAndCounterValue() throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
-        long baseTime = System.currentTimeMillis() + 100000L;
+    private static final String TOTAL_REQUEST_COUNT = "hadoop.hbase.regionserver.server.totalrequestcount";
+    private static final String READER_REQUEST_COUNT = "hadoop.hbase.regionserver.server.readerrequestcount";
+    private static final String WRITER_REQUEST_COUNT = "hadoop.hbase.regionserver.server.writerrequestcount";
 
-        MetricDescriptor metricDefinition = MetricDescriptor
+    private MetricDescriptor mkMetricDescriptor() {
+        return MetricDescriptor
             .metricGroupByField("group")
             .siteAs("siteId")
             .namedByField("metric")
@@ -80,32 +80,10 @@ public class CounterToRateFunctionTest {
             .dimensionFields("host", "component", "site")
             .granularity(Calendar.MINUTE)
             .valueField("value");
-        CounterToRateFunction counterToRateFunction = new CounterToRateFunction(metricDefinition, 3, TimeUnit.MINUTES, ClockWithOffset.INSTANCE);
-
-        Map event = mkCountTypeEvent((baseTime + 0), 374042741.0);
-        Method toMetricMethod = counterToRateFunction.getClass().getDeclaredMethod("toMetric", Map.class);
-        toMetricMethod.setAccessible(true);
-        CounterToRateFunction.Metric metric = (CounterToRateFunction.Metric) toMetricMethod.invoke(counterToRateFunction, event);
-        Assert.assertEquals("xxx-xxx.int.xxx.com-hbasemaster-sandbox-hadoop.hbase.regionserver.server.totalrequestcount", metric.getMetricName());
-        Assert.assertEquals(374042741.0, Double.valueOf(metric.getValue().toString()), 0.00001);
-        Assert.assertEquals(374042741.0, metric.getNumberValue().doubleValue(), 0.00001);
-        Assert.assertTrue(metric.isCounter());
-
-
-        event = mkOtherTypeEvent((baseTime + 0), 100);
-        metric = (CounterToRateFunction.Metric) toMetricMethod.invoke(counterToRateFunction, event);
-        Assert.assertEquals("xxx-xxx.int.xxx.com-hbasemaster-sandbox-hadoop.memory.heapmemoryusage.used", metric.getMetricName());
-        Assert.assertEquals(100, Double.valueOf(metric.getValue().toString()), 0.00001);
-        Assert.assertEquals(100, metric.getNumberValue().doubleValue(), 0.00001);
-        Assert.assertTrue(!metric.isCounter());
-
-
     }
 
-    @Test
-    public void testTransformToRate() throws NoSuchFieldException, IllegalAccessException {
-        List<Map> result = new ArrayList<>();
-        OutputCollector collector = new OutputCollector(new IOutputCollector() {
+    private OutputCollector mkCollector(List<Map> result) {
+        return new OutputCollector(new IOutputCollector() {
             @Override
             public List<Integer> emit(String streamId, Collection<Tuple> anchors, List<Object> tuple) {
                 result.add((Map) tuple.get(1));
@@ -132,41 +110,68 @@ public class CounterToRateFunctionTest {
 
             }
         });
-        MetricDescriptor metricDefinition = MetricDescriptor
-            .metricGroupByField("group")
-            .siteAs("siteId")
-            .namedByField("metric")
-            .eventTimeByField("timestamp")
-            .dimensionFields("host", "component", "site")
-            .granularity(Calendar.MINUTE)
-            .valueField("value");
-        CounterToRateFunction counterToRateFunction = new CounterToRateFunction(metricDefinition, 3, TimeUnit.MINUTES, ClockWithOffset.INSTANCE);
-        counterToRateFunction.open(new StormOutputCollector(collector));
+    }
+
+    private long keyOf(CounterToRateFunction function, Map event) throws Exception {
+        Method keyOfMethod = function.getClass().getDeclaredMethod("keyOf", String.class, Map.class);
+        keyOfMethod.setAccessible(true);
+        return (long) keyOfMethod.invoke(function, event.get("metric"), event);
+    }
+
+    private CounterValueTable getTable(CounterToRateFunction function) throws Exception {
+        Field tableField = function.getClass().getDeclaredField("table");
+        tableField.setAccessible(true);
+        return (CounterValueTable) tableField.get(function);
+    }
+
+    private String counterValueOf(CounterToRateFunction function, String metric, long now) throws Exception {
+        long key = keyOf(function, mkCountTypeEventWithMetricName(0, 0, metric));
+        CounterValueTable table = getTable(function);
+        int slot = table.find(key, now);
+        return slot < 0 ? null : String.format("CounterValue{timestamp=%d, value=%.1f}", table.timestampAt(slot), table.valueAt(slot));
+    }
+
+    @Test
+    public void testCounterKey() throws Exception {
+        CounterToRateFunction counterToRateFunction = new CounterToRateFunction(mkMetricDescriptor(), 3, TimeUnit.MINUTES, ClockWithOffset.INSTANCE);
+        long baseTime = System.currentTimeMillis();
+
+        long key = keyOf(counterToRateFunction, mkCountTypeEvent(baseTime, 374042741.0));
+        // same series at another time and value
+        Assert.assertEquals(key, keyOf(counterToRateFunction, mkCountTypeEvent(baseTime + 5000, 1.0)));
+        Assert.assertNotEquals(key, keyOf(counterToRateFunction, mkCountTypeEventWithMetricName(baseTime, 1.0, READER_REQUEST_COUNT)));
+
+        Map event = mkCountTypeEvent(baseTime, 1.0);
+        event.put("host", "xxx-xxx.int.xxx.comh");
+        event.put("component", "basemaster");
+        Assert.assertNotEquals(key, keyOf(counterToRateFunction, event));
+        event.remove("host");
+        Assert.assertNotEquals(key, keyOf(counterToRateFunction, event));
+    }
+
+    @Test
+    public void testTransformToRate() throws Exception {
+        List<Map> result = new ArrayList<>();
+        CounterToRateFunction counterToRateFunction = new CounterToRateFunction(mkMetricDescriptor(), 3, TimeUnit.MINUTES, ClockWithOffset.INSTANCE);
+        counterToRateFunction.open(new StormOutputCollector(mkCollector(result)));
         long baseTime = System.currentTimeMillis() + 100000L;
         //put first count sample
         Map event = mkCountTypeEvent((baseTime + 0), 374042741.0);
         counterToRateFunction.transform(event);
         Assert.assertTrue(result.isEmpty());
 
-        Field cacheField = counterToRateFunction.getClass().getDeclaredField("cache");
-        cacheField.setAccessible(true);
-        Map<String, CounterToRateFunction.CounterValue> cache = (Map<String, CounterToRateFunction.CounterValue>) cacheField.get(counterToRateFunction);
-        Assert.assertTrue(cache.size() == 1);
-
-        CounterToRateFunction.CounterValue counterValue = cache.get("xxx-xxx.int.xxx.com-hbasemaster-sandbox-hadoop.hbase.regionserver.server.totalrequestcount");
-        Assert.assertEquals((long) event.get("timestamp"), counterValue.getTimestamp());
-        Field valueField = counterValue.getClass().getDeclaredField("value");
-        valueField.setAccessible(true);
-        double value = (double) valueField.get(counterValue);
-        Assert.assertEquals(374042741.0, value, 0.00001);
+        CounterValueTable table = getTable(counterToRateFunction);
+        Assert.assertTrue(table.size() == 1);
+        Assert.assertEquals("CounterValue{timestamp=" + baseTime + ", value=374042741.0}",
+            counterValueOf(counterToRateFunction, TOTAL_REQUEST_COUNT, baseTime));
         result.clear();
         //put not count sample
         event = mkOtherTypeEvent((baseTime + 0), 100);
         counterToRateFunction.transform(event);
         Assert.assertTrue(result.size() == 1);
-        Assert.assertTrue(cache.size() == 1);
-        Assert.assertEquals(baseTime + 0, counterValue.getTimestamp());
-        Assert.assertEquals(374042741.0, value, 0.00001);
+        Assert.assertTrue(table.size() == 1);
+        Assert.assertEquals("CounterValue{timestamp=" + baseTime + ", value=374042741.0}",
+            counterValueOf(counterToRateFunction, TOTAL_REQUEST_COUNT, baseTime));
 
         Assert.assertEquals("hadoop.memory.heapmemoryusage.used", event.get("metric"));
         Assert.assertEquals(100, (Double) event.get("value"), 0.00001);
@@ -180,9 +185,8 @@ public class CounterToRateFunctionTest {
         Map transedEvent = result.get(0);
         Assert.assertEquals(baseTime + 5000, transedEvent.get("timestamp"));
         Assert.assertEquals(2.0, (double) transedEvent.get("value"), 0.00001);
-        Assert.assertEquals(baseTime + 5000, counterValue.getTimestamp());
-        value = (double) valueField.get(counterValue);
-        Assert.assertEquals(374042751.0, value, 0.00001);
+        Assert.assertEquals("CounterValue{timestamp=" + (baseTime + 5000) + ", value=374042751.0}",
+            counterValueOf(counterToRateFunction, TOTAL_REQUEST_COUNT, baseTime));
         result.clear();
 
         //delta of 15 in 5 seconds
@@ -193,9 +197,8 @@ public class CounterToRateFunctionTest {
         transedEvent = result.get(0);
         Assert.assertEquals(baseTime + 10000, transedEvent.get("timestamp"));
         Assert.assertEquals(3.0, (double) transedEvent.get("value"), 0.00001);
-        Assert.assertEquals(baseTime + 10000, counterValue.getTimestamp());
-        value = (double) valueField.get(counterValue);
-        Assert.assertEquals(374042766.0, value, 0.00001);
+        Assert.assertEquals("CounterValue{timestamp=" + (baseTime + 10000) + ", value=374042766.0}",
+            counterValueOf(counterToRateFunction, TOTAL_REQUEST_COUNT, baseTime));
         result.clear();
 
 
@@ -207,100 +210,95 @@ public class CounterToRateFunctionTest {
         transedEvent = result.get(0);
         Assert.assertEquals(baseTime + 15000, transedEvent.get("timestamp"));
         Assert.assertEquals(0.0, (double) transedEvent.get("value"), 0.00001);
-        Assert.assertEquals(baseTime + 15000, counterValue.getTimestamp());
-        value = (double) valueField.get(counterValue);
-        Assert.assertEquals(374042766.0, value, 0.00001);
+        Assert.assertEquals("CounterValue{timestamp=" + (baseTime + 15000) + ", value=374042766.0}",
+            counterValueOf(counterToRateFunction, TOTAL_REQUEST_COUNT, baseTime));
         result.clear();
 
-        //Decrease from previous sample
+        //Decrease from previous sample, the counter is reset and no rate is emitted
         event = mkCountTypeEvent((baseTime + 20000), 1.0);
         counterToRateFunction.transform(event);
 
+        Assert.assertTrue(result.isEmpty());
+        Assert.assertEquals("CounterValue{timestamp=" + (baseTime + 20000) + ", value=1.0}",
+            counterValueOf(counterToRateFunction, TOTAL_REQUEST_COUNT, baseTime));
+
+        //delta of 10 in 5 seconds since the reset
+        event = mkCountTypeEvent((baseTime + 25000), 11.0);
+        counterToRateFunction.transform(event);
+
         Assert.assertTrue(result.size() == 1);
-        transedEvent = result.get(0);
-        Assert.assertEquals(baseTime + 20000, transedEvent.get("timestamp"));
-        Assert.assertEquals(0.0, (double) transedEvent.get("value"), 0.00001);
-        Assert.assertEquals(baseTime + 20000, counterValue.getTimestamp());
-        value = (double) valueField.get(counterValue);
-        Assert.assertEquals(1.0, value, 0.00001);
+        Assert.assertEquals(2.0, (double) result.get(0).get("value"), 0.00001);
         result.clear();
     }
 
     @Test
-    public void testTransformToRateWithExpiration() throws NoSuchFieldException, IllegalAccessException {
-
-        MetricDescriptor metricDefinition = MetricDescriptor
-            .metricGroupByField("group")
-            .siteAs("siteId")
-            .namedByField("metric")
-            .eventTimeByField("timestamp")
-            .dimensionFields("host", "component", "site")
-            .granularity(Calendar.MINUTE)
-            .valueField("value");
+    public void testTransformToRateEveryMinute() throws Exception {
         List<Map> result = new ArrayList<>();
-        OutputCollector collector = new OutputCollector(new IOutputCollector() {
-            @Override
-            public List<Integer> emit(String streamId, Collection<Tuple> anchors, List<Object> tuple) {
-                result.add((Map) tuple.get(1));
-                return null;
-            }
-
-            @Override
-            public void emitDirect(int taskId, String streamId, Collection<Tuple> anchors, List<Object> tuple) {
-
-            }
-
-            @Override
-            public void ack(Tuple input) {
-
-            }
-
-            @Override
-            public void fail(Tuple input) {
-
-            }
-
-            @Override
-            public void reportError(Throwable error) {
+        ManualClock manualClock = new ManualClock(0);
+        CounterToRateFunction counterToRateFunction = new CounterToRateFunction(mkMetricDescriptor(), 5, TimeUnit.MINUTES, manualClock);
+        counterToRateFunction.open(new StormOutputCollector(mkCollector(result)));
+        // samples a minute apart, their event timestamps lagging behind the processing time
+        long eventTime = 1000000L;
+        for (int i = 0; i < 5; i++) {
+            manualClock.set(eventTime + 30000L + i * 60000L);
+            counterToRateFunction.transform(mkCountTypeEvent(eventTime + i * 60000L, 100.0 + i * 600));
+        }
+        Assert.assertEquals(4, result.size());
+        for (Map event : result) {
+            Assert.assertEquals(10.0, (double) event.get("value"), 0.00001);
+        }
+    }
 
-            }
-        });
+    @Test
+    public void testTransformToRateWithExpiration() throws Exception {
+        List<Map> result = new ArrayList<>();
         ManualClock manualClock = new ManualClock(0);
         manualClock.set(30000L);
-        CounterToRateFunction counterToRateFunction = new CounterToRateFunction(metricDefinition, 60, TimeUnit.SECONDS, manualClock);
-        counterToRateFunction.open(new StormOutputCollector(collector));
-        Map event = mkCountTypeEventWithMetricName(manualClock.now(), 110, "hadoop.hbase.regionserver.server.totalrequestcount");
+        CounterToRateFunction counterToRateFunction = new CounterToRateFunction(mkMetricDescriptor(), 60, TimeUnit.SECONDS, manualClock);
+        counterToRateFunction.open(new StormOutputCollector(mkCollector(result)));
+        Map event = mkCountTypeEventWithMetricName(manualClock.now(), 110, TOTAL_REQUEST_COUNT);
         counterToRateFunction.transform(event);
-        Field cacheField = counterToRateFunction.getClass().getDeclaredField("cache");
-        cacheField.setAccessible(true);
-        Map<String, CounterToRateFunction.CounterValue> cache = (Map<String, CounterToRateFunction.CounterValue>) cacheField.get(counterToRateFunction);
-        Assert.assertTrue(cache.size() == 1);
+        CounterValueTable table = getTable(counterToRateFunction);
+        Assert.assertTrue(table.size() == 1);
 
         manualClock.set(50000L);
-        event = mkCountTypeEventWithMetricName(manualClock.now(), 130, "hadoop.hbase.regionserver.server.readerrequestcount");
+        event = mkCountTypeEventWithMetricName(manualClock.now(), 130, READER_REQUEST_COUNT);
         counterToRateFunction.transform(event);
 
-        cache = (Map<String, CounterToRateFunction.CounterValue>) cacheField.get(counterToRateFunction);
-        Assert.assertEquals(2, cache.size());
-        Assert.assertEquals("CounterValue{timestamp=30000, value=110.0}", cache.get("xxx-xxx.int.xxx.com-hbasemaster-sandbox-hadoop.hbase.regionserver.server.totalrequestcount").toString());
-        Assert.assertEquals("CounterValue{timestamp=50000, value=130.0}", cache.get("xxx-xxx.int.xxx.com-hbasemaster-sandbox-hadoop.hbase.regionserver.server.readerrequestcount").toString());
+        Assert.assertEquals(2, table.size());
+        Assert.assertEquals("CounterValue{timestamp=30000, value=110.0}", counterValueOf(counterToRateFunction, TOTAL_REQUEST_COUNT, manualClock.now()));
+        Assert.assertEquals("CounterValue{timestamp=50000, value=130.0}", counterValueOf(counterToRateFunction, READER_REQUEST_COUNT, manualClock.now()));
 
+        // the total request counter is expired, so this is a first sample again
         manualClock.set(100000L);
-        event = mkCountTypeEventWithMetricName(manualClock.now(), 120, "hadoop.hbase.regionserver.server.totalrequestcount");
+        event = mkCountTypeEventWithMetricName(manualClock.now(), 120, TOTAL_REQUEST_COUNT);
         counterToRateFunction.transform(event);
+        Assert.assertTrue(result.isEmpty());
 
-        cache = (Map<String, CounterToRateFunction.CounterValue>) cacheField.get(counterToRateFunction);
-        Assert.assertEquals(2, cache.size());
-        Assert.assertEquals("CounterValue{timestamp=100000, value=120.0}", cache.get("xxx-xxx.int.xxx.com-hbasemaster-sandbox-hadoop.hbase.regionserver.server.totalrequestcount").toString());
-        Assert.assertEquals("CounterValue{timestamp=50000, value=130.0}", cache.get("xxx-xxx.int.xxx.com-hbasemaster-sandbox-hadoop.hbase.regionserver.server.readerrequestcount").toString());
+        Assert.assertEquals(2, table.size());
+        Assert.assertEquals("CounterValue{timestamp=100000, value=120.0}", counterValueOf(counterToRateFunction, TOTAL_REQUEST_COUNT, manualClock.now()));
+        Assert.assertEquals("CounterValue{timestamp=50000, value=130.0}", counterValueOf(counterToRateFunction, READER_REQUEST_COUNT, manualClock.now()));
 
+        // both of them are expired and purged
         manualClock.set(160001L);
-        event = mkCountTypeEventWithMetricName(manualClock.now(), 10, "hadoop.hbase.regionserver.server.writerrequestcount");
+        event = mkCountTypeEventWithMetricName(manualClock.now(), 10, WRITER_REQUEST_COUNT);
         counterToRateFunction.transform(event);
-        Assert.assertEquals(2, cache.size());
-        Assert.assertEquals("CounterValue{timestamp=160001, value=10.0}", cache.get("xxx-xxx.int.xxx.com-hbasemaster-sandbox-hadoop.hbase.regionserver.server.writerrequestcount").toString());
-        Assert.assertEquals("CounterValue{timestamp=50000, value=130.0}", cache.get("xxx-xxx.int.xxx.com-hbasemaster-sandbox-hadoop.hbase.regionserver.server.readerrequestcount").toString());
-
+        Assert.assertEquals(1, table.size());
+        Assert.assertEquals("CounterValue{timestamp=160001, value=10.0}", counterValueOf(counterToRateFunction, WRITER_REQUEST_COUNT, manualClock.now()));
+        Assert.assertNull(counterValueOf(counterToRateFunction, READER_REQUEST_COUNT, manualClock.now()));
+        Assert.assertNull(counterValueOf(counterToRateFunction, TOTAL_REQUEST_COUNT, manualClock.now()));
+    }
 
+    @Test
+    public void testComputeRateWithResetAndWraparound() {
+        Assert.assertEquals(2.0, CounterToRateFunction.computeRate(5000, 100, 110), 0.00001);
+        Assert.assertEquals(0.0, CounterToRateFunction.computeRate(0, 100, 110), 0.00001);
+        // reset
+        Assert.assertTrue(Double.isNaN(CounterToRateFunction.computeRate(5000, 100, 5)));
+        Assert.assertTrue(Double.isNaN(CounterToRateFunction.computeRate(5000, 3000000000.0, 5)));
+        // unsigned 32 bit wraparound
+        Assert.assertEquals(2.0, CounterToRateFunction.computeRate(5000, 4294967290.0, 4), 0.00001);
+        // signed 64 bit wraparound
+        Assert.assertEquals(2.0, CounterToRateFunction.computeRate(4096000, Math.pow(2, 63) - 4096, -Math.pow(2, 63) + 4096), 0.00001);
     }
-}
\ No newline at end of file
+}
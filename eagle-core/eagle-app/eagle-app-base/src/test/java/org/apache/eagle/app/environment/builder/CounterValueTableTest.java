@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.app.environment.builder;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CounterValueTableTest {
+
+    @Test
+    public void testPutAndFind() {
+        CounterValueTable table = new CounterValueTable(1000, 4);
+        for (long key = 1; key <= 100; key++) {
+            table.put(key, 10, key * 2.0, 10);
+        }
+        Assert.assertEquals(100, table.size());
+        Assert.assertTrue(table.capacity() >= 200);
+        for (long key = 1; key <= 100; key++) {
+            int slot = table.find(key, 10);
+            Assert.assertTrue(slot >= 0);
+            Assert.assertEquals(key * 2.0, table.valueAt(slot), 0.0);
+        }
+        Assert.assertEquals(-1, table.find(101, 10));
+
+        int slot = table.find(7, 10);
+        table.updateAt(slot, 20, 1.0, 20);
+        Assert.assertEquals(20, table.timestampAt(table.find(7, 20)));
+    }
+
+    @Test
+    public void testExpiredRemovalKeepsProbeSequence() {
+        CounterValueTable table = new CounterValueTable(1000, 64);
+        // keys sharing the home slot, probed one after another
+        long[] keys = {64, 128, 192, 256};
+        for (int i = 0; i < keys.length; i++) {
+            table.put(keys[i], 5000, i, i == 1 ? 0 : 5000);
+        }
+        // the second one is expired and removed on lookup
+        Assert.assertEquals(-1, table.find(128, 5000));
+        Assert.assertEquals(3, table.size());
+        Assert.assertEquals(2.0, table.valueAt(table.find(192, 5000)), 0.0);
+        Assert.assertEquals(3.0, table.valueAt(table.find(256, 5000)), 0.0);
+        Assert.assertEquals(0.0, table.valueAt(table.find(64, 5000)), 0.0);
+    }
+
+    @Test
+    public void testExpiryByProcessingTime() {
+        CounterValueTable table = new CounterValueTable(1000, 4);
+        // the event timestamp is far behind, but the counter was just seen
+        table.put(1, 0, 1, 100000);
+        Assert.assertEquals(0, table.timestampAt(table.find(1, 100500)));
+        table.updateAt(table.find(1, 100500), 60000, 2, 101000);
+        Assert.assertEquals(2.0, table.valueAt(table.find(1, 102000)), 0.0);
+        Assert.assertEquals(-1, table.find(1, 102001));
+    }
+
+    @Test
+    public void testPurgeExpired() {
+        CounterValueTable table = new CounterValueTable(1000, 4);
+        table.put(1, 0, 1, 0);
+        table.put(2, 500, 2, 500);
+        table.purgeExpired(1200);
+        Assert.assertEquals(1, table.size());
+        Assert.assertEquals(-1, table.find(1, 1200));
+        Assert.assertEquals(2.0, table.valueAt(table.find(2, 1200)), 0.0);
+    }
+}
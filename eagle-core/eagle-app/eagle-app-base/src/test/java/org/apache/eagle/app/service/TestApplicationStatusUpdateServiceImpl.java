@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.app.service;
+
+import org.apache.eagle.app.service.impl.ApplicationManagementServiceImpl;
+import org.apache.eagle.app.service.impl.ApplicationStatusUpdateServiceImpl;
+import org.apache.eagle.metadata.model.ApplicationDesc;
+import org.apache.eagle.metadata.model.ApplicationEntity;
+import org.apache.eagle.metadata.service.ApplicationEntityService;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.mockito.Mockito.*;
+
+public class TestApplicationStatusUpdateServiceImpl {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testUpdateOnlyChangedStatusInBatch() throws Exception {
+        ApplicationEntity running = newApplicationEntity("running_app", ApplicationEntity.Status.RUNNING);
+        ApplicationEntity starting = newApplicationEntity("starting_app", ApplicationEntity.Status.STARTING);
+        ApplicationEntity stopping = newApplicationEntity("stopping_app", ApplicationEntity.Status.STOPPING);
+        Collection<ApplicationEntity> applicationEntities = Arrays.asList(running, starting, stopping);
+
+        Map<String, ApplicationEntity.Status> statuses = new HashMap<>();
+        statuses.put(running.getUuid(), ApplicationEntity.Status.RUNNING);
+        statuses.put(starting.getUuid(), ApplicationEntity.Status.RUNNING);
+        statuses.put(stopping.getUuid(), ApplicationEntity.Status.REMOVED);
+
+        ApplicationEntityService applicationEntityService = mock(ApplicationEntityService.class);
+        when(applicationEntityService.findAll()).thenReturn(applicationEntities);
+        ApplicationManagementServiceImpl applicationManagementService = mock(ApplicationManagementServiceImpl.class);
+        when(applicationManagementService.getStatus(anyCollection())).thenReturn(statuses);
+
+        new ApplicationStatusUpdateServiceImpl(applicationEntityService, applicationManagementService) {
+            {
+                runOneIteration();
+            }
+        };
+
+        verify(applicationManagementService, times(1)).getStatus(anyCollection());
+        ArgumentCaptor<Collection> changed = ArgumentCaptor.forClass(Collection.class);
+        verify(applicationEntityService, times(1)).updateStatus(changed.capture());
+        verify(applicationEntityService, never()).update(any(ApplicationEntity.class));
+        Assert.assertEquals(Arrays.asList(starting, stopping), changed.getValue());
+        Assert.assertEquals(ApplicationEntity.Status.RUNNING, starting.getStatus());
+        Assert.assertEquals(ApplicationEntity.Status.INITIALIZED, stopping.getStatus());
+    }
+
+    private static ApplicationEntity newApplicationEntity(String appId, ApplicationEntity.Status status) {
+        ApplicationDesc applicationDesc = new ApplicationDesc();
+        applicationDesc.setType(appId.toUpperCase());
+        applicationDesc.setExecutable(true);
+        return new ApplicationEntity(null, applicationDesc, ApplicationEntity.Mode.LOCAL, status, appId + "_uuid", appId);
+    }
+}
@@ -39,6 +39,7 @@ public class URLResourceFetcher {
         for (int i = 0; i < MAX_RETRY_COUNT; i++) {
             try {
                 is = InputStreamUtils.getInputStream(url, null, compressionType);
+                break;
             } catch (Exception e) {
                 LOG.warn("fail to fetch data from {} due to {}, and try again", url, e.getMessage());
             }
@@ -23,4 +23,14 @@ import java.util.Map;
 
 public interface PartitionAlgorithm extends Serializable {
     Map<String, Integer> partition(List<Weight> weights, int k);
+
+    /**
+     * Partition incrementally from the previous routing table, so that keys stay in the same bucket unless
+     * the weights shift materially. By default the previous table is ignored.
+     *
+     * @param previous previous routing table, may be null
+     */
+    default Map<String, Integer> partition(List<Weight> weights, int k, Map<String, Integer> previous) {
+        return partition(weights, k);
+    }
 }
@@ -23,19 +23,34 @@ import org.slf4j.LoggerFactory;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Route keys by a routing table generated from the data distribution of the last timeRange.
+ *
+ * <p>The routing table is regenerated every refreshInterval on a background thread and published atomically,
+ * so {@link #balance(String, int)} never waits for the remote query. Until the first table is ready, or if a
+ * refresh fails, keys are routed by the previous table, falling back to key hash.</p>
+ */
 public class PartitionStrategyImpl implements PartitionStrategy {
 
     public DataDistributionDao dao;
     public PartitionAlgorithm algorithm;
-    public Map<String, Integer> routingTable;
-    public long lastRefreshTime;
+    public volatile Map<String, Integer> routingTable;
+    public volatile long lastRefreshTime;
     public long refreshInterval;
     public long timeRange;
     public static long DEFAULT_TIME_RANGE = 2 * DateUtils.MILLIS_PER_DAY;
     public static long DEFAULT_REFRESH_INTERVAL = 2 * DateUtils.MILLIS_PER_HOUR;
     private static final Logger LOG = LoggerFactory.getLogger(PartitionStrategyImpl.class);
 
+    private final AtomicBoolean refreshing = new AtomicBoolean(false);
+    private transient volatile ExecutorService refreshExecutor;
+    // number of buckets the current routing table is generated for
+    private volatile int routingTableBuckNum;
+
     public PartitionStrategyImpl(DataDistributionDao dao, PartitionAlgorithm algorithm, long refreshInterval, long timeRange) {
         this.dao = dao;
         this.algorithm = algorithm;
@@ -55,28 +70,79 @@ public class PartitionStrategyImpl implements PartitionStrategy {
         return false;
     }
 
+    /**
+     * Generate and publish the routing table synchronously. Keys of the previous table keep their bucket unless
+     * their weights shift materially, see {@link PartitionAlgorithm#partition(List, int, Map)}.
+     */
     public Map<String, Integer> generateRoutingTable(int buckNum) {
         try {
             long currentTime = System.currentTimeMillis();
             List<Weight> weights = dao.fetchDataDistribution(currentTime - timeRange, currentTime);
-            routingTable = algorithm.partition(weights, buckNum);
-            return routingTable;
+            Map<String, Integer> previous = routingTableBuckNum == buckNum ? routingTable : null;
+            Map<String, Integer> table = algorithm.partition(weights, buckNum, previous);
+            routingTableBuckNum = buckNum;
+            routingTable = table;
+            return table;
         } catch (Exception ex) {
             throw new RuntimeException(ex);
         }
     }
 
+    /**
+     * Trigger generateRoutingTable on the background thread unless one is already running.
+     *
+     * @return false if a refresh is already running
+     */
+    public boolean refreshAsync(int buckNum) {
+        if (!refreshing.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            getRefreshExecutor().execute(() -> {
+                try {
+                    LOG.info("Going to refresh routing table");
+                    generateRoutingTable(buckNum);
+                    LOG.info("Finish refresh routing table");
+                } catch (Throwable t) {
+                    LOG.warn("Failed to refresh routing table, keep using the previous one", t);
+                } finally {
+                    refreshing.set(false);
+                }
+            });
+        } catch (RuntimeException ex) {
+            refreshing.set(false);
+            throw ex;
+        }
+        return true;
+    }
+
+    private ExecutorService getRefreshExecutor() {
+        if (refreshExecutor == null) {
+            synchronized (this) {
+                if (refreshExecutor == null) {
+                    refreshExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                        Thread thread = new Thread(runnable, "partition-routing-table-refresher");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+            }
+        }
+        return refreshExecutor;
+    }
+
     @Override
     public int balance(String key, int buckNum) {
         if (needRefresh()) {
-            LOG.info("Going to refresh routing table");
-            routingTable = generateRoutingTable(buckNum);
-            LOG.info("Finish refresh routing table");
+            refreshAsync(buckNum);
         }
-        if (routingTable.containsKey(key)) {
-            return routingTable.get(key);
-        } else {
-            return Math.abs(key.hashCode()) % buckNum;
+        Map<String, Integer> table = routingTable;
+        if (table != null && routingTableBuckNum == buckNum) {
+            Integer bucket = table.get(key);
+            if (bucket != null && bucket < buckNum) {
+                return bucket;
+            }
         }
+        return Math.abs(key.hashCode()) % buckNum;
     }
 }
@@ -32,4 +32,11 @@ public interface ApplicationEntityService extends PersistenceService<Application
     ApplicationEntity delete(ApplicationEntity applicationEntity);
 
     ApplicationEntity update(ApplicationEntity entity);
+
+    /**
+     * Persist only status of the entities, in one batch.
+     *
+     * @return number of updated entities
+     */
+    int updateStatus(Collection<ApplicationEntity> entities);
 }
\ No newline at end of file
@@ -111,4 +111,17 @@ public class ApplicationEntityServiceMemoryImpl implements ApplicationEntityServ
         origin.updateMutable(entity);
         return origin;
     }
+
+    @Override
+    public int updateStatus(Collection<ApplicationEntity> entities) {
+        int updated = 0;
+        for (ApplicationEntity entity : entities) {
+            ApplicationEntity origin = applicationEntityMap.get(entity.getUuid());
+            if (origin != null) {
+                origin.setStatus(entity.getStatus());
+                updated++;
+            }
+        }
+        return updated;
+    }
 }
\ No newline at end of file
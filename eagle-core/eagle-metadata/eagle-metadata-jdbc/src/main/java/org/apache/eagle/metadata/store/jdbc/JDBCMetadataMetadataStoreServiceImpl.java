@@ -312,4 +312,44 @@ public class JDBCMetadataMetadataStoreServiceImpl implements JDBCMetadataQuerySe
             }
         }
     }
+
+    @Override
+    public <T, E extends Throwable> int batchUpdate(String updateSql, Collection<T> entities, ThrowableConsumer2<PreparedStatement, T, E> mapper) throws SQLException, E {
+        Connection connection = null;
+        PreparedStatement statement = null;
+        try {
+            connection = dataSource.getConnection();
+            statement = connection.prepareStatement(updateSql);
+            connection.setAutoCommit(false);
+            for (T entity : entities) {
+                mapper.accept(statement, entity);
+                statement.addBatch();
+            }
+            int[] num = statement.executeBatch();
+            connection.commit();
+            int sum = 0;
+            for (int i : num) {
+                sum += i;
+            }
+            return sum;
+        } catch (SQLException ex) {
+            LOGGER.error("Error to update batch: {}", updateSql, ex);
+            throw ex;
+        } finally {
+            if (statement != null) {
+                try {
+                    statement.close();
+                } catch (SQLException e) {
+                    LOGGER.error(e.getMessage(), e);
+                }
+            }
+            if (connection != null) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    LOGGER.error(e.getMessage(), e);
+                }
+            }
+        }
+    }
 }
\ No newline at end of file
@@ -49,4 +49,11 @@ public interface JDBCMetadataQueryService {
     <T, E extends Throwable> List<T> queryWithCond(String querySql, ThrowableConsumer<PreparedStatement, SQLException> preparer, ThrowableFunction<ResultSet, T, E> mapper) throws SQLException, E;
 
     <T, E extends Throwable> int update(String updateSql, T entity, ThrowableConsumer2<PreparedStatement, T, E> mapper) throws SQLException, E;
+
+    /**
+     * Execute updateSql for each entity in one batch.
+     *
+     * @return number of updated rows
+     */
+    <T, E extends Throwable> int batchUpdate(String updateSql, Collection<T> entities, ThrowableConsumer2<PreparedStatement, T, E> mapper) throws SQLException, E;
 }
\ No newline at end of file
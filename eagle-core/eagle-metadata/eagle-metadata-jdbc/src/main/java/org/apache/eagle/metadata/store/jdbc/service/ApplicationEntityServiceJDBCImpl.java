@@ -58,6 +58,7 @@ public class ApplicationEntityServiceJDBCImpl implements ApplicationEntityServic
     private static final String selectSqlByUUId = "SELECT * FROM applications  a INNER JOIN sites s on  a.siteid = s.siteid where a.uuid = ?";
     private static final String selectSqlByAppId = "SELECT * FROM applications  a INNER JOIN sites s on  a.siteid = s.siteid where a.appid = ?";
     private static final String deleteSqlByUUID = "DELETE FROM applications where uuid = ?";
+    private static final String updateStatusSqlByUUID = "UPDATE applications SET appstatus = ? where uuid = ?";
 
     @Inject
     JDBCMetadataQueryService queryService;
@@ -182,6 +183,22 @@ public class ApplicationEntityServiceJDBCImpl implements ApplicationEntityServic
         return getByUUID(entity.getUuid());
     }
 
+    @Override
+    public int updateStatus(Collection<ApplicationEntity> entities) {
+        if (entities.isEmpty()) {
+            return 0;
+        }
+        try {
+            return queryService.batchUpdate(updateStatusSqlByUUID, entities, (statement, entity) -> {
+                statement.setString(1, entity.getStatus().name());
+                statement.setString(2, entity.getUuid());
+            });
+        } catch (SQLException e) {
+            LOGGER.warn("failed to execute {}, {}", updateStatusSqlByUUID, e);
+            return 0;
+        }
+    }
+
     @Override
     public Collection<ApplicationEntity> findAll() {
         List<ApplicationEntity> results = new ArrayList<>();
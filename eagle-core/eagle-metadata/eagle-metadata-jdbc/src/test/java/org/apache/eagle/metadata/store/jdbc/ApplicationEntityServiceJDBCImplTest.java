@@ -33,6 +33,7 @@ import javax.inject.Inject;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -192,6 +193,34 @@ public class ApplicationEntityServiceJDBCImplTest extends JDBCMetadataTestBase {
         Assert.assertEquals(1, results.size());
     }
 
+    @Test
+    public void testUpdateApplicationEntityStatus() throws EntityNotFoundException {
+        SiteEntity siteEntity = new SiteEntity();
+        siteEntity.setSiteId("testsiteid");
+        siteEntity.setSiteName("testsitename");
+        siteEntity.setDescription("testdesc");
+        siteEntityService.create(siteEntity);
+        ApplicationDesc applicationDesc = applicationProviderService.getApplicationDescByType("TEST_APP");
+        ApplicationEntity applicationEntity = new ApplicationEntity();
+        applicationEntity.setSite(siteEntity);
+        applicationEntity.setDescriptor(applicationDesc);
+        applicationEntity.setMode(ApplicationEntity.Mode.LOCAL);
+        applicationEntity.setJarPath(applicationDesc.getJarPath());
+        Map<String, Object> configure = new HashedMap();
+        configure.put("a", "b");
+        applicationEntity.setConfiguration(configure);
+        applicationEntity.setContext(configure);
+        applicationEntityService.create(applicationEntity);
+        Assert.assertEquals(ApplicationEntity.Status.INITIALIZED, applicationEntityService.getByUUID(applicationEntity.getUuid()).getStatus());
+
+        applicationEntity.setStatus(ApplicationEntity.Status.RUNNING);
+        Assert.assertEquals(1, applicationEntityService.updateStatus(Collections.singletonList(applicationEntity)));
+        ApplicationEntity updated = applicationEntityService.getByUUID(applicationEntity.getUuid());
+        Assert.assertEquals(ApplicationEntity.Status.RUNNING, updated.getStatus());
+        Assert.assertEquals(1, updated.getContext().size());
+        Assert.assertEquals(0, applicationEntityService.updateStatus(Collections.emptyList()));
+    }
+
     @Test
     public void testGetByUUID() throws EntityNotFoundException {
         SiteEntity siteEntity = new SiteEntity();
@@ -16,8 +16,12 @@
  */
 package org.apache.eagle.log.entity;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Future;
 
@@ -33,7 +37,9 @@ import org.apache.eagle.common.DateTimeUtil;
  * multi-threading stream readers which only applies to time-series entity where we split the query into
  * different time range When this class is used together with list query or aggregate query, be aware that the
  * query's behavior could be changed for example pageSize does not work well, output sequence is not
- * determined
+ * determined. Listeners implementing {@link PartitionedEntityCreationListener} get one partition per thread, which
+ * are merged after all the threads are done, other listeners are shared by all the threads and must be thread safe.
+ * When a thread fails, the partitions implementing {@link Closeable} are closed instead of being merged
  */
 public class GenericEntityStreamReaderMT extends StreamReader {
     private static final Logger LOG = LoggerFactory.getLogger(GenericEntityStreamReaderMT.class);
@@ -91,10 +97,22 @@ public class GenericEntityStreamReaderMT extends StreamReader {
 
     @Override
     public void readAsStream() throws Exception {
-        // populate listeners to all readers
+        // populate listeners to all readers, partitioned listeners get one partition per reader
+        Map<PartitionedEntityCreationListener, List<PartitionedEntityCreationListener>> partitions = new LinkedHashMap<>();
         for (EntityCreationListener l : listeners) {
-            for (GenericEntityStreamReader r : readers) {
-                r.register(l);
+            if (l instanceof PartitionedEntityCreationListener) {
+                PartitionedEntityCreationListener listener = (PartitionedEntityCreationListener) l;
+                List<PartitionedEntityCreationListener> listenerPartitions = new ArrayList<>();
+                for (GenericEntityStreamReader r : readers) {
+                    PartitionedEntityCreationListener partition = listener.createPartition();
+                    listenerPartitions.add(partition);
+                    r.register(partition);
+                }
+                partitions.put(listener, listenerPartitions);
+            } else {
+                for (GenericEntityStreamReader r : readers) {
+                    r.register(l);
+                }
             }
         }
 
@@ -105,13 +123,41 @@ public class GenericEntityStreamReaderMT extends StreamReader {
             futures.add(readFuture);
         }
 
-        // join threads and check exceptions
+        // join threads and check exceptions, all the threads are joined before closing the partitions they write to
+        Exception failure = null;
         for (Future<Void> future : futures) {
             try {
                 future.get();
             } catch (Exception ex) {
                 LOG.error("Error in read", ex);
-                throw ex;
+                if (failure == null) {
+                    failure = ex;
+                }
+            }
+        }
+        if (failure != null) {
+            for (List<PartitionedEntityCreationListener> listenerPartitions : partitions.values()) {
+                for (PartitionedEntityCreationListener partition : listenerPartitions) {
+                    closePartition(partition);
+                }
+            }
+            throw failure;
+        }
+
+        // merge partitions in the order of the time ranges of the readers
+        for (Map.Entry<PartitionedEntityCreationListener, List<PartitionedEntityCreationListener>> entry : partitions.entrySet()) {
+            for (PartitionedEntityCreationListener partition : entry.getValue()) {
+                entry.getKey().mergePartition(partition);
+            }
+        }
+    }
+
+    private static void closePartition(PartitionedEntityCreationListener partition) {
+        if (partition instanceof Closeable) {
+            try {
+                ((Closeable) partition).close();
+            } catch (IOException ex) {
+                LOG.warn("Failed to close partition", ex);
             }
         }
     }
@@ -53,7 +53,7 @@ public class GenericEntityWriter {
      * @throws Exception
      */
     public List<String> write(List<? extends TaggedLogAPIEntity> entities) throws Exception {
-        HBaseLogWriter writer = new HBaseLogWriter(entityDef.getTable(), entityDef.getColumnFamily());
+        HBaseLogWriter writer = new HBaseLogWriter(entityDef);
         List<String> rowkeys = new ArrayList<String>(entities.size());
         List<InternalLog> logs = new ArrayList<InternalLog>(entities.size());
 
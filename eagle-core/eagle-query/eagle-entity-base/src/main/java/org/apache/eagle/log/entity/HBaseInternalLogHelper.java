@@ -17,6 +17,7 @@
 package org.apache.eagle.log.entity;
 
 import org.apache.eagle.log.base.taggedlog.TaggedLogAPIEntity;
+import org.apache.eagle.log.expression.CompiledExpression;
 import org.apache.eagle.log.expression.ExpressionParser;
 import org.apache.eagle.log.entity.meta.*;
 import org.apache.eagle.query.parser.TokenConstant;
@@ -117,7 +118,7 @@ public class HBaseInternalLogHelper {
                     // 2) Treat all required fields as double, if not number, then set result as NaN
 
                     try {
-                        ExpressionParser parser = ExpressionParser.parse(expression);
+                        CompiledExpression parser = ExpressionParser.compiled(expression);
                         boolean isRequiringValue = parser.getDependentFields()
                             .contains(GenericMetricEntity.VALUE_FIELD);
 
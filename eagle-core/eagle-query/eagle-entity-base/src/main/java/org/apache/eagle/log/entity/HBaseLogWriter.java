@@ -20,32 +20,77 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.eagle.common.config.EagleConfigFactory;
+import org.apache.eagle.log.entity.meta.EntityDefinition;
 import org.apache.hadoop.hbase.client.HTableFactory;
 import org.apache.hadoop.hbase.client.HTableInterface;
 import org.apache.hadoop.hbase.client.Put;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Write logs and their index rows into HBase.
+ *
+ * <p>Puts of rows and index rows are buffered and sent with multi-puts bounded by {@link #getMaxBatchSize()} puts
+ * and {@link #getMaxBatchBytes()} bytes. write(List) sends its puts before returning, while the puts of
+ * write(InternalLog) and updateByRowkey are sent when the buffer is full, on {@link #flush()} or {@link #close()}.</p>
+ */
 public class HBaseLogWriter implements LogWriter {
     private static Logger LOG = LoggerFactory.getLogger(HBaseLogWriter.class);
     private static byte[] EMPTY_INDEX_QUALIFER_VALUE = "".getBytes();
+    public static final int DEFAULT_MAX_BATCH_SIZE = 1000;
+    // same as default hbase.client.write.buffer
+    public static final long DEFAULT_MAX_BATCH_BYTES = 2 * 1024 * 1024;
+    // column family and qualifier names are a small set shared by all entities, encode each one only once
+    private static final int MAX_ENCODED_NAMES = 100000;
+    private static final Map<String, byte[]> ENCODED_NAMES = new ConcurrentHashMap<>();
+    private static final WriteBatchMetrics METRICS = new WriteBatchMetrics();
 
     private HTableInterface tbl;
     private String table;
     private String columnFamily;
+    private final byte[] columnFamilyBytes;
+    private final List<Put> buffer = new ArrayList<>();
+    private long bufferBytes = 0;
+    private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+    private long maxBatchBytes = DEFAULT_MAX_BATCH_BYTES;
 
     public HBaseLogWriter(String table, String columnFamily) {
         // TODO assert for non-null of table and columnFamily
         this.table = table;
         this.columnFamily = columnFamily;
+        this.columnFamilyBytes = encode(columnFamily);
+    }
+
+    public HBaseLogWriter(EntityDefinition entityDef) {
+        this(entityDef.getTable(), entityDef.getColumnFamily());
+        for (String qualifier : entityDef.getQualifierNameMap().keySet()) {
+            encode(qualifier);
+        }
+        if (entityDef.getTags() != null) {
+            for (String tag : entityDef.getTags()) {
+                encode(tag);
+            }
+        }
+    }
+
+    private static byte[] encode(String name) {
+        byte[] encoded = ENCODED_NAMES.get(name);
+        if (encoded == null) {
+            encoded = name.getBytes();
+            if (ENCODED_NAMES.size() < MAX_ENCODED_NAMES) {
+                ENCODED_NAMES.put(name, encoded);
+            }
+        }
+        return encoded;
     }
 
     @Override
     public void open() throws IOException {
         try {
-            tbl = EagleConfigFactory.load().getHTable(this.table);
+            tbl = createHTable();
             // LOGGER.info("HBase table " + table + " audo reflush is " + (tbl.isAutoFlush() ? "enabled" :
             // "disabled"));
         } catch (Exception ex) {
@@ -54,15 +99,24 @@ public class HBaseLogWriter implements LogWriter {
         }
     }
 
+    protected HTableInterface createHTable() {
+        return EagleConfigFactory.load().getHTable(this.table);
+    }
+
     @Override
     public void close() throws IOException {
         if (tbl != null) {
-            new HTableFactory().releaseHTableInterface(tbl);
+            try {
+                flushBuffer();
+            } finally {
+                new HTableFactory().releaseHTableInterface(tbl);
+            }
         }
     }
 
     @Override
     public void flush() throws IOException {
+        flushBuffer();
         tbl.flushCommits();
     }
 
@@ -70,7 +124,7 @@ public class HBaseLogWriter implements LogWriter {
         Map<String, byte[]> qualifierValues = log.getQualifierValues();
         // iterate all qualifierValues
         for (Map.Entry<String, byte[]> entry : qualifierValues.entrySet()) {
-            p.add(columnFamily.getBytes(), entry.getKey().getBytes(), entry.getValue());
+            p.add(columnFamilyBytes, encode(entry.getKey()), entry.getValue());
         }
 
         Map<String, String> tags = log.getTags();
@@ -79,75 +133,112 @@ public class HBaseLogWriter implements LogWriter {
             for (Map.Entry<String, String> entry : tags.entrySet()) {
                 // TODO need a consistent handling of null values
                 if (entry.getValue() != null) {
-                    p.add(columnFamily.getBytes(), entry.getKey().getBytes(), entry.getValue().getBytes());
+                    p.add(columnFamilyBytes, encode(entry.getKey()), entry.getValue().getBytes());
                 }
             }
         }
     }
 
-    /**
-     * TODO need think about if multi-PUT is necessary, by checking if autoFlush works
-     */
     @Override
     public byte[] write(InternalLog log) throws IOException {
         final byte[] rowkey = RowkeyBuilder.buildRowkey(log);
-        final Put p = new Put(rowkey);
-        populateColumnValues(p, log);
-        tbl.put(p);
-        final List<byte[]> indexRowkeys = log.getIndexRowkeys();
-        if (indexRowkeys != null) {
-            writeIndexes(rowkey, indexRowkeys);
+        for (Put p : createPuts(rowkey, log)) {
+            buffer(p);
         }
         return rowkey;
     }
 
-    /**
-     * TODO need think about if multi-PUT is necessary, by checking if autoFlush works
-     */
     public List<byte[]> write(List<InternalLog> logs) throws IOException {
-        final List<Put> puts = new ArrayList<Put>(logs.size());
         final List<byte[]> result = new ArrayList<byte[]>(logs.size());
         for (InternalLog log : logs) {
-            final byte[] rowkey = RowkeyBuilder.buildRowkey(log);
-            final Put p = new Put(rowkey);
-            populateColumnValues(p, log);
-            puts.add(p);
-            final List<byte[]> indexRowkeys = log.getIndexRowkeys();
-            if (indexRowkeys != null) {
-                writeIndexes(rowkey, indexRowkeys, puts);
-            }
-            result.add(rowkey);
+            result.add(write(log));
         }
-        tbl.put(puts);
+        flushBuffer();
         return result;
     }
 
     @Override
     public void updateByRowkey(byte[] rowkey, InternalLog log) throws IOException {
-        Put p = new Put(rowkey);
-        populateColumnValues(p, log);
-        tbl.put(p);
+        for (Put p : createPuts(rowkey, log)) {
+            buffer(p);
+        }
+    }
+
+    /**
+     * Build the puts of a log without writing them, the put of the row is followed by the puts of its index rows.
+     */
+    public List<Put> createPuts(InternalLog log) {
+        return createPuts(RowkeyBuilder.buildRowkey(log), log);
+    }
+
+    private List<Put> createPuts(byte[] rowkey, InternalLog log) {
         final List<byte[]> indexRowkeys = log.getIndexRowkeys();
+        final List<Put> puts = new ArrayList<>(indexRowkeys == null ? 1 : indexRowkeys.size() + 1);
+        final Put p = new Put(rowkey);
+        populateColumnValues(p, log);
+        puts.add(p);
         if (indexRowkeys != null) {
-            writeIndexes(rowkey, indexRowkeys);
+            for (byte[] indexRowkey : indexRowkeys) {
+                Put indexPut = new Put(indexRowkey);
+                indexPut.add(columnFamilyBytes, rowkey, EMPTY_INDEX_QUALIFER_VALUE);
+                puts.add(indexPut);
+            }
         }
+        return puts;
     }
 
-    private void writeIndexes(byte[] rowkey, List<byte[]> indexRowkeys) throws IOException {
-        for (byte[] indexRowkey : indexRowkeys) {
-            Put p = new Put(indexRowkey);
-            p.add(columnFamily.getBytes(), rowkey, EMPTY_INDEX_QUALIFER_VALUE);
-            tbl.put(p);
+    private void buffer(Put put) throws IOException {
+        buffer.add(put);
+        bufferBytes += put.heapSize();
+        if (buffer.size() >= maxBatchSize || bufferBytes >= maxBatchBytes) {
+            flushBuffer();
         }
     }
 
-    private void writeIndexes(byte[] rowkey, List<byte[]> indexRowkeys, List<Put> puts) throws IOException {
-        for (byte[] indexRowkey : indexRowkeys) {
-            Put p = new Put(indexRowkey);
-            p.add(columnFamily.getBytes(), rowkey, EMPTY_INDEX_QUALIFER_VALUE);
-            puts.add(p);
-            // tbl.put(p);
+    /**
+     * Send buffered puts with one multi-put. Buffered puts are dropped even if the multi-put fails,
+     * the failure is reported to the caller.
+     */
+    private void flushBuffer() throws IOException {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        final int size = buffer.size();
+        final long bytes = bufferBytes;
+        final long start = System.currentTimeMillis();
+        try {
+            tbl.put(new ArrayList<>(buffer));
+        } finally {
+            buffer.clear();
+            bufferBytes = 0;
         }
+        long latency = System.currentTimeMillis() - start;
+        METRICS.record(size, bytes, latency);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Wrote {} puts ({} bytes) into {} in {} ms", size, bytes, table, latency);
+        }
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public long getMaxBatchBytes() {
+        return maxBatchBytes;
+    }
+
+    public void setMaxBatchBytes(long maxBatchBytes) {
+        this.maxBatchBytes = maxBatchBytes;
     }
 
+    /**
+     * @return write batch metrics of all HBaseLogWriter in this JVM
+     */
+    public static WriteBatchMetrics getWriteBatchMetrics() {
+        return METRICS;
+    }
 }
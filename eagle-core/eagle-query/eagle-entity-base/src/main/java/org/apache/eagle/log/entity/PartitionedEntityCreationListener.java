@@ -0,0 +1,37 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.log.entity;
+
+/**
+ * Listener which can be split into partitions notified by different threads without synchronization.
+ *
+ * <p>Multi-threading readers register a new partition for every reader thread, and merge the partitions back
+ * into the listener after all the threads are done, so merging must be associative.</p>
+ */
+public interface PartitionedEntityCreationListener extends EntityCreationListener {
+    /**
+     * @return new empty listener of the same kind, notified by one thread only
+     */
+    PartitionedEntityCreationListener createPartition();
+
+    /**
+     * Merge the state of a partition created by {@link #createPartition()} into this listener.
+     *
+     * @param partition partition which won't be notified anymore
+     */
+    void mergePartition(PartitionedEntityCreationListener partition);
+}
@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.log.entity;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Size and latency of the multi-puts sent by {@link HBaseLogWriter}.
+ */
+public class WriteBatchMetrics {
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong puts = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong latencyMs = new AtomicLong();
+    private final AtomicLong maxLatencyMs = new AtomicLong();
+
+    void record(int size, long byteSize, long latency) {
+        batches.incrementAndGet();
+        puts.addAndGet(size);
+        bytes.addAndGet(byteSize);
+        latencyMs.addAndGet(latency);
+        long max = maxLatencyMs.get();
+        while (latency > max && !maxLatencyMs.compareAndSet(max, latency)) {
+            max = maxLatencyMs.get();
+        }
+    }
+
+    public long getBatches() {
+        return batches.get();
+    }
+
+    public long getPuts() {
+        return puts.get();
+    }
+
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    public long getLatencyMs() {
+        return latencyMs.get();
+    }
+
+    public long getMaxLatencyMs() {
+        return maxLatencyMs.get();
+    }
+
+    /**
+     * @return batches, puts, bytes, total and max latency in ms, and average puts and latency per batch
+     */
+    public Map<String, Long> snapshot() {
+        long batchCount = batches.get();
+        Map<String, Long> snapshot = new HashMap<>();
+        snapshot.put("batches", batchCount);
+        snapshot.put("puts", puts.get());
+        snapshot.put("bytes", bytes.get());
+        snapshot.put("latencyMs", latencyMs.get());
+        snapshot.put("maxLatencyMs", maxLatencyMs.get());
+        snapshot.put("avgBatchSize", batchCount == 0 ? 0 : puts.get() / batchCount);
+        snapshot.put("avgLatencyMs", batchCount == 0 ? 0 : latencyMs.get() / batchCount);
+        return snapshot;
+    }
+}
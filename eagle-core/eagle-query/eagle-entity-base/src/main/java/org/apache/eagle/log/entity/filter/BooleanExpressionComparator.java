@@ -145,7 +145,7 @@ public class BooleanExpressionComparator implements WritableComparable<List<KeyV
      * @throws Exception
      */
     private double eval(String expr, Map<String, Double> context) throws Exception {
-        return ExpressionParser.parse(expr).eval(context);
+        return ExpressionParser.eval(expr, context);
     }
 
     /**
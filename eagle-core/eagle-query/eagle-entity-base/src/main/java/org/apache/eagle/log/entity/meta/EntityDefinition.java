@@ -235,6 +235,10 @@ public class EntityDefinition implements Writable {
             }
         }
         if (m != null) {
+            final Qualifier q = displayNameMap.get(field);
+            if (q != null && q.getAccessor() != null) {
+                return q.getAccessor().get(entity);
+            }
             return m.invoke(entity);
         }
         return null;
@@ -22,6 +22,7 @@ import org.apache.eagle.log.entity.repo.EntityRepositoryScanner;
 import org.mockito.cglib.beans.BeanGenerator;
 import org.mockito.cglib.core.NamingPolicy;
 import org.mockito.cglib.core.Predicate;
+import org.mockito.cglib.reflect.FastClass;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -330,6 +331,32 @@ public class EntityDefinitionManager {
         return ts != null && ts.value();
     }
 
+    /**
+     * Generate accessors of qualifier fields for the entity class, so that entities are read and written
+     * without reflection. Fields keep being accessed by reflection if the accessors can't be generated.
+     */
+    private static void createPropertyAccessors(EntityDefinition ed) {
+        final Class<? extends TaggedLogAPIEntity> cls = ed.getEntityClass();
+        final FastClass fastClass;
+        try {
+            fastClass = FastClass.create(cls);
+        } catch (Throwable t) {
+            LOG.warn("Failed to generate accessors of " + cls.getName() + ", fallback to reflection", t);
+            return;
+        }
+        for (Qualifier q : ed.getDisplayNameMap().values()) {
+            final Method getter = ed.getQualifierGetterMap().get(q.getDisplayName());
+            Method setter = null;
+            try {
+                setter = cls.getMethod("set" + getter.getName().substring(getter.getName().startsWith("is") ? 2 : 3),
+                                       getter.getReturnType());
+            } catch (NoSuchMethodException e) {
+                // read only field, failed when read
+            }
+            q.setAccessor(EntityPropertyAccessor.create(fastClass, q.getDisplayName(), getter, setter));
+        }
+    }
+
     @SuppressWarnings("unchecked")
     public static EntityDefinition createEntityDefinition(Class<? extends TaggedLogAPIEntity> cls) {
 
@@ -429,6 +456,7 @@ public class EntityDefinitionManager {
                 LOG.debug("Field registered " + q);
             }
         }
+        createPropertyAccessors(ed);
 
         // TODO: Lazy create because not used at all
         // dynamically create bean class
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.log.entity.meta;
+
+import org.apache.eagle.log.base.taggedlog.TaggedLogAPIEntity;
+import org.mockito.cglib.reflect.FastClass;
+import org.mockito.cglib.reflect.FastMethod;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Getter and setter of a column field of an entity class. Methods are called through a class generated once per
+ * entity class, in the class loader of the entity, which calls them directly by index instead of by java reflection
+ * and bean introspection.
+ */
+public class EntityPropertyAccessor {
+    private static final Object[] NO_ARGS = new Object[0];
+
+    private final String propertyName;
+    private final FastMethod getter;
+    private final FastMethod setter;
+
+    private EntityPropertyAccessor(String propertyName, FastMethod getter, FastMethod setter) {
+        this.propertyName = propertyName;
+        this.getter = getter;
+        this.setter = setter;
+    }
+
+    /**
+     * @param fastClass generated by {@link FastClass#create(Class)} for the entity class
+     * @param setter setter method, or null if the field is read only
+     */
+    static EntityPropertyAccessor create(FastClass fastClass, String propertyName, Method getter, Method setter) {
+        return new EntityPropertyAccessor(propertyName, fastClass.getMethod(getter),
+            setter == null ? null : fastClass.getMethod(setter));
+    }
+
+    public String getPropertyName() {
+        return propertyName;
+    }
+
+    public Object get(TaggedLogAPIEntity entity) throws InvocationTargetException {
+        return getter.invoke(entity, NO_ARGS);
+    }
+
+    public void set(TaggedLogAPIEntity entity, Object value) throws InvocationTargetException {
+        if (setter == null) {
+            throw new IllegalArgumentException("Field " + propertyName + " of " + entity.getClass().getName()
+                                               + " hasn't defined valid setter method");
+        }
+        setter.invoke(entity, new Object[] {value});
+    }
+}
@@ -48,13 +48,16 @@ public class EntitySerDeserializer {
                 continue;
             }
 
-            // TODO performance loss compared with new operator
             // parse different types of qualifiers
-            String fieldName = q.getDisplayName();
-            PropertyDescriptor pd = PropertyUtils.getPropertyDescriptor(obj, fieldName);
             if (entry.getValue() != null) {
                 Object args = q.getSerDeser().deserialize(entry.getValue());
-                pd.getWriteMethod().invoke(obj, args);
+                EntityPropertyAccessor accessor = q.getAccessor();
+                if (accessor != null) {
+                    accessor.set(obj, args);
+                } else {
+                    PropertyDescriptor pd = PropertyUtils.getPropertyDescriptor(obj, q.getDisplayName());
+                    pd.getWriteMethod().invoke(obj, args);
+                }
                 // if (logger.isDebugEnabled()) {
                 // logger.debug(entry.getKey() + ":" + args + " is deserialized");
                 // }
@@ -67,9 +70,14 @@ public class EntitySerDeserializer {
         Map<String, byte[]> qualifierValues = new HashMap<String, byte[]>();
         // iterate all modified qualifiers
         for (String fieldName : entity.modifiedQualifiers()) {
-            PropertyDescriptor pd = PropertyUtils.getPropertyDescriptor(entity, fieldName);
-            Object obj = pd.getReadMethod().invoke(entity);
             Qualifier q = ed.getDisplayNameMap().get(fieldName);
+            Object obj;
+            if (q.getAccessor() != null) {
+                obj = q.getAccessor().get(entity);
+            } else {
+                PropertyDescriptor pd = PropertyUtils.getPropertyDescriptor(entity, fieldName);
+                obj = pd.getReadMethod().invoke(entity);
+            }
             EntitySerDeser<Object> ser = q.getSerDeser();
             byte[] value = ser.serialize(obj);
             qualifierValues.put(q.getQualifierName(), value);
@@ -281,16 +281,21 @@ public class IndexDefinition {
                     result[i] = tags.get(columnName).getBytes(UTF_8_CHARSET);
                 }
             } else {
-                PropertyDescriptor pd = column.getPropertyDescriptor();
-                if (pd == null) {
-                    pd = PropertyUtils.getPropertyDescriptor(entity, columnName);
-                    column.setPropertyDescriptor(pd);
+                final Qualifier q = column.getQualifier();
+                final Object value;
+                if (q.getAccessor() != null) {
+                    value = q.getAccessor().get(entity);
+                } else {
+                    PropertyDescriptor pd = column.getPropertyDescriptor();
+                    if (pd == null) {
+                        pd = PropertyUtils.getPropertyDescriptor(entity, columnName);
+                        column.setPropertyDescriptor(pd);
+                    }
+                    value = pd.getReadMethod().invoke(entity);
                 }
-                final Object value = pd.getReadMethod().invoke(entity);
                 if (value == null) {
                     result[i] = EMPTY_VALUE;
                 } else {
-                    final Qualifier q = column.getQualifier();
                     result[i] = q.getSerDeser().serialize(value);
                 }
             }
@@ -33,6 +33,7 @@ public class Qualifier implements Writable {
     private String displayName;
     private String qualifierName;
     private EntitySerDeser<Object> serDeser;
+    private EntityPropertyAccessor accessor;
 
     @JsonIgnore
     public EntitySerDeser<Object> getSerDeser() {
@@ -43,6 +44,18 @@ public class Qualifier implements Writable {
         this.serDeser = serDeser;
     }
 
+    /**
+     * @return generated accessor of the field, or null if not available, e.g. read by {@link #readFields}
+     */
+    @JsonIgnore
+    public EntityPropertyAccessor getAccessor() {
+        return accessor;
+    }
+
+    public void setAccessor(EntityPropertyAccessor accessor) {
+        this.accessor = accessor;
+    }
+
     public String getDisplayName() {
         return displayName;
     }
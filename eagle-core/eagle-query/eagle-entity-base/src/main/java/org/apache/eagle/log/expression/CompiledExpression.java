@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.log.expression;
+
+import org.apache.eagle.log.base.taggedlog.TaggedLogAPIEntity;
+import org.apache.eagle.log.entity.EntityQualifierUtils;
+import org.apache.eagle.log.entity.meta.EntityDefinition;
+import org.apache.eagle.log.entity.meta.EntityDefinitionManager;
+import org.apache.eagle.log.entity.meta.EntityPropertyAccessor;
+import org.apache.eagle.log.entity.meta.Qualifier;
+import parsii.eval.Expression;
+import parsii.eval.Parser;
+import parsii.eval.Scope;
+import parsii.eval.Variable;
+import parsii.tokenizer.ParseException;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Expression parsed once and evaluated many times, with the variables of the expression bound to double slots
+ * and, for entities, to the accessors of the fields resolved once per entity class.
+ *
+ * <p>Evaluation takes no lock and allocates nothing but the values boxed by the getters, so a compiled expression
+ * is <b>not</b> thread safe. It is meant to be created once per query by each thread evaluating it, see
+ * {@link ExpressionParser#compile(String)}.</p>
+ */
+public class CompiledExpression {
+    private final String exprStr;
+    private final Expression expression;
+    private final List<String> dependentFields;
+    private final Variable[] variables;
+
+    private Class<?> entityClass;
+    private FieldReader[] readers;
+
+    @FunctionalInterface
+    private interface FieldReader {
+        double read(TaggedLogAPIEntity entity) throws Exception;
+    }
+
+    CompiledExpression(String exprStr) throws ParseException {
+        this.exprStr = exprStr;
+        Scope scope = Scope.create();
+        this.expression = Parser.parse(exprStr, scope);
+        List<String> fields = ExpressionParser.getDependentFields(scope);
+        this.dependentFields = Collections.unmodifiableList(fields);
+        this.variables = new Variable[fields.size()];
+        for (int i = 0; i < variables.length; i++) {
+            variables[i] = scope.getVariable(fields.get(i));
+        }
+    }
+
+    public String getExpression() {
+        return exprStr;
+    }
+
+    public List<String> getDependentFields() {
+        return dependentFields;
+    }
+
+    /**
+     * Evaluate the expression with the getters of the dependent fields of the entity.
+     */
+    public double eval(TaggedLogAPIEntity entity) throws Exception {
+        if (entity.getClass() != entityClass) {
+            readers = resolve(entity.getClass());
+            entityClass = entity.getClass();
+        }
+        for (int i = 0; i < variables.length; i++) {
+            variables[i].setValue(readers[i].read(entity));
+        }
+        return expression.evaluate();
+    }
+
+    /**
+     * Evaluate the expression with the values of the dependent fields in the context.
+     * A field without value keeps the value it had in the previous evaluation.
+     */
+    public double eval(Map<String, Double> context) throws Exception {
+        for (int i = 0; i < variables.length; i++) {
+            Double value = context.get(dependentFields.get(i));
+            if (value != null) {
+                variables[i].setValue(value);
+            }
+        }
+        return expression.evaluate();
+    }
+
+    private FieldReader[] resolve(Class<? extends TaggedLogAPIEntity> cls) throws Exception {
+        EntityDefinition ed = EntityDefinitionManager.getEntityDefinitionByEntityClass(cls);
+        FieldReader[] fieldReaders = new FieldReader[variables.length];
+        for (int i = 0; i < fieldReaders.length; i++) {
+            String field = dependentFields.get(i);
+            Qualifier qualifier = ed == null ? null : ed.getDisplayNameMap().get(field);
+            EntityPropertyAccessor accessor = qualifier == null ? null : qualifier.getAccessor();
+            Method getter = ed == null ? null : ed.getQualifierGetterMap().get(field);
+            if (accessor == null || getter == null) {
+                // not a qualifier, like timestamp
+                getter = cls.getMethod("get" + field.substring(0, 1).toUpperCase() + field.substring(1));
+                accessor = null;
+            }
+            fieldReaders[i] = createReader(getter, accessor);
+        }
+        return fieldReaders;
+    }
+
+    private static FieldReader createReader(Method getter, EntityPropertyAccessor accessor) {
+        Class<?> type = getter.getReturnType();
+        boolean primitive = type.isPrimitive() && type != boolean.class && type != char.class;
+        if (accessor != null) {
+            return primitive
+                ? entity -> ((Number) accessor.get(entity)).doubleValue()
+                : entity -> EntityQualifierUtils.convertObjToDouble(accessor.get(entity));
+        }
+        return primitive
+            ? entity -> ((Number) getter.invoke(entity)).doubleValue()
+            : entity -> EntityQualifierUtils.convertObjToDouble(getter.invoke(entity));
+    }
+}
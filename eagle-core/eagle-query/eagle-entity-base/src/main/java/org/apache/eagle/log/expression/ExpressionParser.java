@@ -20,7 +20,6 @@
 package org.apache.eagle.log.expression;
 
 import org.apache.eagle.log.base.taggedlog.TaggedLogAPIEntity;
-import org.apache.eagle.log.entity.EntityQualifierUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import parsii.eval.Expression;
@@ -29,12 +28,12 @@ import parsii.eval.Scope;
 import parsii.eval.Variable;
 import parsii.tokenizer.ParseException;
 
-import java.lang.reflect.Method;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * <h1>Expression Evaluation</h1> Given expression in string and set context variables, return value in double
@@ -115,29 +114,11 @@ public class ExpressionParser {
         return expression.evaluate();
     }
 
+    /**
+     * Evaluate the expression with an evaluator compiled once by the calling thread, see {@link #compile(String)}.
+     */
     public static double eval(String expression, TaggedLogAPIEntity entity) throws Exception {
-        ExpressionParser parser = parse(expression);
-        List<String> dependencies = parser.getDependentFields();
-        Map<String, Double> context = new HashMap<String, Double>();
-        for (String field : dependencies) {
-            String methodName = "get" + field.substring(0, 1).toUpperCase() + field.substring(1);
-            String methodUID = entity.getClass().getName() + "." + methodName;
-
-            Method m;
-            synchronized (_entityMethodCache) {
-                m = _entityMethodCache.get(methodUID);
-                if (m == null) {
-                    m = entity.getClass().getMethod(methodName);
-                    _entityMethodCache.put(methodUID, m);
-                }
-            }
-            Object obj = m.invoke(entity);
-            Double doubleValue = EntityQualifierUtils.convertObjToDouble(obj);
-            // if(doubleValue == Double.NaN) throw new IllegalArgumentException("Field "+field+": "+obj+" in
-            // expression "+expression+" is not number");
-            context.put(field, doubleValue);
-        }
-        return parser.eval(context);
+        return compiled(expression).eval(entity);
     }
 
     /**
@@ -154,9 +135,11 @@ public class ExpressionParser {
         }
     }
 
+    /**
+     * Evaluate the expression with an evaluator compiled once by the calling thread, see {@link #compile(String)}.
+     */
     public static double eval(String expression, Map<String, Double> context) throws Exception {
-        ExpressionParser parser = parse(expression);
-        return parser.eval(context);
+        return compiled(expression).eval(context);
     }
 
     @SuppressWarnings("unused")
@@ -166,17 +149,35 @@ public class ExpressionParser {
 
     public List<String> getDependentFields() {
         if (dependentFields == null) {
-            dependentFields = new ArrayList<String>();
-            for (String variable : scope.getNames()) {
-                if (!variable.equals("pi") && !variable.equals("E") && !variable.equals("euler")) {
-                    dependentFields.add(variable);
-                }
+            dependentFields = getDependentFields(scope);
+        }
+        return dependentFields;
+    }
+
+    static List<String> getDependentFields(Scope scope) {
+        List<String> dependentFields = new ArrayList<String>();
+        for (String variable : scope.getNames()) {
+            if (!variable.equals("pi") && !variable.equals("E") && !variable.equals("euler")) {
+                dependentFields.add(variable);
             }
         }
         return dependentFields;
     }
 
-    private static final Map<String, ExpressionParser> _exprParserCache = new HashMap<String, ExpressionParser>();
+    private static final Map<String, ExpressionParser> _exprParserCache = new ConcurrentHashMap<String, ExpressionParser>();
+
+    // expressions compiled by each thread, least recently used ones are evicted above the limit
+    static final int MAX_COMPILED_EXPRESSIONS_PER_THREAD = 256;
+
+    private static final ThreadLocal<Map<String, CompiledExpression>> _compiledExprCache =
+        ThreadLocal.withInitial(() -> new LinkedHashMap<String, CompiledExpression>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompiledExpression> eldest) {
+                return size() > MAX_COMPILED_EXPRESSIONS_PER_THREAD;
+            }
+        });
 
     /**
      * Thread safe
@@ -190,16 +191,45 @@ public class ExpressionParser {
         if (expr == null) {
             throw new IllegalStateException("Expression to parse is null");
         }
-        synchronized (_exprParserCache) {
-            ExpressionParser parser = _exprParserCache.get(expr);
-            if (parser == null) {
-                parser = new ExpressionParser(expr);
-                _exprParserCache.put(expr, parser);
+        ExpressionParser parser = _exprParserCache.get(expr);
+        if (parser == null) {
+            parser = new ExpressionParser(expr);
+            ExpressionParser existing = _exprParserCache.putIfAbsent(expr, parser);
+            if (existing != null) {
+                parser = existing;
             }
-            return parser;
         }
+        return parser;
     }
 
-    private static final Map<String, Method> _entityMethodCache = new HashMap<String, Method>();
+    /**
+     * Compile the expression into a new evaluator, which is not thread safe.
+     *
+     * @param expr expression string in format like: <code>(max(a, b)* min(a, b)) / abs(a-b+c-d)</code>
+     * @return evaluator to be used by one thread
+     * @throws ParseException
+     */
+    public static CompiledExpression compile(String expr) throws ParseException {
+        if (expr == null) {
+            throw new IllegalStateException("Expression to compile is null");
+        }
+        return new CompiledExpression(expr);
+    }
 
+    /**
+     * Evaluator of the expression compiled by and only used by the calling thread.
+     *
+     * @param expr
+     * @return
+     * @throws ParseException
+     */
+    public static CompiledExpression compiled(String expr) throws ParseException {
+        Map<String, CompiledExpression> compiledExprs = _compiledExprCache.get();
+        CompiledExpression compiled = compiledExprs.get(expr);
+        if (compiled == null) {
+            compiled = compile(expr);
+            compiledExprs.put(expr, compiled);
+        }
+        return compiled;
+    }
 }
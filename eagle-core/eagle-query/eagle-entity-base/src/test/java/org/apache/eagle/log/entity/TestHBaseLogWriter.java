@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.log.entity;
+
+import org.apache.hadoop.hbase.client.HTableInterface;
+import org.apache.hadoop.hbase.client.Put;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TestHBaseLogWriter {
+    private HTableInterface table;
+    private HBaseLogWriter writer;
+
+    @Before
+    public void setUp() throws IOException {
+        table = Mockito.mock(HTableInterface.class);
+        writer = new HBaseLogWriter("unittest", "f") {
+            @Override
+            protected HTableInterface createHTable() {
+                return table;
+            }
+        };
+        writer.open();
+    }
+
+    private static InternalLog createLog(int i) {
+        InternalLog log = new InternalLog();
+        log.setPrefix("test");
+        log.setTimestamp(1000L + i);
+        Map<String, String> tags = new HashMap<>();
+        tags.put("user", "user" + i);
+        log.setTags(tags);
+        Map<String, byte[]> qualifierValues = new HashMap<>();
+        qualifierValues.put("a", new byte[] {(byte) i});
+        log.setQualifierValues(qualifierValues);
+        log.setIndexRowkeys(Arrays.asList(("index" + i).getBytes(), ("index2" + i).getBytes()));
+        return log;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<Put>> capturePuts(int times) throws IOException {
+        ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(table, Mockito.times(times)).put(captor.capture());
+        List<List<Put>> batches = new ArrayList<>();
+        for (List batch : captor.getAllValues()) {
+            batches.add((List<Put>) batch);
+        }
+        return batches;
+    }
+
+    @Test
+    public void testWriteListInBoundedBatches() throws IOException {
+        writer.setMaxBatchSize(4);
+        List<InternalLog> logs = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            logs.add(createLog(i));
+        }
+        List<byte[]> rowkeys = writer.write(logs);
+        Assert.assertEquals(3, rowkeys.size());
+
+        // 3 rows and 6 index rows in batches of 4, 4 and 1
+        List<List<Put>> batches = capturePuts(3);
+        Assert.assertEquals(4, batches.get(0).size());
+        Assert.assertEquals(4, batches.get(1).size());
+        Assert.assertEquals(1, batches.get(2).size());
+        Put row = batches.get(0).get(0);
+        Assert.assertArrayEquals(rowkeys.get(0), row.getRow());
+        Assert.assertTrue(row.has("f".getBytes(), "a".getBytes()));
+        Assert.assertTrue(row.has("f".getBytes(), "user".getBytes(), "user0".getBytes()));
+        Put index = batches.get(0).get(1);
+        Assert.assertArrayEquals("index0".getBytes(), index.getRow());
+        Assert.assertTrue(index.has("f".getBytes(), rowkeys.get(0)));
+    }
+
+    @Test
+    public void testSingleWriteIsBufferedUntilClose() throws IOException {
+        long batches = HBaseLogWriter.getWriteBatchMetrics().getBatches();
+        writer.write(createLog(0));
+        writer.updateByRowkey("rowkey".getBytes(), createLog(1));
+        Mockito.verify(table, Mockito.never()).put(Mockito.anyListOf(Put.class));
+        Mockito.verify(table, Mockito.never()).put(Mockito.any(Put.class));
+
+        writer.close();
+        Assert.assertEquals(6, capturePuts(1).get(0).size());
+        Mockito.verify(table).close();
+        Assert.assertTrue(HBaseLogWriter.getWriteBatchMetrics().getBatches() > batches);
+    }
+
+    @Test
+    public void testFlushByBytes() throws IOException {
+        writer.setMaxBatchBytes(1);
+        writer.write(createLog(0));
+        // every put exceeds the byte bound
+        capturePuts(3);
+        writer.flush();
+        Mockito.verify(table).flushCommits();
+    }
+}
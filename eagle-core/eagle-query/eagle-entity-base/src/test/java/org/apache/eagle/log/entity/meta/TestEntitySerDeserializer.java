@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.log.entity.meta;
+
+import org.apache.eagle.log.entity.GenericMetricEntity;
+import org.apache.eagle.log.entity.test.TestLogAPIEntity;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class TestEntitySerDeserializer {
+    private static TestLogAPIEntity createEntity() {
+        TestLogAPIEntity entity = new TestLogAPIEntity();
+        entity.setField1(1);
+        entity.setField2(2);
+        entity.setField3(3L);
+        entity.setField4(4L);
+        entity.setField5(5.5);
+        entity.setField6(6.6);
+        entity.setField7("seven");
+        return entity;
+    }
+
+    private static void assertEntity(TestLogAPIEntity entity) {
+        Assert.assertEquals(1, entity.getField1());
+        Assert.assertEquals(Integer.valueOf(2), entity.getField2());
+        Assert.assertEquals(3L, entity.getField3());
+        Assert.assertEquals(Long.valueOf(4L), entity.getField4());
+        Assert.assertEquals(5.5, entity.getField5(), 0);
+        Assert.assertEquals(6.6, entity.getField6(), 0);
+        Assert.assertEquals("seven", entity.getField7());
+        Assert.assertEquals("value", entity.getTags().get("tag"));
+    }
+
+    @Test
+    public void testRoundTripWithAccessors() throws Exception {
+        EntityDefinition ed = EntityDefinitionManager.createEntityDefinition(TestLogAPIEntity.class);
+        for (Qualifier q : ed.getQualifierNameMap().values()) {
+            Assert.assertNotNull(q.getAccessor());
+            Assert.assertEquals(q.getDisplayName(), q.getAccessor().getPropertyName());
+        }
+
+        EntitySerDeserializer serDeserializer = new EntitySerDeserializer();
+        Map<String, byte[]> qualifierValues = serDeserializer.writeValue(createEntity(), ed);
+        Assert.assertEquals(7, qualifierValues.size());
+        qualifierValues.put("tag", "value".getBytes());
+        TestLogAPIEntity entity = serDeserializer.readValue(qualifierValues, ed);
+        assertEntity(entity);
+        Assert.assertEquals(5.5, ed.getValue(entity, "field5"));
+        Assert.assertEquals("value", ed.getValue(entity, "tag"));
+    }
+
+    @Test
+    public void testRoundTripWithoutAccessors() throws Exception {
+        EntityDefinition ed = EntityDefinitionManager.createEntityDefinition(TestLogAPIEntity.class);
+        ed.getQualifierNameMap().values().forEach(q -> q.setAccessor(null));
+
+        EntitySerDeserializer serDeserializer = new EntitySerDeserializer();
+        Map<String, byte[]> qualifierValues = serDeserializer.writeValue(createEntity(), ed);
+        qualifierValues.put("tag", "value".getBytes());
+        TestLogAPIEntity entity = serDeserializer.readValue(qualifierValues, ed);
+        assertEntity(entity);
+    }
+
+    @Test
+    public void testMetricEntity() throws Exception {
+        EntityDefinition ed = EntityDefinitionManager.createEntityDefinition(GenericMetricEntity.class);
+        GenericMetricEntity metric = new GenericMetricEntity();
+        metric.setValue(new double[] {1.0, 2.0});
+        metric.setTags(new HashMap<>());
+
+        EntitySerDeserializer serDeserializer = new EntitySerDeserializer();
+        GenericMetricEntity read = serDeserializer.readValue(serDeserializer.writeValue(metric, ed), ed);
+        Assert.assertArrayEquals(new double[] {1.0, 2.0}, read.getValue(), 0);
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.log.expression;
+
+import org.apache.commons.lang.time.StopWatch;
+import org.apache.eagle.log.base.taggedlog.TaggedLogAPIEntity;
+import org.apache.eagle.log.entity.EntityQualifierUtils;
+import org.apache.eagle.log.entity.meta.EntityDefinitionManager;
+import org.apache.eagle.log.entity.test.TestLogAPIEntity;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+public class TestCompiledExpression {
+    private static final Logger LOG = LoggerFactory.getLogger(TestCompiledExpression.class);
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        EntityDefinitionManager.registerEntity(TestLogAPIEntity.class);
+    }
+
+    private static TestLogAPIEntity createEntity(int i) {
+        TestLogAPIEntity entity = new TestLogAPIEntity();
+        entity.setTimestamp(1000L + i);
+        entity.setField1(i);
+        entity.setField2(2 * i);
+        entity.setField3(3L * i);
+        entity.setField4(4L * i);
+        entity.setField5(5.5 * i);
+        entity.setField6(6.5 * i);
+        entity.setField7(String.valueOf(7 * i));
+        return entity;
+    }
+
+    @Test
+    public void testEvalEntity() throws Exception {
+        CompiledExpression expr = ExpressionParser.compile("(field1 + field2 + field3 + field4) * field5 / field6");
+        Assert.assertEquals(6, expr.getDependentFields().size());
+        for (int i = 1; i < 10; i++) {
+            double expected = (i + 2 * i + 3 * i + 4 * i) * (5.5 * i) / (6.5 * i);
+            Assert.assertEquals(expected, expr.eval(createEntity(i)), 0.0001);
+        }
+    }
+
+    @Test
+    public void testEvalNonNumericField() throws Exception {
+        CompiledExpression expr = ExpressionParser.compile("field1 + field7");
+        Assert.assertTrue(Double.isNaN(expr.eval(createEntity(1))));
+    }
+
+    @Test
+    public void testEvalNonQualifierField() throws Exception {
+        CompiledExpression expr = ExpressionParser.compile("timestamp - field3");
+        Assert.assertEquals(1000 + 10 - 30, expr.eval(createEntity(10)), 0.0001);
+    }
+
+    @Test
+    public void testEvalDifferentEntityClasses() throws Exception {
+        CompiledExpression expr = ExpressionParser.compile("timestamp * 2");
+        Assert.assertEquals(2002, expr.eval(createEntity(1)), 0.0001);
+        TaggedLogAPIEntity entity = new TaggedLogAPIEntity();
+        entity.setTimestamp(5);
+        Assert.assertEquals(10, expr.eval(entity), 0.0001);
+        Assert.assertEquals(2004, expr.eval(createEntity(2)), 0.0001);
+    }
+
+    @Test
+    public void testEvalMap() throws Exception {
+        CompiledExpression expr = ExpressionParser.compile("max(a, 3 * b) + min(b, 10000) / abs(c * 2)");
+        Map<String, Double> context = new HashMap<String, Double>();
+        context.put("a", 20.5);
+        context.put("b", 123.7);
+        context.put("c", 97.57);
+        Assert.assertEquals(371.73, expr.eval(context), 0.01);
+        Assert.assertEquals(371.73, ExpressionParser.eval("max(a, 3 * b) + min(b, 10000) / abs(c * 2)", context), 0.01);
+        Assert.assertEquals(ExpressionParser.parse("a + b").eval(context), ExpressionParser.eval("a + b", context), 0);
+    }
+
+    @Test
+    public void testCompiledPerThread() throws Exception {
+        CompiledExpression expr = ExpressionParser.compiled("a + b");
+        Assert.assertSame(expr, ExpressionParser.compiled("a + b"));
+        Assert.assertNotSame(expr, ExpressionParser.compile("a + b"));
+        CompiledExpression[] other = new CompiledExpression[1];
+        Thread thread = new Thread(() -> {
+            try {
+                other[0] = ExpressionParser.compiled("a + b");
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        thread.start();
+        thread.join();
+        Assert.assertNotNull(other[0]);
+        Assert.assertNotSame(expr, other[0]);
+    }
+
+    @Test
+    public void testCompiledPerThreadBounded() throws Exception {
+        Throwable[] failure = new Throwable[1];
+        // in a new thread, so that no expression has been compiled by it yet
+        Thread thread = new Thread(() -> {
+            try {
+                CompiledExpression first = ExpressionParser.compiled("x + 0");
+                CompiledExpression second = ExpressionParser.compiled("x + 1");
+                for (int i = 2; i < ExpressionParser.MAX_COMPILED_EXPRESSIONS_PER_THREAD; i++) {
+                    ExpressionParser.compiled("x + " + i);
+                }
+                Assert.assertSame(first, ExpressionParser.compiled("x + 0"));
+                // the least recently used expression is evicted above the limit
+                ExpressionParser.compiled("x + " + ExpressionParser.MAX_COMPILED_EXPRESSIONS_PER_THREAD);
+                Assert.assertSame(first, ExpressionParser.compiled("x + 0"));
+                Assert.assertNotSame(second, ExpressionParser.compiled("x + 1"));
+            } catch (Throwable e) {
+                failure[0] = e;
+            }
+        });
+        thread.start();
+        thread.join();
+        Assert.assertNull(failure[0]);
+    }
+
+    private static final Map<String, Method> methodCache = new HashMap<String, Method>();
+
+    /**
+     * Evaluation before expressions were compiled: a shared parser, getters looked up in a synchronized cache
+     * and a context map built per entity.
+     */
+    private static double evalReflectively(String expression, TaggedLogAPIEntity entity) throws Exception {
+        ExpressionParser parser = ExpressionParser.parse(expression);
+        Map<String, Double> context = new HashMap<String, Double>();
+        for (String field : parser.getDependentFields()) {
+            String methodName = "get" + field.substring(0, 1).toUpperCase() + field.substring(1);
+            String methodUID = entity.getClass().getName() + "." + methodName;
+            Method m;
+            synchronized (methodCache) {
+                m = methodCache.get(methodUID);
+                if (m == null) {
+                    m = entity.getClass().getMethod(methodName);
+                    methodCache.put(methodUID, m);
+                }
+            }
+            context.put(field, EntityQualifierUtils.convertObjToDouble(m.invoke(entity)));
+        }
+        return parser.eval(context);
+    }
+
+    @Test
+    @Ignore
+    public void testEvalPerformance() throws Exception {
+        String exprStr = "(field1 + field2 + field3 + field4) * field5 / field6";
+        TestLogAPIEntity[] entities = new TestLogAPIEntity[1000];
+        for (int i = 0; i < entities.length; i++) {
+            entities[i] = createEntity(i + 1);
+        }
+        int rounds = 2000;
+        CompiledExpression expr = ExpressionParser.compile(exprStr);
+        // the first round warms up both paths
+        for (int round = 0; round < 2; round++) {
+            double sum = 0;
+            StopWatch stopWatch = new StopWatch();
+            stopWatch.start();
+            for (int i = 0; i < rounds; i++) {
+                for (TestLogAPIEntity entity : entities) {
+                    sum += evalReflectively(exprStr, entity);
+                }
+            }
+            stopWatch.stop();
+            LOG.info("Reflective evaluation of {} entities: {} ms, sum: {}", rounds * entities.length, stopWatch.getTime(), sum);
+
+            double compiledSum = 0;
+            stopWatch.reset();
+            stopWatch.start();
+            for (int i = 0; i < rounds; i++) {
+                for (TestLogAPIEntity entity : entities) {
+                    compiledSum += expr.eval(entity);
+                }
+            }
+            stopWatch.stop();
+            LOG.info("Compiled evaluation of {} entities: {} ms, sum: {}", rounds * entities.length, stopWatch.getTime(), compiledSum);
+            Assert.assertEquals(sum, compiledSum, Math.abs(sum) * 1e-9);
+        }
+    }
+}
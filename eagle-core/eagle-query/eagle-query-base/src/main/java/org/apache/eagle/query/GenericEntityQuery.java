@@ -73,6 +73,16 @@ public class GenericEntityQuery implements GenericQuery,EntityCreationListener {
         return entities;
     }
 
+    /**
+     * Pass the entities to the listener as they are read instead of collecting them, so that the memory used
+     * does not grow with the number of entities.
+     */
+    public void readAsStream(EntityCreationListener listener) throws Exception {
+        reader.unregister(this);
+        reader.register(listener);
+        reader.readAsStream();
+    }
+
     @Override
     public long getFirstTimeStamp() {
         return reader.getFirstTimestamp();
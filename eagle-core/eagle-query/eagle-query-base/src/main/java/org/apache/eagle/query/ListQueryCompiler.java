@@ -398,4 +398,50 @@ public class ListQueryCompiler {
     public Map<String,String> getOutputAlias() {
         return outputAlias;
     }
+
+    /**
+     * Query rebuilt from what it compiles to, so that queries differing only in white spaces compile to the same
+     * string, for example <code>TestLogAPIEntity[(@cluster="c1" AND @datacenter="d1")]&lt;cluster&gt;{sum(field1)}</code>
+     *
+     * @return normalized query, including the options the compiled query depends on
+     */
+    public String getNormalizedQuery() {
+        StringBuilder sb = new StringBuilder(serviceName).append('[');
+        if (queryExpression != null) {
+            sb.append(queryExpression);
+        }
+        sb.append(']');
+        if (hasAgg) {
+            sb.append('<');
+            if (groupbyFields != null) {
+                sb.append(String.join(",", groupbyFields));
+            }
+            sb.append(">{");
+            appendFunctions(sb, aggregateFunctionTypes, aggregateFields);
+            sb.append('}');
+            if (sortOptions != null) {
+                sb.append(".{");
+                appendFunctions(sb, sortFunctionTypes, sortFields);
+                for (SortOption sortOption : sortOptions) {
+                    sb.append(sortOption.isAscendant() ? " asc" : " desc");
+                }
+                sb.append('}');
+            }
+        } else {
+            sb.append('{').append(outputAll ? "*" : String.join(",", outputFields)).append('}');
+        }
+        if (filterIfMissing) {
+            sb.append("&filterIfMissing");
+        }
+        return sb.toString();
+    }
+
+    private static void appendFunctions(StringBuilder sb, List<AggregateFunctionType> functions, List<String> fields) {
+        for (int i = 0; functions != null && i < functions.size(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(functions.get(i)).append('(').append(fields == null ? "" : fields.get(i)).append(')');
+        }
+    }
 }
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.query.aggregate.buffer;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+
+import java.io.File;
+import java.io.Serializable;
+
+/**
+ * <pre>
+ * storage.hbase.aggregation {
+ *   spillEnabled = true
+ *   spillThresholdMB = 64
+ *   memoryLimitMB = 1024
+ *   spillDir = "/tmp"
+ * }
+ * </pre>
+ */
+public class AggregationBufferConfig implements Serializable {
+    private static final long serialVersionUID = 1L;
+    public static final String AGGREGATION_CONFIG_PATH = "storage.hbase.aggregation";
+    private static final String SPILL_ENABLED = "spillEnabled";
+    private static final String SPILL_THRESHOLD_MB = "spillThresholdMB";
+    private static final String MEMORY_LIMIT_MB = "memoryLimitMB";
+    private static final String SPILL_DIR = "spillDir";
+    private static volatile AggregationBufferConfig instance;
+
+    private boolean spillEnabled = true;
+    private long spillThresholdMB = 64;
+    private long memoryLimitMB = 1024;
+    private String spillDir = System.getProperty("java.io.tmpdir");
+
+    /**
+     * Loaded with ConfigFactory rather than EagleConfigFactory, as raw aggregation also runs in the region servers.
+     */
+    public static AggregationBufferConfig getInstance() {
+        if (instance == null) {
+            synchronized (AggregationBufferConfig.class) {
+                if (instance == null) {
+                    instance = fromConfig(ConfigFactory.load());
+                }
+            }
+        }
+        return instance;
+    }
+
+    public static AggregationBufferConfig fromConfig(Config config) {
+        AggregationBufferConfig bufferConfig = new AggregationBufferConfig();
+        if (config == null || !config.hasPath(AGGREGATION_CONFIG_PATH)) {
+            return bufferConfig;
+        }
+        Config aggregation = config.getConfig(AGGREGATION_CONFIG_PATH);
+        if (aggregation.hasPath(SPILL_ENABLED)) {
+            bufferConfig.spillEnabled = aggregation.getBoolean(SPILL_ENABLED);
+        }
+        if (aggregation.hasPath(SPILL_THRESHOLD_MB)) {
+            bufferConfig.spillThresholdMB = aggregation.getLong(SPILL_THRESHOLD_MB);
+        }
+        if (aggregation.hasPath(MEMORY_LIMIT_MB)) {
+            bufferConfig.memoryLimitMB = aggregation.getLong(MEMORY_LIMIT_MB);
+        }
+        if (aggregation.hasPath(SPILL_DIR)) {
+            bufferConfig.spillDir = aggregation.getString(SPILL_DIR);
+        }
+        if (bufferConfig.spillThresholdMB <= 0 || bufferConfig.memoryLimitMB <= 0) {
+            throw new IllegalArgumentException(AGGREGATION_CONFIG_PATH + "." + SPILL_THRESHOLD_MB + " and "
+                + AGGREGATION_CONFIG_PATH + "." + MEMORY_LIMIT_MB + " should be positive");
+        }
+        return bufferConfig;
+    }
+
+    public boolean isSpillEnabled() {
+        return spillEnabled;
+    }
+
+    /**
+     * @return size of the groups held in memory by an aggregation before they are spilled to disk.
+     */
+    public long getSpillThresholdBytes() {
+        return spillThresholdMB * 1024 * 1024;
+    }
+
+    /**
+     * @return size of the groups an aggregation may hold in memory, either because it can not spill
+     *     or because its merged result is that large.
+     */
+    public long getMemoryLimitBytes() {
+        return memoryLimitMB * 1024 * 1024;
+    }
+
+    public File getSpillDir() {
+        return new File(spillDir);
+    }
+}
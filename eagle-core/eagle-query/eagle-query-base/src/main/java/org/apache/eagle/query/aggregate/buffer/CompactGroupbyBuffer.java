@@ -0,0 +1,411 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.query.aggregate.buffer;
+
+import org.apache.eagle.query.aggregate.AggregateFunctionType;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Groups of an aggregation and the state of their functions held in a few primitive arrays instead of a map
+ * of key lists to function objects, which takes several times the memory and as many objects to collect.
+ * <ul>
+ * <li>keys are encoded as a length prefixed value per group-by field, one after the other in a byte array</li>
+ * <li>an open addressing hash table maps the keys to group ids</li>
+ * <li>each function of a group keeps its count and a value: the sum for count, sum and avg, the minimum for min
+ * and the maximum for max, the same as the function objects do</li>
+ * </ul>
+ * Not thread safe.
+ */
+public class CompactGroupbyBuffer {
+    private static final int INITIAL_GROUPS = 64;
+    private static final int INITIAL_KEY_BYTES = 4096;
+
+    private final List<AggregateFunctionType> types;
+    private final int numFunctions;
+    private byte[] keys;
+    private int keysSize;
+    private int[] keyOffsets;
+    private int[] keyLengths;
+    private int[] hashes;
+    private int[] counts;
+    private double[] values;
+    // group id + 1 by hash slot, 0 for an empty slot
+    private int[] table;
+    private int size;
+
+    public CompactGroupbyBuffer(List<AggregateFunctionType> types) {
+        this.types = types;
+        this.numFunctions = types.size();
+        clear();
+    }
+
+    public void clear() {
+        keys = new byte[INITIAL_KEY_BYTES];
+        keysSize = 0;
+        keyOffsets = new int[INITIAL_GROUPS];
+        keyLengths = new int[INITIAL_GROUPS];
+        hashes = new int[INITIAL_GROUPS];
+        counts = new int[INITIAL_GROUPS * numFunctions];
+        values = new double[INITIAL_GROUPS * numFunctions];
+        table = new int[INITIAL_GROUPS * 2];
+        size = 0;
+    }
+
+    public List<AggregateFunctionType> getTypes() {
+        return types;
+    }
+
+    /**
+     * @return id of the group of the key, created if it does not exist yet.
+     */
+    public int group(KeyBuilder key) {
+        return group(key.bytes, 0, key.length);
+    }
+
+    public int group(byte[] key, int offset, int length) {
+        int hash = hash(key, offset, length);
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        while (table[slot] != 0) {
+            int group = table[slot] - 1;
+            if (hashes[group] == hash && equalKeys(group, key, offset, length)) {
+                return group;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int group = size++;
+        ensureGroupCapacity(size);
+        ensureKeyCapacity(keysSize + length);
+        System.arraycopy(key, offset, keys, keysSize, length);
+        keyOffsets[group] = keysSize;
+        keyLengths[group] = length;
+        hashes[group] = hash;
+        keysSize += length;
+        for (int i = 0; i < numFunctions; i++) {
+            values[group * numFunctions + i] = initialValue(types.get(i));
+        }
+        table[slot] = group + 1;
+        if (size * 2 > table.length) {
+            rehash(table.length * 2);
+        }
+        return group;
+    }
+
+    /**
+     * Run the function of the group with the value.
+     */
+    public void run(int group, int function, double value) {
+        merge(group, function, 1, value);
+    }
+
+    /**
+     * Merge the state of a function of another buffer into the function of the group.
+     */
+    public void merge(int group, int function, int count, double value) {
+        int index = group * numFunctions + function;
+        counts[index] += count;
+        switch (types.get(function)) {
+            case min:
+                if (value < values[index]) {
+                    values[index] = value;
+                }
+                break;
+            case max:
+                if (value > values[index]) {
+                    values[index] = value;
+                }
+                break;
+            default:
+                values[index] += value;
+        }
+    }
+
+    /**
+     * Merge all the groups of another buffer with the same function types into this buffer.
+     */
+    public void merge(CompactGroupbyBuffer other) {
+        for (int otherGroup = 0; otherGroup < other.size; otherGroup++) {
+            int group = group(other.keys, other.keyOffsets[otherGroup], other.keyLengths[otherGroup]);
+            for (int i = 0; i < numFunctions; i++) {
+                int index = otherGroup * numFunctions + i;
+                merge(group, i, other.counts[index], other.values[index]);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int count(int group, int function) {
+        return counts[group * numFunctions + function];
+    }
+
+    public double result(int group, int function) {
+        int index = group * numFunctions + function;
+        if (AggregateFunctionType.avg.equals(types.get(function))) {
+            return values[index] / counts[index];
+        }
+        return values[index];
+    }
+
+    public List<byte[]> keyFields(int group) {
+        List<byte[]> fields = new ArrayList<>();
+        int position = keyOffsets[group];
+        int end = position + keyLengths[group];
+        while (position < end) {
+            int length = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = keys[position++];
+                length |= (b & 0x7F) << shift;
+                shift += 7;
+            }
+            while (b < 0);
+            fields.add(Arrays.copyOfRange(keys, position, position + length));
+            position += length;
+        }
+        return fields;
+    }
+
+    public List<String> keyStrings(int group) {
+        List<byte[]> fields = keyFields(group);
+        List<String> strings = new ArrayList<>(fields.size());
+        for (byte[] field : fields) {
+            strings.add(new String(field, StandardCharsets.UTF_8));
+        }
+        return strings;
+    }
+
+    /**
+     * @return group ids ordered by their keys, field by field and byte by byte like
+     *     {@link org.apache.eagle.query.aggregate.raw.GroupbyKeyComparator}.
+     */
+    public int[] sortedGroups() {
+        return IntStream.range(0, size).boxed()
+            .sorted((group1, group2) -> compareKeys(keys, keyOffsets[group1], keyLengths[group1], keys, keyOffsets[group2], keyLengths[group2]))
+            .mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * @return estimated size in bytes of the arrays, as allocated.
+     */
+    public long estimatedBytes() {
+        return keys.length + 4L * (keyOffsets.length + keyLengths.length + hashes.length + counts.length + table.length)
+            + 8L * values.length;
+    }
+
+    /**
+     * Write the groups ordered by their keys, to be read by {@link #readGroup(DataInput, KeyBuilder, int[], double[])}.
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(size);
+        for (int group : sortedGroups()) {
+            out.writeInt(keyLengths[group]);
+            out.write(keys, keyOffsets[group], keyLengths[group]);
+            for (int i = 0; i < numFunctions; i++) {
+                out.writeInt(counts[group * numFunctions + i]);
+                out.writeDouble(values[group * numFunctions + i]);
+            }
+        }
+    }
+
+    /**
+     * Read a group written by {@link #write(DataOutput)} into the key, counts and values.
+     */
+    public static void readGroup(DataInput in, KeyBuilder key, int[] counts, double[] values) throws IOException {
+        int length = in.readInt();
+        key.ensureCapacity(length);
+        in.readFully(key.bytes, 0, length);
+        key.length = length;
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = in.readInt();
+            values[i] = in.readDouble();
+        }
+    }
+
+    private static double initialValue(AggregateFunctionType type) {
+        // as GroupbyBucket.Min and Max do
+        return AggregateFunctionType.min.equals(type) ? Double.MAX_VALUE : 0.0;
+    }
+
+    private boolean equalKeys(int group, byte[] key, int offset, int length) {
+        if (keyLengths[group] != length) {
+            return false;
+        }
+        int keyOffset = keyOffsets[group];
+        for (int i = 0; i < length; i++) {
+            if (keys[keyOffset + i] != key[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void ensureGroupCapacity(int groups) {
+        if (groups > keyOffsets.length) {
+            int capacity = Math.max(groups, keyOffsets.length * 2);
+            keyOffsets = Arrays.copyOf(keyOffsets, capacity);
+            keyLengths = Arrays.copyOf(keyLengths, capacity);
+            hashes = Arrays.copyOf(hashes, capacity);
+            counts = Arrays.copyOf(counts, capacity * numFunctions);
+            values = Arrays.copyOf(values, capacity * numFunctions);
+        }
+    }
+
+    private void ensureKeyCapacity(int bytes) {
+        if (bytes > keys.length) {
+            keys = Arrays.copyOf(keys, Math.max(bytes, keys.length * 2));
+        }
+    }
+
+    private void rehash(int capacity) {
+        table = new int[capacity];
+        int mask = capacity - 1;
+        for (int group = 0; group < size; group++) {
+            int slot = hashes[group] & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = group + 1;
+        }
+    }
+
+    private static int hash(byte[] key, int offset, int length) {
+        int hash = 1;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + key[i];
+        }
+        // spread the low bits used by the table
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Compare encoded keys field by field, each field by unsigned bytes then by length.
+     */
+    static int compareKeys(byte[] keys1, int offset1, int length1, byte[] keys2, int offset2, int length2) {
+        int position1 = offset1;
+        int position2 = offset2;
+        int end1 = offset1 + length1;
+        int end2 = offset2 + length2;
+        while (position1 < end1 && position2 < end2) {
+            int fieldLength1 = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = keys1[position1++];
+                fieldLength1 |= (b & 0x7F) << shift;
+                shift += 7;
+            }
+            while (b < 0);
+            int fieldLength2 = 0;
+            shift = 0;
+            do {
+                b = keys2[position2++];
+                fieldLength2 |= (b & 0x7F) << shift;
+                shift += 7;
+            }
+            while (b < 0);
+            int common = Math.min(fieldLength1, fieldLength2);
+            for (int i = 0; i < common; i++) {
+                int r = (keys1[position1 + i] & 0xFF) - (keys2[position2 + i] & 0xFF);
+                if (r != 0) {
+                    return r;
+                }
+            }
+            if (fieldLength1 != fieldLength2) {
+                return fieldLength1 - fieldLength2;
+            }
+            position1 += fieldLength1;
+            position2 += fieldLength2;
+        }
+        return (end1 - position1) - (end2 - position2);
+    }
+
+    /**
+     * Reusable builder of the encoded key of a group.
+     */
+    public static class KeyBuilder {
+        private byte[] bytes = new byte[256];
+        private int length = 0;
+
+        public KeyBuilder clear() {
+            length = 0;
+            return this;
+        }
+
+        public KeyBuilder add(String field) {
+            return add(field.getBytes(StandardCharsets.UTF_8));
+        }
+
+        public KeyBuilder add(byte[] field) {
+            return add(field, 0, field.length);
+        }
+
+        public KeyBuilder add(byte[] field, int offset, int fieldLength) {
+            int value = fieldLength;
+            ensureCapacity(length + 5 + fieldLength);
+            while ((value & ~0x7F) != 0) {
+                bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[length++] = (byte) value;
+            System.arraycopy(field, offset, bytes, length, fieldLength);
+            length += fieldLength;
+            return this;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length * 2));
+            }
+        }
+
+        public byte[] getBytes() {
+            return bytes;
+        }
+
+        public int getLength() {
+            return length;
+        }
+
+        int compareTo(KeyBuilder other) {
+            return compareKeys(bytes, 0, length, other.bytes, 0, other.length);
+        }
+
+        boolean equalTo(KeyBuilder other) {
+            if (length != other.length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (bytes[i] != other.bytes[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
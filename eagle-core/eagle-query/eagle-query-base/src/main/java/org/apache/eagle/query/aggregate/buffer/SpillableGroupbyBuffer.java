@@ -0,0 +1,225 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.query.aggregate.buffer;
+
+import org.apache.eagle.query.aggregate.AggregateFunctionType;
+import org.apache.eagle.query.aggregate.AggregationMemoryExceededException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Groups of an aggregation bounded in memory.
+ * <ol>
+ * <li>groups are accumulated in a {@link CompactGroupbyBuffer}</li>
+ * <li>once the buffer is larger than {@link AggregationBufferConfig#getSpillThresholdBytes()}, its groups are written
+ * to a file sorted by key and the buffer is cleared</li>
+ * <li>at the end the sorted runs are merged into one buffer, which is the result and has to fit in
+ * {@link AggregationBufferConfig#getMemoryLimitBytes()}</li>
+ * </ol>
+ * Runs left when the aggregation fails before being merged are deleted by {@link #close()}.
+ * Not thread safe.
+ */
+public class SpillableGroupbyBuffer implements Closeable {
+    private static final Logger LOG = LoggerFactory.getLogger(SpillableGroupbyBuffer.class);
+    private static final int IO_BUFFER_SIZE = 64 * 1024;
+
+    private final List<AggregateFunctionType> types;
+    private final AggregationBufferConfig config;
+    private CompactGroupbyBuffer buffer;
+    private final List<File> runs = new ArrayList<>();
+
+    public SpillableGroupbyBuffer(List<AggregateFunctionType> types, AggregationBufferConfig config) {
+        this.types = types;
+        this.config = config;
+        this.buffer = new CompactGroupbyBuffer(types);
+    }
+
+    /**
+     * @return id of the group of the key to run the functions of, valid until the next call.
+     */
+    public int group(CompactGroupbyBuffer.KeyBuilder key) {
+        checkMemory();
+        return buffer.group(key);
+    }
+
+    public void run(int group, int function, double value) {
+        buffer.run(group, function, value);
+    }
+
+    /**
+     * Merge the groups of another buffer with the same function types, which should not be used anymore.
+     */
+    public void merge(SpillableGroupbyBuffer other) {
+        buffer.merge(other.buffer);
+        other.buffer.clear();
+        runs.addAll(other.runs);
+        other.runs.clear();
+        checkMemory();
+    }
+
+    /**
+     * @return all the groups, the spilled runs being merged first if any.
+     */
+    public CompactGroupbyBuffer groups() {
+        if (!runs.isEmpty()) {
+            spill();
+            buffer = mergeRuns();
+        }
+        return buffer;
+    }
+
+    public int getSpilledRuns() {
+        return runs.size();
+    }
+
+    private void checkMemory() {
+        long bytes = buffer.estimatedBytes();
+        if (config.isSpillEnabled()) {
+            if (bytes > config.getSpillThresholdBytes()) {
+                spill();
+            }
+        } else if (bytes > config.getMemoryLimitBytes()) {
+            throw memoryExceeded(buffer.size());
+        }
+    }
+
+    private void spill() {
+        if (buffer.size() == 0) {
+            return;
+        }
+        try {
+            File run = File.createTempFile("eagle-aggregation-", ".run", config.getSpillDir());
+            runs.add(run);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run), IO_BUFFER_SIZE))) {
+                buffer.write(out);
+            }
+            LOG.info("Spilled {} groups of {} bytes to {}", buffer.size(), buffer.estimatedBytes(), run);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to spill aggregation groups to " + config.getSpillDir(), e);
+        }
+        buffer.clear();
+    }
+
+    private CompactGroupbyBuffer mergeRuns() {
+        CompactGroupbyBuffer merged = new CompactGroupbyBuffer(types);
+        PriorityQueue<RunReader> readers = new PriorityQueue<>(runs.size(), (reader1, reader2) -> reader1.key.compareTo(reader2.key));
+        List<RunReader> opened = new ArrayList<>(runs.size());
+        try {
+            for (File run : runs) {
+                RunReader reader = new RunReader(run, types.size());
+                opened.add(reader);
+                if (reader.next()) {
+                    readers.add(reader);
+                }
+            }
+            while (!readers.isEmpty()) {
+                RunReader reader = readers.poll();
+                int size = merged.size();
+                int group = merged.group(reader.key);
+                if (merged.size() > size && merged.estimatedBytes() > config.getMemoryLimitBytes()) {
+                    throw memoryExceeded(merged.size());
+                }
+                for (int i = 0; i < types.size(); i++) {
+                    merged.merge(group, i, reader.counts[i], reader.values[i]);
+                }
+                if (reader.next()) {
+                    readers.add(reader);
+                }
+            }
+            LOG.info("Merged {} spilled runs into {} groups", runs.size(), merged.size());
+            return merged;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to merge spilled aggregation groups", e);
+        } finally {
+            for (RunReader reader : opened) {
+                reader.close();
+            }
+            deleteRuns();
+        }
+    }
+
+    /**
+     * Delete the spilled runs and release the groups, the buffer should not be used anymore.
+     */
+    @Override
+    public void close() {
+        deleteRuns();
+        buffer.clear();
+    }
+
+    private void deleteRuns() {
+        for (File run : runs) {
+            if (!run.delete()) {
+                LOG.warn("Failed to delete {}", run);
+            }
+        }
+        runs.clear();
+    }
+
+    private AggregationMemoryExceededException memoryExceeded(int groups) {
+        return new AggregationMemoryExceededException("Aggregation exceeds the memory limit of "
+            + config.getMemoryLimitBytes() / 1024 / 1024 + " MB with " + groups + " groups, narrow the time range or the group-by fields, or raise "
+            + AggregationBufferConfig.AGGREGATION_CONFIG_PATH + ".memoryLimitMB");
+    }
+
+    private static class RunReader implements Closeable {
+        private final DataInputStream in;
+        private final CompactGroupbyBuffer.KeyBuilder key = new CompactGroupbyBuffer.KeyBuilder();
+        private final int[] counts;
+        private final double[] values;
+        private int remaining;
+
+        private RunReader(File run, int numFunctions) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(run), IO_BUFFER_SIZE));
+            this.counts = new int[numFunctions];
+            this.values = new double[numFunctions];
+            this.remaining = in.readInt();
+        }
+
+        private boolean next() throws IOException {
+            if (remaining == 0) {
+                return false;
+            }
+            remaining--;
+            CompactGroupbyBuffer.readGroup(in, key, counts, values);
+            return true;
+        }
+
+        @Override
+        public void close() {
+            try {
+                in.close();
+            } catch (IOException e) {
+                LOG.warn("Failed to close spilled run", e);
+            }
+        }
+    }
+}
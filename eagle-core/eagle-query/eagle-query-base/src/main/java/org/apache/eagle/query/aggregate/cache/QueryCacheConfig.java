@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.query.aggregate.cache;
+
+import com.typesafe.config.Config;
+import org.apache.eagle.common.config.EagleConfigFactory;
+
+import java.io.Serializable;
+
+/**
+ * <pre>
+ * storage.hbase.queryCache {
+ *   enabled = true
+ *   bucketMinutes = 60
+ *   delayMinutes = 10
+ *   expireMinutes = 60
+ *   maxSizeMB = 64
+ * }
+ * </pre>
+ */
+public class QueryCacheConfig implements Serializable {
+    private static final long serialVersionUID = 1L;
+    public static final String QUERY_CACHE_CONFIG_PATH = "storage.hbase.queryCache";
+    private static final String ENABLED = "enabled";
+    private static final String BUCKET_MINUTES = "bucketMinutes";
+    private static final String DELAY_MINUTES = "delayMinutes";
+    private static final String EXPIRE_MINUTES = "expireMinutes";
+    private static final String MAX_SIZE_MB = "maxSizeMB";
+
+    private boolean enabled = false;
+    private long bucketMinutes = 60;
+    private long delayMinutes = 10;
+    private long expireMinutes = 60;
+    private long maxSizeMB = 64;
+
+    public static QueryCacheConfig load() {
+        return fromConfig(EagleConfigFactory.load().getConfig());
+    }
+
+    public static QueryCacheConfig fromConfig(Config config) {
+        QueryCacheConfig cacheConfig = new QueryCacheConfig();
+        if (config == null || !config.hasPath(QUERY_CACHE_CONFIG_PATH)) {
+            return cacheConfig;
+        }
+        Config cache = config.getConfig(QUERY_CACHE_CONFIG_PATH);
+        if (cache.hasPath(ENABLED)) {
+            cacheConfig.enabled = cache.getBoolean(ENABLED);
+        }
+        if (cache.hasPath(BUCKET_MINUTES)) {
+            cacheConfig.bucketMinutes = cache.getLong(BUCKET_MINUTES);
+        }
+        if (cache.hasPath(DELAY_MINUTES)) {
+            cacheConfig.delayMinutes = cache.getLong(DELAY_MINUTES);
+        }
+        if (cache.hasPath(EXPIRE_MINUTES)) {
+            cacheConfig.expireMinutes = cache.getLong(EXPIRE_MINUTES);
+        }
+        if (cache.hasPath(MAX_SIZE_MB)) {
+            cacheConfig.maxSizeMB = cache.getLong(MAX_SIZE_MB);
+        }
+        if (cacheConfig.bucketMinutes <= 0) {
+            throw new IllegalArgumentException(QUERY_CACHE_CONFIG_PATH + "." + BUCKET_MINUTES + " should be positive");
+        }
+        return cacheConfig;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getBucketMs() {
+        return bucketMinutes * 60 * 1000;
+    }
+
+    /**
+     * @return time after which a bucket is considered closed, entities may still be written into it before.
+     */
+    public long getDelayMs() {
+        return delayMinutes * 60 * 1000;
+    }
+
+    /**
+     * @return time to live of a cached bucket, so that writes not going through the service are eventually seen.
+     */
+    public long getExpireMs() {
+        return expireMinutes * 60 * 1000;
+    }
+
+    public long getMaxSizeBytes() {
+        return maxSizeMB * 1024 * 1024;
+    }
+}
@@ -0,0 +1,298 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.query.aggregate.cache;
+
+import org.apache.eagle.log.base.taggedlog.TaggedLogAPIEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Aggregate results of queries per time bucket, bounded by the estimated size of the cached results.
+ *
+ * <p>Only closed buckets, which ended {@link QueryCacheConfig#getDelayMs()} ago, are cached, see
+ * {@link #closedTime(long)}. Buckets of a service are invalidated when entities are written into them through
+ * the service and expire after {@link QueryCacheConfig#getExpireMs()} anyway, so that writes by other means are
+ * eventually seen. The least recently used buckets are evicted first.</p>
+ */
+public class QueryResultCache {
+    private static final Logger LOG = LoggerFactory.getLogger(QueryResultCache.class);
+    private static volatile QueryResultCache instance;
+
+    private final QueryCacheConfig config;
+    private final LinkedHashMap<BucketKey, Bucket<?>> buckets = new LinkedHashMap<>(16, 0.75f, true);
+    // services to the version of their last invalidation, so that buckets read before are not cached
+    private final Map<String, Long> invalidatedVersions = new HashMap<>();
+    private long version = 0;
+    private long clearedVersion = 0;
+    private long size = 0;
+    private long hits = 0;
+    private long misses = 0;
+
+    public QueryResultCache(QueryCacheConfig config) {
+        this.config = config;
+    }
+
+    public static QueryResultCache getInstance() {
+        if (instance == null) {
+            synchronized (QueryResultCache.class) {
+                if (instance == null) {
+                    instance = new QueryResultCache(QueryCacheConfig.load());
+                }
+            }
+        }
+        return instance;
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    public long getBucketMs() {
+        return config.getBucketMs();
+    }
+
+    /**
+     * @return time before which buckets are closed and can be cached, buckets ending after it may still be written.
+     */
+    public long closedTime(long now) {
+        return now - config.getDelayMs();
+    }
+
+    @SuppressWarnings("unchecked")
+    public synchronized <V> Bucket<V> get(String serviceName, String queryKey, long bucketStart) {
+        BucketKey key = new BucketKey(serviceName, queryKey, bucketStart);
+        Bucket<V> bucket = (Bucket<V>) buckets.get(key);
+        if (bucket != null && System.currentTimeMillis() - bucket.createdTime > config.getExpireMs()) {
+            remove(key);
+            bucket = null;
+        }
+        if (bucket == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return bucket;
+    }
+
+    /**
+     * @return version to pass to {@link #put(String, String, long, Bucket, long)} for a bucket read from now on.
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Cache the bucket unless the service was invalidated since the version, when the bucket started to be read.
+     */
+    public synchronized <V> void put(String serviceName, String queryKey, long bucketStart, Bucket<V> bucket, long readVersion) {
+        Long invalidatedVersion = invalidatedVersions.get(serviceName);
+        if (clearedVersion > readVersion || (invalidatedVersion != null && invalidatedVersion > readVersion)) {
+            return;
+        }
+        if (bucket.size > config.getMaxSizeBytes()) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Bucket of {} bytes is larger than the cache, not cached: {}", bucket.size, queryKey);
+            }
+            return;
+        }
+        BucketKey key = new BucketKey(serviceName, queryKey, bucketStart);
+        remove(key);
+        buckets.put(key, bucket);
+        size += bucket.size;
+        Iterator<Bucket<?>> eldest = buckets.values().iterator();
+        while (size > config.getMaxSizeBytes() && eldest.hasNext()) {
+            size -= eldest.next().size;
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Invalidate the buckets of the service the entities are written into.
+     */
+    public synchronized void invalidate(String serviceName, List<? extends TaggedLogAPIEntity> entities) {
+        if (entities == null || entities.isEmpty()) {
+            return;
+        }
+        invalidatedVersions.put(serviceName, ++version);
+        long[] timestamps = new long[entities.size()];
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamps[i] = entities.get(i).getTimestamp();
+        }
+        Arrays.sort(timestamps);
+        int invalidated = 0;
+        Iterator<Map.Entry<BucketKey, Bucket<?>>> it = buckets.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<BucketKey, Bucket<?>> entry = it.next();
+            if (!entry.getKey().serviceName.equals(serviceName)) {
+                continue;
+            }
+            int index = Arrays.binarySearch(timestamps, entry.getKey().bucketStart);
+            if (index < 0) {
+                index = -index - 1;
+            }
+            if (index < timestamps.length && timestamps[index] < entry.getValue().bucketEnd) {
+                size -= entry.getValue().size;
+                it.remove();
+                invalidated++;
+            }
+        }
+        if (invalidated > 0 && LOG.isDebugEnabled()) {
+            LOG.debug("Invalidated {} cached buckets of {}", invalidated, serviceName);
+        }
+    }
+
+    /**
+     * Invalidate all the buckets of the service, when the time of the written entities is not known.
+     */
+    public synchronized void invalidate(String serviceName) {
+        invalidatedVersions.put(serviceName, ++version);
+        Iterator<Map.Entry<BucketKey, Bucket<?>>> it = buckets.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<BucketKey, Bucket<?>> entry = it.next();
+            if (entry.getKey().serviceName.equals(serviceName)) {
+                size -= entry.getValue().size;
+                it.remove();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        clearedVersion = ++version;
+        buckets.clear();
+        size = 0;
+    }
+
+    private void remove(BucketKey key) {
+        Bucket<?> bucket = buckets.remove(key);
+        if (bucket != null) {
+            size -= bucket.size;
+        }
+    }
+
+    public synchronized int getBucketCount() {
+        return buckets.size();
+    }
+
+    /**
+     * @return estimated size in bytes of the cached buckets.
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Aggregate result of a query in [bucketStart, bucketEnd), group-by values to the values of each function.
+     *
+     * @param <V> Double for flat aggregation, double[] of the bucket intervals for time series aggregation
+     */
+    public static class Bucket<V> {
+        private final long bucketEnd;
+        private final Map<List<String>, List<V>> groups;
+        private final long firstTimestamp;
+        private final long lastTimestamp;
+        private final long createdTime;
+        private final long size;
+
+        public Bucket(long bucketEnd, Map<List<String>, List<V>> groups, long firstTimestamp, long lastTimestamp) {
+            this.bucketEnd = bucketEnd;
+            this.groups = groups;
+            this.firstTimestamp = firstTimestamp;
+            this.lastTimestamp = lastTimestamp;
+            this.createdTime = System.currentTimeMillis();
+            this.size = estimateSize(groups);
+        }
+
+        public Map<List<String>, List<V>> getGroups() {
+            return groups;
+        }
+
+        public long getFirstTimestamp() {
+            return firstTimestamp;
+        }
+
+        public long getLastTimestamp() {
+            return lastTimestamp;
+        }
+
+        public long getSize() {
+            return size;
+        }
+    }
+
+    /**
+     * Rough estimate of the heap used by the groups, with 64 bit references and object headers.
+     */
+    static long estimateSize(Map<List<String>, ? extends List<?>> groups) {
+        long size = 128;
+        for (Map.Entry<List<String>, ? extends List<?>> entry : groups.entrySet()) {
+            // hash map entry, key list and value list
+            size += 48 + 40 + 40;
+            for (String value : entry.getKey()) {
+                size += 8 + (value == null ? 0 : 40 + 2 * value.length());
+            }
+            for (Object value : entry.getValue()) {
+                size += 8 + (value instanceof double[] ? 16 + 8 * ((double[]) value).length : 16);
+            }
+        }
+        return size;
+    }
+
+    private static class BucketKey {
+        private final String serviceName;
+        private final String queryKey;
+        private final long bucketStart;
+
+        private BucketKey(String serviceName, String queryKey, long bucketStart) {
+            this.serviceName = serviceName;
+            this.queryKey = queryKey;
+            this.bucketStart = bucketStart;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof BucketKey)) {
+                return false;
+            }
+            BucketKey that = (BucketKey) o;
+            return bucketStart == that.bucketStart && serviceName.equals(that.serviceName) && queryKey.equals(that.queryKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(serviceName, queryKey, bucketStart);
+        }
+    }
+}
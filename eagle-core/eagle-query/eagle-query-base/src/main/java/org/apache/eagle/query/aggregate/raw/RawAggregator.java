@@ -19,20 +19,22 @@ package org.apache.eagle.query.aggregate.raw;
 import org.apache.eagle.log.entity.QualifierCreationListener;
 import org.apache.eagle.log.entity.meta.EntityDefinition;
 import org.apache.eagle.query.aggregate.AggregateFunctionType;
+import org.apache.eagle.query.aggregate.buffer.CompactGroupbyBuffer;
 
+import java.io.Closeable;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 
-public class RawAggregator implements QualifierCreationListener,GroupbyKeyAggregatable {
+public class RawAggregator implements QualifierCreationListener,GroupbyKeyAggregatable,Closeable {
     private List<String> groupbyFields;
-    private GroupbyKey key;
+    private CompactGroupbyBuffer.KeyBuilder key;
     private static final byte[] UNASSIGNED = "unassigned".getBytes();
     private RawGroupbyBucket bucket;
 
     public RawAggregator(List<String> groupbyFields, List<AggregateFunctionType> aggregateFunctionTypes, List<String> aggregatedFields, EntityDefinition ed) {
         this.groupbyFields = groupbyFields;
-        key = new GroupbyKey();
+        key = new CompactGroupbyBuffer.KeyBuilder();
         bucket = new RawGroupbyBucket(aggregateFunctionTypes, aggregatedFields, ed);
     }
 
@@ -43,19 +45,12 @@ public class RawAggregator implements QualifierCreationListener,GroupbyKeyAggreg
         while (it.hasNext()) {
             byte[] groupbyFieldValue = qualifiers.get(it.next());
             if (groupbyFieldValue == null) {
-                key.addValue(UNASSIGNED);
+                key.add(UNASSIGNED);
             } else {
-                key.addValue(groupbyFieldValue);
+                key.add(groupbyFieldValue);
             }
         }
-        GroupbyKey newKey = null;
-        if (bucket.exists(key)) {
-            newKey = key;
-        } else {
-            newKey = new GroupbyKey(key);
-        }
-
-        bucket.addDatapoint(newKey, qualifiers);
+        bucket.addDatapoint(key, qualifiers);
     }
 
     /**
@@ -68,4 +63,12 @@ public class RawAggregator implements QualifierCreationListener,GroupbyKeyAggreg
     public List<GroupbyKeyValue> getGroupbyKeyValues() {
         return bucket.groupbyKeyValues();
     }
+
+    /**
+     * Delete the spilled groups if any, to be called once the result is read or the aggregation fails.
+     */
+    @Override
+    public void close() {
+        bucket.close();
+    }
 }
@@ -21,8 +21,10 @@ import org.apache.eagle.log.entity.GenericMetricEntity;
 import org.apache.eagle.log.entity.meta.*;
 import org.apache.eagle.log.expression.ExpressionParser;
 import org.apache.eagle.query.aggregate.AggregateFunctionType;
+import org.apache.eagle.query.aggregate.buffer.AggregationBufferConfig;
+import org.apache.eagle.query.aggregate.buffer.CompactGroupbyBuffer;
+import org.apache.eagle.query.aggregate.buffer.SpillableGroupbyBuffer;
 import org.apache.eagle.query.parser.TokenConstant;
-import org.apache.hadoop.io.BytesWritable;
 import org.apache.hadoop.io.DoubleWritable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,43 +39,30 @@ public class RawGroupbyBucket {
 
 
     private List<AggregateFunctionType> types;
-    private SortedMap<GroupbyKey, List<Function>> group2FunctionMap =
-        new TreeMap<GroupbyKey, List<Function>>(new GroupbyKeyComparator());
+    private SpillableGroupbyBuffer buffer;
 
     public RawGroupbyBucket(List<AggregateFunctionType> types, List<String> aggregatedFields, EntityDefinition ed) {
+        this(types, aggregatedFields, ed, AggregationBufferConfig.getInstance());
+    }
+
+    public RawGroupbyBucket(List<AggregateFunctionType> types, List<String> aggregatedFields, EntityDefinition ed,
+                            AggregationBufferConfig config) {
         this.types = types;
         this.aggregatedFields = aggregatedFields;
         this.entityDefinition = ed;
+        this.buffer = new SpillableGroupbyBuffer(types, config);
     }
 
-    public boolean exists(GroupbyKey key) {
-        return group2FunctionMap.containsKey(key);
-    }
-
-    public void addDatapoint(GroupbyKey groupbyKey, Map<String, byte[]> values) {
+    public void addDatapoint(CompactGroupbyBuffer.KeyBuilder groupbyKey, Map<String, byte[]> values) {
         // locate groupby bucket
-        List<Function> functions = group2FunctionMap.get(groupbyKey);
-        if (functions == null) {
-            functions = new ArrayList<Function>();
-            for (AggregateFunctionType type : types) {
-                FunctionFactory ff = FunctionFactory.locateFunctionFactory(type);
-                if (ff == null) {
-                    LOG.error("FunctionFactory of AggregationFunctionType:" + type + " is null");
-                } else {
-                    functions.add(ff.createFunction());
-                }
-            }
-            group2FunctionMap.put(groupbyKey, functions);
-        }
-        ListIterator<Function> e1 = functions.listIterator();
-        ListIterator<String> e2 = aggregatedFields.listIterator();
-        while (e1.hasNext() && e2.hasNext()) {
-            Function f = e1.next();
-            String aggregatedField = e2.next();
+        int group = buffer.group(groupbyKey);
+        for (int functionIndex = 0; functionIndex < types.size() && functionIndex < aggregatedFields.size(); functionIndex++) {
+            boolean isCount = AggregateFunctionType.count.equals(types.get(functionIndex));
+            String aggregatedField = aggregatedFields.get(functionIndex);
             byte[] v = values.get(aggregatedField);
-            if (f instanceof Function.Count) { // handle count
+            if (isCount) { // handle count
                 if (entityDefinition.getMetricDefinition() == null) {
-                    f.run(1.0);
+                    buffer.run(group, functionIndex, 1.0);
                     continue;
                 } else if (v == null) {
                     aggregatedField = GenericMetricEntity.VALUE_FIELD;
@@ -86,30 +75,30 @@ public class RawGroupbyBucket {
                 // double d = 0.0;
                 if (serDeser instanceof IntSerDeser) {
                     double d = (Integer)serDeser.deserialize(v);
-                    f.run(d);
+                    buffer.run(group, functionIndex, d);
                 } else if (serDeser instanceof LongSerDeser) {
                     double d = (Long)serDeser.deserialize(v);
-                    f.run(d);
+                    buffer.run(group, functionIndex, d);
                 } else if (serDeser instanceof DoubleSerDeser) {
                     double d = (Double)serDeser.deserialize(v);
-                    f.run(d);
+                    buffer.run(group, functionIndex, d);
                     // TODO: support numeric array type that is not metric
                 } else if (serDeser instanceof DoubleArraySerDeser) {
                     double[] d = ((DoubleArraySerDeser) serDeser).deserialize(v);
-                    if (f instanceof Function.Count) {
-                        f.run(d.length);
+                    if (isCount) {
+                        buffer.run(group, functionIndex, d.length);
                     } else {
                         for (double i:d) {
-                            f.run(i);
+                            buffer.run(group, functionIndex, i);
                         }
                     }
                 } else if (serDeser instanceof IntArraySerDeser) {
                     int[] d = ((IntArraySerDeser) serDeser).deserialize(v);
-                    if (f instanceof Function.Count) {
-                        f.run(d.length);
+                    if (isCount) {
+                        buffer.run(group, functionIndex, d.length);
                     } else {
                         for (int i:d) {
-                            f.run(i);
+                            buffer.run(group, functionIndex, i);
                         }
                     }
                 } else {
@@ -125,34 +114,34 @@ public class RawGroupbyBucket {
                     if (entityDefinition.getMetricDefinition() == null) {
                         double value = ExpressionParser.eval(expression,doubleMap);
                         // LOG.info("DEBUG: Eval "+expression +" = "+value);
-                        f.run(value);
+                        buffer.run(group, functionIndex, value);
                     } else {
                         Qualifier qualifier = entityDefinition.getDisplayNameMap().get(GenericMetricEntity.VALUE_FIELD);
                         EntitySerDeser _serDeser = qualifier.getSerDeser();
                         byte[] valueBytes = values.get(GenericMetricEntity.VALUE_FIELD);
                         if ( _serDeser instanceof DoubleArraySerDeser) {
                             double[] d = (double[]) _serDeser.deserialize(valueBytes);
-                            if (f instanceof Function.Count) {
-                                f.run(d.length);
+                            if (isCount) {
+                                buffer.run(group, functionIndex, d.length);
                             } else {
                                 for (double i:d) {
                                     doubleMap.put(GenericMetricEntity.VALUE_FIELD,i);
-                                    f.run(ExpressionParser.eval(expression, doubleMap));
+                                    buffer.run(group, functionIndex, ExpressionParser.eval(expression, doubleMap));
                                 }
                             }
                         } else if (_serDeser instanceof IntArraySerDeser) {
                             int[] d = (int[]) _serDeser.deserialize(valueBytes);
-                            if (f instanceof Function.Count) {
-                                f.run(d.length);
+                            if (isCount) {
+                                buffer.run(group, functionIndex, d.length);
                             } else {
                                 for (double i : d) {
                                     doubleMap.put(GenericMetricEntity.VALUE_FIELD, i);
-                                    f.run(ExpressionParser.eval(expression, doubleMap));
+                                    buffer.run(group, functionIndex, ExpressionParser.eval(expression, doubleMap));
                                 }
                             }
                         } else {
                             double value = ExpressionParser.eval(expression,doubleMap);
-                            f.run(value);
+                            buffer.run(group, functionIndex, value);
                         }
                     }
                 } catch (Exception e) {
@@ -162,19 +151,32 @@ public class RawGroupbyBucket {
         }
     }
 
+    /**
+     * Delete the spilled groups if any, the bucket should not be used anymore.
+     */
+    public void close() {
+        buffer.close();
+    }
+
     /**
      * expensive operation - create objects and format the result
      * @return
      */
     public List<GroupbyKeyValue> groupbyKeyValues() {
-        List<GroupbyKeyValue> results = new ArrayList<GroupbyKeyValue>();
-        for (Map.Entry<GroupbyKey, List<Function>> entry : this.group2FunctionMap.entrySet()) {
+        CompactGroupbyBuffer groups = buffer.groups();
+        List<GroupbyKeyValue> results = new ArrayList<GroupbyKeyValue>(groups.size());
+        // ordered by key as GroupbyKeyComparator does
+        for (int group : groups.sortedGroups()) {
+            GroupbyKey key = new GroupbyKey();
+            for (byte[] field : groups.keyFields(group)) {
+                key.addValue(field);
+            }
             GroupbyValue value = new GroupbyValue();
-            for (Function f : entry.getValue()) {
-                value.add(new DoubleWritable(f.result()));
-                value.addMeta(f.count());
+            for (int i = 0; i < types.size(); i++) {
+                value.add(new DoubleWritable(groups.result(group, i)));
+                value.addMeta(groups.count(group, i));
             }
-            results.add(new GroupbyKeyValue(entry.getKey(),value));
+            results.add(new GroupbyKeyValue(key,value));
         }
         return results;
     }
@@ -184,17 +186,16 @@ public class RawGroupbyBucket {
      * @return
      */
     public Map<List<String>, List<Double>> result() {
+        CompactGroupbyBuffer groups = buffer.groups();
         Map<List<String>, List<Double>> result = new HashMap<List<String>, List<Double>>();
-        for (Map.Entry<GroupbyKey, List<Function>> entry : this.group2FunctionMap.entrySet()) {
+        for (int group = 0; group < groups.size(); group++) {
             List<Double> values = new ArrayList<Double>();
-            for (Function f : entry.getValue()) {
-                values.add(f.result());
+            for (int i = 0; i < types.size(); i++) {
+                values.add(groups.result(group, i));
             }
-            GroupbyKey key = entry.getKey();
-            List<BytesWritable> list1 = key.getValue();
             List<String> list2 = new ArrayList<String>();
-            for (BytesWritable e : list1) {
-                list2.add(new String(e.copyBytes()));
+            for (byte[] e : groups.keyFields(group)) {
+                list2.add(new String(e));
             }
             result.put(list2, values);
         }
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.query.aggregate.rollup;
+
+import org.apache.eagle.log.entity.GenericMetricEntity;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Accumulate data points of one metric into rollup points of a tier.
+ *
+ * <h3>Bucket Structure</h3>
+ * <pre>
+ * {
+ *  [tags, alignedTimestamp]:[sum, count, min, max]
+ * }
+ * </pre>
+ */
+public class MetricRollupAccumulator {
+    private static final RollupStatistic[] STATISTICS = RollupStatistic.values();
+
+    private final RollupTier tier;
+    private final Map<BucketKey, double[]> buckets = new HashMap<>();
+
+    public MetricRollupAccumulator(RollupTier tier) {
+        if (tier.isRaw()) {
+            throw new IllegalArgumentException("Can not roll up into raw tier " + tier);
+        }
+        this.tier = tier;
+    }
+
+    /**
+     * Add a raw data point, which counts as one sample.
+     */
+    public void addRaw(Map<String, String> tags, long timestamp, double value) {
+        double[] stats = bucket(tags, timestamp);
+        stats[RollupStatistic.SUM.ordinal()] += value;
+        stats[RollupStatistic.COUNT.ordinal()] += 1;
+        stats[RollupStatistic.MIN.ordinal()] = Math.min(stats[RollupStatistic.MIN.ordinal()], value);
+        stats[RollupStatistic.MAX.ordinal()] = Math.max(stats[RollupStatistic.MAX.ordinal()], value);
+    }
+
+    /**
+     * Add a rollup point of a finer tier holding given statistic.
+     */
+    public void addRollup(RollupStatistic statistic, Map<String, String> tags, long timestamp, double value) {
+        double[] stats = bucket(tags, timestamp);
+        int index = statistic.ordinal();
+        stats[index] = statistic.merge(stats[index], value);
+    }
+
+    private double[] bucket(Map<String, String> tags, long timestamp) {
+        BucketKey key = new BucketKey(tags, tier.alignedStart(timestamp));
+        double[] stats = buckets.get(key);
+        if (stats == null) {
+            stats = new double[STATISTICS.length];
+            for (RollupStatistic statistic : STATISTICS) {
+                stats[statistic.ordinal()] = statistic.initialValue();
+            }
+            buckets.put(key, stats);
+        }
+        return stats;
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    /**
+     * @param metricName raw metric name
+     * @return one entity per statistic for every accumulated bucket, prefixed with the rollup series name.
+     */
+    public List<GenericMetricEntity> toEntities(String metricName) {
+        List<GenericMetricEntity> entities = new ArrayList<>(buckets.size() * STATISTICS.length);
+        for (Map.Entry<BucketKey, double[]> entry : buckets.entrySet()) {
+            for (RollupStatistic statistic : STATISTICS) {
+                GenericMetricEntity entity = new GenericMetricEntity();
+                entity.setPrefix(tier.metricName(metricName, statistic));
+                entity.setTimestamp(entry.getKey().timestamp);
+                entity.setTags(new HashMap<>(entry.getKey().tags));
+                entity.setValue(new double[] {entry.getValue()[statistic.ordinal()]});
+                entities.add(entity);
+            }
+        }
+        return entities;
+    }
+
+    private static class BucketKey {
+        private final Map<String, String> tags;
+        private final long timestamp;
+
+        BucketKey(Map<String, String> tags, long timestamp) {
+            this.tags = tags == null ? new TreeMap<>() : new TreeMap<>(tags);
+            this.timestamp = timestamp;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof BucketKey)) {
+                return false;
+            }
+            BucketKey that = (BucketKey) obj;
+            return timestamp == that.timestamp && tags.equals(that.tags);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * tags.hashCode() + (int) (timestamp ^ (timestamp >>> 32));
+        }
+    }
+}
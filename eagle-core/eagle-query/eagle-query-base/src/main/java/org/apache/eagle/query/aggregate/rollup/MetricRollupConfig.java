@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.query.aggregate.rollup;
+
+import com.typesafe.config.Config;
+import org.apache.eagle.common.config.EagleConfigFactory;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * <pre>
+ * storage.hbase.metricRollup {
+ *   enabled = true
+ *   metrics = ["hadoop.namenode.rpc.callqueuelength"]
+ *   delayMinutes = 10
+ *   periodSeconds = 300
+ *   catchUpHours = 48
+ * }
+ * </pre>
+ */
+public class MetricRollupConfig implements Serializable {
+    private static final long serialVersionUID = 1L;
+    public static final String METRIC_ROLLUP_CONFIG_PATH = "storage.hbase.metricRollup";
+    private static final String ENABLED = "enabled";
+    private static final String METRICS = "metrics";
+    private static final String DELAY_MINUTES = "delayMinutes";
+    private static final String PERIOD_SECONDS = "periodSeconds";
+    private static final String CATCH_UP_HOURS = "catchUpHours";
+
+    private boolean enabled = false;
+    private Set<String> metrics = Collections.emptySet();
+    private long delayMinutes = 10;
+    private long periodSeconds = 300;
+    private long catchUpHours = 48;
+
+    private static volatile MetricRollupConfig instance;
+
+    /**
+     * @return configuration loaded once from the eagle config, as read by queries.
+     */
+    public static MetricRollupConfig getInstance() {
+        if (instance == null) {
+            synchronized (MetricRollupConfig.class) {
+                if (instance == null) {
+                    instance = load();
+                }
+            }
+        }
+        return instance;
+    }
+
+    public static MetricRollupConfig load() {
+        return fromConfig(EagleConfigFactory.load().getConfig());
+    }
+
+    public static MetricRollupConfig fromConfig(Config config) {
+        MetricRollupConfig rollupConfig = new MetricRollupConfig();
+        if (config == null || !config.hasPath(METRIC_ROLLUP_CONFIG_PATH)) {
+            return rollupConfig;
+        }
+        Config rollup = config.getConfig(METRIC_ROLLUP_CONFIG_PATH);
+        if (rollup.hasPath(ENABLED)) {
+            rollupConfig.enabled = rollup.getBoolean(ENABLED);
+        }
+        if (rollup.hasPath(METRICS)) {
+            rollupConfig.metrics = new HashSet<>(rollup.getStringList(METRICS));
+        }
+        if (rollup.hasPath(DELAY_MINUTES)) {
+            rollupConfig.delayMinutes = rollup.getLong(DELAY_MINUTES);
+        }
+        if (rollup.hasPath(PERIOD_SECONDS)) {
+            rollupConfig.periodSeconds = rollup.getLong(PERIOD_SECONDS);
+        }
+        if (rollup.hasPath(CATCH_UP_HOURS)) {
+            rollupConfig.catchUpHours = rollup.getLong(CATCH_UP_HOURS);
+        }
+        return rollupConfig;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Set<String> getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return whether rollup tiers are maintained, and so can be queried, for the metric.
+     */
+    public boolean isRolledUp(String metricName) {
+        return enabled && metricName != null && metrics.contains(metricName);
+    }
+
+    public long getDelayMs() {
+        return delayMinutes * 60 * 1000;
+    }
+
+    public long getPeriodSeconds() {
+        return periodSeconds;
+    }
+
+    public long getCatchUpMs() {
+        return catchUpHours * 60 * 60 * 1000;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.query.aggregate.rollup;
+
+import org.apache.eagle.log.entity.EntityCreationListener;
+import org.apache.eagle.log.entity.GenericEntityWriter;
+import org.apache.eagle.log.entity.GenericMetricEntity;
+import org.apache.eagle.log.entity.GenericMetricEntityDecompactionStreamReader;
+import org.apache.eagle.log.entity.GenericMetricShadowEntity;
+import org.apache.eagle.log.entity.SearchCondition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Downsample one window of a metric from the source tier into the target tier.
+ *
+ * <p>Rollup points have the same row key for the same metric, tags and timestamp, so re-running a window
+ * simply overwrites previous results.</p>
+ */
+public class MetricRollupJob {
+    private static final Logger LOG = LoggerFactory.getLogger(MetricRollupJob.class);
+
+    /**
+     * @param metricName raw metric name
+     * @param tier target tier
+     * @param startTime inclusive window start, aligned to tier interval
+     * @param endTime exclusive window end
+     * @return number of rollup entities written
+     */
+    public int rollup(String metricName, RollupTier tier, long startTime, long endTime) throws Exception {
+        final MetricRollupAccumulator accumulator = new MetricRollupAccumulator(tier);
+        RollupTier source = tier.getSource();
+        if (source.isRaw()) {
+            read(metricName, startTime, endTime, entity -> {
+                GenericMetricShadowEntity point = (GenericMetricShadowEntity) entity;
+                accumulator.addRaw(point.getTags(), point.getTimestamp(), point.getValue());
+            });
+        } else {
+            for (RollupStatistic statistic : RollupStatistic.values()) {
+                read(source.metricName(metricName, statistic), startTime, endTime, entity -> {
+                    GenericMetricShadowEntity point = (GenericMetricShadowEntity) entity;
+                    accumulator.addRollup(statistic, point.getTags(), point.getTimestamp(), point.getValue());
+                });
+            }
+        }
+
+        List<GenericMetricEntity> entities = accumulator.toEntities(metricName);
+        if (!entities.isEmpty()) {
+            new GenericEntityWriter(GenericMetricEntity.GENERIC_METRIC_SERVICE).write(entities);
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Rolled up {} into {} tier [{}, {}): {} entities", metricName, tier, startTime, endTime, entities.size());
+        }
+        return entities.size();
+    }
+
+    private void read(String metricName, long startTime, long endTime, EntityCreationListener listener) throws Exception {
+        SearchCondition condition = new SearchCondition();
+        condition.setStartTime(startTime);
+        condition.setEndTime(endTime);
+        condition.setOutputAll(true);
+        List<String> outputFields = new ArrayList<>();
+        outputFields.add(GenericMetricEntity.VALUE_FIELD);
+        condition.setOutputFields(outputFields);
+        condition.setPageSize(Long.MAX_VALUE);
+        GenericMetricEntityDecompactionStreamReader reader = new GenericMetricEntityDecompactionStreamReader(metricName, condition);
+        reader.register(listener);
+        reader.readAsStream();
+    }
+}
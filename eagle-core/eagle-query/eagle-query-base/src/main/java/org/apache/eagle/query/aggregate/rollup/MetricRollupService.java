@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.query.aggregate.rollup;
+
+import com.google.common.util.concurrent.AbstractScheduledService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Continuously roll up configured metrics into {@link RollupTier#HOUR} and {@link RollupTier#DAY} tiers.
+ *
+ * <p>Each iteration rolls up every window closed since the previous iteration, hour tier before day tier
+ * so that a day is computed from complete hours. After a restart the last
+ * {@link MetricRollupConfig#getCatchUpMs()} milliseconds are rolled up again.</p>
+ */
+public class MetricRollupService extends AbstractScheduledService {
+    private static final Logger LOG = LoggerFactory.getLogger(MetricRollupService.class);
+    private static final RollupTier[] ROLLUP_TIERS = {RollupTier.HOUR, RollupTier.DAY};
+
+    private final MetricRollupConfig config;
+    private final MetricRollupJob job;
+    // key is metric name and tier, value is end of the last rolled up window
+    private final Map<String, Long> watermarks = new HashMap<>();
+
+    public MetricRollupService(MetricRollupConfig config) {
+        this(config, new MetricRollupJob());
+    }
+
+    public MetricRollupService(MetricRollupConfig config, MetricRollupJob job) {
+        this.config = config;
+        this.job = job;
+    }
+
+    @Override
+    protected void runOneIteration() throws Exception {
+        long now = System.currentTimeMillis();
+        for (String metricName : config.getMetrics()) {
+            for (RollupTier tier : ROLLUP_TIERS) {
+                try {
+                    rollup(metricName, tier, now);
+                } catch (Exception e) {
+                    LOG.error("Failed to roll up {} into {} tier", metricName, tier, e);
+                    // finer tier is incomplete, coarser tier would be wrong
+                    break;
+                }
+            }
+        }
+    }
+
+    void rollup(String metricName, RollupTier tier, long now) throws Exception {
+        String key = metricName + "@" + tier;
+        long closed = tier.lastClosedBoundary(now, config.getDelayMs());
+        Long watermark = watermarks.get(key);
+        long windowStart = watermark != null ? watermark : tier.alignedStart(closed - config.getCatchUpMs());
+        int total = 0;
+        while (windowStart < closed) {
+            long windowEnd = windowStart + tier.getIntervalMs();
+            total += job.rollup(metricName, tier, windowStart, windowEnd);
+            windowStart = windowEnd;
+            watermarks.put(key, windowStart);
+        }
+        if (total > 0) {
+            LOG.info("Rolled up {} into {} tier until {}: {} entities", metricName, tier, closed, total);
+        }
+    }
+
+    @Override
+    protected Scheduler scheduler() {
+        return Scheduler.newFixedDelaySchedule(0, config.getPeriodSeconds(), TimeUnit.SECONDS);
+    }
+}
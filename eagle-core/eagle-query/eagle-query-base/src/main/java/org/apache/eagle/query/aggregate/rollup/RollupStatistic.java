@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.query.aggregate.rollup;
+
+import org.apache.eagle.query.aggregate.AggregateFunctionType;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Statistic kept per rollup point. All of them are decomposable, so a coarser tier can be
+ * computed from a finer one and a query bucket from any number of rollup points.
+ */
+public enum RollupStatistic {
+    SUM, COUNT, MIN, MAX;
+
+    public double initialValue() {
+        switch (this) {
+            case MIN:
+                return Double.POSITIVE_INFINITY;
+            case MAX:
+                return Double.NEGATIVE_INFINITY;
+            default:
+                return 0.0;
+        }
+    }
+
+    /**
+     * Merge a value of the same statistic (i.e. from a finer rollup tier) into current.
+     */
+    public double merge(double current, double value) {
+        switch (this) {
+            case MIN:
+                return Math.min(current, value);
+            case MAX:
+                return Math.max(current, value);
+            default:
+                return current + value;
+        }
+    }
+
+    /**
+     * @return function to aggregate rollup points of this statistic at query time.
+     */
+    public AggregateFunctionType getCombineFunction() {
+        switch (this) {
+            case MIN:
+                return AggregateFunctionType.min;
+            case MAX:
+                return AggregateFunctionType.max;
+            default:
+                return AggregateFunctionType.sum;
+        }
+    }
+
+    /**
+     * @return statistics required to answer the aggregate function, avg is answered as SUM / COUNT.
+     */
+    public static List<RollupStatistic> resolve(AggregateFunctionType type) {
+        switch (type) {
+            case count:
+                return Collections.singletonList(COUNT);
+            case sum:
+                return Collections.singletonList(SUM);
+            case min:
+                return Collections.singletonList(MIN);
+            case max:
+                return Collections.singletonList(MAX);
+            case avg:
+                return Arrays.asList(SUM, COUNT);
+            default:
+                throw new IllegalArgumentException("Unsupported aggregate function for rollup: " + type);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.query.aggregate.rollup;
+
+/**
+ * Storage resolution of a GenericMetricEntity series.
+ *
+ * <p>{@link #MINUTE} is the raw series as written by collectors, coarser tiers are downsampled by
+ * {@link MetricRollupJob} into one series per {@link RollupStatistic}, named by {@link #metricName(String, RollupStatistic)}.</p>
+ */
+public enum RollupTier {
+    MINUTE(60 * 1000L, null),
+    HOUR(60 * 60 * 1000L, "1h"),
+    DAY(24 * 60 * 60 * 1000L, "1d");
+
+    private static final String ROLLUP_METRIC_FORMAT = "%s.rollup.%s.%s";
+
+    private final long intervalMs;
+    private final String suffix;
+
+    RollupTier(long intervalMs, String suffix) {
+        this.intervalMs = intervalMs;
+        this.suffix = suffix;
+    }
+
+    public long getIntervalMs() {
+        return intervalMs;
+    }
+
+    public boolean isRaw() {
+        return suffix == null;
+    }
+
+    /**
+     * @return the tier this tier is downsampled from, or null for the raw tier.
+     */
+    public RollupTier getSource() {
+        switch (this) {
+            case HOUR:
+                return MINUTE;
+            case DAY:
+                return HOUR;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @return name of the series holding given statistic of metricName in this tier.
+     */
+    public String metricName(String metricName, RollupStatistic statistic) {
+        if (isRaw()) {
+            return metricName;
+        }
+        return String.format(ROLLUP_METRIC_FORMAT, metricName, suffix, statistic.name().toLowerCase());
+    }
+
+    /**
+     * @return start of the tier interval containing timestamp.
+     */
+    public long alignedStart(long timestamp) {
+        return timestamp - timestamp % intervalMs;
+    }
+
+    /**
+     * Rollup of window [t, t + interval) is written once now - delayMs passed t + interval.
+     *
+     * @return end of the latest window which is expected to be rolled up at time now.
+     */
+    public long lastClosedBoundary(long now, long delayMs) {
+        return alignedStart(now - delayMs);
+    }
+
+    /**
+     * Select the coarsest tier whose points fall into exactly one query bucket, i.e. the query
+     * interval is a multiple of the tier interval and the query start is aligned to it.
+     *
+     * @param startTime query start time in milliseconds
+     * @param intervalMs query bucket interval in milliseconds
+     * @return selected tier, {@link #MINUTE} if no rollup tier satisfies the query
+     */
+    public static RollupTier select(long startTime, long intervalMs) {
+        RollupTier[] tiers = values();
+        for (int i = tiers.length - 1; i > 0; i--) {
+            RollupTier tier = tiers[i];
+            if (intervalMs >= tier.intervalMs && intervalMs % tier.intervalMs == 0 && startTime % tier.intervalMs == 0) {
+                return tier;
+            }
+        }
+        return MINUTE;
+    }
+}
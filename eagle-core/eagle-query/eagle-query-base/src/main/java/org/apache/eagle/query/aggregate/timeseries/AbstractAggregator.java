@@ -17,7 +17,8 @@
 package org.apache.eagle.query.aggregate.timeseries;
 
 import org.apache.eagle.log.base.taggedlog.TaggedLogAPIEntity;
-import org.apache.eagle.log.entity.EntityCreationListener;
+import org.apache.eagle.log.entity.PartitionedEntityCreationListener;
+import org.apache.eagle.log.expression.CompiledExpression;
 import org.apache.eagle.log.expression.ExpressionParser;
 import org.apache.eagle.query.aggregate.AggregateFunctionType;
 import org.apache.eagle.query.aggregate.IllegalAggregateFieldTypeException;
@@ -32,7 +33,11 @@ import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
 
-public abstract class AbstractAggregator implements Aggregator, EntityCreationListener {
+/**
+ * Base of the aggregators, which are not thread safe. Readers running in multiple threads accumulate into one
+ * partition per thread and merge the partitions at the end.
+ */
+public abstract class AbstractAggregator implements Aggregator, PartitionedEntityCreationListener {
     private static final Logger LOG = LoggerFactory.getLogger(AbstractAggregator.class);
 
     private static final String UNASSIGNED = "unassigned";
@@ -42,12 +47,15 @@ public abstract class AbstractAggregator implements Aggregator, EntityCreationLi
     // a cache to know immediately if groupby field should come from tags(true) or qualifiers(false)
     private Boolean[] groupbyFieldPlacementCache;
     private Method[] aggregateFieldReflectedMethodCache;
+    // expressions of the aggregated fields compiled once by this aggregator
+    private CompiledExpression[] aggregateFieldCompiledExpressionCache;
 
     public AbstractAggregator(List<String> groupbyFields, List<AggregateFunctionType> aggregateFuntionTypes, List<String> aggregatedFields) {
         this.groupbyFields = groupbyFields;
         this.aggregateFunctionTypes = aggregateFuntionTypes;
         this.aggregatedFields = aggregatedFields;
         aggregateFieldReflectedMethodCache = new Method[this.aggregatedFields.size()];
+        aggregateFieldCompiledExpressionCache = new CompiledExpression[this.aggregatedFields.size()];
         groupbyFieldPlacementCache = new Boolean[this.groupbyFields.size()];
     }
 
@@ -118,8 +126,12 @@ public abstract class AbstractAggregator implements Aggregator, EntityCreationLi
                 String aggregatedField = aggregatedFields.get(functionIndex);
                 if (TokenConstant.isExpression(aggregatedField)) {
                     try {
-                        String expr = TokenConstant.parseExpressionContent(aggregatedField);
-                        values.add(ExpressionParser.eval(expr, entity));
+                        CompiledExpression expr = aggregateFieldCompiledExpressionCache[functionIndex];
+                        if (expr == null) {
+                            expr = ExpressionParser.compile(TokenConstant.parseExpressionContent(aggregatedField));
+                            aggregateFieldCompiledExpressionCache[functionIndex] = expr;
+                        }
+                        values.add(expr.eval(entity));
                     } catch (Exception ex) {
                         LOG.error("Failed to evaluate expression-based aggregation: " + aggregatedField, ex);
                         throw ex;
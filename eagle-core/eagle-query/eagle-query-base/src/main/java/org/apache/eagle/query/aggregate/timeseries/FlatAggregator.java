@@ -16,17 +16,19 @@
  */
 package org.apache.eagle.query.aggregate.timeseries;
 
+import java.io.Closeable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
 import org.apache.eagle.log.base.taggedlog.TaggedLogAPIEntity;
+import org.apache.eagle.log.entity.PartitionedEntityCreationListener;
 import org.apache.eagle.query.aggregate.AggregateFunctionType;
 
 /**
- * Not thread safe
+ * Not thread safe, to be closed once the result is read or the aggregation fails
  */
-public class FlatAggregator extends AbstractAggregator {
+public class FlatAggregator extends AbstractAggregator implements Closeable {
     protected GroupbyBucket bucket;
 
     /**
@@ -49,6 +51,21 @@ public class FlatAggregator extends AbstractAggregator {
         return bucket.result();
     }
 
+    @Override
+    public FlatAggregator createPartition() {
+        return new FlatAggregator(groupbyFields, aggregateFunctionTypes, aggregatedFields);
+    }
+
+    @Override
+    public void mergePartition(PartitionedEntityCreationListener partition) {
+        bucket.merge(((FlatAggregator) partition).bucket);
+    }
+
+    @Override
+    public void close() {
+        bucket.close();
+    }
+
     protected List<String> createGroup(TaggedLogAPIEntity entity) {
         List<String> groupbyFieldValues = new ArrayList<String>();
         int i = 0;
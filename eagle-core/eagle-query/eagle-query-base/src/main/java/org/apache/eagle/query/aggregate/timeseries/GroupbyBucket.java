@@ -16,23 +16,24 @@
  */
 package org.apache.eagle.query.aggregate.timeseries;
 
-import org.apache.eagle.query.QueryConstants;
 import org.apache.eagle.query.aggregate.AggregateFunctionType;
+import org.apache.eagle.query.aggregate.buffer.AggregationBufferConfig;
+import org.apache.eagle.query.aggregate.buffer.CompactGroupbyBuffer;
+import org.apache.eagle.query.aggregate.buffer.SpillableGroupbyBuffer;
 import org.apache.eagle.query.aggregate.raw.GroupbyKey;
 import org.apache.eagle.query.aggregate.raw.GroupbyKeyValue;
 import org.apache.eagle.query.aggregate.raw.GroupbyValue;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * Groups of an aggregation, held in a {@link SpillableGroupbyBuffer} so that high cardinality group-by queries
+ * neither take a map entry and function objects per group nor run out of heap.
+ */
 public class GroupbyBucket {
-    private static final Logger LOG = LoggerFactory.getLogger(GroupbyBucket.class);
-
     public static Map<String, FunctionFactory> functionFactories = new HashMap<>();
 
     // TODO put this logic to AggregatorFunctionType
@@ -44,67 +45,84 @@ public class GroupbyBucket {
         functionFactories.put(AggregateFunctionType.avg.name(), new AvgFactory());
     }
 
-    private List<AggregateFunctionType> types;
-    // private SortedMap<List<String>, List<Function>> group2FunctionMap =
-    //     new TreeMap<List<String>, List<Function>>(new GroupbyFieldsComparator());
-
-    private Map<List<String>, List<Function>> group2FunctionMap = new HashMap<>(); //new GroupbyFieldsComparator());
+    private final SpillableGroupbyBuffer buffer;
+    private final CompactGroupbyBuffer.KeyBuilder key = new CompactGroupbyBuffer.KeyBuilder();
 
     public GroupbyBucket(List<AggregateFunctionType> types) {
-        this.types = types;
+        this(types, AggregationBufferConfig.getInstance());
+    }
+
+    public GroupbyBucket(List<AggregateFunctionType> types, AggregationBufferConfig config) {
+        this.buffer = new SpillableGroupbyBuffer(types, config);
     }
 
     public void addDatapoint(List<String> groupbyFieldValues, List<Double> values) {
-        // LOG.info("DEBUG: addDatapoint: groupby =["+StringUtils.join(groupbyFieldValues,",")+"], values=["+StringUtils.join(values, ",")+"]");
-
-        // locate groupby bucket
-        List<Function> functions = group2FunctionMap.get(groupbyFieldValues);
-        if (functions == null) {
-            functions = new ArrayList<Function>();
-            for (AggregateFunctionType type : types) {
-                functions.add(functionFactories.get(type.name()).createFunction());
-            }
-            group2FunctionMap.put(groupbyFieldValues, functions);
+        key.clear();
+        for (String groupbyFieldValue : groupbyFieldValues) {
+            key.add(groupbyFieldValue);
         }
+        int group = buffer.group(key);
         int functionIndex = 0;
         for (Double v : values) {
-            functions.get(functionIndex).run(v);
+            buffer.run(group, functionIndex, v);
+            functionIndex++;
+        }
+    }
+
+    /**
+     * Merge the functions of another bucket with the same function types into this bucket.
+     *
+     * @param other bucket which won't be added datapoints anymore
+     */
+    public void merge(GroupbyBucket other) {
+        buffer.merge(other.buffer);
+    }
+
+    /**
+     * Delete the spilled groups if any, the bucket should not be used anymore.
+     */
+    public void close() {
+        buffer.close();
+    }
+
+    static void mergeFunctions(List<Function> functions, List<Function> others) {
+        int functionIndex = 0;
+        for (Function other : others) {
+            functions.get(functionIndex).merge(other);
             functionIndex++;
         }
     }
 
     public Map<List<String>, List<Double>> result() {
-        Map<List<String>, List<Double>> result = new HashMap<List<String>, List<Double>>();
-        for (Map.Entry<List<String>, List<Function>> entry : this.group2FunctionMap.entrySet()) {
-            List<Double> values = new ArrayList<Double>();
-            for (Function f : entry.getValue()) {
-                values.add(f.result());
+        CompactGroupbyBuffer groups = buffer.groups();
+        int numFunctions = groups.getTypes().size();
+        Map<List<String>, List<Double>> result = new HashMap<List<String>, List<Double>>(groups.size() * 4 / 3 + 1);
+        for (int group = 0; group < groups.size(); group++) {
+            List<Double> values = new ArrayList<Double>(numFunctions);
+            for (int i = 0; i < numFunctions; i++) {
+                values.add(groups.result(group, i));
             }
-            result.put(entry.getKey(), values);
+            result.put(groups.keyStrings(group), values);
         }
         return result;
     }
 
     public List<GroupbyKeyValue> getGroupbyKeyValue() {
-        List<GroupbyKeyValue>  results = new ArrayList<GroupbyKeyValue>();
-
-        for (Map.Entry<List<String>, List<Function>> entry : this.group2FunctionMap.entrySet()) {
+        CompactGroupbyBuffer groups = buffer.groups();
+        int numFunctions = groups.getTypes().size();
+        List<GroupbyKeyValue> results = new ArrayList<GroupbyKeyValue>(groups.size());
+        for (int group = 0; group < groups.size(); group++) {
             GroupbyKey key = new GroupbyKey();
-            for (String keyStr:entry.getKey()) {
-                try {
-                    key.addValue(keyStr.getBytes(QueryConstants.CHARSET));
-                } catch (UnsupportedEncodingException e) {
-                    LOG.error(e.getMessage(),e);
-                }
+            for (byte[] field : groups.keyFields(group)) {
+                key.addValue(field);
             }
             GroupbyValue value = new GroupbyValue();
-            for (Function f : entry.getValue()) {
-                value.add(f.result());
-                value.addMeta(f.count());
+            for (int i = 0; i < numFunctions; i++) {
+                value.add(groups.result(group, i));
+                value.addMeta(groups.count(group, i));
             }
             results.add(new GroupbyKeyValue(key,value));
         }
-
         return results;
     }
 
@@ -119,6 +137,11 @@ public class GroupbyBucket {
 
         public abstract double result();
 
+        /**
+         * Merge the state of another function of the same type, as if its values were run by this function.
+         */
+        public abstract void merge(Function other);
+
         public int count() {
             return count;
         }
@@ -169,6 +192,12 @@ public class GroupbyBucket {
         public double result() {
             return this.summary;
         }
+
+        @Override
+        public void merge(Function other) {
+            this.count += other.count;
+            this.summary += ((Sum) other).summary;
+        }
     }
 
     private static class MinFactory implements FunctionFactory {
@@ -199,6 +228,15 @@ public class GroupbyBucket {
         public double result() {
             return minimum;
         }
+
+        @Override
+        public void merge(Function other) {
+            double otherValue = ((Min) other).minimum;
+            if (otherValue < minimum) {
+                minimum = otherValue;
+            }
+            this.count += other.count;
+        }
     }
 
     private static class MaxFactory implements FunctionFactory {
@@ -229,6 +267,15 @@ public class GroupbyBucket {
         public double result() {
             return maximum;
         }
+
+        @Override
+        public void merge(Function other) {
+            double otherValue = ((Max) other).maximum;
+            if (otherValue > maximum) {
+                maximum = otherValue;
+            }
+            this.count += other.count;
+        }
     }
 
     private static class AvgFactory implements FunctionFactory {
@@ -256,5 +303,12 @@ public class GroupbyBucket {
         public double result() {
             return this.total / this.count;
         }
+
+        @Override
+        public void merge(Function other) {
+            // keep total and count apart so that the average is weighted by the number of values of each side
+            this.count += other.count;
+            this.total += ((Avg) other).total;
+        }
     }
 }
\ No newline at end of file
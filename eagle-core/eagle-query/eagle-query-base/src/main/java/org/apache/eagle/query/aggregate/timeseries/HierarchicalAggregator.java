@@ -17,16 +17,29 @@
 package org.apache.eagle.query.aggregate.timeseries;
 
 import java.util.List;
+import java.util.Map;
 import java.util.SortedMap;
 
 import org.apache.eagle.log.base.taggedlog.TaggedLogAPIEntity;
+import org.apache.eagle.log.entity.PartitionedEntityCreationListener;
 import org.apache.eagle.query.aggregate.AggregateFunctionType;
+import org.apache.eagle.query.aggregate.AggregationMemoryExceededException;
+import org.apache.eagle.query.aggregate.buffer.AggregationBufferConfig;
 
 public class HierarchicalAggregator extends AbstractAggregator {
     private HierarchicalAggregateEntity root = new HierarchicalAggregateEntity();
+    private final AggregationBufferConfig config;
+    // the tree can not be spilled, its estimated size is bounded by the memory limit instead
+    private long estimatedBytes = 0;
 
     public HierarchicalAggregator(List<String> groupbyFields, List<AggregateFunctionType> aggregateFuntionTypes, List<String> aggregatedFields) {
+        this(groupbyFields, aggregateFuntionTypes, aggregatedFields, AggregationBufferConfig.getInstance());
+    }
+
+    public HierarchicalAggregator(List<String> groupbyFields, List<AggregateFunctionType> aggregateFuntionTypes, List<String> aggregatedFields,
+                                  AggregationBufferConfig config) {
         super(groupbyFields, aggregateFuntionTypes, aggregatedFields);
+        this.config = config;
     }
 
     public void accumulate(TaggedLogAPIEntity entity) throws Exception {
@@ -43,6 +56,8 @@ public class HierarchicalAggregator extends AbstractAggregator {
             if (children.get(groupbyFieldValue) == null) {
                 HierarchicalAggregateEntity tmp = new HierarchicalAggregateEntity();
                 children.put(groupbyFieldValue, tmp);
+                estimatedBytes += nodeBytes(groupbyFieldValue);
+                checkMemory();
             }
             children.get(groupbyFieldValue).setKey(groupbyFieldValue);
             addDatapoint(children.get(groupbyFieldValue), preAggregatedValues);
@@ -65,6 +80,54 @@ public class HierarchicalAggregator extends AbstractAggregator {
         }
     }
 
+    @Override
+    public HierarchicalAggregator createPartition() {
+        return new HierarchicalAggregator(groupbyFields, aggregateFunctionTypes, aggregatedFields, config);
+    }
+
+    @Override
+    public void mergePartition(PartitionedEntityCreationListener partition) {
+        HierarchicalAggregator other = (HierarchicalAggregator) partition;
+        estimatedBytes += other.estimatedBytes;
+        mergeHierarchicalAggregateEntity(root, other.root);
+        checkMemory();
+    }
+
+    private void mergeHierarchicalAggregateEntity(HierarchicalAggregateEntity entity, HierarchicalAggregateEntity other) {
+        if (entity.getTmpValues().isEmpty()) {
+            entity.getTmpValues().addAll(other.getTmpValues());
+        } else {
+            GroupbyBucket.mergeFunctions(entity.getTmpValues(), other.getTmpValues());
+        }
+        SortedMap<String, HierarchicalAggregateEntity> children = entity.getChildren();
+        for (Map.Entry<String, HierarchicalAggregateEntity> child : other.getChildren().entrySet()) {
+            HierarchicalAggregateEntity current = children.get(child.getKey());
+            if (current == null) {
+                children.put(child.getKey(), child.getValue());
+            } else {
+                mergeHierarchicalAggregateEntity(current, child.getValue());
+                // the node of the other partition is dropped
+                estimatedBytes -= nodeBytes(child.getKey());
+            }
+        }
+    }
+
+    /**
+     * Rough estimate of the heap used by a node: its entry in the children of its parent, the node with its children
+     * map and value lists, and its functions.
+     */
+    private long nodeBytes(String key) {
+        return 40 + 64 + 48 + 2 * 40 + 32L * aggregateFunctionTypes.size() + (key == null ? 0 : 40 + 2 * key.length());
+    }
+
+    private void checkMemory() {
+        if (estimatedBytes > config.getMemoryLimitBytes()) {
+            throw new AggregationMemoryExceededException("Hierarchical aggregation exceeds the memory limit of "
+                + config.getMemoryLimitBytes() / 1024 / 1024 + " MB, narrow the time range or the group-by fields, or raise "
+                + AggregationBufferConfig.AGGREGATION_CONFIG_PATH + ".memoryLimitMB");
+        }
+    }
+
     private void finalizeHierarchicalAggregateEntity(HierarchicalAggregateEntity entity) {
         for (GroupbyBucket.Function f : entity.getTmpValues()) {
             entity.getValues().add(f.result());
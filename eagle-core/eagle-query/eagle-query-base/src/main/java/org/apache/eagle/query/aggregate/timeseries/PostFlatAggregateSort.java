@@ -17,9 +17,11 @@
 package org.apache.eagle.query.aggregate.timeseries;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.SortedSet;
 import java.util.TreeSet;
 
@@ -37,6 +39,9 @@ public class PostFlatAggregateSort {
      * @topN top N results will be returned if topN is specified. If it's not specified (as default value 0), all results will be returned
      */
     public static List<Map.Entry<List<String>, List<Double>>> sort(Map<List<String>, List<Double>> aggregatedResult, List<SortOption> sortOptions, int topN) {
+        if (topN > 0 && topN < aggregatedResult.size()) {
+            return sortTopN(aggregatedResult, sortOptions, topN);
+        }
         SortedSet<Map.Entry<List<String>, List<Double>>> allList = sortByValue(aggregatedResult, sortOptions);
         List<Map.Entry<List<String>, List<Double>>> result = new ArrayList<Map.Entry<List<String>, List<Double>>>();
         for (Map.Entry<List<String>, List<Double>> entry : allList) {
@@ -48,6 +53,25 @@ public class PostFlatAggregateSort {
         return result;
     }
 
+    /**
+     * Keep the top N entries in a bounded heap whose head is the last one of them, instead of sorting all the entries.
+     */
+    private static List<Map.Entry<List<String>, List<Double>>> sortTopN(Map<List<String>, List<Double>> aggregatedResult, List<SortOption> sortOptions, int topN) {
+        Comparator<Map.Entry<List<String>, List<Double>>> comparator = new MapEntryComparator(sortOptions);
+        PriorityQueue<Map.Entry<List<String>, List<Double>>> heap = new PriorityQueue<Map.Entry<List<String>, List<Double>>>(topN + 1, comparator.reversed());
+        for (Map.Entry<List<String>, List<Double>> entry : aggregatedResult.entrySet()) {
+            if (heap.size() < topN) {
+                heap.add(entry);
+            } else if (comparator.compare(entry, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(entry);
+            }
+        }
+        List<Map.Entry<List<String>, List<Double>>> result = new ArrayList<Map.Entry<List<String>, List<Double>>>(heap);
+        Collections.sort(result, comparator);
+        return result;
+    }
+
     private static class MapEntryComparator implements Comparator<Map.Entry<List<String>, List<Double>>> {
         private List<SortOption> sortOptions;
 
@@ -17,6 +17,7 @@
 package org.apache.eagle.query.aggregate.timeseries;
 
 import org.apache.eagle.log.base.taggedlog.TaggedLogAPIEntity;
+import org.apache.eagle.log.entity.PartitionedEntityCreationListener;
 import org.apache.eagle.query.aggregate.AggregateFunctionType;
 import org.apache.eagle.query.aggregate.raw.GroupbyKeyAggregatable;
 import org.apache.eagle.query.aggregate.raw.GroupbyKeyValue;
@@ -97,6 +98,17 @@ public class TimeSeriesAggregator extends FlatAggregator implements GroupbyKeyAg
         return bucket.result();
     }
 
+    @Override
+    public TimeSeriesAggregator createPartition() {
+        return new TimeSeriesAggregator(groupbyFields, aggregateFunctionTypes, aggregatedFields, startTime, endTime, intervalms);
+    }
+
+    @Override
+    public void mergePartition(PartitionedEntityCreationListener partition) {
+        super.mergePartition(partition);
+        this.ignoredEntityCounter += ((TimeSeriesAggregator) partition).ignoredEntityCounter;
+    }
+
     /**
      * Support new aggregate result
      *
@@ -240,4 +240,17 @@ public class TestListQueryCompiler {
         Assert.assertEquals(sortFields.size(), 1);
         Assert.assertTrue(sortFields.contains("EXP{a+b+0.07}"));
     }
+
+    @Test
+    public void testNormalizedQuery() throws Exception {
+        String query = "TestLogAPIEntity[@cluster=\"cluster\"  AND @datacenter=\"datacenter\" AND @field5 > 0.05]<@cluster>{sum(@field1), count}";
+        String sameQuery = "TestLogAPIEntity[@cluster = \"cluster\" AND @datacenter=\"datacenter\" AND @field5>0.05]<@cluster>{sum(@field1),count}";
+        ListQueryCompiler compiler = new ListQueryCompiler(query, false);
+        Assert.assertEquals("TestLogAPIEntity[(@cluster=\"cluster\" AND @datacenter=\"datacenter\" AND @field5>0.05)]<cluster>{sum(field1),count(count)}",
+            compiler.getNormalizedQuery());
+        Assert.assertEquals(compiler.getNormalizedQuery(), new ListQueryCompiler(sameQuery, false).getNormalizedQuery());
+        Assert.assertNotEquals(compiler.getNormalizedQuery(), new ListQueryCompiler(query, true).getNormalizedQuery());
+        Assert.assertNotEquals(compiler.getNormalizedQuery(), new ListQueryCompiler(query.replace("sum", "max"), false).getNormalizedQuery());
+        Assert.assertNotEquals(compiler.getNormalizedQuery(), new ListQueryCompiler(query + ".{sum(@field1) desc}", false).getNormalizedQuery());
+    }
 }
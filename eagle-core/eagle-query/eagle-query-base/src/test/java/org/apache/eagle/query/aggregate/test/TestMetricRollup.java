@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.query.aggregate.test;
+
+import org.apache.eagle.log.entity.GenericMetricEntity;
+import org.apache.eagle.query.aggregate.AggregateFunctionType;
+import org.apache.eagle.query.aggregate.rollup.MetricRollupAccumulator;
+import org.apache.eagle.query.aggregate.rollup.RollupStatistic;
+import org.apache.eagle.query.aggregate.rollup.RollupTier;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TestMetricRollup {
+    private static final long HOUR = RollupTier.HOUR.getIntervalMs();
+    private static final long DAY = RollupTier.DAY.getIntervalMs();
+
+    @Test
+    public void testSelectTier() {
+        Assert.assertEquals(RollupTier.MINUTE, RollupTier.select(0, 60 * 1000));
+        Assert.assertEquals(RollupTier.MINUTE, RollupTier.select(0, 30 * 60 * 1000));
+        Assert.assertEquals(RollupTier.HOUR, RollupTier.select(0, HOUR));
+        Assert.assertEquals(RollupTier.HOUR, RollupTier.select(3 * HOUR, 6 * HOUR));
+        Assert.assertEquals(RollupTier.DAY, RollupTier.select(2 * DAY, DAY));
+        // start not aligned to day
+        Assert.assertEquals(RollupTier.HOUR, RollupTier.select(2 * DAY + HOUR, DAY));
+        // start not aligned to hour
+        Assert.assertEquals(RollupTier.MINUTE, RollupTier.select(HOUR + 60 * 1000, DAY));
+    }
+
+    @Test
+    public void testMetricName() {
+        Assert.assertEquals("hadoop.cpu", RollupTier.MINUTE.metricName("hadoop.cpu", RollupStatistic.SUM));
+        Assert.assertEquals("hadoop.cpu.rollup.1h.max", RollupTier.HOUR.metricName("hadoop.cpu", RollupStatistic.MAX));
+        Assert.assertEquals("hadoop.cpu.rollup.1d.count", RollupTier.DAY.metricName("hadoop.cpu", RollupStatistic.COUNT));
+        Assert.assertEquals(Arrays.asList(RollupStatistic.SUM, RollupStatistic.COUNT), RollupStatistic.resolve(AggregateFunctionType.avg));
+        Assert.assertEquals(AggregateFunctionType.sum, RollupStatistic.COUNT.getCombineFunction());
+    }
+
+    @Test
+    public void testAccumulateRawIntoHour() {
+        MetricRollupAccumulator accumulator = new MetricRollupAccumulator(RollupTier.HOUR);
+        accumulator.addRaw(tags("host1"), 0, 1.0);
+        accumulator.addRaw(tags("host1"), 60 * 1000, 5.0);
+        accumulator.addRaw(tags("host1"), HOUR - 1, -2.0);
+        accumulator.addRaw(tags("host1"), HOUR, 7.0);
+        accumulator.addRaw(tags("host2"), 0, 3.0);
+        Assert.assertEquals(3, accumulator.size());
+
+        Map<String, Double> values = toMap(accumulator.toEntities("cpu"));
+        Assert.assertEquals(12, values.size());
+        Assert.assertEquals(4.0, values.get("cpu.rollup.1h.sum/host1/0"), 0.001);
+        Assert.assertEquals(3.0, values.get("cpu.rollup.1h.count/host1/0"), 0.001);
+        Assert.assertEquals(-2.0, values.get("cpu.rollup.1h.min/host1/0"), 0.001);
+        Assert.assertEquals(5.0, values.get("cpu.rollup.1h.max/host1/0"), 0.001);
+        Assert.assertEquals(7.0, values.get("cpu.rollup.1h.sum/host1/" + HOUR), 0.001);
+        Assert.assertEquals(1.0, values.get("cpu.rollup.1h.count/host2/0"), 0.001);
+    }
+
+    @Test
+    public void testAccumulateHourIntoDay() {
+        MetricRollupAccumulator accumulator = new MetricRollupAccumulator(RollupTier.DAY);
+        accumulator.addRollup(RollupStatistic.SUM, tags("host1"), 0, 4.0);
+        accumulator.addRollup(RollupStatistic.SUM, tags("host1"), HOUR, 6.0);
+        accumulator.addRollup(RollupStatistic.COUNT, tags("host1"), 0, 3.0);
+        accumulator.addRollup(RollupStatistic.COUNT, tags("host1"), HOUR, 60.0);
+        accumulator.addRollup(RollupStatistic.MIN, tags("host1"), 0, -2.0);
+        accumulator.addRollup(RollupStatistic.MIN, tags("host1"), HOUR, 1.0);
+        accumulator.addRollup(RollupStatistic.MAX, tags("host1"), 0, 5.0);
+        accumulator.addRollup(RollupStatistic.MAX, tags("host1"), HOUR, 2.0);
+        Assert.assertEquals(1, accumulator.size());
+
+        Map<String, Double> values = toMap(accumulator.toEntities("cpu"));
+        Assert.assertEquals(10.0, values.get("cpu.rollup.1d.sum/host1/0"), 0.001);
+        Assert.assertEquals(63.0, values.get("cpu.rollup.1d.count/host1/0"), 0.001);
+        Assert.assertEquals(-2.0, values.get("cpu.rollup.1d.min/host1/0"), 0.001);
+        Assert.assertEquals(5.0, values.get("cpu.rollup.1d.max/host1/0"), 0.001);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAccumulateIntoRawTier() {
+        new MetricRollupAccumulator(RollupTier.MINUTE);
+    }
+
+    private static Map<String, String> tags(String host) {
+        Map<String, String> tags = new HashMap<>();
+        tags.put("site", "sandbox");
+        tags.put("host", host);
+        return tags;
+    }
+
+    private static Map<String, Double> toMap(List<GenericMetricEntity> entities) {
+        Map<String, Double> values = new HashMap<>();
+        for (GenericMetricEntity entity : entities) {
+            Assert.assertEquals(1, entity.getValue().length);
+            values.put(entity.getPrefix() + "/" + entity.getTags().get("host") + "/" + entity.getTimestamp(), entity.getValue()[0]);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.query.aggregate.test;
+
+import org.apache.commons.lang.time.StopWatch;
+import org.apache.eagle.log.base.taggedlog.TaggedLogAPIEntity;
+import org.apache.eagle.log.entity.EntityCreationListener;
+import org.apache.eagle.log.entity.test.TestEntity;
+import org.apache.eagle.query.aggregate.AggregateFunctionType;
+import org.apache.eagle.query.aggregate.timeseries.EntityCreationListenerFactory;
+import org.apache.eagle.query.aggregate.timeseries.FlatAggregator;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Aggregation throughput of reader threads sharing a synchronized aggregator, compared with reader threads
+ * accumulating into their own partitions merged at the end.
+ */
+@Ignore
+public class TestParallelAggregatePerformance {
+    private static final Logger LOG = LoggerFactory.getLogger(TestParallelAggregatePerformance.class);
+    private static final int ENTITIES = 1000000;
+    private static final int[] THREADS = new int[] {1, 2, 4, 8};
+
+    private static List<TestEntity> createEntities() {
+        List<Map<String, String>> groups = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            Map<String, String> tags = new HashMap<>();
+            tags.put("cluster", "cluster" + (i % 10));
+            tags.put("datacenter", "dc" + (i % 3));
+            groups.add(tags);
+        }
+        List<TestEntity> entities = new ArrayList<>(ENTITIES);
+        for (int i = 0; i < ENTITIES; i++) {
+            TestEntity entity = new TestEntity();
+            entity.setTags(groups.get(i % groups.size()));
+            entity.setNumHosts(i % 100);
+            entities.add(entity);
+        }
+        return entities;
+    }
+
+    private static FlatAggregator createAggregator() {
+        return new FlatAggregator(Arrays.asList("cluster", "datacenter"),
+            Arrays.asList(AggregateFunctionType.count, AggregateFunctionType.avg), Arrays.asList("*", "numHosts"));
+    }
+
+    private static long aggregate(ExecutorService executor, List<TestEntity> entities, int threads, boolean partitioned) throws Exception {
+        FlatAggregator aggregator = createAggregator();
+        EntityCreationListener shared = EntityCreationListenerFactory.synchronizedEntityCreationListener(aggregator);
+        List<FlatAggregator> partitions = new ArrayList<>();
+        List<Future<?>> futures = new ArrayList<>();
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
+        int size = entities.size() / threads;
+        for (int i = 0; i < threads; i++) {
+            EntityCreationListener listener = shared;
+            if (partitioned) {
+                FlatAggregator partition = aggregator.createPartition();
+                partitions.add(partition);
+                listener = partition;
+            }
+            final EntityCreationListener reader = listener;
+            final List<TestEntity> slice = entities.subList(i * size, i == threads - 1 ? entities.size() : (i + 1) * size);
+            futures.add(executor.submit(() -> {
+                for (TaggedLogAPIEntity entity : slice) {
+                    reader.entityCreated(entity);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        partitions.forEach(aggregator::mergePartition);
+        aggregator.result();
+        stopWatch.stop();
+        return stopWatch.getTime();
+    }
+
+    @Test
+    public void testAggregateThroughput() throws Exception {
+        List<TestEntity> entities = createEntities();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS[THREADS.length - 1]);
+        try {
+            // warm up
+            aggregate(executor, entities, 1, false);
+            aggregate(executor, entities, 1, true);
+            for (int threads : THREADS) {
+                long synchronizedTime = aggregate(executor, entities, threads, false);
+                long partitionedTime = aggregate(executor, entities, threads, true);
+                LOG.info("{} threads: synchronized {} entities/s, partitioned {} entities/s", threads,
+                    ENTITIES * 1000L / Math.max(synchronizedTime, 1), ENTITIES * 1000L / Math.max(partitionedTime, 1));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.query.aggregate.test;
+
+import org.apache.eagle.log.entity.test.TestEntity;
+import org.apache.eagle.query.aggregate.AggregateFunctionType;
+import org.apache.eagle.query.aggregate.raw.GroupbyKey;
+import org.apache.eagle.query.aggregate.raw.GroupbyKeyValue;
+import org.apache.eagle.query.aggregate.timeseries.AbstractAggregator;
+import org.apache.eagle.query.aggregate.timeseries.FlatAggregator;
+import org.apache.eagle.query.aggregate.timeseries.HierarchicalAggregateEntity;
+import org.apache.eagle.query.aggregate.timeseries.HierarchicalAggregator;
+import org.apache.eagle.query.aggregate.timeseries.TimeSeriesAggregator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TestPartitionedAggregator {
+    private static final List<AggregateFunctionType> FUNCTIONS = Arrays.asList(AggregateFunctionType.count,
+        AggregateFunctionType.sum, AggregateFunctionType.avg, AggregateFunctionType.min, AggregateFunctionType.max);
+    private static final List<String> FIELDS = Arrays.asList("*", "numHosts", "numHosts", "numHosts", "numHosts");
+    private static final long START_TIME = 1386120000000L;
+    private static final long END_TIME = 1386123600000L;
+
+    private static TestEntity createEntity(String cluster, String rack, int numHosts, long timestamp) {
+        TestEntity entity = new TestEntity();
+        Map<String, String> tags = new HashMap<>();
+        tags.put("cluster", cluster);
+        tags.put("rack", rack);
+        entity.setTags(tags);
+        entity.setNumHosts(numHosts);
+        entity.setTimestamp(timestamp);
+        return entity;
+    }
+
+    private static List<TestEntity> createEntities() {
+        List<TestEntity> entities = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            entities.add(createEntity("cluster" + (i % 3), "rack" + (i % 7), i * 7 % 23 + 1, START_TIME + i * 60 * 1000 / 3));
+        }
+        return entities;
+    }
+
+    /**
+     * Accumulate the entities into partitions of unequal sizes and merge them into the aggregator.
+     */
+    private static <T extends AbstractAggregator> T accumulatePartitioned(T aggregator, List<TestEntity> entities) throws Exception {
+        int[] bounds = new int[] {0, 1, 40, 40, entities.size()};
+        List<AbstractAggregator> partitions = new ArrayList<>();
+        for (int i = 0; i < bounds.length - 1; i++) {
+            AbstractAggregator partition = (AbstractAggregator) aggregator.createPartition();
+            for (TestEntity entity : entities.subList(bounds[i], bounds[i + 1])) {
+                partition.accumulate(entity);
+            }
+            partitions.add(partition);
+        }
+        partitions.forEach(aggregator::mergePartition);
+        return aggregator;
+    }
+
+    private static <T extends AbstractAggregator> T accumulate(T aggregator, List<TestEntity> entities) throws Exception {
+        for (TestEntity entity : entities) {
+            aggregator.accumulate(entity);
+        }
+        return aggregator;
+    }
+
+    private static void assertValues(List<Double> expected, List<Double> actual) {
+        Assert.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertEquals(expected.get(i), actual.get(i), 0.000001);
+        }
+    }
+
+    @Test
+    public void testFlatAggregator() throws Exception {
+        List<TestEntity> entities = createEntities();
+        Map<List<String>, List<Double>> expected = accumulate(
+            new FlatAggregator(Arrays.asList("cluster", "rack"), FUNCTIONS, FIELDS), entities).result();
+        Map<List<String>, List<Double>> actual = accumulatePartitioned(
+            new FlatAggregator(Arrays.asList("cluster", "rack"), FUNCTIONS, FIELDS), entities).result();
+        Assert.assertEquals(21, actual.size());
+        Assert.assertEquals(expected.keySet(), actual.keySet());
+        for (List<String> group : expected.keySet()) {
+            assertValues(expected.get(group), actual.get(group));
+        }
+    }
+
+    @Test
+    public void testAverageIsWeighted() throws Exception {
+        List<TestEntity> entities = Arrays.asList(createEntity("cluster1", "rack1", 1, START_TIME),
+            createEntity("cluster1", "rack1", 2, START_TIME), createEntity("cluster1", "rack1", 6, START_TIME));
+        FlatAggregator aggregator = new FlatAggregator(Arrays.asList("cluster"),
+            Arrays.asList(AggregateFunctionType.avg, AggregateFunctionType.count), Arrays.asList("numHosts", "*"));
+        // partitions of 1 and 2 entities, (1 + (2 + 6) / 2) / 2 would be 2.5
+        FlatAggregator first = aggregator.createPartition();
+        first.accumulate(entities.get(0));
+        FlatAggregator second = aggregator.createPartition();
+        second.accumulate(entities.get(1));
+        second.accumulate(entities.get(2));
+        aggregator.mergePartition(first);
+        aggregator.mergePartition(second);
+        assertValues(Arrays.asList(3.0, 3.0), aggregator.result().get(Arrays.asList("cluster1")));
+    }
+
+    @Test
+    public void testTimeSeriesAggregator() throws Exception {
+        List<TestEntity> entities = createEntities();
+        entities.add(createEntity("cluster0", "rack0", 1, END_TIME));
+        TimeSeriesAggregator expected = accumulate(
+            new TimeSeriesAggregator(Arrays.asList("cluster"), FUNCTIONS, FIELDS, START_TIME, END_TIME, 5 * 60 * 1000), entities);
+        TimeSeriesAggregator actual = accumulatePartitioned(
+            new TimeSeriesAggregator(Arrays.asList("cluster"), FUNCTIONS, FIELDS, START_TIME, END_TIME, 5 * 60 * 1000), entities);
+
+        Map<List<String>, List<Double>> expectedResult = expected.result();
+        Map<List<String>, List<Double>> actualResult = actual.result();
+        Assert.assertEquals(expectedResult.keySet(), actualResult.keySet());
+        for (List<String> group : expectedResult.keySet()) {
+            assertValues(expectedResult.get(group), actualResult.get(group));
+        }
+
+        // counts of the functions, used to merge the averages of the coprocessor results
+        Map<GroupbyKey, GroupbyKeyValue> expectedKeyValues = new HashMap<>();
+        for (GroupbyKeyValue keyValue : expected.getGroupbyKeyValues()) {
+            expectedKeyValues.put(keyValue.getKey(), keyValue);
+        }
+        List<GroupbyKeyValue> actualKeyValues = actual.getGroupbyKeyValues();
+        Assert.assertEquals(expectedKeyValues.size(), actualKeyValues.size());
+        for (GroupbyKeyValue keyValue : actualKeyValues) {
+            Assert.assertEquals(expectedKeyValues.get(keyValue.getKey()).getValue().getMeta(), keyValue.getValue().getMeta());
+        }
+    }
+
+    @Test
+    public void testHierarchicalAggregator() throws Exception {
+        List<TestEntity> entities = createEntities();
+        HierarchicalAggregateEntity expected = accumulate(
+            new HierarchicalAggregator(Arrays.asList("cluster", "rack"), FUNCTIONS, FIELDS), entities).result();
+        HierarchicalAggregateEntity actual = accumulatePartitioned(
+            new HierarchicalAggregator(Arrays.asList("cluster", "rack"), FUNCTIONS, FIELDS), entities).result();
+        assertHierarchicalAggregateEntity(expected, actual);
+    }
+
+    private static void assertHierarchicalAggregateEntity(HierarchicalAggregateEntity expected, HierarchicalAggregateEntity actual) {
+        assertValues(expected.getValues(), actual.getValues());
+        Assert.assertEquals(expected.getChildren().keySet(), actual.getChildren().keySet());
+        for (String key : expected.getChildren().keySet()) {
+            assertHierarchicalAggregateEntity(expected.getChildren().get(key), actual.getChildren().get(key));
+        }
+    }
+}
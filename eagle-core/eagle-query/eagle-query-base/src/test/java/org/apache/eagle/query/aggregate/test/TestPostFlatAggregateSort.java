@@ -21,6 +21,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 
 import org.apache.eagle.query.aggregate.timeseries.PostFlatAggregateSort;
 
@@ -141,4 +142,22 @@ public class TestPostFlatAggregateSort {
             Assert.fail("fail with mapping");
         }
     }
+
+    @Test
+    public void testSortTopN() {
+        Random random = new Random(1);
+        Map<List<String>, List<Double>> result = new HashMap<List<String>, List<Double>>();
+        for (int i = 0; i < 1000; i++) {
+            result.put(Arrays.asList("user" + i), Arrays.asList((double) random.nextInt(100), (double) i));
+        }
+        SortOption so = new SortOption();
+        so.setIndex(0);
+        so.setAscendant(false);
+        List<SortOption> sortOptions = Arrays.asList(so);
+
+        List<Map.Entry<List<String>, List<Double>>> all = PostFlatAggregateSort.sort(result, sortOptions, 0);
+        Assert.assertEquals(1000, all.size());
+        List<Map.Entry<List<String>, List<Double>>> top = PostFlatAggregateSort.sort(result, sortOptions, 20);
+        Assert.assertEquals(all.subList(0, 20), top);
+    }
 }
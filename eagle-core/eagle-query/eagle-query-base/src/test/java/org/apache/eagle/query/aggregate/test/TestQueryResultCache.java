@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.query.aggregate.test;
+
+import com.typesafe.config.ConfigFactory;
+import org.apache.eagle.log.entity.test.TestLogAPIEntity;
+import org.apache.eagle.query.aggregate.cache.QueryCacheConfig;
+import org.apache.eagle.query.aggregate.cache.QueryResultCache;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TestQueryResultCache {
+    private static final long HOUR = 60 * 60 * 1000;
+    private static final String SERVICE = "TestLogAPIEntity";
+    private static final String QUERY = "TestLogAPIEntity[]<cluster>{sum(field1)}";
+
+    private static QueryResultCache createCache(String config) {
+        return new QueryResultCache(QueryCacheConfig.fromConfig(ConfigFactory.parseString(
+            "storage.hbase.queryCache {enabled = true, " + config + "}")));
+    }
+
+    private static QueryResultCache.Bucket<Double> bucket(long bucketStart, int groups) {
+        Map<List<String>, List<Double>> values = new HashMap<>();
+        for (int i = 0; i < groups; i++) {
+            values.put(Collections.singletonList("cluster" + i), Collections.singletonList((double) i));
+        }
+        return new QueryResultCache.Bucket<>(bucketStart + HOUR, values, bucketStart, bucketStart + HOUR - 1);
+    }
+
+    private static List<TestLogAPIEntity> entities(long... timestamps) {
+        List<TestLogAPIEntity> entities = new ArrayList<>();
+        for (long timestamp : timestamps) {
+            TestLogAPIEntity entity = new TestLogAPIEntity();
+            entity.setTimestamp(timestamp);
+            entities.add(entity);
+        }
+        return entities;
+    }
+
+    @Test
+    public void testConfig() {
+        QueryCacheConfig config = QueryCacheConfig.fromConfig(ConfigFactory.parseString(""));
+        Assert.assertFalse(config.isEnabled());
+        Assert.assertEquals(HOUR, config.getBucketMs());
+        QueryResultCache cache = createCache("bucketMinutes = 30, delayMinutes = 5");
+        Assert.assertTrue(cache.isEnabled());
+        Assert.assertEquals(HOUR / 2, cache.getBucketMs());
+        Assert.assertEquals(10 * HOUR - 5 * 60 * 1000, cache.closedTime(10 * HOUR));
+    }
+
+    @Test
+    public void testGetAndPut() {
+        QueryResultCache cache = createCache("");
+        Assert.assertNull(cache.get(SERVICE, QUERY, HOUR));
+        cache.put(SERVICE, QUERY, HOUR, bucket(HOUR, 2), cache.getVersion());
+        QueryResultCache.Bucket<Double> bucket = cache.get(SERVICE, QUERY, HOUR);
+        Assert.assertNotNull(bucket);
+        Assert.assertEquals(Arrays.asList(1.0), bucket.getGroups().get(Collections.singletonList("cluster1")));
+        Assert.assertEquals(HOUR, bucket.getFirstTimestamp());
+        Assert.assertNull(cache.get(SERVICE, QUERY, 2 * HOUR));
+        Assert.assertNull(cache.get(SERVICE, QUERY + "&filterIfMissing", HOUR));
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(3, cache.getMisses());
+        Assert.assertEquals(bucket.getSize(), cache.getSize());
+    }
+
+    @Test
+    public void testInvalidateWrittenBuckets() {
+        QueryResultCache cache = createCache("");
+        for (long bucketStart = 0; bucketStart < 4 * HOUR; bucketStart += HOUR) {
+            cache.put(SERVICE, QUERY, bucketStart, bucket(bucketStart, 1), cache.getVersion());
+        }
+        cache.put("OtherService", QUERY, HOUR, bucket(HOUR, 1), cache.getVersion());
+        cache.invalidate(SERVICE, entities(HOUR + 10, 3 * HOUR + 10, HOUR + 20));
+        Assert.assertNotNull(cache.get(SERVICE, QUERY, 0));
+        Assert.assertNull(cache.get(SERVICE, QUERY, HOUR));
+        Assert.assertNotNull(cache.get(SERVICE, QUERY, 2 * HOUR));
+        Assert.assertNull(cache.get(SERVICE, QUERY, 3 * HOUR));
+        Assert.assertNotNull(cache.get("OtherService", QUERY, HOUR));
+
+        cache.invalidate(SERVICE);
+        Assert.assertEquals(1, cache.getBucketCount());
+        Assert.assertEquals(bucket(HOUR, 1).getSize(), cache.getSize());
+    }
+
+    @Test
+    public void testBucketReadBeforeInvalidationNotCached() {
+        QueryResultCache cache = createCache("");
+        long version = cache.getVersion();
+        cache.invalidate(SERVICE, entities(HOUR));
+        cache.put(SERVICE, QUERY, HOUR, bucket(HOUR, 1), version);
+        cache.put("OtherService", QUERY, HOUR, bucket(HOUR, 1), version);
+        Assert.assertNull(cache.get(SERVICE, QUERY, HOUR));
+        Assert.assertNotNull(cache.get("OtherService", QUERY, HOUR));
+
+        version = cache.getVersion();
+        cache.clear();
+        cache.put("OtherService", QUERY, HOUR, bucket(HOUR, 1), version);
+        Assert.assertEquals(0, cache.getBucketCount());
+    }
+
+    @Test
+    public void testEvictLeastRecentlyUsed() {
+        QueryResultCache cache = createCache("maxSizeMB = 1");
+        long bucketSize = bucket(0, 1000).getSize();
+        int capacity = (int) (1024 * 1024 / bucketSize);
+        for (int i = 0; i <= capacity; i++) {
+            cache.put(SERVICE, QUERY, i * HOUR, bucket(i * HOUR, 1000), cache.getVersion());
+            // keep the first bucket recently used
+            Assert.assertNotNull(cache.get(SERVICE, QUERY, 0));
+        }
+        Assert.assertEquals(capacity, cache.getBucketCount());
+        Assert.assertTrue(cache.getSize() <= 1024 * 1024);
+        Assert.assertNotNull(cache.get(SERVICE, QUERY, 0));
+        Assert.assertNull(cache.get(SERVICE, QUERY, HOUR));
+        Assert.assertNotNull(cache.get(SERVICE, QUERY, capacity * HOUR));
+    }
+
+    @Test
+    public void testExpire() {
+        QueryResultCache cache = createCache("expireMinutes = 0");
+        cache.put(SERVICE, QUERY, HOUR, bucket(HOUR, 1), cache.getVersion());
+        long createdTime = System.currentTimeMillis();
+        while (System.currentTimeMillis() == createdTime) {
+            Thread.yield();
+        }
+        Assert.assertNull(cache.get(SERVICE, QUERY, HOUR));
+        Assert.assertEquals(0, cache.getSize());
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.query.aggregate.test;
+
+import com.typesafe.config.ConfigFactory;
+import org.apache.eagle.query.aggregate.AggregateFunctionType;
+import org.apache.eagle.query.aggregate.AggregationMemoryExceededException;
+import org.apache.eagle.query.aggregate.buffer.AggregationBufferConfig;
+import org.apache.eagle.query.aggregate.buffer.CompactGroupbyBuffer;
+import org.apache.eagle.query.aggregate.buffer.SpillableGroupbyBuffer;
+import org.apache.eagle.query.aggregate.raw.GroupbyKey;
+import org.apache.eagle.query.aggregate.raw.GroupbyKeyComparator;
+import org.apache.eagle.query.aggregate.timeseries.GroupbyBucket;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+public class TestSpillableGroupbyBuffer {
+    private static final List<AggregateFunctionType> TYPES = Arrays.asList(AggregateFunctionType.count,
+        AggregateFunctionType.sum, AggregateFunctionType.min, AggregateFunctionType.max, AggregateFunctionType.avg);
+
+    @Rule
+    public TemporaryFolder spillDir = new TemporaryFolder();
+
+    private AggregationBufferConfig createConfig(String config) {
+        return AggregationBufferConfig.fromConfig(ConfigFactory.parseString(
+            "storage.hbase.aggregation {spillDir = \"" + spillDir.getRoot().getAbsolutePath() + "\", " + config + "}"));
+    }
+
+    private static void addDatapoints(GroupbyBucket bucket, int groups, int datapoints) {
+        for (int i = 0; i < datapoints; i++) {
+            double value = i % 100;
+            bucket.addDatapoint(Arrays.asList("cluster" + (i % groups % 7), "host" + (i % groups)), Arrays.asList(1.0, value, value, value, value));
+        }
+    }
+
+    @Test
+    public void testSpilledResultSameAsInMemory() {
+        GroupbyBucket inMemory = new GroupbyBucket(TYPES, createConfig("spillEnabled = false"));
+        GroupbyBucket spilled = new GroupbyBucket(TYPES, createConfig("spillThresholdMB = 1"));
+        addDatapoints(inMemory, 50000, 200000);
+        addDatapoints(spilled, 50000, 200000);
+
+        Map<List<String>, List<Double>> expected = inMemory.result();
+        Assert.assertEquals(50000, expected.size());
+        Assert.assertEquals(expected, spilled.result());
+        // result can be read again once the runs are merged
+        Assert.assertEquals(expected, spilled.result());
+        Assert.assertEquals(0, spillDir.getRoot().list().length);
+
+        Assert.assertEquals(Arrays.asList(4.0, 12.0, 3.0, 3.0, 3.0), expected.get(Arrays.asList("cluster3", "host3")));
+    }
+
+    @Test
+    public void testCloseDeletesRunsWhenAggregationFails() {
+        GroupbyBucket bucket = new GroupbyBucket(TYPES, createConfig("spillThresholdMB = 1"));
+        GroupbyBucket partition = new GroupbyBucket(TYPES, createConfig("spillThresholdMB = 1"));
+        try {
+            addDatapoints(bucket, 50000, 100000);
+            addDatapoints(partition, 50000, 100000);
+            Assert.assertTrue(spillDir.getRoot().list().length > 1);
+            bucket.merge(partition);
+            throw new IllegalStateException("scan failed before the result is read");
+        } catch (IllegalStateException e) {
+            // the runs of the merged partition are owned by the bucket now
+        } finally {
+            bucket.close();
+        }
+        Assert.assertEquals(0, spillDir.getRoot().list().length);
+    }
+
+    @Test
+    public void testSpillAndMergeSortedRuns() {
+        SpillableGroupbyBuffer buffer = new SpillableGroupbyBuffer(TYPES, createConfig("spillThresholdMB = 1"));
+        SpillableGroupbyBuffer partition = new SpillableGroupbyBuffer(TYPES, createConfig("spillThresholdMB = 1"));
+        CompactGroupbyBuffer.KeyBuilder key = new CompactGroupbyBuffer.KeyBuilder();
+        for (int i = 0; i < 100000; i++) {
+            int group = buffer.group(key.clear().add("host" + (i % 60000)));
+            buffer.run(group, 0, 1.0);
+            buffer.run(group, 1, i);
+            buffer.run(group, 2, i);
+            buffer.run(group, 3, i);
+            buffer.run(group, 4, i);
+            group = partition.group(key.clear().add("host" + (i % 60000)));
+            partition.run(group, 2, -i);
+        }
+        Assert.assertTrue(buffer.getSpilledRuns() > 0);
+        buffer.merge(partition);
+
+        CompactGroupbyBuffer groups = buffer.groups();
+        Assert.assertEquals(0, buffer.getSpilledRuns());
+        Assert.assertEquals(60000, groups.size());
+        GroupbyKeyComparator comparator = new GroupbyKeyComparator();
+        GroupbyKey previous = null;
+        for (int group = 0; group < groups.size(); group++) {
+            GroupbyKey current = new GroupbyKey();
+            for (byte[] field : groups.keyFields(group)) {
+                current.addValue(field);
+            }
+            Assert.assertTrue(previous == null || comparator.compare(previous, current) < 0);
+            previous = current;
+            int host = Integer.parseInt(groups.keyStrings(group).get(0).substring("host".length()));
+            if (host < 40000) {
+                Assert.assertEquals(2, groups.count(group, 0));
+                Assert.assertEquals(2 * host + 60000, groups.result(group, 1), 0.0);
+                Assert.assertEquals(-(host + 60000), groups.result(group, 2), 0.0);
+                Assert.assertEquals(4, groups.count(group, 2));
+                Assert.assertEquals(host + 60000, groups.result(group, 3), 0.0);
+                Assert.assertEquals(host + 30000, groups.result(group, 4), 0.0);
+            } else {
+                Assert.assertEquals(1, groups.count(group, 0));
+                Assert.assertEquals(-host, groups.result(group, 2), 0.0);
+                Assert.assertEquals(host, groups.result(group, 4), 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void testKeyOrderSameAsGroupbyKeyComparator() {
+        CompactGroupbyBuffer buffer = new CompactGroupbyBuffer(TYPES);
+        CompactGroupbyBuffer.KeyBuilder key = new CompactGroupbyBuffer.KeyBuilder();
+        List<GroupbyKey> expected = new ArrayList<>();
+        byte[][] values = {"b".getBytes(), "ab".getBytes(), "a".getBytes(), {(byte) 0xFF}, {(byte) 0x7F}, {}, new byte[200]};
+        for (byte[] value1 : values) {
+            for (byte[] value2 : values) {
+                buffer.group(key.clear().add(value1).add(value2));
+                expected.add(new GroupbyKey(Arrays.asList(value1, value2)));
+            }
+        }
+        expected.sort(new GroupbyKeyComparator());
+        int[] sorted = buffer.sortedGroups();
+        Assert.assertEquals(expected.size(), sorted.length);
+        for (int i = 0; i < sorted.length; i++) {
+            List<byte[]> fields = buffer.keyFields(sorted[i]);
+            Assert.assertArrayEquals(expected.get(i).getValue().get(0).copyBytes(), fields.get(0));
+            Assert.assertArrayEquals(expected.get(i).getValue().get(1).copyBytes(), fields.get(1));
+        }
+    }
+
+    @Test(expected = AggregationMemoryExceededException.class)
+    public void testMemoryLimitWithoutSpill() {
+        addDatapoints(new GroupbyBucket(TYPES, createConfig("spillEnabled = false, memoryLimitMB = 1")), 100000, 100000);
+    }
+
+    @Test
+    public void testMemoryLimitOfMergedGroups() {
+        GroupbyBucket bucket = new GroupbyBucket(TYPES, createConfig("spillThresholdMB = 1, memoryLimitMB = 2"));
+        addDatapoints(bucket, 200000, 200000);
+        try {
+            bucket.result();
+            Assert.fail("merged groups should exceed the memory limit");
+        } catch (AggregationMemoryExceededException e) {
+            Assert.assertTrue(e.getMessage().contains("memoryLimitMB"));
+        }
+        Assert.assertEquals(0, spillDir.getRoot().list().length);
+    }
+}
@@ -22,6 +22,7 @@ import org.apache.eagle.log.base.taggedlog.TaggedLogAPIEntity;
 import org.apache.eagle.log.entity.GenericServiceAPIResponseEntity;
 import org.apache.eagle.log.entity.meta.EntityDefinition;
 import org.apache.eagle.log.entity.meta.EntityDefinitionManager;
+import org.apache.eagle.query.aggregate.cache.QueryResultCache;
 import org.apache.eagle.storage.DataStorage;
 import org.apache.eagle.storage.DataStorageManager;
 import org.apache.eagle.storage.exception.IllegalDataStorageException;
@@ -56,6 +57,7 @@ public class GenericEntityServiceResource {
     public final static String JSONP_PATH = "jsonp";
     public final static String DELETE_ENTITIES_PATH = "delete";
     public final static String ROWKEY_PATH = "rowkey";
+    public final static String STREAM_PATH = "stream";
 
     public final static String FIRST_TIMESTAMP = "firstTimestamp";
     public final static String LAST_TIMESTAMP = "lastTimestamp";
@@ -112,6 +114,7 @@ public class GenericEntityServiceResource {
     public GenericServiceAPIResponseEntity updateEntities(List<? extends TaggedLogAPIEntity> entities, String serviceName) {
         CreateStatement createStatement = new CreateStatement(entities, serviceName);
         GenericServiceAPIResponseEntity<String> response = updateDatabase(createStatement);
+        QueryResultCache.getInstance().invalidate(serviceName, entities);
         return response;
     }
 
@@ -135,6 +138,7 @@ public class GenericEntityServiceResource {
             DataStorage dataStorage = DataStorageManager.getDataStorageByEagleConfig();
             CreateStatement createStatement = new CreateStatement(entities,entityDefinition);
             ModifyResult<String> result = createStatement.execute(dataStorage);
+            QueryResultCache.getInstance().invalidate(serviceName, entities);
             if(result.isSuccess()) {
                 List<String> keys =result.getIdentifiers();
                 if(keys != null) {
@@ -178,6 +182,7 @@ public class GenericEntityServiceResource {
             DataStorage dataStorage = DataStorageManager.getDataStorageByEagleConfig();
             CreateStatement createStatement = new CreateStatement(entities,entityDefinition);
             ModifyResult<String> result = createStatement.execute(dataStorage);
+            QueryResultCache.getInstance().invalidate(serviceName, entities);
             if(result.isSuccess()) {
                 List<String> keys =result.getIdentifiers();
                 if(keys != null) {
@@ -222,6 +227,7 @@ public class GenericEntityServiceResource {
 
             UpdateStatement updateStatement = new UpdateStatement(entities,entityDefinition);
             ModifyResult<String> result = updateStatement.execute(dataStorage);
+            QueryResultCache.getInstance().invalidate(serviceName, entities);
             if(result.isSuccess()) {
                 List<String> keys =result.getIdentifiers();
                 if(keys != null) {
@@ -266,6 +272,7 @@ public class GenericEntityServiceResource {
 
             UpdateStatement updateStatement = new UpdateStatement(entities,entityDefinition);
             ModifyResult<String> result = updateStatement.execute(dataStorage);
+            QueryResultCache.getInstance().invalidate(serviceName, entities);
             if(result.isSuccess()) {
                 List<String> keys =result.getIdentifiers();
                 if(keys != null) {
@@ -467,6 +474,77 @@ public class GenericEntityServiceResource {
         return response;
     }
 
+    /**
+     * Same as {@link #search}, but entities are written to the response as they are read instead of being collected,
+     * with success, exception and meta after obj.
+     *
+     * @see StreamingResponseOutput
+     */
+    @GET
+    @Path(STREAM_PATH)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response searchAsStream(@QueryParam("query") String query,
+                                   @QueryParam("startTime") String startTime, @QueryParam("endTime") String endTime,
+                                   @QueryParam("pageSize") int pageSize, @QueryParam("startRowkey") String startRowkey,
+                                   @QueryParam("treeAgg") boolean treeAgg, @QueryParam("timeSeries") boolean timeSeries,
+                                   @QueryParam("intervalmin") long intervalmin, @QueryParam("top") int top,
+                                   @QueryParam("filterIfMissing") boolean filterIfMissing,
+                                   @QueryParam("parallel") int parallel,
+                                   @QueryParam("metricName") String metricName,
+                                   @QueryParam("verbose") Boolean verbose){
+        RawQuery rawQuery = RawQuery.build()
+                .query(query)
+                .startTime(startTime)
+                .endTime(endTime)
+                .pageSize(pageSize)
+                .startRowkey(startRowkey)
+                .treeAgg(treeAgg)
+                .timeSeries(timeSeries)
+                .intervalMin(intervalmin)
+                .top(top)
+                .filerIfMissing(filterIfMissing)
+                .parallel(parallel)
+                .metricName(metricName)
+                .verbose(verbose)
+                .done();
+
+        GenericServiceAPIResponseEntity response = new GenericServiceAPIResponseEntity();
+        try {
+            // fail before the response status is sent if the query is invalid
+            final DataStorage dataStorage = DataStorageManager.getDataStorageByEagleConfig();
+            if(dataStorage==null){
+                LOG.error("Data storage is null");
+                throw new IllegalDataStorageException("data storage is null");
+            }
+            final CompiledQuery compiledQuery = dataStorage.compile(rawQuery);
+            final EntityDefinition entityDefinition = EntityDefinitionManager.getEntityByServiceName(compiledQuery.getServiceName());
+
+            Map<String,Object> head = new HashMap<>();
+            head.put("type", compiledQuery.isHasAgg() ? Map.class : entityDefinition.getEntityClass());
+            return Response.ok(new StreamingResponseOutput(head, listener -> {
+                StopWatch stopWatch = new StopWatch();
+                stopWatch.start();
+                QueryResult<?> result = dataStorage.queryAsStream(compiledQuery, entityDefinition, listener);
+                stopWatch.stop();
+                Map<String,Object> meta = new HashMap<>();
+                meta.put(FIRST_TIMESTAMP, result.getFirstTimestamp());
+                meta.put(LAST_TIMESTAMP, result.getLastTimestamp());
+                meta.put(TOTAL_RESULTS, result.getSize());
+                meta.put(ELAPSEDMS, stopWatch.getTime());
+                Map<String,Object> tail = new HashMap<>();
+                tail.put("meta", meta);
+                return tail;
+            }), MediaType.APPLICATION_JSON_TYPE).build();
+        } catch (Exception e) {
+            response.setException(e);
+            LOG.error(e.getMessage(),e);
+            throw new WebApplicationException(e,
+                    Response.status(Response.Status.BAD_REQUEST)
+                    .type(MediaType.APPLICATION_JSON_TYPE)
+                    .entity(response).build());
+        }
+    }
+
     /**
      *
      * @param query
@@ -551,6 +629,8 @@ public class GenericEntityServiceResource {
 
             DeleteStatement deleteStatement = new DeleteStatement(rawQuery);
             ModifyResult<String> deleteResult = deleteStatement.execute(dataStorage);
+            // the time range of the deleted entities is not known
+            QueryResultCache.getInstance().clear();
             if(deleteResult.isSuccess()){
                 meta.put(ELAPSEDMS, stopWatch.getTime());
                 response.setObj(deleteResult.getIdentifiers(),String.class);
@@ -596,6 +676,7 @@ public class GenericEntityServiceResource {
             stopWatch.start();
             dataStorage = DataStorageManager.getDataStorageByEagleConfig();
             DeleteStatement statement = new DeleteStatement(serviceName);
+            List<? extends TaggedLogAPIEntity> entities = null;
 
             if(deleteById) {
                 LOG.info("Deleting "+serviceName+" by ids");
@@ -607,11 +688,16 @@ public class GenericEntityServiceResource {
                 if (entityDefinition == null) {
                     throw new IllegalArgumentException("Entity definition of service " + serviceName + " not found");
                 }
-                List<? extends TaggedLogAPIEntity> entities = unmarshalEntitiesByServie(inputStream, entityDefinition);
+                entities = unmarshalEntitiesByServie(inputStream, entityDefinition);
                 statement.setEntities(entities);
             }
 
             ModifyResult<String> result = statement.execute(dataStorage);
+            if (deleteById) {
+                QueryResultCache.getInstance().invalidate(serviceName);
+            } else {
+                QueryResultCache.getInstance().invalidate(serviceName, entities);
+            }
             if (result.isSuccess()) {
                 List<String> keys = result.getIdentifiers();
                 if (keys != null) {
@@ -21,8 +21,10 @@ import org.apache.eagle.log.base.taggedlog.TaggedLogAPIEntity;
 import org.apache.eagle.log.entity.*;
 import org.apache.eagle.log.entity.meta.EntityDefinition;
 import org.apache.eagle.log.entity.meta.EntityDefinitionManager;
+import org.apache.eagle.query.GenericEntityQuery;
 import org.apache.eagle.query.GenericQuery;
 import org.apache.eagle.query.ListQueryCompiler;
+import org.apache.eagle.query.aggregate.rollup.MetricRollupConfig;
 import org.apache.eagle.service.common.EagleExceptionWrapper;
 import org.apache.eagle.storage.hbase.query.GenericQueryBuilder;
 import org.apache.eagle.common.DateTimeUtil;
@@ -39,6 +41,9 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.GenericEntity;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
 
 @Path("list")
@@ -89,83 +94,7 @@ public class ListQueryResource {
 		watch.start();
 		ListQueryAPIResponseEntity result = new ListQueryAPIResponseEntity();
 		try{
-			validateQueryParameters(startRowkey, pageSize);
-
-			// 1. Compile query to parse parameters and HBase Filter
-			ListQueryCompiler comp = new ListQueryCompiler(query, filterIfMissing);
-			String serviceName = comp.serviceName();
-			
-			SearchCondition condition = new SearchCondition();
-			condition.setOutputVerbose(verbose == null || verbose);
-			condition.setOutputAlias(comp.getOutputAlias());
-			condition.setFilter(comp.filter());
-			condition.setQueryExpression(comp.getQueryExpression());
-			if(comp.sortOptions() == null && top > 0) {
-				LOG.warn("Parameter \"top\" is only used for sort query! Ignore top parameter this time since it's not a sort query");
-			}
-
-			// 2. Initialize partition values if set
-			// TODO: For now we don't support one query to query multiple partitions. In future 
-			// if partition is defined for the entity, internally We need to spawn multiple
-			// queries and send one query for each search condition for each partition
-			final List<String[]> partitionValues = comp.getQueryPartitionValues();
-			if (partitionValues != null) {
-				condition.setPartitionValues(Arrays.asList(partitionValues.get(0)));
-			}
-
-			// 3. Set time range if it's timeseries service
-			EntityDefinition ed = EntityDefinitionManager.getEntityByServiceName(serviceName);
-			if(ed.isTimeSeries()){
-				// TODO check timestamp exists for timeseries or topology data
-				condition.setStartTime(DateTimeUtil.parseTimeStrToMilliseconds(startTime));
-				condition.setEndTime(DateTimeUtil.parseTimeStrToMilliseconds(endTime));
-			}
-
-			// 4. Set HBase start scanning rowkey if given
-			condition.setStartRowkey(startRowkey);
-
-			// 5. Set page size
-			condition.setPageSize(pageSize);
-
-			// 6. Generate output,group-by,aggregated fields
-			List<String> outputFields = comp.outputFields();
-			List<String> groupbyFields = comp.groupbyFields();
-			List<String> aggregateFields = comp.aggregateFields();
-			Set<String> filterFields = comp.getFilterFields();
-
-			// Start to generate output fields list {
-			condition.setOutputAll(comp.isOutputAll());
-			if(outputFields == null) outputFields = new ArrayList<String>();
-			if(comp.hasAgg()){
-				if(groupbyFields != null) outputFields.addAll(groupbyFields);
-				if(aggregateFields != null) outputFields.addAll(aggregateFields);
-				if(GenericMetricEntity.GENERIC_METRIC_SERVICE.equals(serviceName) && !outputFields.contains(GenericMetricEntity.VALUE_FIELD)){
-					outputFields.add(GenericMetricEntity.VALUE_FIELD);
-				}
-			}
-			if(filterFields!=null) outputFields.addAll(filterFields);
-			condition.setOutputFields(outputFields);
-			if(comp.isOutputAll()){
-				LOG.info("Output fields: ALL");
-			}else{
-				LOG.info("Output fields: " + StringUtils.join(outputFields, ","));
-			}
-			// } END
-
-			// 7. Build GenericQuery
-			GenericQuery reader = GenericQueryBuilder
-									.select(outputFields)
-									.from(serviceName, metricName).where(condition)
-									.groupBy(
-											comp.hasAgg(),
-											groupbyFields,
-											comp.aggregateFunctionTypes(),
-											aggregateFields)
-									.timeSeries(timeSeries, intervalmin)
-									.treeAgg(treeAgg)
-									.orderBy(comp.sortOptions(),comp.sortFunctions(),comp.sortFields()).top(top)
-									.parallel(parallel)								
-									.build();
+			GenericQuery reader = buildQuery(query, startTime, endTime, pageSize, startRowkey, treeAgg, timeSeries, intervalmin, top, filterIfMissing, parallel, metricName, verbose);
 			
 			// 8. Fill response object
 			List entities = reader.result();
@@ -187,6 +116,156 @@ public class ListQueryResource {
 		return result;
 	}
 	
+	/**
+	 * Same as {@link #listQuery(String, String, String, int, String, boolean, boolean, long, int, boolean, int, String, Boolean)},
+	 * but entities are written to the response as they are read instead of being collected, followed by success, exception
+	 * and the other fields of {@link ListQueryAPIResponseEntity}
+	 *
+	 * @see StreamingResponseOutput
+	 */
+	@GET
+	@Path("/stream")
+	@Produces({MediaType.APPLICATION_JSON})
+	public Response listQueryAsStream(@QueryParam("query") String query,
+			@QueryParam("startTime") String startTime, @QueryParam("endTime") String endTime,
+			@QueryParam("pageSize") int pageSize, @QueryParam("startRowkey") String startRowkey,
+			@QueryParam("treeAgg") boolean treeAgg, @QueryParam("timeSeries") boolean timeSeries,
+			@QueryParam("intervalmin") long intervalmin, @QueryParam("top") int top,
+			@QueryParam("filterIfMissing") boolean filterIfMissing,
+			@QueryParam("parallel") int parallel,
+			@QueryParam("metricName") String metricName,
+			@QueryParam("verbose") Boolean verbose) {
+		final GenericQuery reader;
+		try{
+			// fail before the response status is sent if the query is invalid
+			reader = buildQuery(query, startTime, endTime, pageSize, startRowkey, treeAgg, timeSeries, intervalmin, top, filterIfMissing, parallel, metricName, verbose);
+		}catch(Exception ex){
+			LOG.error("Fail executing list query", ex);
+			ListQueryAPIResponseEntity result = new ListQueryAPIResponseEntity();
+			result.setException(EagleExceptionWrapper.wrap(ex));
+			result.setSuccess(false);
+			return Response.ok(result, MediaType.APPLICATION_JSON_TYPE).build();
+		}
+
+		return Response.ok(new StreamingResponseOutput(Collections.<String, Object>emptyMap(), listener -> {
+			StopWatch watch = new StopWatch();
+			watch.start();
+			int totalResults = 0;
+			if(reader instanceof GenericEntityQuery){
+				final int[] count = new int[1];
+				((GenericEntityQuery) reader).readAsStream(entity -> {
+					try{
+						listener.resultRead(entity);
+					}catch(IOException e){
+						// not logged by the stream readers as a read failure
+						throw new UncheckedIOException(e);
+					}
+					count[0]++;
+				});
+				totalResults = count[0];
+			}else{
+				List<?> results = reader.result();
+				if(results != null){
+					for(Object item : results){
+						listener.resultRead(item);
+					}
+					totalResults = results.size();
+				}
+			}
+			watch.stop();
+			LOG.info("Query done " + watch.getTime() + " ms");
+			Map<String, Object> tail = new LinkedHashMap<>();
+			tail.put("totalResults", totalResults);
+			tail.put("elapsedms", watch.getTime());
+			tail.put("lastTimestamp", reader.getLastTimestamp());
+			tail.put("firstTimestamp", reader.getFirstTimeStamp());
+			return tail;
+		}), MediaType.APPLICATION_JSON_TYPE).build();
+	}
+
+	private GenericQuery buildQuery(String query, String startTime, String endTime, int pageSize, String startRowkey,
+									boolean treeAgg, boolean timeSeries, long intervalmin, int top, boolean filterIfMissing,
+									int parallel, String metricName, Boolean verbose) throws Exception {
+		validateQueryParameters(startRowkey, pageSize);
+
+		// 1. Compile query to parse parameters and HBase Filter
+		ListQueryCompiler comp = new ListQueryCompiler(query, filterIfMissing);
+		String serviceName = comp.serviceName();
+		
+		SearchCondition condition = new SearchCondition();
+		condition.setOutputVerbose(verbose == null || verbose);
+		condition.setOutputAlias(comp.getOutputAlias());
+		condition.setFilter(comp.filter());
+		condition.setQueryExpression(comp.getQueryExpression());
+		if(comp.sortOptions() == null && top > 0) {
+			LOG.warn("Parameter \"top\" is only used for sort query! Ignore top parameter this time since it's not a sort query");
+		}
+
+		// 2. Initialize partition values if set
+		// TODO: For now we don't support one query to query multiple partitions. In future 
+		// if partition is defined for the entity, internally We need to spawn multiple
+		// queries and send one query for each search condition for each partition
+		final List<String[]> partitionValues = comp.getQueryPartitionValues();
+		if (partitionValues != null) {
+			condition.setPartitionValues(Arrays.asList(partitionValues.get(0)));
+		}
+
+		// 3. Set time range if it's timeseries service
+		EntityDefinition ed = EntityDefinitionManager.getEntityByServiceName(serviceName);
+		if(ed.isTimeSeries()){
+			// TODO check timestamp exists for timeseries or topology data
+			condition.setStartTime(DateTimeUtil.parseTimeStrToMilliseconds(startTime));
+			condition.setEndTime(DateTimeUtil.parseTimeStrToMilliseconds(endTime));
+		}
+
+		// 4. Set HBase start scanning rowkey if given
+		condition.setStartRowkey(startRowkey);
+
+		// 5. Set page size
+		condition.setPageSize(pageSize);
+
+		// 6. Generate output,group-by,aggregated fields
+		List<String> outputFields = comp.outputFields();
+		List<String> groupbyFields = comp.groupbyFields();
+		List<String> aggregateFields = comp.aggregateFields();
+		Set<String> filterFields = comp.getFilterFields();
+
+		// Start to generate output fields list {
+		condition.setOutputAll(comp.isOutputAll());
+		if(outputFields == null) outputFields = new ArrayList<String>();
+		if(comp.hasAgg()){
+			if(groupbyFields != null) outputFields.addAll(groupbyFields);
+			if(aggregateFields != null) outputFields.addAll(aggregateFields);
+			if(GenericMetricEntity.GENERIC_METRIC_SERVICE.equals(serviceName) && !outputFields.contains(GenericMetricEntity.VALUE_FIELD)){
+				outputFields.add(GenericMetricEntity.VALUE_FIELD);
+			}
+		}
+		if(filterFields!=null) outputFields.addAll(filterFields);
+		condition.setOutputFields(outputFields);
+		if(comp.isOutputAll()){
+			LOG.info("Output fields: ALL");
+		}else{
+			LOG.info("Output fields: " + StringUtils.join(outputFields, ","));
+		}
+		// } END
+
+		// 7. Build GenericQuery
+		return GenericQueryBuilder
+								.select(outputFields)
+								.from(serviceName, metricName).where(condition)
+								.groupBy(
+										comp.hasAgg(),
+										groupbyFields,
+										comp.aggregateFunctionTypes(),
+										aggregateFields)
+								.timeSeries(timeSeries, intervalmin)
+								.treeAgg(treeAgg)
+								.orderBy(comp.sortOptions(),comp.sortFunctions(),comp.sortFields()).top(top)
+								.parallel(parallel)								
+								.cache(comp.getNormalizedQuery())
+								.build();
+	}
+
 	/**
 	 * <b>TODO</b> remove the legacy deprecated implementation of listQueryWithoutCoprocessor
 	 *
@@ -251,6 +330,8 @@ public class ListQueryResource {
 
 			List<String> outputFields = comp.outputFields();
 			if(outputFields == null) outputFields = new ArrayList<String>();
+			GenericQuery rollupQuery = null;
+			GenericQuery cachedQuery = null;
 
 			/**
 			 * TODO ugly logic, waiting for refactoring
@@ -294,6 +375,24 @@ public class ListQueryResource {
 				result.setLastTimestamp(reader.getLastTimestamp());
 				result.setFirstTimestamp(reader.getFirstTimestamp());
 			}
+			else if(comp.hasAgg() && !treeAgg && timeSeries && parallel <= 0
+					&& (rollupQuery = buildRollupQuery(comp, condition, metricName, intervalmin, MetricRollupConfig.getInstance())) != null){ // time-series based metric aggregate query served from rollup tier
+				List entities = rollupQuery.result();
+				result.setObj(entities);
+				result.setTotalResults(0);
+				result.setSuccess(true);
+				result.setLastTimestamp(rollupQuery.getLastTimestamp());
+				result.setFirstTimestamp(rollupQuery.getFirstTimeStamp());
+			}
+			else if(comp.hasAgg() && !treeAgg && parallel <= 0
+					&& (cachedQuery = buildCachedQuery(comp, condition, metricName, timeSeries, intervalmin)) != null){ // aggregate query with closed time buckets served from query result cache
+				List entities = cachedQuery.result();
+				result.setObj(entities);
+				result.setTotalResults(0);
+				result.setSuccess(true);
+				result.setLastTimestamp(cachedQuery.getLastTimestamp());
+				result.setFirstTimestamp(cachedQuery.getFirstTimeStamp());
+			}
 			else if(!treeAgg && !timeSeries && parallel <= 0 ){ // non time-series based aggregate query, not hierarchical
 				List<String> groupbyFields = comp.groupbyFields();
 				List<String> aggregateFields = comp.aggregateFields();
@@ -320,19 +419,23 @@ public class ListQueryResource {
 				}else{
 					LOG.info("Output: " + StringUtils.join(condition.getOutputFields(), ", "));
 				}
-				reader.register(agg);
-				reader.readAsStream();
-				ArrayList<Map.Entry<List<String>, List<Double>>> obj = new ArrayList<Map.Entry<List<String>, List<Double>>>();
-				obj.addAll(agg.result().entrySet());
-				if(comp.sortOptions() == null){
-					result.setObj(obj);
-				}else{ // has sort options
-					result.setObj(PostFlatAggregateSort.sort(agg.result(), comp.sortOptions(), top));
+				try{
+					reader.register(agg);
+					reader.readAsStream();
+					ArrayList<Map.Entry<List<String>, List<Double>>> obj = new ArrayList<Map.Entry<List<String>, List<Double>>>();
+					obj.addAll(agg.result().entrySet());
+					if(comp.sortOptions() == null){
+						result.setObj(obj);
+					}else{ // has sort options
+						result.setObj(PostFlatAggregateSort.sort(agg.result(), comp.sortOptions(), top));
+					}
+					result.setTotalResults(0);
+					result.setSuccess(true);
+					result.setLastTimestamp(reader.getLastTimestamp());
+					result.setFirstTimestamp(reader.getFirstTimestamp());
+				}finally{
+					agg.close();
 				}
-				result.setTotalResults(0);
-				result.setSuccess(true);
-				result.setLastTimestamp(reader.getLastTimestamp());
-				result.setFirstTimestamp(reader.getFirstTimestamp());
 			}else if(!treeAgg && !timeSeries && parallel > 0){ // TODO ugly branch, let us refactor
 				List<String> groupbyFields = comp.groupbyFields();
 				List<String> aggregateFields = comp.aggregateFields();
@@ -351,21 +454,25 @@ public class ListQueryResource {
 					LOG.info("Output: " + StringUtils.join(condition.getOutputFields(), ", "));
 				}
 				FlatAggregator agg = new FlatAggregator(groupbyFields, comp.aggregateFunctionTypes(), comp.aggregateFields());
-				EntityCreationListener listener = EntityCreationListenerFactory.synchronizedEntityCreationListener(agg);
+				// the reader threads accumulate into their own partitions of the aggregator, merged after reading
 				StreamReader reader = new GenericEntityStreamReaderMT(serviceName, condition, parallel);
-				reader.register(listener);
-				reader.readAsStream();
-				ArrayList<Map.Entry<List<String>, List<Double>>> obj = new ArrayList<Map.Entry<List<String>, List<Double>>>();
-				obj.addAll(agg.result().entrySet());
-				if(comp.sortOptions() == null){
-					result.setObj(obj);
-				}else{ // has sort options
-					result.setObj(PostFlatAggregateSort.sort(agg.result(), comp.sortOptions(), top));
+				try{
+					reader.register(agg);
+					reader.readAsStream();
+					ArrayList<Map.Entry<List<String>, List<Double>>> obj = new ArrayList<Map.Entry<List<String>, List<Double>>>();
+					obj.addAll(agg.result().entrySet());
+					if(comp.sortOptions() == null){
+						result.setObj(obj);
+					}else{ // has sort options
+						result.setObj(PostFlatAggregateSort.sort(agg.result(), comp.sortOptions(), top));
+					}
+					result.setTotalResults(0);
+					result.setSuccess(true);
+					result.setLastTimestamp(reader.getLastTimestamp());
+					result.setFirstTimestamp(reader.getFirstTimestamp());
+				}finally{
+					agg.close();
 				}
-				result.setTotalResults(0);
-				result.setSuccess(true);
-				result.setLastTimestamp(reader.getLastTimestamp());
-				result.setFirstTimestamp(reader.getFirstTimestamp());
 			}else if(!treeAgg && timeSeries){ // time-series based aggregate query, not hierarchical
 				List<String> groupbyFields = comp.groupbyFields();
 				List<String> sortFields = comp.sortFields();
@@ -400,35 +507,32 @@ public class ListQueryResource {
 				}
 				TimeSeriesAggregator tsAgg = new TimeSeriesAggregator(groupbyFields, comp.aggregateFunctionTypes(), aggregateFields,
 						condition.getStartTime(), condition.getEndTime(), intervalmin*60*1000);
-				if(parallel <= 0){
-					reader.register(tsAgg);
-				}else{
-					EntityCreationListener listener = EntityCreationListenerFactory.synchronizedEntityCreationListener(tsAgg);
-					reader.register(listener);
-				}
 				// for sorting
 				FlatAggregator sortAgg = null;
-				if (comp.sortOptions() != null) {
-					sortAgg = new FlatAggregator(groupbyFields, comp.sortFunctions(), comp.sortFields());
-					if(parallel <= 0){
+				try{
+					reader.register(tsAgg);
+					if (comp.sortOptions() != null) {
+						sortAgg = new FlatAggregator(groupbyFields, comp.sortFunctions(), comp.sortFields());
 						reader.register(sortAgg);
-					}else{
-						EntityCreationListener listener = EntityCreationListenerFactory.synchronizedEntityCreationListener(sortAgg);
-						reader.register(listener);
+					}
+					reader.readAsStream();
+					ArrayList<Map.Entry<List<String>, List<double[]>>> obj = new ArrayList<Map.Entry<List<String>, List<double[]>>>();
+					obj.addAll(tsAgg.getMetric().entrySet());
+					if(comp.sortOptions() == null){
+						result.setObj(obj);
+					}else{ // has sort options
+						result.setObj(TimeSeriesPostFlatAggregateSort.sort(sortAgg.result(), tsAgg.getMetric(), comp.sortOptions(), top));
+					}
+					result.setTotalResults(0);
+					result.setSuccess(true);
+					result.setLastTimestamp(reader.getLastTimestamp());
+					result.setFirstTimestamp(reader.getFirstTimestamp());
+				}finally{
+					tsAgg.close();
+					if(sortAgg != null){
+						sortAgg.close();
 					}
 				}
-				reader.readAsStream();
-				ArrayList<Map.Entry<List<String>, List<double[]>>> obj = new ArrayList<Map.Entry<List<String>, List<double[]>>>();
-				obj.addAll(tsAgg.getMetric().entrySet());
-				if(comp.sortOptions() == null){
-					result.setObj(obj);
-				}else{ // has sort options
-					result.setObj(TimeSeriesPostFlatAggregateSort.sort(sortAgg.result(), tsAgg.getMetric(), comp.sortOptions(), top));
-				}
-				result.setTotalResults(0);
-				result.setSuccess(true);
-				result.setLastTimestamp(reader.getLastTimestamp());
-				result.setFirstTimestamp(reader.getFirstTimestamp());
 			}
 			else{ // use hierarchical aggregate mode
 				List<String> groupbyFields = comp.groupbyFields();
@@ -491,6 +595,65 @@ public class ListQueryResource {
 		return new JSONWithPadding(new GenericEntity<ListQueryAPIResponseEntity>(result){}, callback);		
 	}
 	
+	/**
+	 * @return query served from the coarsest metric rollup tier satisfying intervalmin, or null if not available
+	 */
+	GenericQuery buildRollupQuery(ListQueryCompiler comp, SearchCondition condition, String metricName, long intervalmin, MetricRollupConfig rollupConfig) throws Exception {
+		if(!GenericMetricEntity.GENERIC_METRIC_SERVICE.equals(comp.serviceName()) || comp.sortOptions() != null){
+			return null;
+		}
+		// filters on value apply to raw points only, not to the statistics of the rollup tiers
+		if(comp.getFilterFields() != null && comp.getFilterFields().contains(GenericMetricEntity.VALUE_FIELD)){
+			return null;
+		}
+		List<String> outputFields = new ArrayList<String>();
+		if(comp.outputFields() != null) outputFields.addAll(comp.outputFields());
+		if(comp.groupbyFields() != null) outputFields.addAll(comp.groupbyFields());
+		if(comp.getFilterFields() != null) outputFields.addAll(comp.getFilterFields());
+		outputFields.addAll(comp.aggregateFields());
+		if(!outputFields.contains(GenericMetricEntity.VALUE_FIELD)){
+			outputFields.add(GenericMetricEntity.VALUE_FIELD);
+		}
+		// the output fields are copied into the conditions of the parts read by the query
+		condition.setOutputFields(outputFields);
+		return GenericQueryBuilder
+				.select(outputFields)
+				.from(comp.serviceName(), metricName).where(condition)
+				.groupBy(true, comp.groupbyFields(), comp.aggregateFunctionTypes(), comp.aggregateFields())
+				.timeSeries(true, intervalmin)
+				.rollup(rollupConfig)
+				.withoutCoprocessor()
+				.buildRollup();
+	}
+
+	/**
+	 * @return query with the closed time buckets served from the query result cache, or null if not cached,
+	 * the parts not cached are aggregated in memory as the other branches of the legacy list query do
+	 */
+	private GenericQuery buildCachedQuery(ListQueryCompiler comp, SearchCondition condition, String metricName, boolean timeSeries, long intervalmin) throws Exception {
+		if(comp.sortOptions() != null){
+			return null;
+		}
+		List<String> outputFields = new ArrayList<String>();
+		if(comp.outputFields() != null) outputFields.addAll(comp.outputFields());
+		if(comp.groupbyFields() != null) outputFields.addAll(comp.groupbyFields());
+		if(comp.getFilterFields() != null) outputFields.addAll(comp.getFilterFields());
+		outputFields.addAll(comp.aggregateFields());
+		if(GenericMetricEntity.GENERIC_METRIC_SERVICE.equals(comp.serviceName()) && !outputFields.contains(GenericMetricEntity.VALUE_FIELD)){
+			outputFields.add(GenericMetricEntity.VALUE_FIELD);
+		}
+		// the output fields are copied into the conditions of the parts read by the query
+		condition.setOutputFields(outputFields);
+		return GenericQueryBuilder
+				.select(outputFields)
+				.from(comp.serviceName(), metricName).where(condition)
+				.groupBy(true, comp.groupbyFields(), comp.aggregateFunctionTypes(), comp.aggregateFields())
+				.timeSeries(timeSeries, intervalmin)
+				.cache(comp.getNormalizedQuery())
+				.withoutCoprocessor()
+				.buildCached();
+	}
+
 	private void validateQueryParameters(String startRowkey, int pageSize){
 		if(pageSize <= 0){
 			throw new IllegalArgumentException("Positive pageSize value should be always provided. The list query format is:\n" + "eagle-service/rest/list?query=<querystring>&pageSize=10&startRowkey=xyz&startTime=xxx&endTime=xxx");
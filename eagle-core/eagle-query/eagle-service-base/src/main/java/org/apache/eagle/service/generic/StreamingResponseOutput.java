@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.service.generic;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.eagle.common.EagleExceptionWrapper;
+import org.apache.eagle.log.base.taggedlog.EntityJsonModule;
+import org.apache.eagle.log.base.taggedlog.TaggedLogAPIEntity;
+import org.apache.eagle.storage.result.QueryResultListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+/**
+ * Writes the JSON response of a query while the query is running, so that large results are never held in memory:
+ * <pre>
+ * {"type": ..., "obj": [result, result, ...], "success": true, ...}
+ * </pre>
+ * The fields known before the query, like type, come ahead of obj. success, exception and the fields depending on
+ * the results come in a trailing envelope, as the response status is sent with the first results.
+ * <ul>
+ * <li>results are serialized as they are read and flushed every {@link #FLUSH_INTERVAL} results</li>
+ * <li>results are written on the reading thread, so a slow client slows down reading instead of queuing results</li>
+ * <li>a failed write, usually the client being gone, aborts the query</li>
+ * </ul>
+ */
+public class StreamingResponseOutput implements StreamingOutput {
+    private static final Logger LOG = LoggerFactory.getLogger(StreamingResponseOutput.class);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    static final int FLUSH_INTERVAL = 1000;
+
+    static {
+        OBJECT_MAPPER.setFilters(TaggedLogAPIEntity.getFilterProvider());
+        OBJECT_MAPPER.registerModule(new EntityJsonModule());
+    }
+
+    private final Map<String, Object> head;
+    private final Query query;
+    private int written = 0;
+    private boolean writeFailed = false;
+
+    public interface Query {
+        /**
+         * Execute the query passing each result to the listener.
+         *
+         * @return fields written after the results
+         */
+        Map<String, Object> execute(QueryResultListener<Object> listener) throws Exception;
+    }
+
+    public StreamingResponseOutput(Map<String, Object> head, Query query) {
+        this.head = head;
+        this.query = query;
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        final JsonGenerator generator = OBJECT_MAPPER.getFactory().createGenerator(output, JsonEncoding.UTF8);
+        generator.writeStartObject();
+        for (Map.Entry<String, Object> field : head.entrySet()) {
+            generator.writeObjectField(field.getKey(), field.getValue());
+        }
+        generator.writeArrayFieldStart("obj");
+        Map<String, Object> tail;
+        try {
+            tail = query.execute(result -> write(generator, result));
+        } catch (Exception ex) {
+            if (writeFailed) {
+                LOG.warn("Query aborted after writing {} results: {}", written, ex.getMessage());
+                if (ex instanceof UncheckedIOException) {
+                    throw ((UncheckedIOException) ex).getCause();
+                }
+                throw ex instanceof IOException ? (IOException) ex : new IOException(ex);
+            }
+            LOG.error("Fail executing query after writing " + written + " results", ex);
+            generator.writeEndArray();
+            generator.writeBooleanField("success", false);
+            generator.writeStringField("exception", EagleExceptionWrapper.wrap(ex));
+            generator.writeEndObject();
+            generator.flush();
+            return;
+        }
+        generator.writeEndArray();
+        generator.writeBooleanField("success", true);
+        if (tail != null) {
+            for (Map.Entry<String, Object> field : tail.entrySet()) {
+                generator.writeObjectField(field.getKey(), field.getValue());
+            }
+        }
+        generator.writeEndObject();
+        generator.flush();
+    }
+
+    private void write(JsonGenerator generator, Object result) throws IOException {
+        try {
+            generator.writeObject(result);
+            if (++written % FLUSH_INTERVAL == 0) {
+                generator.flush();
+            }
+        } catch (IOException ex) {
+            writeFailed = true;
+            throw ex;
+        }
+    }
+
+    public int getWritten() {
+        return written;
+    }
+}
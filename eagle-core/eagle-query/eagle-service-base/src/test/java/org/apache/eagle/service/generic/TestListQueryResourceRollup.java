@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.service.generic;
+
+import com.typesafe.config.ConfigFactory;
+import org.apache.eagle.log.entity.GenericMetricEntity;
+import org.apache.eagle.log.entity.SearchCondition;
+import org.apache.eagle.query.GenericQuery;
+import org.apache.eagle.query.ListQueryCompiler;
+import org.apache.eagle.query.aggregate.rollup.MetricRollupConfig;
+import org.apache.eagle.query.aggregate.rollup.RollupTier;
+import org.apache.eagle.storage.hbase.query.aggregate.GenericRollupAggregateQuery;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class TestListQueryResourceRollup {
+	private static final long HOUR = 60 * 60 * 1000;
+	// 2016-01-01 00:00:00 UTC, rolled up long ago
+	private static final long T0 = 1451606400000L;
+	private static final String METRIC = "hadoop.namenode.rpc.callqueuelength";
+	private static final String QUERY = GenericMetricEntity.GENERIC_METRIC_SERVICE + "[@cluster=\"test4UT\"]<@cluster>{sum(value), avg(value)}";
+
+	private static MetricRollupConfig rollupConfig() {
+		return MetricRollupConfig.fromConfig(ConfigFactory.parseString(
+			"storage.hbase.metricRollup {enabled = true, metrics = [\"" + METRIC + "\"]}"));
+	}
+
+	private static SearchCondition condition(ListQueryCompiler comp, long startTime, long endTime) {
+		SearchCondition condition = new SearchCondition();
+		condition.setFilter(comp.filter());
+		condition.setQueryExpression(comp.getQueryExpression());
+		condition.setStartTime(startTime);
+		condition.setEndTime(endTime);
+		condition.setPageSize(Integer.MAX_VALUE);
+		return condition;
+	}
+
+	@Test
+	public void testRollupQuery() throws Exception {
+		ListQueryCompiler comp = new ListQueryCompiler(QUERY, false);
+		SearchCondition condition = condition(comp, T0, T0 + 10 * HOUR);
+		GenericQuery query = new ListQueryResource().buildRollupQuery(comp, condition, METRIC, 120, rollupConfig());
+		Assert.assertTrue(query instanceof GenericRollupAggregateQuery);
+		Assert.assertEquals(RollupTier.HOUR, ((GenericRollupAggregateQuery) query).getTier());
+		Assert.assertEquals(T0 + 10 * HOUR, ((GenericRollupAggregateQuery) query).getBoundary());
+		// set before the query is built, as it is copied into the conditions of the parts read
+		Assert.assertTrue(condition.getOutputFields().containsAll(Arrays.asList("cluster", GenericMetricEntity.VALUE_FIELD)));
+
+		query = new ListQueryResource().buildRollupQuery(comp, condition(comp, T0, T0 + 10 * 24 * HOUR), METRIC, 24 * 60, rollupConfig());
+		Assert.assertEquals(RollupTier.DAY, ((GenericRollupAggregateQuery) query).getTier());
+	}
+
+	@Test
+	public void testNotServedFromRollup() throws Exception {
+		ListQueryCompiler comp = new ListQueryCompiler(QUERY, false);
+		ListQueryResource resource = new ListQueryResource();
+		Assert.assertNull(resource.buildRollupQuery(comp, condition(comp, T0, T0 + 10 * HOUR), "metric.not.rolled.up", 120, rollupConfig()));
+		Assert.assertNull(resource.buildRollupQuery(comp, condition(comp, T0, T0 + 10 * HOUR), METRIC, 120, MetricRollupConfig.fromConfig(null)));
+		// intervals finer than an hour, or not aligned to the start, are served from the raw series
+		Assert.assertNull(resource.buildRollupQuery(comp, condition(comp, T0, T0 + 10 * HOUR), METRIC, 30, rollupConfig()));
+		Assert.assertNull(resource.buildRollupQuery(comp, condition(comp, T0 + 30 * 60 * 1000, T0 + 10 * HOUR), METRIC, 60, rollupConfig()));
+		// sorted aggregation
+		ListQueryCompiler sorted = new ListQueryCompiler(QUERY + ".{sum(value) desc}", false);
+		Assert.assertNull(resource.buildRollupQuery(sorted, condition(sorted, T0, T0 + 10 * HOUR), METRIC, 120, rollupConfig()));
+	}
+
+	@Test
+	public void testValueFilterNotServedFromRollup() throws Exception {
+		ListQueryResource resource = new ListQueryResource();
+		// filters on value would be applied to the sum, min, max and count of the buckets instead of the raw points
+		for(String filter : Arrays.asList("EXP{@value} > 100", "EXP{@value * 2} > 100", "@cluster=\"test4UT\" AND EXP{@value} < 1")){
+			ListQueryCompiler comp = new ListQueryCompiler(GenericMetricEntity.GENERIC_METRIC_SERVICE + "[" + filter + "]<@cluster>{sum(value)}", false);
+			Assert.assertNull(filter, resource.buildRollupQuery(comp, condition(comp, T0, T0 + 10 * HOUR), METRIC, 120, rollupConfig()));
+		}
+		ListQueryCompiler comp = new ListQueryCompiler(GenericMetricEntity.GENERIC_METRIC_SERVICE + "[@cluster=\"value\"]<@cluster>{sum(value)}", false);
+		Assert.assertNotNull(resource.buildRollupQuery(comp, condition(comp, T0, T0 + 10 * HOUR), METRIC, 120, rollupConfig()));
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.service.generic;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.eagle.log.base.taggedlog.EntityJsonModule;
+import org.apache.eagle.log.base.taggedlog.TaggedLogAPIEntity;
+import org.apache.eagle.log.entity.GenericServiceAPIResponseEntity;
+import org.apache.eagle.log.entity.test.TestTimeSeriesAPIEntity;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+public class TestStreamingResponseOutput {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @BeforeClass
+    public static void setupMapper() {
+        MAPPER.setFilters(TaggedLogAPIEntity.getFilterProvider());
+        MAPPER.registerModule(new EntityJsonModule());
+    }
+
+    private static TestTimeSeriesAPIEntity createEntity(int i) {
+        TestTimeSeriesAPIEntity entity = new TestTimeSeriesAPIEntity();
+        entity.setTimestamp(1000L + i);
+        entity.setTags(new HashMap<>(Collections.singletonMap("cluster", "cluster" + i)));
+        entity.setField1(i);
+        entity.setField7("value" + i);
+        return entity;
+    }
+
+    @Test
+    public void testWriteResults() throws IOException {
+        Map<String, Object> head = new HashMap<>();
+        head.put("type", TestTimeSeriesAPIEntity.class);
+        StreamingResponseOutput output = new StreamingResponseOutput(head, listener -> {
+            for (int i = 0; i < 2500; i++) {
+                listener.resultRead(createEntity(i));
+            }
+            return Collections.singletonMap("meta", Collections.singletonMap("totalResults", 2500));
+        });
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        output.write(stream);
+        Assert.assertEquals(2500, output.getWritten());
+
+        GenericServiceAPIResponseEntity<TestTimeSeriesAPIEntity> response = MAPPER.reader(GenericServiceAPIResponseEntity.class).readValue(stream.toByteArray());
+        Assert.assertTrue(response.isSuccess());
+        Assert.assertNull(response.getException());
+        Assert.assertEquals(TestTimeSeriesAPIEntity.class, response.getType());
+        Assert.assertEquals(2500, response.getObj().size());
+        Assert.assertEquals(2500, response.getMeta().get("totalResults"));
+        TestTimeSeriesAPIEntity entity = response.getObj().get(42);
+        Assert.assertEquals(1042L, entity.getTimestamp());
+        Assert.assertEquals("cluster42", entity.getTags().get("cluster"));
+        Assert.assertEquals(42, entity.getField1());
+        Assert.assertEquals("value42", entity.getField7());
+    }
+
+    @Test
+    public void testQueryFailureInTrailer() throws IOException {
+        StreamingResponseOutput output = new StreamingResponseOutput(Collections.emptyMap(), listener -> {
+            listener.resultRead(Collections.singletonMap("a", 1));
+            listener.resultRead(Collections.singletonMap("a", 2));
+            throw new IllegalStateException("region server is gone");
+        });
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        output.write(stream);
+
+        JsonNode response = MAPPER.readTree(stream.toByteArray());
+        Assert.assertFalse(response.get("success").booleanValue());
+        Assert.assertTrue(response.get("exception").textValue().contains("region server is gone"));
+        Assert.assertEquals(2, response.get("obj").size());
+        Assert.assertEquals(2, response.get("obj").get(1).get("a").intValue());
+    }
+
+    @Test
+    public void testAbortOnWriteFailure() {
+        final int[] read = new int[1];
+        StreamingResponseOutput output = new StreamingResponseOutput(Collections.emptyMap(), listener -> {
+            for (int i = 0; i < 100000; i++) {
+                read[0]++;
+                listener.resultRead(createEntity(i));
+            }
+            return null;
+        });
+        OutputStream disconnected = new OutputStream() {
+            private int size = 0;
+
+            @Override
+            public void write(int b) throws IOException {
+                if (++size > 64 * 1024) {
+                    throw new IOException("Broken pipe");
+                }
+            }
+        };
+        try {
+            output.write(disconnected);
+            Assert.fail("Expect IOException");
+        } catch (IOException e) {
+            Assert.assertEquals("Broken pipe", e.getMessage());
+        }
+        // the query stops at the first result failing to be written
+        Assert.assertTrue(read[0] < 100000);
+        Assert.assertEquals(read[0] - 1, output.getWritten());
+    }
+}
@@ -22,6 +22,7 @@ import org.apache.eagle.storage.exception.QueryCompileException;
 import org.apache.eagle.storage.operation.CompiledQuery;
 import org.apache.eagle.storage.result.ModifyResult;
 import org.apache.eagle.storage.result.QueryResult;
+import org.apache.eagle.storage.result.QueryResultListener;
 import org.apache.eagle.storage.operation.RawQuery;
 
 import java.io.IOException;
@@ -90,6 +91,14 @@ public interface DataStorage<I> {
      */
     <E extends Object> QueryResult<E> query(CompiledQuery query, EntityDefinition entityDefinition) throws IOException;
 
+    /**
+     * Execute query passing the results to the listener as they are read instead of returning them,
+     * the returned QueryResult has no data
+     *
+     * @throws IOException
+     */
+    <E extends Object> QueryResult<E> queryAsStream(CompiledQuery query, EntityDefinition entityDefinition, QueryResultListener<E> listener) throws IOException;
+
     /**
      * Execute query to return a list of results
      * @param ids id set
@@ -16,9 +16,14 @@
  */
 package org.apache.eagle.storage;
 
+import org.apache.eagle.log.entity.meta.EntityDefinition;
 import org.apache.eagle.storage.exception.QueryCompileException;
 import org.apache.eagle.storage.operation.CompiledQuery;
 import org.apache.eagle.storage.operation.RawQuery;
+import org.apache.eagle.storage.result.QueryResult;
+import org.apache.eagle.storage.result.QueryResultListener;
+
+import java.io.IOException;
 
 /**
  * @since 3/23/15
@@ -28,4 +33,20 @@ public abstract class DataStorageBase implements DataStorage<String> {
     public CompiledQuery compile(RawQuery query) throws QueryCompileException {
         return new CompiledQuery(query);
     }
+
+    /**
+     * Pass the results of {@link #query(CompiledQuery, EntityDefinition)} to the listener,
+     * storages able to read results one by one should override it.
+     */
+    @Override
+    public <E> QueryResult<E> queryAsStream(CompiledQuery query, EntityDefinition entityDefinition, QueryResultListener<E> listener) throws IOException {
+        QueryResult<E> result = query(query, entityDefinition);
+        if (result.getData() != null) {
+            for (E item : result.getData()) {
+                listener.resultRead(item);
+            }
+            result.setData(null);
+        }
+        return result;
+    }
 }
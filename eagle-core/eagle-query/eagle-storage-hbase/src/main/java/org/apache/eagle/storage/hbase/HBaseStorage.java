@@ -28,17 +28,20 @@ import org.apache.eagle.log.entity.InternalLog;
 import org.apache.eagle.log.entity.index.RowKeyLogReader;
 import org.apache.eagle.log.entity.meta.EntityDefinition;
 import org.apache.eagle.log.entity.old.GenericDeleter;
+import org.apache.eagle.query.GenericEntityQuery;
 import org.apache.eagle.query.GenericQuery;
 import org.apache.eagle.storage.DataStorageBase;
 import org.apache.eagle.storage.hbase.query.GenericQueryBuilder;
 import org.apache.eagle.storage.operation.CompiledQuery;
 import org.apache.eagle.storage.result.ModifyResult;
 import org.apache.eagle.storage.result.QueryResult;
+import org.apache.eagle.storage.result.QueryResultListener;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
@@ -158,16 +161,7 @@ public class HBaseStorage extends DataStorageBase {
     public <E extends Object> QueryResult<E> query(CompiledQuery query, EntityDefinition entityDefinition) throws IOException {
         QueryResult<E> result = new QueryResult<E>();
         try {
-            GenericQuery reader = GenericQueryBuilder
-                    .select(query.getSearchCondition().getOutputFields())
-                    .from(query.getServiceName(), query.getRawQuery().getMetricName()).where(query.getSearchCondition())
-                    .groupBy(query.isHasAgg(), query.getGroupByFields(), query.getAggregateFunctionTypes(), query.getAggregateFields())
-                    .timeSeries(query.getRawQuery().isTimeSeries(), query.getRawQuery().getIntervalmin())
-                    .treeAgg(query.getRawQuery().isTreeAgg())
-                    .orderBy(query.getSortOptions(), query.getSortFunctions(), query.getSortFields())
-                    .top(query.getRawQuery().getTop())
-                    .parallel(query.getRawQuery().getParallel())
-                    .build();
+            GenericQuery reader = buildQuery(query);
             List<E> entities = reader.result();
             result.setData(entities);
             result.setFirstTimestamp(reader.getFirstTimeStamp());
@@ -186,6 +180,68 @@ public class HBaseStorage extends DataStorageBase {
         return result;
     }
 
+    /**
+     * Entities of list queries are passed to the listener as they are scanned, aggregation results are passed
+     * once the aggregation is done.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <E> QueryResult<E> queryAsStream(CompiledQuery query, EntityDefinition entityDefinition, final QueryResultListener<E> listener) throws IOException {
+        QueryResult<E> result = new QueryResult<E>();
+        List<E> results = null;
+        try {
+            GenericQuery reader = buildQuery(query);
+            int size = 0;
+            if (reader instanceof GenericEntityQuery) {
+                final int[] count = new int[1];
+                ((GenericEntityQuery) reader).readAsStream(entity -> {
+                    try {
+                        listener.resultRead((E) entity);
+                    } catch (IOException e) {
+                        // not logged by the stream readers as a read failure
+                        throw new UncheckedIOException(e);
+                    }
+                    count[0]++;
+                });
+                size = count[0];
+                result.setEntityType((Class<E>) entityDefinition.getEntityClass());
+            } else {
+                results = reader.result();
+                size = results == null ? 0 : results.size();
+                result.setEntityType((Class<E>) Map.class);
+            }
+            result.setFirstTimestamp(reader.getFirstTimeStamp());
+            result.setLastTimestamp(reader.getLastTimestamp());
+            result.setSize(size);
+            result.setSuccess(true);
+        } catch (UncheckedIOException e) {
+            // not a storage failure, typically the client is gone
+            throw e.getCause();
+        } catch (Exception e) {
+            LOG.error(e.getMessage(), e);
+            throw new IOException(e);
+        }
+        if (results != null) {
+            for (E item : results) {
+                listener.resultRead(item);
+            }
+        }
+        return result;
+    }
+
+    private GenericQuery buildQuery(CompiledQuery query) throws Exception {
+        return GenericQueryBuilder
+                .select(query.getSearchCondition().getOutputFields())
+                .from(query.getServiceName(), query.getRawQuery().getMetricName()).where(query.getSearchCondition())
+                .groupBy(query.isHasAgg(), query.getGroupByFields(), query.getAggregateFunctionTypes(), query.getAggregateFields())
+                .timeSeries(query.getRawQuery().isTimeSeries(), query.getRawQuery().getIntervalmin())
+                .treeAgg(query.getRawQuery().isTreeAgg())
+                .orderBy(query.getSortOptions(), query.getSortFunctions(), query.getSortFields())
+                .top(query.getRawQuery().getTop())
+                .parallel(query.getRawQuery().getParallel())
+                .build();
+    }
+
     /**
      * Query by HBase rowkey.
      */
@@ -18,14 +18,26 @@ package org.apache.eagle.storage.hbase.query;
 
 
 import org.apache.eagle.common.config.EagleConfigFactory;
+import org.apache.eagle.log.entity.GenericMetricEntity;
 import org.apache.eagle.log.entity.SearchCondition;
+import org.apache.eagle.log.expression.ExpressionParser;
 import org.apache.eagle.query.GenericEntityQuery;
 import org.apache.eagle.query.GenericQuery;
 import org.apache.eagle.query.aggregate.AggregateCondition;
 import org.apache.eagle.query.aggregate.AggregateFunctionType;
+import org.apache.eagle.query.aggregate.cache.QueryResultCache;
+import org.apache.eagle.query.aggregate.rollup.MetricRollupConfig;
+import org.apache.eagle.query.aggregate.rollup.RollupTier;
 import org.apache.eagle.query.aggregate.timeseries.SortOption;
+import org.apache.eagle.query.parser.ANDExpression;
+import org.apache.eagle.query.parser.AtomicExpression;
+import org.apache.eagle.query.parser.ORExpression;
+import org.apache.eagle.query.parser.TokenType;
+import org.apache.eagle.storage.hbase.query.aggregate.AggregateQueryFactory;
+import org.apache.eagle.storage.hbase.query.aggregate.GenericCachedAggregateQuery;
 import org.apache.eagle.storage.hbase.query.aggregate.GenericCoprocessorAggregateQuery;
 import org.apache.eagle.storage.hbase.query.aggregate.GenericInMemoryAggregateQuery;
+import org.apache.eagle.storage.hbase.query.aggregate.GenericRollupAggregateQuery;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -53,6 +65,9 @@ public class GenericQueryBuilder {
     private int top;
     private List<AggregateFunctionType> sortFunctionTypes;
     private List<String> sortFields;
+    private String cacheKey;
+    private boolean coprocessor = true;
+    private MetricRollupConfig rollupConfig;
 
     public static GenericQueryBuilder select(List<String> outputFields) {
         GenericQueryBuilder builder = new GenericQueryBuilder();
@@ -113,6 +128,32 @@ public class GenericQueryBuilder {
         return this;
     }
 
+    /**
+     * Serve the closed time buckets of the aggregation from the query result cache, if enabled.
+     *
+     * @param cacheKey normalized query, for example {@link org.apache.eagle.query.ListQueryCompiler#getNormalizedQuery()}
+     */
+    public GenericQueryBuilder cache(String cacheKey) {
+        this.cacheKey = cacheKey;
+        return this;
+    }
+
+    /**
+     * Aggregate in memory even if the coprocessor is enabled.
+     */
+    public GenericQueryBuilder withoutCoprocessor() {
+        this.coprocessor = false;
+        return this;
+    }
+
+    /**
+     * Serve rollup queries by the given configuration instead of the one loaded from the eagle config.
+     */
+    public GenericQueryBuilder rollup(MetricRollupConfig rollupConfig) {
+        this.rollupConfig = rollupConfig;
+        return this;
+    }
+
     /**
      * @deprecated Parameter "treeAgg" no longer supported, ignore.
      */
@@ -129,13 +170,16 @@ public class GenericQueryBuilder {
             if (LOG.isDebugEnabled()) {
                 LOG.debug("Build GroupAggregateQuery");
             }
-            AggregateCondition aggregateCondition = new AggregateCondition();
-            aggregateCondition.setGroupbyFields(this.groupByFields);
-            aggregateCondition.setAggregateFunctionTypes(this.aggregateFuncTypes);
-            aggregateCondition.setAggregateFields(this.aggregateFields);
-            aggregateCondition.setTimeSeries(this.timeSeries);
-            aggregateCondition.setIntervalMS(this.intervalmin * 60 * 1000);
-            if (EagleConfigFactory.load().isCoprocessorEnabled()) {
+            GenericQuery rollupQuery = buildRollup();
+            if (rollupQuery != null) {
+                return rollupQuery;
+            }
+            GenericQuery cachedQuery = buildCached();
+            if (cachedQuery != null) {
+                return cachedQuery;
+            }
+            AggregateCondition aggregateCondition = buildAggregateCondition();
+            if (this.coprocessor && EagleConfigFactory.load().isCoprocessorEnabled()) {
                 return new GenericCoprocessorAggregateQuery(this.serviceName,
                         this.searchCondition,
                         aggregateCondition,
@@ -161,4 +205,115 @@ public class GenericQueryBuilder {
             return new GenericEntityQuery(this.serviceName, this.searchCondition, this.metricName);
         }
     }
+
+    private AggregateCondition buildAggregateCondition() {
+        AggregateCondition aggregateCondition = new AggregateCondition();
+        aggregateCondition.setGroupbyFields(this.groupByFields);
+        aggregateCondition.setAggregateFunctionTypes(this.aggregateFuncTypes);
+        aggregateCondition.setAggregateFields(this.aggregateFields);
+        aggregateCondition.setTimeSeries(this.timeSeries);
+        aggregateCondition.setIntervalMS(this.intervalmin * 60 * 1000);
+        return aggregateCondition;
+    }
+
+    /**
+     * Serve time series metric aggregation from the coarsest rollup tier satisfying intervalmin.
+     *
+     * @return null if the query can not be served from any rollup tier
+     */
+    public GenericQuery buildRollup() throws Exception {
+        if (!this.hasAgg || !this.timeSeries || this.sortOptions != null || !GenericMetricEntity.GENERIC_METRIC_SERVICE.equals(this.serviceName)) {
+            return null;
+        }
+        MetricRollupConfig rollupConfig = this.rollupConfig != null ? this.rollupConfig : MetricRollupConfig.getInstance();
+        if (!rollupConfig.isRolledUp(this.metricName)) {
+            return null;
+        }
+        for (int i = 0; i < this.aggregateFuncTypes.size(); i++) {
+            if (!AggregateFunctionType.count.equals(this.aggregateFuncTypes.get(i))
+                && !GenericMetricEntity.VALUE_FIELD.equals(this.aggregateFields.get(i))) {
+                return null;
+            }
+        }
+        // the filter is applied to the rows read, which are statistics of buckets in the rollup tiers
+        if (filtersOnValue(this.searchCondition.getQueryExpression())) {
+            return null;
+        }
+        AggregateCondition aggregateCondition = buildAggregateCondition();
+        long startTime = this.searchCondition.getStartTime();
+        long intervalMs = aggregateCondition.getIntervalMS();
+        RollupTier tier = RollupTier.select(startTime, intervalMs);
+        if (tier.isRaw()) {
+            return null;
+        }
+        long closed = Math.min(tier.lastClosedBoundary(System.currentTimeMillis(), rollupConfig.getDelayMs()), this.searchCondition.getEndTime());
+        if (closed <= startTime) {
+            return null;
+        }
+        // raw tier serves the buckets not completely rolled up yet
+        long boundary = startTime + (closed - startTime) / intervalMs * intervalMs;
+        if (boundary <= startTime) {
+            return null;
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Build GenericRollupAggregateQuery on {} tier until {}", tier, boundary);
+        }
+        return new GenericRollupAggregateQuery(this.serviceName, this.searchCondition, aggregateCondition, this.metricName, tier, boundary,
+            this.coprocessor ? AggregateQueryFactory.configured() : AggregateQueryFactory.IN_MEMORY);
+    }
+
+    private static boolean filtersOnValue(ORExpression expression) throws Exception {
+        if (expression == null) {
+            return false;
+        }
+        for (ANDExpression andExpression : expression.getANDExprList()) {
+            for (AtomicExpression atomicExpression : andExpression.getAtomicExprList()) {
+                if (isValue(atomicExpression.getKey(), atomicExpression.getKeyType())
+                    || isValue(atomicExpression.getValue(), atomicExpression.getValueType())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isValue(String token, TokenType tokenType) throws Exception {
+        if (token == null || tokenType == null) {
+            return false;
+        }
+        switch (tokenType) {
+            case ID:
+                return GenericMetricEntity.VALUE_FIELD.equals(token.startsWith("@") ? token.substring(1) : token);
+            case EXP:
+                return ExpressionParser.parse(token).getDependentFields().contains(GenericMetricEntity.VALUE_FIELD);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Serve the closed time buckets of the aggregation from the query result cache.
+     *
+     * @return null if the query is not cached or has no closed bucket
+     */
+    public GenericQuery buildCached() throws Exception {
+        if (!this.hasAgg || this.cacheKey == null || this.sortOptions != null) {
+            return null;
+        }
+        QueryResultCache cache = QueryResultCache.getInstance();
+        if (!cache.isEnabled()) {
+            return null;
+        }
+        AggregateCondition aggregateCondition = buildAggregateCondition();
+        long bucketMs = GenericCachedAggregateQuery.bucketMs(this.searchCondition, aggregateCondition, cache);
+        if (bucketMs <= 0 || GenericCachedAggregateQuery.firstCachedBucket(this.searchCondition, bucketMs, cache,
+            System.currentTimeMillis()) >= this.searchCondition.getEndTime()) {
+            return null;
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Build GenericCachedAggregateQuery with buckets of {} ms", bucketMs);
+        }
+        return new GenericCachedAggregateQuery(this.serviceName, this.searchCondition, aggregateCondition, this.metricName, this.cacheKey, cache,
+            this.coprocessor ? AggregateQueryFactory.configured() : AggregateQueryFactory.IN_MEMORY);
+    }
 }
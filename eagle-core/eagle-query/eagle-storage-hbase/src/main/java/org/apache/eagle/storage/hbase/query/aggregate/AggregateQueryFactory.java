@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.storage.hbase.query.aggregate;
+
+import org.apache.eagle.common.config.EagleConfigFactory;
+import org.apache.eagle.log.entity.SearchCondition;
+import org.apache.eagle.query.GenericQuery;
+import org.apache.eagle.query.aggregate.AggregateCondition;
+
+/**
+ * Creates the queries reading parts of the time range of a composed aggregate query, such as the buckets of
+ * {@link GenericCachedAggregateQuery} or the tiers of {@link GenericRollupAggregateQuery}.
+ */
+public interface AggregateQueryFactory {
+    AggregateQueryFactory IN_MEMORY = (serviceName, condition, aggregateCondition, prefix) ->
+        new GenericInMemoryAggregateQuery(serviceName, condition, aggregateCondition, prefix, null, null, null, 0);
+
+    AggregateQueryFactory COPROCESSOR = GenericCoprocessorAggregateQuery::new;
+
+    /**
+     * @return coprocessor aggregation if enabled, or in-memory aggregation otherwise.
+     */
+    static AggregateQueryFactory configured() {
+        return EagleConfigFactory.load().isCoprocessorEnabled() ? COPROCESSOR : IN_MEMORY;
+    }
+
+    GenericQuery create(String serviceName, SearchCondition condition, AggregateCondition aggregateCondition, String prefix) throws Exception;
+}
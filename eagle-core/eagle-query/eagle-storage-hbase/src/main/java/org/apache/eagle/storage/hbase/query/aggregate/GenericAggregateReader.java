@@ -39,6 +39,9 @@ public class GenericAggregateReader extends AbstractHBaseLogReader<List<GroupbyK
     private EntityDefinition ed;
     private final AggregateCondition aggregateCondition;
     private AggregateResult result;
+    private int topSortIndex = -1;
+    private boolean topAscending;
+    private int top;
 
     /**
      * @param ed               Entity Definition
@@ -94,8 +97,34 @@ public class GenericAggregateReader extends AbstractHBaseLogReader<List<GroupbyK
         this.aggregateCondition = condition;
     }
 
+    /**
+     * Only read the exact top groups of a flat aggregation, ranked by a sum or count function.
+     *
+     * @param sortIndex index of the ranking function
+     * @param ascending whether smaller values are ranked first
+     * @param top       number of groups
+     */
+    public void setTopN(int sortIndex, boolean ascending, int top) {
+        this.topSortIndex = sortIndex;
+        this.topAscending = ascending;
+        this.top = top;
+    }
+
     @Override
     protected void onOpen(HTableInterface tbl, Scan scan) throws IOException {
+        if (this.topSortIndex >= 0 && !this.aggregateCondition.isTimeSeries()) {
+            this.result = this.aggregateClient.aggregate(
+                tbl,
+                this.ed,
+                scan,
+                this.aggregateCondition.getGroupbyFields(),
+                this.aggregateCondition.getAggregateFunctionTypes(),
+                this.aggregateCondition.getAggregateFields(),
+                this.topSortIndex,
+                this.topAscending,
+                this.top);
+            return;
+        }
         this.result = this.aggregateClient.aggregate(
             tbl,
             this.ed,
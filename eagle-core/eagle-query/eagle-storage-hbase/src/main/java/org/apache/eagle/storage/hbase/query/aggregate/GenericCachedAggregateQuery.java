@@ -0,0 +1,268 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.storage.hbase.query.aggregate;
+
+import org.apache.eagle.log.entity.SearchCondition;
+import org.apache.eagle.query.GenericQuery;
+import org.apache.eagle.query.aggregate.AggregateCondition;
+import org.apache.eagle.query.aggregate.AggregateFunctionType;
+import org.apache.eagle.query.aggregate.cache.QueryResultCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aggregate query whose closed time buckets are served from the {@link QueryResultCache}.
+ * <ol>
+ * <li>[startTime, endTime) is split at bucket boundaries aligned to the epoch</li>
+ * <li>buckets closed for writing are read from the cache, or read and cached</li>
+ * <li>the part before the first bucket boundary and the open buckets at the head are always read</li>
+ * <li>flat aggregation merges the values of the parts, time series aggregation concatenates their intervals</li>
+ * </ol>
+ */
+public class GenericCachedAggregateQuery implements GenericQuery {
+    private static final Logger LOG = LoggerFactory.getLogger(GenericCachedAggregateQuery.class);
+
+    private final String serviceName;
+    private final SearchCondition searchCondition;
+    private final AggregateCondition aggregateCondition;
+    private final String metricName;
+    private final String queryKey;
+    private final QueryResultCache cache;
+    private final AggregateQueryFactory queryFactory;
+    private final long bucketMs;
+    private long lastTimestamp = 0;
+    private long firstTimestamp = 0;
+
+    public GenericCachedAggregateQuery(String serviceName, SearchCondition condition, AggregateCondition aggregateCondition,
+                                       String metricName, String queryKey, QueryResultCache cache) {
+        this(serviceName, condition, aggregateCondition, metricName, queryKey, cache, AggregateQueryFactory.configured());
+    }
+
+    /**
+     * @param queryFactory reads the parts of the time range which are not served from the cache
+     */
+    public GenericCachedAggregateQuery(String serviceName, SearchCondition condition, AggregateCondition aggregateCondition,
+                                       String metricName, String queryKey, QueryResultCache cache, AggregateQueryFactory queryFactory) {
+        this.bucketMs = bucketMs(condition, aggregateCondition, cache);
+        if (this.bucketMs <= 0) {
+            throw new IllegalArgumentException("Query can not be split into cached buckets: " + queryKey);
+        }
+        this.serviceName = serviceName;
+        this.searchCondition = condition;
+        this.aggregateCondition = aggregateCondition;
+        this.metricName = metricName;
+        // bucket reads stop after pageSize entities, so buckets read with different pageSizes are cached apart
+        this.queryKey = aggregateCondition.isTimeSeries()
+            ? queryKey + "@" + metricName + "#" + condition.getPageSize() + "/" + aggregateCondition.getIntervalMS() + "/" + bucketMs
+            : queryKey + "@" + metricName + "#" + condition.getPageSize() + "/" + bucketMs;
+        this.cache = cache;
+        this.queryFactory = queryFactory;
+    }
+
+    /**
+     * Size of the buckets the query is split into: flat aggregation needs functions whose results can be merged,
+     * time series aggregation needs buckets made of whole intervals starting at startTime.
+     *
+     * @return 0 if the query can not be split into buckets
+     */
+    public static long bucketMs(SearchCondition condition, AggregateCondition aggregateCondition, QueryResultCache cache) {
+        if (condition.getEndTime() <= condition.getStartTime()) {
+            return 0;
+        }
+        long bucketMs = cache.getBucketMs();
+        if (!aggregateCondition.isTimeSeries()) {
+            for (AggregateFunctionType function : aggregateCondition.getAggregateFunctionTypes()) {
+                if (AggregateFunctionType.avg.equals(function)) {
+                    return 0;
+                }
+            }
+            return bucketMs;
+        }
+        long intervalMs = aggregateCondition.getIntervalMS();
+        if (intervalMs <= 0 || condition.getStartTime() % intervalMs != 0) {
+            return 0;
+        }
+        if (bucketMs % intervalMs == 0) {
+            return bucketMs;
+        }
+        return intervalMs % bucketMs == 0 ? intervalMs : 0;
+    }
+
+    /**
+     * @return start of the first bucket which can be cached, or endTime if there is none.
+     */
+    public static long firstCachedBucket(SearchCondition condition, long bucketMs, QueryResultCache cache, long now) {
+        long closed = Math.min(cache.closedTime(now), condition.getEndTime());
+        long bucketStart = condition.getStartTime() + Math.floorMod(-condition.getStartTime(), bucketMs);
+        return bucketStart + bucketMs <= closed ? bucketStart : condition.getEndTime();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List result() throws Exception {
+        // shortcut to avoid read when pageSize=0
+        if (searchCondition.getPageSize() <= 0) {
+            return null;
+        }
+        final long startTime = searchCondition.getStartTime();
+        final long endTime = searchCondition.getEndTime();
+        final long closed = Math.min(cache.closedTime(System.currentTimeMillis()), endTime);
+        final long firstBucket = startTime + Math.floorMod(-startTime, bucketMs);
+        final boolean timeSeries = aggregateCondition.isTimeSeries();
+        final Map<List<String>, ? extends List<?>> result = timeSeries
+            ? new HashMap<List<String>, List<double[]>>() : new HashMap<List<String>, List<Double>>();
+
+        int cached = 0;
+        int read = 0;
+        long from = startTime;
+        if (firstBucket > startTime) {
+            from = Math.min(firstBucket, endTime);
+            merge(result, read(startTime, from), startTime);
+        }
+        for (; from + bucketMs <= closed; from += bucketMs) {
+            QueryResultCache.Bucket<?> bucket = cache.get(serviceName, queryKey, from);
+            if (bucket == null) {
+                long version = cache.getVersion();
+                bucket = read(from, from + bucketMs);
+                cache.put(serviceName, queryKey, from, bucket, version);
+                read++;
+            } else {
+                updateTimestamps(bucket.getFirstTimestamp(), bucket.getLastTimestamp());
+                cached++;
+            }
+            merge(result, bucket, from);
+        }
+        if (from < endTime) {
+            merge(result, read(from, endTime), from);
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Read {} buckets of {} from cache and {} from storage, cache size: {} bytes", cached, queryKey, read, cache.getSize());
+        }
+        return new ArrayList<>(result.entrySet());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void merge(Map<List<String>, ? extends List<?>> result, QueryResultCache.Bucket<?> bucket, long bucketStart) {
+        if (aggregateCondition.isTimeSeries()) {
+            mergeTimeSeries((Map<List<String>, List<double[]>>) result, ((QueryResultCache.Bucket<double[]>) bucket).getGroups(), bucketStart);
+        } else {
+            mergeFlat((Map<List<String>, List<Double>>) result, ((QueryResultCache.Bucket<Double>) bucket).getGroups());
+        }
+    }
+
+    private void mergeFlat(Map<List<String>, List<Double>> result, Map<List<String>, List<Double>> groups) {
+        List<AggregateFunctionType> functions = aggregateCondition.getAggregateFunctionTypes();
+        for (Map.Entry<List<String>, List<Double>> entry : groups.entrySet()) {
+            List<Double> values = result.get(entry.getKey());
+            if (values == null) {
+                result.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+                continue;
+            }
+            for (int i = 0; i < functions.size(); i++) {
+                double value = entry.getValue().get(i);
+                switch (functions.get(i)) {
+                    case max:
+                        values.set(i, Math.max(values.get(i), value));
+                        break;
+                    case min:
+                        values.set(i, Math.min(values.get(i), value));
+                        break;
+                    default:
+                        values.set(i, values.get(i) + value);
+                }
+            }
+        }
+    }
+
+    private void mergeTimeSeries(Map<List<String>, List<double[]>> result, Map<List<String>, List<double[]>> groups, long bucketStart) {
+        final long startTime = searchCondition.getStartTime();
+        final long intervalMs = aggregateCondition.getIntervalMS();
+        final int pointsNum = (int) ((searchCondition.getEndTime() - 1 - startTime) / intervalMs + 1);
+        final int offset = (int) ((bucketStart - startTime) / intervalMs);
+        final int numFunctions = aggregateCondition.getAggregateFunctionTypes().size();
+        for (Map.Entry<List<String>, List<double[]>> entry : groups.entrySet()) {
+            List<double[]> values = result.get(entry.getKey());
+            if (values == null) {
+                values = new ArrayList<>(numFunctions);
+                for (int i = 0; i < numFunctions; i++) {
+                    values.add(new double[pointsNum]);
+                }
+                result.put(entry.getKey(), values);
+            }
+            for (int i = 0; i < numFunctions; i++) {
+                double[] source = entry.getValue().get(i);
+                System.arraycopy(source, 0, values.get(i), offset, Math.min(source.length, pointsNum - offset));
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <V> QueryResultCache.Bucket<V> read(long startTime, long endTime) throws Exception {
+        SearchCondition subCondition = new SearchCondition(searchCondition);
+        subCondition.setOutputFields(new ArrayList<>(searchCondition.getOutputFields()));
+        subCondition.setOutputAll(searchCondition.isOutputAll());
+        subCondition.setStartTime(startTime);
+        subCondition.setEndTime(endTime);
+        AggregateCondition condition = new AggregateCondition();
+        condition.setGroupbyFields(aggregateCondition.getGroupbyFields());
+        condition.setAggregateFunctionTypes(new ArrayList<>(aggregateCondition.getAggregateFunctionTypes()));
+        condition.setAggregateFields(new ArrayList<>(aggregateCondition.getAggregateFields()));
+        condition.setTimeSeries(aggregateCondition.isTimeSeries());
+        condition.setIntervalMS(aggregateCondition.getIntervalMS());
+        GenericQuery query = queryFactory.create(serviceName, subCondition, condition, metricName);
+        List<Map.Entry<List<String>, List<V>>> result = query.result();
+        // GenericInMemoryAggregateQuery returns them the other way round
+        long first = Math.min(query.getFirstTimeStamp(), query.getLastTimestamp());
+        long last = Math.max(query.getFirstTimeStamp(), query.getLastTimestamp());
+        updateTimestamps(first, last);
+        Map<List<String>, List<V>> groups = new HashMap<>();
+        if (result != null) {
+            for (Map.Entry<List<String>, List<V>> entry : result) {
+                groups.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return new QueryResultCache.Bucket<>(endTime, groups, first, last);
+    }
+
+    private void updateTimestamps(long first, long last) {
+        if (first > 0 && (this.firstTimestamp == 0 || first < this.firstTimestamp)) {
+            this.firstTimestamp = first;
+        }
+        if (last > this.lastTimestamp) {
+            this.lastTimestamp = last;
+        }
+    }
+
+    public long getBucketMs() {
+        return bucketMs;
+    }
+
+    @Override
+    public long getLastTimestamp() {
+        return this.lastTimestamp;
+    }
+
+    @Override
+    public long getFirstTimeStamp() {
+        return this.firstTimestamp;
+    }
+}
@@ -175,6 +175,10 @@ public class GenericCoprocessorAggregateQuery implements GenericQuery {
         GenericAggregateReader reader = new GenericAggregateReader(entityDef,
             searchCondition.getPartitionValues(),
             start, end, searchCondition.getFilter(), searchCondition.getStartRowkey(), outputQualifiers, this.prefix, this.aggregateCondition);
+        if (isTopNAggregation()) {
+            SortOption sortOption = this.sortOptions.get(0);
+            reader.setTopN(sortOption.getIndex(), sortOption.isAscendant(), this.top);
+        }
         try {
             if (LOG.isDebugEnabled()) {
                 LOG.debug("open and read group aggregate reader");
@@ -201,6 +205,23 @@ public class GenericCoprocessorAggregateQuery implements GenericQuery {
         }
     }
     
+    /**
+     * Whether the regions can only return their top groups, which requires to rank the groups by a function whose
+     * merged value is the sum of the region values, i.e. sum or count.
+     */
+    private boolean isTopNAggregation() {
+        if (this.aggregateCondition.isTimeSeries() || this.top <= 0 || this.sortOptions == null || this.sortOptions.isEmpty()) {
+            return false;
+        }
+        SortOption sortOption = this.sortOptions.get(0);
+        if (sortOption.isInGroupby() || sortOption.getIndex() < 0
+            || sortOption.getIndex() >= this.aggregateCondition.getAggregateFunctionTypes().size()) {
+            return false;
+        }
+        AggregateFunctionType type = this.aggregateCondition.getAggregateFunctionTypes().get(sortOption.getIndex());
+        return AggregateFunctionType.sum.equals(type) || AggregateFunctionType.count.equals(type);
+    }
+
     /**
      * Factory method for {@link GroupAggregateQueryReader}.
      * <pre>
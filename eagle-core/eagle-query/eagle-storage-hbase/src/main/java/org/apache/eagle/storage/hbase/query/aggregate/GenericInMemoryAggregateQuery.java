@@ -148,23 +148,24 @@ public class GenericInMemoryAggregateQuery implements GenericQuery {
         }
 
         if (!this.aggregateCondition.isTimeSeries()) {
-            FlatAggregator agg = new FlatAggregator(groupbyFields, aggregateCondition.getAggregateFunctionTypes(), aggregateCondition.getAggregateFields());
             StreamReader reader = null;
             if (this.entityDef.getMetricDefinition() == null) {
                 reader = new GenericEntityStreamReader(serviceName, searchCondition);
             } else { // metric aggregation need metric reader
                 reader = new GenericMetricEntityDecompactionStreamReader(this.prefix, searchCondition);
             }
-            reader.register(agg);
-            reader.readAsStream();
-            ArrayList<Map.Entry<List<String>, List<Double>>> obj = new ArrayList<>();
-            obj.addAll(agg.result().entrySet());
-            this.firstTimestamp = reader.getFirstTimestamp();
-            this.lastTimestamp = reader.getLastTimestamp();
-            if (this.sortOptions == null) {
-                return (List<T>) obj;
-            } else { // has sort options
-                return (List<T>) PostFlatAggregateSort.sort(agg.result(), this.sortOptions, top);
+            try (FlatAggregator agg = new FlatAggregator(groupbyFields, aggregateCondition.getAggregateFunctionTypes(), aggregateCondition.getAggregateFields())) {
+                reader.register(agg);
+                reader.readAsStream();
+                ArrayList<Map.Entry<List<String>, List<Double>>> obj = new ArrayList<>();
+                obj.addAll(agg.result().entrySet());
+                this.firstTimestamp = reader.getFirstTimestamp();
+                this.lastTimestamp = reader.getLastTimestamp();
+                if (this.sortOptions == null) {
+                    return (List<T>) obj;
+                } else { // has sort options
+                    return (List<T>) PostFlatAggregateSort.sort(agg.result(), this.sortOptions, top);
+                }
             }
         } else {
             StreamReader reader;
@@ -179,24 +180,30 @@ public class GenericInMemoryAggregateQuery implements GenericQuery {
                     searchCondition.getStartTime(),
                     searchCondition.getEndTime(),
                     aggregateCondition.getIntervalMS());
-            reader.register(tsAgg);
-
             // for sorting
             FlatAggregator sortAgg = null;
-            if (sortOptions != null) {
-                sortAgg = new FlatAggregator(groupbyFields, sortFuncs, sortFields);
-                reader.register(sortAgg);
-            }
-            reader.readAsStream();
-            ArrayList<Map.Entry<List<String>, List<double[]>>> obj = new ArrayList<Map.Entry<List<String>, List<double[]>>>();
-            obj.addAll(tsAgg.getMetric().entrySet());
-
-            this.firstTimestamp = reader.getFirstTimestamp();
-            this.lastTimestamp = reader.getLastTimestamp();
-            if (sortOptions == null) {
-                return (List<T>) obj;
-            } else { // has sort options
-                return (List<T>) TimeSeriesPostFlatAggregateSort.sort(sortAgg.result(), tsAgg.getMetric(), this.sortOptions, top);
+            try {
+                reader.register(tsAgg);
+                if (sortOptions != null) {
+                    sortAgg = new FlatAggregator(groupbyFields, sortFuncs, sortFields);
+                    reader.register(sortAgg);
+                }
+                reader.readAsStream();
+                ArrayList<Map.Entry<List<String>, List<double[]>>> obj = new ArrayList<Map.Entry<List<String>, List<double[]>>>();
+                obj.addAll(tsAgg.getMetric().entrySet());
+
+                this.firstTimestamp = reader.getFirstTimestamp();
+                this.lastTimestamp = reader.getLastTimestamp();
+                if (sortOptions == null) {
+                    return (List<T>) obj;
+                } else { // has sort options
+                    return (List<T>) TimeSeriesPostFlatAggregateSort.sort(sortAgg.result(), tsAgg.getMetric(), this.sortOptions, top);
+                }
+            } finally {
+                tsAgg.close();
+                if (sortAgg != null) {
+                    sortAgg.close();
+                }
             }
         }
     }
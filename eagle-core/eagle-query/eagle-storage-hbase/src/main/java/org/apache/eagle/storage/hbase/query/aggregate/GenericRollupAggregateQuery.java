@@ -0,0 +1,219 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.storage.hbase.query.aggregate;
+
+import org.apache.eagle.log.entity.GenericMetricEntity;
+import org.apache.eagle.log.entity.SearchCondition;
+import org.apache.eagle.query.GenericQuery;
+import org.apache.eagle.query.aggregate.AggregateCondition;
+import org.apache.eagle.query.aggregate.AggregateFunctionType;
+import org.apache.eagle.query.aggregate.rollup.RollupStatistic;
+import org.apache.eagle.query.aggregate.rollup.RollupTier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Time series aggregate query of a GenericMetricEntity metric served from a rollup tier.
+ * <ol>
+ * <li>[startTime, boundary) is read from the rollup series of the tier, one sub query per required {@link RollupStatistic}</li>
+ * <li>[boundary, endTime), which is not rolled up yet, is read from the raw series</li>
+ * <li>boundary is a query bucket boundary, so both parts are concatenated without merging any bucket</li>
+ * </ol>
+ */
+public class GenericRollupAggregateQuery implements GenericQuery {
+    private static final Logger LOG = LoggerFactory.getLogger(GenericRollupAggregateQuery.class);
+
+    private final String serviceName;
+    private final SearchCondition searchCondition;
+    private final AggregateCondition aggregateCondition;
+    private final String metricName;
+    private final RollupTier tier;
+    private final long boundary;
+    private final AggregateQueryFactory queryFactory;
+    private long lastTimestamp = 0;
+    private long firstTimestamp = 0;
+
+    public GenericRollupAggregateQuery(String serviceName, SearchCondition condition, AggregateCondition aggregateCondition,
+                                       String metricName, RollupTier tier, long boundary) {
+        this(serviceName, condition, aggregateCondition, metricName, tier, boundary, AggregateQueryFactory.configured());
+    }
+
+    /**
+     * @param queryFactory reads the rollup series before boundary and the raw series since then
+     */
+    public GenericRollupAggregateQuery(String serviceName, SearchCondition condition, AggregateCondition aggregateCondition,
+                                       String metricName, RollupTier tier, long boundary, AggregateQueryFactory queryFactory) {
+        if (!aggregateCondition.isTimeSeries()) {
+            throw new IllegalArgumentException("Rollup tier only serves time series aggregation");
+        }
+        long intervalMs = aggregateCondition.getIntervalMS();
+        if (boundary <= condition.getStartTime() || (boundary - condition.getStartTime()) % intervalMs != 0) {
+            throw new IllegalArgumentException("Rollup boundary " + boundary + " is not a bucket boundary after " + condition.getStartTime());
+        }
+        this.serviceName = serviceName;
+        this.searchCondition = condition;
+        this.aggregateCondition = aggregateCondition;
+        this.metricName = metricName;
+        this.tier = tier;
+        this.boundary = boundary;
+        this.queryFactory = queryFactory;
+    }
+
+    @Override
+    public List result() throws Exception {
+        // shortcut to avoid read when pageSize=0
+        if (searchCondition.getPageSize() <= 0) {
+            return null;
+        }
+        final long startTime = searchCondition.getStartTime();
+        final long endTime = searchCondition.getEndTime();
+        final long intervalMs = aggregateCondition.getIntervalMS();
+        final int pointsNum = (int) ((endTime - 1 - startTime) / intervalMs + 1);
+        final int headOffset = (int) ((Math.min(boundary, endTime) - 1 - startTime) / intervalMs + 1);
+        final List<AggregateFunctionType> functions = aggregateCondition.getAggregateFunctionTypes();
+        final Map<List<String>, List<double[]>> timeseriesDataPoints = new HashMap<>();
+
+        // 1. Rolled up part, each statistic is read once even if required by several functions
+        Map<RollupStatistic, Map<List<String>, double[]>> statistics = new EnumMap<>(RollupStatistic.class);
+        for (AggregateFunctionType function : functions) {
+            for (RollupStatistic statistic : RollupStatistic.resolve(function)) {
+                if (!statistics.containsKey(statistic)) {
+                    statistics.put(statistic, readStatistic(statistic, startTime, Math.min(boundary, endTime)));
+                }
+            }
+        }
+        for (int i = 0; i < functions.size(); i++) {
+            AggregateFunctionType function = functions.get(i);
+            Map<List<String>, double[]> values = statistics.get(RollupStatistic.resolve(function).get(0));
+            Map<List<String>, double[]> counts = statistics.get(RollupStatistic.COUNT);
+            for (Map.Entry<List<String>, double[]> entry : values.entrySet()) {
+                double[] target = dataPoints(timeseriesDataPoints, entry.getKey(), functions.size(), pointsNum).get(i);
+                double[] source = entry.getValue();
+                if (AggregateFunctionType.avg.equals(function)) {
+                    double[] count = counts.get(entry.getKey());
+                    for (int j = 0; j < source.length && j < headOffset; j++) {
+                        target[j] = (count == null || count[j] == 0) ? 0.0 : source[j] / count[j];
+                    }
+                } else {
+                    System.arraycopy(source, 0, target, 0, Math.min(source.length, headOffset));
+                }
+            }
+        }
+
+        // 2. Raw part not rolled up yet
+        if (boundary < endTime) {
+            AggregateCondition rawCondition = copyAggregateCondition(aggregateCondition.getAggregateFunctionTypes(),
+                aggregateCondition.getAggregateFields());
+            List<Map.Entry<List<String>, List<double[]>>> raw = read(metricName, rawCondition, boundary, endTime);
+            for (Map.Entry<List<String>, List<double[]>> entry : raw) {
+                List<double[]> target = dataPoints(timeseriesDataPoints, entry.getKey(), functions.size(), pointsNum);
+                for (int i = 0; i < functions.size(); i++) {
+                    double[] source = entry.getValue().get(i);
+                    System.arraycopy(source, 0, target.get(i), headOffset, Math.min(source.length, pointsNum - headOffset));
+                }
+            }
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Read {} groups of {} from {} tier until {} and raw tier since then", timeseriesDataPoints.size(), metricName, tier, boundary);
+        }
+        return new ArrayList<>(timeseriesDataPoints.entrySet());
+    }
+
+    private Map<List<String>, double[]> readStatistic(RollupStatistic statistic, long startTime, long endTime) throws Exception {
+        AggregateCondition condition = copyAggregateCondition(
+            Collections.singletonList(statistic.getCombineFunction()),
+            Collections.singletonList(GenericMetricEntity.VALUE_FIELD));
+        List<Map.Entry<List<String>, List<double[]>>> result = read(tier.metricName(metricName, statistic), condition, startTime, endTime);
+        Map<List<String>, double[]> values = new HashMap<>();
+        for (Map.Entry<List<String>, List<double[]>> entry : result) {
+            values.put(entry.getKey(), entry.getValue().get(0));
+        }
+        return values;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map.Entry<List<String>, List<double[]>>> read(String prefix, AggregateCondition condition, long startTime, long endTime) throws Exception {
+        SearchCondition subCondition = new SearchCondition(searchCondition);
+        subCondition.setOutputFields(new ArrayList<>(searchCondition.getOutputFields()));
+        subCondition.setOutputAll(searchCondition.isOutputAll());
+        subCondition.setStartTime(startTime);
+        subCondition.setEndTime(endTime);
+        GenericQuery query = queryFactory.create(serviceName, subCondition, condition, prefix);
+        List<Map.Entry<List<String>, List<double[]>>> result = query.result();
+        updateTimestamps(query);
+        return result == null ? Collections.<Map.Entry<List<String>, List<double[]>>>emptyList() : result;
+    }
+
+    private AggregateCondition copyAggregateCondition(List<AggregateFunctionType> functions, List<String> fields) {
+        AggregateCondition condition = new AggregateCondition();
+        condition.setGroupbyFields(aggregateCondition.getGroupbyFields());
+        condition.setAggregateFunctionTypes(new ArrayList<>(functions));
+        condition.setAggregateFields(new ArrayList<>(fields));
+        condition.setTimeSeries(true);
+        condition.setIntervalMS(aggregateCondition.getIntervalMS());
+        return condition;
+    }
+
+    private static List<double[]> dataPoints(Map<List<String>, List<double[]>> timeseriesDataPoints, List<String> key, int numFunctions, int pointsNum) {
+        List<double[]> values = timeseriesDataPoints.get(key);
+        if (values == null) {
+            values = new ArrayList<>(numFunctions);
+            for (int i = 0; i < numFunctions; i++) {
+                values.add(new double[pointsNum]);
+            }
+            timeseriesDataPoints.put(key, values);
+        }
+        return values;
+    }
+
+    private void updateTimestamps(GenericQuery query) {
+        long first = query.getFirstTimeStamp();
+        long last = query.getLastTimestamp();
+        if (first > 0 && (this.firstTimestamp == 0 || first < this.firstTimestamp)) {
+            this.firstTimestamp = first;
+        }
+        if (last > this.lastTimestamp) {
+            this.lastTimestamp = last;
+        }
+    }
+
+    public RollupTier getTier() {
+        return tier;
+    }
+
+    public long getBoundary() {
+        return boundary;
+    }
+
+    @Override
+    public long getLastTimestamp() {
+        return this.lastTimestamp;
+    }
+
+    @Override
+    public long getFirstTimeStamp() {
+        return this.firstTimestamp;
+    }
+}
@@ -31,6 +31,8 @@ import java.util.List;
  * @see #aggregate(HTableInterface, EntityDefinition, Scan, List, List, List)
  * <h2>Time Series Aggregation:</h2>
  * @see #aggregate(HTableInterface, EntityDefinition, Scan, List, List, List, boolean, long, long, long)
+ * <h2>Top N Flat Aggregation:</h2>
+ * @see #aggregate(HTableInterface, EntityDefinition, Scan, List, List, List, int, boolean, int)
  *
  */
 public interface AggregateClient {
@@ -77,4 +79,30 @@ public interface AggregateClient {
                               final long endTime,                                     // endTime
                               final long intervalMin                                   // The interval in minutes if it's time series aggregation
     ) throws IOException;
-}
\ No newline at end of file
+
+    /**
+     * Flat Aggregation returning at least the exact top N groups, without shipping all the groups of every region.
+     *
+     * @param table              HTable connections
+     * @param entityDefinition   Eagle EntityDefinition
+     * @param scan               HBase Scan
+     * @param groupbyFields      Grouped by fields name
+     * @param aggregateFuncTypes Aggregate function types
+     * @param aggregatedFields   Aggregate field names
+     * @param sortIndex          Index of the function ranking the groups, which must be sum or count
+     * @param ascending          Whether smaller values are ranked first
+     * @param top                Number of groups
+     * @return Return AggregateResult
+     * @see TopNAggregation
+     */
+    AggregateResult aggregate(final HTableInterface table,
+                              final EntityDefinition entityDefinition,
+                              final Scan scan,
+                              final List<String> groupbyFields,
+                              final List<AggregateFunctionType> aggregateFuncTypes,
+                              final List<String> aggregatedFields,
+                              final int sortIndex,
+                              final boolean ascending,
+                              final int top
+    ) throws IOException;
+}
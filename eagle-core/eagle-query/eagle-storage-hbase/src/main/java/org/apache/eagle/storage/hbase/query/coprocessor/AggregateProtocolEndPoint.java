@@ -371,19 +371,22 @@ public class AggregateProtocolEndPoint extends AggregateProtos.AggregateProtocol
             LOG.debug("SCAN: " + scan.toJSON());
         }
         final long startTimestamp = System.currentTimeMillis();
-        final RawAggregator aggregator = new RawAggregator(groupbyFields,
-            AggregateFunctionType.fromBytesList(aggregateFuncTypes), aggregatedFields, entityDefinition);
-        InternalReadReport report = this.asyncStreamRead(entityDefinition, scan, aggregator);
-
-        List<GroupbyKeyValue> keyValues = aggregator.getGroupbyKeyValues();
+        final InternalReadReport report;
+        final List<GroupbyKeyValue> keyValues;
+        try (RawAggregator aggregator = new RawAggregator(groupbyFields,
+            AggregateFunctionType.fromBytesList(aggregateFuncTypes), aggregatedFields, entityDefinition)) {
+            report = this.asyncStreamRead(entityDefinition, scan, aggregator);
+            keyValues = aggregator.getGroupbyKeyValues();
+        }
         AggregateResult result = new AggregateResult();
-        result.setKeyValues(keyValues);
+        List<GroupbyKeyValue> returnedKeyValues = TopNAggregation.apply(scan, keyValues, result);
+        result.setKeyValues(returnedKeyValues);
         result.setStartTimestamp(report.getStartTimestamp());
         result.setStopTimestamp(report.getStopTimestamp());
 
         long _stop = System.currentTimeMillis();
-        LOG.info(String.format("%s: scan = %d rows, group = %d keys, startTime = %d, endTime = %d, spend = %d ms",
-            this.getLogHeader(), report.getCounter(), keyValues.size(), report.getStartTimestamp(),
+        LOG.info(String.format("%s: scan = %d rows, group = %d keys, returned = %d keys, startTime = %d, endTime = %d, spend = %d ms",
+            this.getLogHeader(), report.getCounter(), keyValues.size(), returnedKeyValues.size(), report.getStartTimestamp(),
             report.getStopTimestamp(), (_stop - startTimestamp)));
 
         return result;
@@ -404,10 +407,13 @@ public class AggregateProtocolEndPoint extends AggregateProtos.AggregateProtocol
         }
 
         final long startTimestamp = System.currentTimeMillis();
-        final TimeSeriesAggregator aggregator = new TimeSeriesAggregator(groupbyFields,
-            AggregateFunctionType.fromBytesList(aggregateFuncTypes), aggregatedFields, startTime, endTime, intervalMin);
-        InternalReadReport report = this.asyncStreamRead(entityDefinition, scan, aggregator);
-        List<GroupbyKeyValue> keyValues = aggregator.getGroupbyKeyValues();
+        final InternalReadReport report;
+        final List<GroupbyKeyValue> keyValues;
+        try (TimeSeriesAggregator aggregator = new TimeSeriesAggregator(groupbyFields,
+            AggregateFunctionType.fromBytesList(aggregateFuncTypes), aggregatedFields, startTime, endTime, intervalMin)) {
+            report = this.asyncStreamRead(entityDefinition, scan, aggregator);
+            keyValues = aggregator.getGroupbyKeyValues();
+        }
 
         AggregateResult result = new AggregateResult();
         result.setKeyValues(keyValues);
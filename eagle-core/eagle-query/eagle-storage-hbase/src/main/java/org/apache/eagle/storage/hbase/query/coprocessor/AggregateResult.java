@@ -26,6 +26,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.DataInput;
 import java.io.DataOutput;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.List;
@@ -37,9 +38,13 @@ import java.util.List;
  * {
  *  keyValues: WritableList&lt;GroupbyKeyValue&gt;,
  *  startTimestamp: long,
- *  stopTimestamp: long
+ *  stopTimestamp: long,
+ *  truncated: boolean,
+ *  topThreshold: double
  * }
  * </pre>
+ * The last two fields are only read when present, so that results of regions running older coprocessors can
+ * still be read.
  */
 public class AggregateResult implements Writable, Serializable {
 
@@ -80,6 +85,33 @@ public class AggregateResult implements Writable, Serializable {
 
     private long stopTimestamp;
 
+    private boolean truncated = false;
+
+    private double topThreshold = 0;
+
+    /**
+     * @return whether the region only returned its top groups
+     * @see TopNAggregation
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    public void setTruncated(boolean truncated) {
+        this.truncated = truncated;
+    }
+
+    /**
+     * @return rank of the last group returned by a truncated region, which no other group of the region exceeds
+     */
+    public double getTopThreshold() {
+        return topThreshold;
+    }
+
+    public void setTopThreshold(double topThreshold) {
+        this.topThreshold = topThreshold;
+    }
+
     public AggregateResult() {
         this.keyValues = new WritableList<GroupbyKeyValue>(GroupbyKeyValue.class);
     }
@@ -89,6 +121,13 @@ public class AggregateResult implements Writable, Serializable {
         this.startTimestamp = in.readLong();
         this.stopTimestamp = in.readLong();
         keyValues.readFields(in);
+        try {
+            this.truncated = in.readBoolean();
+            this.topThreshold = in.readDouble();
+        } catch (EOFException e) {
+            // written by an older coprocessor, which returns all the groups
+            this.truncated = false;
+        }
     }
 
     @Override
@@ -96,6 +135,8 @@ public class AggregateResult implements Writable, Serializable {
         out.writeLong(this.startTimestamp);
         out.writeLong(this.stopTimestamp);
         keyValues.write(out);
+        out.writeBoolean(this.truncated);
+        out.writeDouble(this.topThreshold);
     }
 
 
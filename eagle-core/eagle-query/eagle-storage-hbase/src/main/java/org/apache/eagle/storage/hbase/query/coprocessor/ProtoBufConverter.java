@@ -27,6 +27,7 @@ import org.apache.hadoop.hbase.protobuf.ProtobufUtil;
 import org.apache.hadoop.hbase.protobuf.generated.ClientProtos;
 import org.apache.hadoop.io.Writable;
 
+import java.io.DataInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
@@ -36,10 +37,10 @@ import java.util.List;
  */
 public final class ProtoBufConverter {
     public static AggregateResult fromPBResult(AggregateProtos.AggregateResult pbResult) throws IOException {
-        ByteArrayDataInput byteArrayDataInput = ByteStreams.newDataInput(pbResult.getByteArray().toByteArray());
-        ;
+        // DataInputStream reports the end of the bytes as EOFException, for the optional fields of the result
+        DataInputStream dataInput = new DataInputStream(pbResult.getByteArray().newInput());
         AggregateResult result = new AggregateResult();
-        result.readFields(byteArrayDataInput);
+        result.readFields(dataInput);
         return result;
     }
 
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.storage.hbase.query.coprocessor;
+
+import org.apache.eagle.query.aggregate.raw.GroupbyKey;
+import org.apache.eagle.query.aggregate.raw.GroupbyKeyValue;
+import org.apache.eagle.query.aggregate.raw.WritableList;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import com.google.common.io.ByteArrayDataInput;
+import com.google.common.io.ByteArrayDataOutput;
+import com.google.common.io.ByteStreams;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Region side part of the top N flat aggregation, requested through attributes of the scan so that regions
+ * running older coprocessors simply return all the groups.
+ *
+ * <h2>Protocol</h2>
+ * <ol>
+ * <li>Every region returns its top N groups ranked by one decomposable (sum or count) function, and the rank of
+ * the last one as threshold if it has more groups.</li>
+ * <li>Groups not returned by a region add at most the threshold of the region to their total, so the client can
+ * bound the total of every group and check if its top N groups are exact.</li>
+ * <li>Otherwise the client asks all the regions for the exact values of the groups which may still be in the top
+ * N, and falls back to a full aggregation if that is not enough either.</li>
+ * </ol>
+ *
+ * <p>The rank of a group is the value of the function, negated for ascending order, so a larger rank is always
+ * better.</p>
+ */
+public final class TopNAggregation {
+    public static final String TOP_N_ATTRIBUTE = "eagle.aggregate.topN";
+    public static final String TOP_N_INDEX_ATTRIBUTE = "eagle.aggregate.topN.index";
+    public static final String TOP_N_ASCENDING_ATTRIBUTE = "eagle.aggregate.topN.ascending";
+    public static final String GROUPS_ATTRIBUTE = "eagle.aggregate.groups";
+
+    private TopNAggregation() {
+    }
+
+    /**
+     * Ask the regions for their top groups only.
+     *
+     * @param index     index of the ranking function
+     * @param ascending whether smaller values are ranked first
+     * @param top       number of groups returned by every region
+     */
+    public static void setTopN(Scan scan, int index, boolean ascending, int top) {
+        scan.setAttribute(TOP_N_ATTRIBUTE, Bytes.toBytes(top));
+        scan.setAttribute(TOP_N_INDEX_ATTRIBUTE, Bytes.toBytes(index));
+        scan.setAttribute(TOP_N_ASCENDING_ATTRIBUTE, Bytes.toBytes(ascending));
+    }
+
+    /**
+     * Ask the regions for the given groups only.
+     */
+    public static void setGroups(Scan scan, Collection<GroupbyKey> groups) throws IOException {
+        WritableList<GroupbyKey> list = new WritableList<>(GroupbyKey.class, groups.size());
+        list.addAll(groups);
+        ByteArrayDataOutput output = ByteStreams.newDataOutput();
+        list.write(output);
+        scan.setAttribute(GROUPS_ATTRIBUTE, output.toByteArray());
+    }
+
+    public static double rank(GroupbyKeyValue keyValue, int index, boolean ascending) {
+        double value = keyValue.getValue().get(index).get();
+        return ascending ? -value : value;
+    }
+
+    /**
+     * Keep the groups requested by the attributes of the scan, if any, and mark the result as truncated when groups
+     * are left out by the top N.
+     *
+     * @param scan      scan of the aggregation
+     * @param keyValues all the groups of the region
+     * @param result    result of the region
+     * @return groups to return
+     */
+    static List<GroupbyKeyValue> apply(Scan scan, List<GroupbyKeyValue> keyValues, AggregateResult result) throws IOException {
+        byte[] groups = scan.getAttribute(GROUPS_ATTRIBUTE);
+        if (groups != null) {
+            WritableList<GroupbyKey> list = new WritableList<>(GroupbyKey.class);
+            ByteArrayDataInput input = ByteStreams.newDataInput(groups);
+            list.readFields(input);
+            Set<GroupbyKey> requested = new HashSet<>(list);
+            List<GroupbyKeyValue> selected = new ArrayList<>(Math.min(requested.size(), keyValues.size()));
+            for (GroupbyKeyValue keyValue : keyValues) {
+                if (requested.contains(keyValue.getKey())) {
+                    selected.add(keyValue);
+                }
+            }
+            return selected;
+        }
+
+        byte[] top = scan.getAttribute(TOP_N_ATTRIBUTE);
+        if (top == null) {
+            return keyValues;
+        }
+        final int limit = Bytes.toInt(top);
+        if (limit <= 0 || keyValues.size() <= limit) {
+            return keyValues;
+        }
+        final int index = Bytes.toInt(scan.getAttribute(TOP_N_INDEX_ATTRIBUTE));
+        final boolean ascending = Bytes.toBoolean(scan.getAttribute(TOP_N_ASCENDING_ATTRIBUTE));
+        // worst group of the current top at the head
+        Comparator<GroupbyKeyValue> comparator = Comparator.comparingDouble(kv -> rank(kv, index, ascending));
+        PriorityQueue<GroupbyKeyValue> heap = new PriorityQueue<>(limit + 1, comparator);
+        for (GroupbyKeyValue keyValue : keyValues) {
+            if (heap.size() < limit) {
+                heap.add(keyValue);
+            } else if (comparator.compare(keyValue, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(keyValue);
+            }
+        }
+        result.setTruncated(true);
+        result.setTopThreshold(rank(heap.peek(), index, ascending));
+        return new ArrayList<>(heap);
+    }
+}
@@ -18,6 +18,7 @@ package org.apache.eagle.storage.hbase.query.coprocessor.impl;
 
 import org.apache.eagle.log.entity.meta.EntityDefinition;
 import org.apache.eagle.query.aggregate.AggregateFunctionType;
+import org.apache.eagle.query.aggregate.raw.GroupbyKey;
 import org.apache.eagle.storage.hbase.query.coprocessor.*;
 import org.apache.eagle.storage.hbase.query.coprocessor.generated.AggregateProtos;
 import org.apache.hadoop.hbase.client.HTableInterface;
@@ -30,6 +31,7 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Not thread safe.
@@ -60,6 +62,55 @@ public class AggregateClientImpl implements AggregateClient {
         final List<byte[]> _aggregateFuncTypesBytes = AggregateFunctionType.toBytesList(_aggregateFuncTypes);
         // if(timeSeries) TimeSeriesAggregator.validateTimeRange(startTime,endTime,intervalMin);
         callback = new AggregateResultCallbackImpl(aggregateFuncTypes);
+        execute(table, entityDefinition, scan, groupbyFields, _aggregateFuncTypesBytes, aggregatedFields,
+            timeSeries, startTime, endTime, intervalMin, callback);
+        return callback.result();
+    }
+
+    @Override
+    public AggregateResult aggregate(HTableInterface table, EntityDefinition entityDefinition, Scan scan,
+                                     List<String> groupbyFields, List<AggregateFunctionType> aggregateFuncTypes, List<String> aggregatedFields,
+                                     int sortIndex, boolean ascending, int top) throws IOException {
+        checkNotNull(entityDefinition, "entityDefinition");
+        final List<byte[]> _aggregateFuncTypesBytes = AggregateFunctionType.toBytesList(convertToCoprocessorAggregateFunc(aggregateFuncTypes));
+
+        // 1. top N groups of every region
+        Scan topScan = new Scan(scan);
+        TopNAggregation.setTopN(topScan, sortIndex, ascending, top);
+        TopNAggregateResultCallbackImpl topCallback = new TopNAggregateResultCallbackImpl(aggregateFuncTypes, sortIndex, ascending, top);
+        execute(table, entityDefinition, topScan, groupbyFields, _aggregateFuncTypesBytes, aggregatedFields, false, 0, 0, 0, topCallback);
+        double unseenBound = topCallback.unseenBound();
+        if (topCallback.isExact(unseenBound)) {
+            return topCallback.result();
+        }
+
+        // 2. exact values of the groups which may be in the top N
+        Set<GroupbyKey> candidates = topCallback.candidates();
+        LOG.info("Top " + top + " groups are not exact after first round, querying " + candidates.size() + " candidate groups");
+        Scan groupScan = new Scan(scan);
+        TopNAggregation.setGroups(groupScan, candidates);
+        TopNAggregateResultCallbackImpl groupCallback = new TopNAggregateResultCallbackImpl(aggregateFuncTypes, sortIndex, ascending, top);
+        execute(table, entityDefinition, groupScan, groupbyFields, _aggregateFuncTypesBytes, aggregatedFields, false, 0, 0, 0, groupCallback);
+        if (groupCallback.isExact(unseenBound)) {
+            return groupCallback.result();
+        }
+
+        // 3. all the groups
+        LOG.info("Top " + top + " groups are not exact after second round, aggregating all the groups");
+        return this.aggregate(table, entityDefinition, scan, groupbyFields, aggregateFuncTypes, aggregatedFields);
+    }
+
+    private void execute(final HTableInterface table,
+                         final EntityDefinition entityDefinition,
+                         final Scan scan,
+                         final List<String> groupbyFields,
+                         final List<byte[]> _aggregateFuncTypesBytes,
+                         final List<String> aggregatedFields,
+                         final boolean timeSeries,
+                         final long startTime,
+                         final long endTime,
+                         final long intervalMin,
+                         final AggregateResultCallback callback) throws IOException {
         try {
             if (!LOG.isDebugEnabled()) {
                 LOG.info("Going to exec coprocessor: " + AggregateProtocol.class.getSimpleName());
@@ -108,7 +159,6 @@ public class AggregateClientImpl implements AggregateClient {
             LOG.error(t.getMessage(), t);
             throw new IOException(t);
         }
-        return callback.result();
     }
 
     @Override
@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.storage.hbase.query.coprocessor.impl;
+
+import org.apache.eagle.query.aggregate.AggregateFunctionType;
+import org.apache.eagle.query.aggregate.raw.GroupbyKey;
+import org.apache.eagle.query.aggregate.raw.GroupbyKeyValue;
+import org.apache.eagle.storage.hbase.query.coprocessor.AggregateResult;
+import org.apache.eagle.storage.hbase.query.coprocessor.AggregateResultCallback;
+import org.apache.eagle.storage.hbase.query.coprocessor.ProtoBufConverter;
+import org.apache.eagle.storage.hbase.query.coprocessor.TopNAggregation;
+import org.apache.eagle.storage.hbase.query.coprocessor.generated.AggregateProtos;
+import org.apache.hadoop.hbase.coprocessor.CoprocessorException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Keeps the results of every region of a top N flat aggregation apart, to find out whether the top N groups
+ * of the merged results are exact.
+ *
+ * @see TopNAggregation
+ */
+public class TopNAggregateResultCallbackImpl implements AggregateResultCallback {
+    private static final Logger LOG = LoggerFactory.getLogger(TopNAggregateResultCallbackImpl.class);
+
+    private final List<AggregateFunctionType> aggregateFunctionTypes;
+    private final int index;
+    private final boolean ascending;
+    private final int top;
+    private final List<AggregateResult> regionResults = new ArrayList<>();
+
+    /**
+     * @param aggregateFunctionTypes client side aggregate function types
+     * @param index                  index of the ranking function
+     * @param ascending              whether smaller values are ranked first
+     * @param top                    number of groups to return
+     */
+    public TopNAggregateResultCallbackImpl(List<AggregateFunctionType> aggregateFunctionTypes, int index, boolean ascending, int top) {
+        this.aggregateFunctionTypes = aggregateFunctionTypes;
+        this.index = index;
+        this.ascending = ascending;
+        this.top = top;
+    }
+
+    @Override
+    public void update(byte[] region, byte[] row, AggregateProtos.AggregateResult result) {
+        try {
+            if (result == null) {
+                throw new IllegalStateException(new CoprocessorException("result is null"));
+            }
+            this.update(region, row, ProtoBufConverter.fromPBResult(result));
+        } catch (IOException e) {
+            LOG.error("Failed to convert PB-Based message", e);
+        }
+    }
+
+    @Override
+    public synchronized void update(byte[] region, byte[] row, AggregateResult result) {
+        regionResults.add(result);
+    }
+
+    /**
+     * @return bound of the rank total of the groups which no region returned, or negative infinity if every region
+     *     returned all its groups
+     */
+    public synchronized double unseenBound() {
+        double bound = Double.NEGATIVE_INFINITY;
+        for (AggregateResult result : regionResults) {
+            if (result.isTruncated()) {
+                bound = (bound == Double.NEGATIVE_INFINITY ? 0 : bound) + missingBound(result);
+            }
+        }
+        return bound;
+    }
+
+    /**
+     * @param unseenBound bound of the rank total of the groups which are not in the results
+     * @return whether the top N groups of the results are the exact top N of all the groups
+     */
+    public synchronized boolean isExact(double unseenBound) {
+        Map<GroupbyKey, GroupRank> ranks = groupRanks();
+        double threshold = threshold(ranks);
+        for (GroupRank rank : ranks.values()) {
+            if (!rank.isExact() && rank.upperBound() >= threshold) {
+                return false;
+            }
+        }
+        return unseenBound == Double.NEGATIVE_INFINITY || unseenBound < threshold;
+    }
+
+    /**
+     * @return groups which may still be in the top N, with exact values or not
+     */
+    public synchronized Set<GroupbyKey> candidates() {
+        Map<GroupbyKey, GroupRank> ranks = groupRanks();
+        double threshold = threshold(ranks);
+        Set<GroupbyKey> candidates = new HashSet<>();
+        for (Map.Entry<GroupbyKey, GroupRank> entry : ranks.entrySet()) {
+            if (entry.getValue().upperBound() >= threshold) {
+                candidates.add(entry.getKey());
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * @return merged values of the exact groups which rank within the top N
+     */
+    @Override
+    public synchronized AggregateResult result() {
+        Map<GroupbyKey, GroupRank> ranks = groupRanks();
+        double threshold = threshold(ranks);
+        AggregateResultCallbackImpl callback = new AggregateResultCallbackImpl(aggregateFunctionTypes);
+        for (AggregateResult result : regionResults) {
+            AggregateResult selected = new AggregateResult();
+            selected.setStartTimestamp(result.getStartTimestamp());
+            selected.setStopTimestamp(result.getStopTimestamp());
+            List<GroupbyKeyValue> keyValues = new ArrayList<>();
+            for (GroupbyKeyValue keyValue : result.getKeyValues()) {
+                GroupRank rank = ranks.get(keyValue.getKey());
+                if (rank.isExact() && rank.rank >= threshold) {
+                    keyValues.add(keyValue);
+                }
+            }
+            selected.setKeyValues(keyValues);
+            callback.update(null, null, selected);
+        }
+        return callback.result();
+    }
+
+    private static double missingBound(AggregateResult result) {
+        // a group missing from the region adds nothing to the total if it has no entity in the region
+        return Math.max(result.getTopThreshold(), 0);
+    }
+
+    private Map<GroupbyKey, GroupRank> groupRanks() {
+        int truncatedRegions = 0;
+        double unseenBound = 0;
+        for (AggregateResult result : regionResults) {
+            if (result.isTruncated()) {
+                truncatedRegions++;
+                unseenBound += missingBound(result);
+            }
+        }
+        Map<GroupbyKey, GroupRank> ranks = new HashMap<>();
+        for (AggregateResult result : regionResults) {
+            for (GroupbyKeyValue keyValue : result.getKeyValues()) {
+                GroupRank rank = ranks.get(keyValue.getKey());
+                if (rank == null) {
+                    rank = new GroupRank(truncatedRegions, unseenBound);
+                    ranks.put(keyValue.getKey(), rank);
+                }
+                rank.rank += TopNAggregation.rank(keyValue, index, ascending);
+                if (result.isTruncated()) {
+                    rank.truncatedRegions--;
+                    rank.missingBound -= missingBound(result);
+                }
+            }
+        }
+        return ranks;
+    }
+
+    /**
+     * @return rank of the Nth exact group, or negative infinity if there are less than N exact groups
+     */
+    private double threshold(Map<GroupbyKey, GroupRank> ranks) {
+        PriorityQueue<Double> topRanks = new PriorityQueue<>(top + 1);
+        for (GroupRank rank : ranks.values()) {
+            if (rank.isExact()) {
+                topRanks.add(rank.rank);
+                if (topRanks.size() > top) {
+                    topRanks.poll();
+                }
+            }
+        }
+        return topRanks.size() < top ? Double.NEGATIVE_INFINITY : topRanks.peek();
+    }
+
+    private static class GroupRank {
+        private double rank = 0;
+        // truncated regions which didn't return the group, and the bound of what they miss
+        private int truncatedRegions;
+        private double missingBound;
+
+        private GroupRank(int truncatedRegions, double missingBound) {
+            this.truncatedRegions = truncatedRegions;
+            this.missingBound = missingBound;
+        }
+
+        private boolean isExact() {
+            return truncatedRegions == 0;
+        }
+
+        private double upperBound() {
+            return isExact() ? rank : rank + missingBound;
+        }
+    }
+}
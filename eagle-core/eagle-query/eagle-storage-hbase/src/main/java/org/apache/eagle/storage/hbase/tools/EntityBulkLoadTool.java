@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.storage.hbase.tools;
+
+import org.apache.eagle.log.base.taggedlog.TaggedLogAPIEntity;
+import org.apache.eagle.log.entity.meta.EntityDefinition;
+import org.apache.eagle.log.entity.meta.EntityDefinitionManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.cli.*;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.client.HTable;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Bulk load CLI Tool, converting entities of a service, one JSON entity per line, into HFiles and bulk loading them.
+ */
+public class EntityBulkLoadTool extends Configured implements Tool {
+    private static final Logger LOGGER = LoggerFactory.getLogger(EntityBulkLoadTool.class);
+
+    public static void main(String[] args) throws Exception {
+        System.exit(ToolRunner.run(HBaseConfiguration.create(), new EntityBulkLoadTool(), args));
+    }
+
+    private static List<Path> listInputFiles(FileSystem fs, Path input) throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (fs.isDirectory(input)) {
+            for (FileStatus status : fs.listStatus(input)) {
+                String name = status.getPath().getName();
+                if (status.isFile() && !name.startsWith("_") && !name.startsWith(".")) {
+                    files.add(status.getPath());
+                }
+            }
+            Collections.sort(files);
+        } else {
+            files.add(input);
+        }
+        return files;
+    }
+
+    private void printHelpMessage(Options cmdOptions) {
+        HelpFormatter formatter = new HelpFormatter();
+        formatter.printHelp("java " + EntityBulkLoadTool.class.getName() + " --service <service> --input <path> --output <path> [OPTIONS]", cmdOptions);
+    }
+
+    @Override
+    public int run(String[] args) throws Exception {
+        Options cmdOptions = new Options();
+        cmdOptions.addOption("service", true, "Entity service name");
+        cmdOptions.addOption("input", true, "Input file or directory, one JSON entity per line");
+        cmdOptions.addOption("output", true, "Output directory of HFiles, must not exist");
+        cmdOptions.addOption("maxCells", true, "Max cells sorted in memory for one run of HFiles, default " + EntityBulkLoader.DEFAULT_MAX_CELLS_IN_MEMORY);
+        cmdOptions.addOption(new Option("load", false, "Bulk load HFiles into the entity table after they are written"));
+        cmdOptions.addOption("config", true, "Configuration file");
+
+        CommandLine cmdCli;
+        try {
+            cmdCli = new GnuParser().parse(cmdOptions, args);
+        } catch (ParseException e) {
+            System.err.println(e.getMessage());
+            printHelpMessage(cmdOptions);
+            return 1;
+        }
+        if (!cmdCli.hasOption("service") || !cmdCli.hasOption("input") || !cmdCli.hasOption("output")) {
+            System.err.println("service, input and output are required");
+            printHelpMessage(cmdOptions);
+            return 1;
+        }
+        String configFile = cmdCli.getOptionValue("config");
+        if (configFile != null) {
+            Configuration.addDefaultResource(configFile);
+        }
+
+        Configuration configuration = getConf();
+        String service = cmdCli.getOptionValue("service");
+        EntityDefinition entityDef = EntityDefinitionManager.getEntityByServiceName(service);
+        if (entityDef == null) {
+            System.err.println("Unknown service " + service);
+            return 1;
+        }
+        Path input = new Path(cmdCli.getOptionValue("input"));
+        Path output = new Path(cmdCli.getOptionValue("output"));
+        ObjectMapper mapper = TaggedLogAPIEntity.buildObjectMapper();
+
+        try (HTable table = new HTable(configuration, entityDef.getTable())) {
+            EntityBulkLoader loader = new EntityBulkLoader(configuration, entityDef, output, table);
+            if (cmdCli.hasOption("maxCells")) {
+                loader.setMaxCellsInMemory(Integer.parseInt(cmdCli.getOptionValue("maxCells")));
+            }
+            try {
+                FileSystem fs = input.getFileSystem(configuration);
+                for (Path file : listInputFiles(fs, input)) {
+                    LOGGER.info("Reading entities from {}", file);
+                    try (BufferedReader reader = new BufferedReader(new InputStreamReader(fs.open(file), StandardCharsets.UTF_8))) {
+                        String line;
+                        while ((line = reader.readLine()) != null) {
+                            if (!line.trim().isEmpty()) {
+                                loader.write(mapper.readValue(line, entityDef.getEntityClass()));
+                            }
+                        }
+                    }
+                }
+            } finally {
+                loader.close();
+            }
+            LOGGER.info("Converted {} entities of {} into HFiles under {}", loader.getEntityCount(), service, output);
+            if (cmdCli.hasOption("load")) {
+                loader.bulkLoad(table);
+                LOGGER.info("Bulk loaded {} entities into {}", loader.getEntityCount(), entityDef.getTable());
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.storage.hbase.tools;
+
+import org.apache.eagle.log.base.taggedlog.TaggedLogAPIEntity;
+import org.apache.eagle.log.entity.HBaseInternalLogHelper;
+import org.apache.eagle.log.entity.HBaseLogWriter;
+import org.apache.eagle.log.entity.meta.EntityDefinition;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.HColumnDescriptor;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.HTable;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.io.hfile.CacheConfig;
+import org.apache.hadoop.hbase.io.hfile.HFileContext;
+import org.apache.hadoop.hbase.io.hfile.HFileContextBuilder;
+import org.apache.hadoop.hbase.mapreduce.LoadIncrementalHFiles;
+import org.apache.hadoop.hbase.regionserver.StoreFile;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Convert entities into HFiles and bulk load them into the entity table, bypassing memstores and WALs of region
+ * servers, e.g. to backfill months of history.
+ *
+ * <p>Rows and index rows are built by {@link HBaseLogWriter#createPuts}, exactly as the normal write path does.
+ * Cells are buffered in memory up to maxCellsInMemory, then sorted and written as one run: a directory holding
+ * one HFile per region having cells. Each run is bulk loaded separately, so a region never gets more than one
+ * HFile per family in a single load. All cells get the timestamp of the loader creation, as a put without
+ * explicit timestamp gets the time of the write. If the same cell is written more than once in a run, the last
+ * value wins.</p>
+ *
+ * <pre>
+ * try (EntityBulkLoader loader = new EntityBulkLoader(conf, entityDef, outputDir, table)) {
+ *     loader.write(entities);
+ * }
+ * loader.bulkLoad(table);
+ * </pre>
+ */
+public class EntityBulkLoader implements Closeable {
+    private static final Logger LOG = LoggerFactory.getLogger(EntityBulkLoader.class);
+    public static final int DEFAULT_MAX_CELLS_IN_MEMORY = 4 * 1000 * 1000;
+
+    private final Configuration conf;
+    private final FileSystem fs;
+    private final EntityDefinition entityDef;
+    private final Path outputDir;
+    private final byte[][] regionStartKeys;
+    private final HColumnDescriptor familyDescriptor;
+    private final HBaseLogWriter putBuilder;
+    private final long timestamp = System.currentTimeMillis();
+    private final List<KeyValue> cells = new ArrayList<>();
+    private final List<Path> runDirs = new ArrayList<>();
+    private int maxCellsInMemory = DEFAULT_MAX_CELLS_IN_MEMORY;
+    private long entityCount = 0;
+    private boolean closed = false;
+
+    /**
+     * @param regionStartKeys sorted start keys of the regions, the first one being empty, or null for a single file per run
+     * @param familyDescriptor compression, block size, encoding and bloom filter of HFiles, or null for defaults
+     */
+    public EntityBulkLoader(Configuration conf, EntityDefinition entityDef, Path outputDir,
+                            byte[][] regionStartKeys, HColumnDescriptor familyDescriptor) throws IOException {
+        this.conf = conf;
+        this.fs = outputDir.getFileSystem(conf);
+        this.entityDef = entityDef;
+        this.outputDir = outputDir;
+        this.regionStartKeys = regionStartKeys == null || regionStartKeys.length == 0
+            ? new byte[][] {HConstants.EMPTY_START_ROW} : regionStartKeys;
+        this.familyDescriptor = familyDescriptor;
+        this.putBuilder = new HBaseLogWriter(entityDef);
+        if (fs.exists(outputDir)) {
+            throw new IOException("Output directory " + outputDir + " already exists");
+        }
+    }
+
+    /**
+     * Split HFiles by the current regions of the table and write them with the settings of its column family.
+     */
+    public EntityBulkLoader(Configuration conf, EntityDefinition entityDef, Path outputDir, HTable table) throws IOException {
+        this(conf, entityDef, outputDir, table.getStartKeys(),
+            table.getTableDescriptor().getFamily(Bytes.toBytes(entityDef.getColumnFamily())));
+    }
+
+    public void setMaxCellsInMemory(int maxCellsInMemory) {
+        this.maxCellsInMemory = maxCellsInMemory;
+    }
+
+    public void write(TaggedLogAPIEntity entity) throws IOException {
+        if (closed) {
+            throw new IOException("Loader is closed");
+        }
+        List<Put> puts;
+        try {
+            puts = putBuilder.createPuts(HBaseInternalLogHelper.convertToInternalLog(entity, entityDef));
+        } catch (IOException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new IOException("Failed to convert entity " + entity, ex);
+        }
+        for (Put put : puts) {
+            for (List<Cell> familyCells : put.getFamilyCellMap().values()) {
+                for (Cell cell : familyCells) {
+                    cells.add(new KeyValue(CellUtil.cloneRow(cell), CellUtil.cloneFamily(cell),
+                        CellUtil.cloneQualifier(cell), timestamp, CellUtil.cloneValue(cell)));
+                }
+            }
+        }
+        entityCount++;
+        if (cells.size() >= maxCellsInMemory) {
+            writeRun();
+        }
+    }
+
+    public void write(Iterator<? extends TaggedLogAPIEntity> entities) throws IOException {
+        while (entities.hasNext()) {
+            write(entities.next());
+        }
+    }
+
+    public void write(Iterable<? extends TaggedLogAPIEntity> entities) throws IOException {
+        write(entities.iterator());
+    }
+
+    /**
+     * Write the remaining cells, no more entities can be written afterwards.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            writeRun();
+            closed = true;
+            LOG.info("Wrote {} entities of {} into {} runs under {}", entityCount, entityDef.getService(), runDirs.size(), outputDir);
+        }
+    }
+
+    /**
+     * Bulk load all runs into the table, runs are loaded in the order they are written.
+     */
+    public void bulkLoad(HTable table) throws Exception {
+        close();
+        LoadIncrementalHFiles loader = new LoadIncrementalHFiles(conf);
+        for (Path runDir : runDirs) {
+            LOG.info("Bulk loading {} into {}", runDir, Bytes.toString(table.getTableName()));
+            loader.doBulkLoad(runDir, table);
+        }
+    }
+
+    public List<Path> getRunDirs() {
+        return Collections.unmodifiableList(runDirs);
+    }
+
+    public long getEntityCount() {
+        return entityCount;
+    }
+
+    private void writeRun() throws IOException {
+        if (cells.isEmpty()) {
+            return;
+        }
+        // stable sort, so the last written of equal cells is the last one
+        Collections.sort(cells, KeyValue.COMPARATOR);
+        Path runDir = new Path(outputDir, String.format("run-%05d", runDirs.size()));
+        int region = 0;
+        int files = 0;
+        StoreFile.Writer writer = null;
+        try {
+            for (int i = 0; i < cells.size(); i++) {
+                KeyValue cell = cells.get(i);
+                if (i + 1 < cells.size() && KeyValue.COMPARATOR.compare(cell, cells.get(i + 1)) == 0) {
+                    continue;
+                }
+                int cellRegion = regionOf(cell, region);
+                if (writer == null || cellRegion != region
+                        || !Bytes.equals(cell.getFamilyArray(), cell.getFamilyOffset(), cell.getFamilyLength(),
+                        cells.get(i - 1).getFamilyArray(), cells.get(i - 1).getFamilyOffset(), cells.get(i - 1).getFamilyLength())) {
+                    closeWriter(writer);
+                    region = cellRegion;
+                    writer = createWriter(new Path(new Path(runDir, Bytes.toString(CellUtil.cloneFamily(cell))),
+                        String.format("region-%05d-%05d", region, files++)));
+                }
+                writer.append(cell);
+            }
+        } finally {
+            closeWriter(writer);
+        }
+        LOG.info("Wrote run {} of {} cells into {} HFiles", runDir, cells.size(), files);
+        runDirs.add(runDir);
+        cells.clear();
+    }
+
+    /**
+     * Cells are sorted, so the region only moves forward from the current one.
+     */
+    private int regionOf(KeyValue cell, int current) {
+        int region = current;
+        while (region + 1 < regionStartKeys.length
+                && Bytes.compareTo(cell.getRowArray(), cell.getRowOffset(), cell.getRowLength(),
+                regionStartKeys[region + 1], 0, regionStartKeys[region + 1].length) >= 0) {
+            region++;
+        }
+        return region;
+    }
+
+    private StoreFile.Writer createWriter(Path path) throws IOException {
+        HFileContextBuilder contextBuilder = new HFileContextBuilder();
+        StoreFile.WriterBuilder writerBuilder = new StoreFile.WriterBuilder(conf, new CacheConfig(conf), fs)
+            .withFilePath(path)
+            .withComparator(KeyValue.COMPARATOR);
+        if (familyDescriptor != null) {
+            contextBuilder.withCompression(familyDescriptor.getCompression())
+                .withBlockSize(familyDescriptor.getBlocksize())
+                .withDataBlockEncoding(familyDescriptor.getDataBlockEncoding());
+            writerBuilder.withBloomType(familyDescriptor.getBloomFilterType());
+        }
+        HFileContext context = contextBuilder.build();
+        return writerBuilder.withFileContext(context).build();
+    }
+
+    private void closeWriter(StoreFile.Writer writer) throws IOException {
+        if (writer != null) {
+            writer.appendFileInfo(StoreFile.BULKLOAD_TIME_KEY, Bytes.toBytes(System.currentTimeMillis()));
+            writer.appendFileInfo(StoreFile.MAJOR_COMPACTION_KEY, Bytes.toBytes(false));
+            writer.appendTrackedTimestampsToMetadata();
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.storage.hbase.query.aggregate;
+
+import com.typesafe.config.ConfigFactory;
+import org.apache.eagle.log.entity.SearchCondition;
+import org.apache.eagle.log.entity.test.TestLogAPIEntity;
+import org.apache.eagle.query.GenericQuery;
+import org.apache.eagle.query.aggregate.AggregateCondition;
+import org.apache.eagle.query.aggregate.AggregateFunctionType;
+import org.apache.eagle.query.aggregate.cache.QueryCacheConfig;
+import org.apache.eagle.query.aggregate.cache.QueryResultCache;
+import org.apache.eagle.query.aggregate.timeseries.FlatAggregator;
+import org.apache.eagle.query.aggregate.timeseries.TimeSeriesAggregator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TestGenericCachedAggregateQuery {
+    private static final long MINUTE = 60 * 1000;
+    private static final long HOUR = 60 * MINUTE;
+    // 2016-01-01 00:00:00 UTC, buckets in the past are all closed
+    private static final long T0 = 1451606400000L;
+    private static final String SERVICE = "TestLogAPIEntity";
+
+    /**
+     * Aggregates a list of entities in memory, stopping after pageSize entities as the scan readers do,
+     * and records the time ranges it is asked to read.
+     */
+    private static class EntityListQueryFactory implements AggregateQueryFactory {
+        private final List<TestLogAPIEntity> entities;
+        private final List<long[]> reads = new ArrayList<>();
+
+        private EntityListQueryFactory(List<TestLogAPIEntity> entities) {
+            this.entities = entities;
+        }
+
+        @Override
+        public GenericQuery create(String serviceName, SearchCondition condition, AggregateCondition aggregateCondition, String prefix) {
+            return new GenericQuery() {
+                private long first = 0;
+                private long last = 0;
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public <T> List<T> result() throws Exception {
+                    reads.add(new long[] {condition.getStartTime(), condition.getEndTime()});
+                    try (FlatAggregator aggregator = aggregateCondition.isTimeSeries()
+                        ? new TimeSeriesAggregator(aggregateCondition.getGroupbyFields(), aggregateCondition.getAggregateFunctionTypes(),
+                            aggregateCondition.getAggregateFields(), condition.getStartTime(), condition.getEndTime(), aggregateCondition.getIntervalMS())
+                        : new FlatAggregator(aggregateCondition.getGroupbyFields(), aggregateCondition.getAggregateFunctionTypes(),
+                            aggregateCondition.getAggregateFields())) {
+                        int count = 0;
+                        for (TestLogAPIEntity entity : entities) {
+                            if (count >= condition.getPageSize()) {
+                                break;
+                            }
+                            if (entity.getTimestamp() >= condition.getStartTime() && entity.getTimestamp() < condition.getEndTime()) {
+                                count++;
+                                aggregator.accumulate(entity);
+                                first = first == 0 ? entity.getTimestamp() : Math.min(first, entity.getTimestamp());
+                                last = Math.max(last, entity.getTimestamp());
+                            }
+                        }
+                        Map<List<String>, ?> result = aggregateCondition.isTimeSeries()
+                            ? ((TimeSeriesAggregator) aggregator).getMetric() : aggregator.result();
+                        return (List<T>) new ArrayList<>(result.entrySet());
+                    }
+                }
+
+                @Override
+                public long getLastTimestamp() {
+                    return last;
+                }
+
+                @Override
+                public long getFirstTimeStamp() {
+                    return first;
+                }
+            };
+        }
+    }
+
+    private static List<TestLogAPIEntity> entities(long start, long end) {
+        List<TestLogAPIEntity> entities = new ArrayList<>();
+        int i = 0;
+        for (long timestamp = start; timestamp < end; timestamp += 7 * MINUTE, i++) {
+            TestLogAPIEntity entity = new TestLogAPIEntity();
+            entity.setTimestamp(timestamp);
+            entity.setTags(new HashMap<>(Collections.singletonMap("cluster", "cluster" + (i % 3))));
+            entity.setField1(i % 10);
+            entity.setField5(i * 0.5);
+            entities.add(entity);
+        }
+        return entities;
+    }
+
+    private static QueryResultCache createCache() {
+        return new QueryResultCache(QueryCacheConfig.fromConfig(ConfigFactory.parseString(
+            "storage.hbase.queryCache {enabled = true, bucketMinutes = 60, delayMinutes = 10}")));
+    }
+
+    private static SearchCondition condition(long startTime, long endTime) {
+        return condition(startTime, endTime, Integer.MAX_VALUE);
+    }
+
+    private static SearchCondition condition(long startTime, long endTime, int pageSize) {
+        SearchCondition condition = new SearchCondition();
+        condition.setStartTime(startTime);
+        condition.setEndTime(endTime);
+        condition.setPageSize(pageSize);
+        condition.setOutputFields(new ArrayList<>(Arrays.asList("cluster", "field1", "field5")));
+        return condition;
+    }
+
+    private static AggregateCondition aggregateCondition(boolean timeSeries, long intervalMs, AggregateFunctionType... functions) {
+        AggregateCondition condition = new AggregateCondition();
+        condition.setGroupbyFields(Collections.singletonList("cluster"));
+        condition.setAggregateFunctionTypes(Arrays.asList(functions));
+        List<String> fields = new ArrayList<>();
+        for (AggregateFunctionType function : functions) {
+            fields.add(AggregateFunctionType.sum.equals(function) || AggregateFunctionType.count.equals(function) ? "field1" : "field5");
+        }
+        condition.setAggregateFields(fields);
+        condition.setTimeSeries(timeSeries);
+        condition.setIntervalMS(intervalMs);
+        return condition;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> Map<List<String>, List<V>> toMap(List<?> result) {
+        Map<List<String>, List<V>> map = new HashMap<>();
+        for (Object entry : result) {
+            map.put(((Map.Entry<List<String>, List<V>>) entry).getKey(), ((Map.Entry<List<String>, List<V>>) entry).getValue());
+        }
+        return map;
+    }
+
+    private static List<String> ranges(List<long[]> reads) {
+        List<String> ranges = new ArrayList<>();
+        for (long[] read : reads) {
+            ranges.add((read[0] - T0) / MINUTE + "-" + (read[1] - T0) / MINUTE);
+        }
+        return ranges;
+    }
+
+    @Test
+    public void testBucketMs() {
+        QueryResultCache cache = createCache();
+        SearchCondition condition = condition(T0 + 30 * MINUTE, T0 + 5 * HOUR);
+        Assert.assertEquals(HOUR, GenericCachedAggregateQuery.bucketMs(condition,
+            aggregateCondition(false, 0, AggregateFunctionType.sum, AggregateFunctionType.max), cache));
+        // avg of buckets can not be merged
+        Assert.assertEquals(0, GenericCachedAggregateQuery.bucketMs(condition,
+            aggregateCondition(false, 0, AggregateFunctionType.avg), cache));
+        Assert.assertEquals(HOUR, GenericCachedAggregateQuery.bucketMs(condition,
+            aggregateCondition(true, 15 * MINUTE, AggregateFunctionType.avg), cache));
+        // intervals larger than the bucket are cached by interval
+        Assert.assertEquals(2 * HOUR, GenericCachedAggregateQuery.bucketMs(condition(T0, T0 + 5 * HOUR),
+            aggregateCondition(true, 2 * HOUR, AggregateFunctionType.sum), cache));
+        // startTime not aligned to the interval, or intervals not dividing the bucket
+        Assert.assertEquals(0, GenericCachedAggregateQuery.bucketMs(condition,
+            aggregateCondition(true, 20 * MINUTE + 1, AggregateFunctionType.sum), cache));
+        Assert.assertEquals(0, GenericCachedAggregateQuery.bucketMs(condition(T0, T0 + 5 * HOUR),
+            aggregateCondition(true, 40 * MINUTE, AggregateFunctionType.sum), cache));
+        Assert.assertEquals(0, GenericCachedAggregateQuery.bucketMs(condition(T0, T0),
+            aggregateCondition(false, 0, AggregateFunctionType.sum), cache));
+    }
+
+    @Test
+    public void testFirstCachedBucket() {
+        QueryResultCache cache = createCache();
+        SearchCondition condition = condition(T0 + 30 * MINUTE, T0 + 5 * HOUR);
+        Assert.assertEquals(T0 + HOUR, GenericCachedAggregateQuery.firstCachedBucket(condition, HOUR, cache, T0 + 10 * HOUR));
+        // first bucket closed 10 minutes after its end
+        Assert.assertEquals(T0 + HOUR, GenericCachedAggregateQuery.firstCachedBucket(condition, HOUR, cache, T0 + 2 * HOUR + 10 * MINUTE));
+        Assert.assertEquals(condition.getEndTime(), GenericCachedAggregateQuery.firstCachedBucket(condition, HOUR, cache, T0 + 2 * HOUR + 9 * MINUTE));
+        // range ending before the end of the first bucket
+        Assert.assertEquals(T0 + 90 * MINUTE, GenericCachedAggregateQuery.firstCachedBucket(condition(T0 + 30 * MINUTE, T0 + 90 * MINUTE),
+            HOUR, cache, T0 + 10 * HOUR));
+        Assert.assertEquals(T0 + HOUR, GenericCachedAggregateQuery.firstCachedBucket(condition(T0 + HOUR, T0 + 2 * HOUR),
+            HOUR, cache, T0 + 10 * HOUR));
+    }
+
+    @Test
+    public void testFlatAggregationSameAsUncached() throws Exception {
+        EntityListQueryFactory factory = new EntityListQueryFactory(entities(T0, T0 + 8 * HOUR));
+        QueryResultCache cache = createCache();
+        AggregateCondition aggregateCondition = aggregateCondition(false, 0, AggregateFunctionType.count,
+            AggregateFunctionType.sum, AggregateFunctionType.min, AggregateFunctionType.max);
+        long startTime = T0 + 25 * MINUTE;
+        long endTime = T0 + 5 * HOUR + 13 * MINUTE;
+        Map<List<String>, List<Double>> expected = toMap(factory.create(SERVICE, condition(startTime, endTime), aggregateCondition, null).result());
+        Assert.assertEquals(3, expected.size());
+
+        factory.reads.clear();
+        GenericCachedAggregateQuery query = new GenericCachedAggregateQuery(SERVICE, condition(startTime, endTime),
+            aggregateCondition, null, SERVICE + "[]<cluster>", cache, factory);
+        Assert.assertEquals(expected, toMap(query.result()));
+        // partial head, the 4 closed buckets, then the partial tail
+        Assert.assertEquals(Arrays.asList("25-60", "60-120", "120-180", "180-240", "240-300", "300-313"), ranges(factory.reads));
+        Assert.assertEquals(startTime + 3 * MINUTE, query.getFirstTimeStamp());
+
+        // the cached buckets are merged with the head and tail of another unaligned range
+        factory.reads.clear();
+        startTime = T0 + 50 * MINUTE;
+        endTime = T0 + 4 * HOUR + MINUTE;
+        expected = toMap(factory.create(SERVICE, condition(startTime, endTime), aggregateCondition, null).result());
+        factory.reads.clear();
+        query = new GenericCachedAggregateQuery(SERVICE, condition(startTime, endTime), aggregateCondition, null, SERVICE + "[]<cluster>", cache, factory);
+        Assert.assertEquals(expected, toMap(query.result()));
+        Assert.assertEquals(Arrays.asList("50-60", "240-241"), ranges(factory.reads));
+        Assert.assertEquals(3, cache.getHits());
+    }
+
+    @Test
+    public void testTimeSeriesAggregationSameAsUncached() throws Exception {
+        EntityListQueryFactory factory = new EntityListQueryFactory(entities(T0, T0 + 8 * HOUR));
+        QueryResultCache cache = createCache();
+        AggregateCondition aggregateCondition = aggregateCondition(true, 15 * MINUTE, AggregateFunctionType.count,
+            AggregateFunctionType.sum, AggregateFunctionType.max);
+        for (int run = 0; run < 2; run++) {
+            long startTime = T0 + 30 * MINUTE;
+            long endTime = T0 + 4 * HOUR + 50 * MINUTE;
+            Map<List<String>, List<double[]>> expected = toMap(factory.create(SERVICE, condition(startTime, endTime), aggregateCondition, null).result());
+            factory.reads.clear();
+            GenericCachedAggregateQuery query = new GenericCachedAggregateQuery(SERVICE, condition(startTime, endTime),
+                aggregateCondition, null, SERVICE + "[]<cluster>", cache, factory);
+            Map<List<String>, List<double[]>> actual = toMap(query.result());
+            Assert.assertEquals(run == 0 ? Arrays.asList("30-60", "60-120", "120-180", "180-240", "240-290") : Arrays.asList("30-60", "240-290"),
+                ranges(factory.reads));
+            Assert.assertEquals(expected.keySet(), actual.keySet());
+            for (Map.Entry<List<String>, List<double[]>> entry : expected.entrySet()) {
+                Assert.assertEquals(18, entry.getValue().get(0).length);
+                for (int i = 0; i < aggregateCondition.getAggregateFunctionTypes().size(); i++) {
+                    Assert.assertArrayEquals(entry.getValue().get(i), actual.get(entry.getKey()).get(i), 0.0);
+                }
+            }
+        }
+        Assert.assertEquals(3, cache.getHits());
+    }
+
+    @Test
+    public void testPageSizeNotServedFromOtherPageSize() throws Exception {
+        EntityListQueryFactory factory = new EntityListQueryFactory(entities(T0, T0 + 8 * HOUR));
+        QueryResultCache cache = createCache();
+        AggregateCondition aggregateCondition = aggregateCondition(false, 0, AggregateFunctionType.count, AggregateFunctionType.sum);
+        long startTime = T0;
+        long endTime = T0 + 4 * HOUR;
+
+        // each bucket read stops after 3 entities
+        GenericCachedAggregateQuery query = new GenericCachedAggregateQuery(SERVICE, condition(startTime, endTime, 3),
+            aggregateCondition, null, SERVICE + "[]<cluster>", cache, factory);
+        Map<List<String>, List<Double>> truncated = toMap(query.result());
+        Assert.assertEquals(4 * 3, truncated.values().stream().mapToDouble(values -> values.get(0)).sum(), 0.0);
+
+        Map<List<String>, List<Double>> expected = toMap(factory.create(SERVICE, condition(startTime, endTime), aggregateCondition, null).result());
+        factory.reads.clear();
+        query = new GenericCachedAggregateQuery(SERVICE, condition(startTime, endTime), aggregateCondition, null,
+            SERVICE + "[]<cluster>", cache, factory);
+        Assert.assertEquals(expected, toMap(query.result()));
+        Assert.assertEquals(Arrays.asList("0-60", "60-120", "120-180", "180-240"), ranges(factory.reads));
+        Assert.assertEquals(0, cache.getHits());
+
+        // the same pageSize is served from the cache
+        factory.reads.clear();
+        query = new GenericCachedAggregateQuery(SERVICE, condition(startTime, endTime, 3), aggregateCondition, null,
+            SERVICE + "[]<cluster>", cache, factory);
+        Assert.assertEquals(truncated, toMap(query.result()));
+        Assert.assertTrue(factory.reads.isEmpty());
+    }
+}
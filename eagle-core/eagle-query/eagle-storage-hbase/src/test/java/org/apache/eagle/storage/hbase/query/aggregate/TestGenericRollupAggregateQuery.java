@@ -0,0 +1,276 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.storage.hbase.query.aggregate;
+
+import com.typesafe.config.ConfigFactory;
+import org.apache.eagle.log.entity.GenericMetricEntity;
+import org.apache.eagle.log.entity.SearchCondition;
+import org.apache.eagle.query.GenericQuery;
+import org.apache.eagle.query.aggregate.AggregateCondition;
+import org.apache.eagle.query.aggregate.AggregateFunctionType;
+import org.apache.eagle.query.aggregate.rollup.MetricRollupConfig;
+import org.apache.eagle.query.aggregate.rollup.RollupStatistic;
+import org.apache.eagle.query.aggregate.rollup.RollupTier;
+import org.apache.eagle.query.parser.ANDExpression;
+import org.apache.eagle.query.parser.AtomicExpression;
+import org.apache.eagle.query.parser.ComparisonOperator;
+import org.apache.eagle.query.parser.ORExpression;
+import org.apache.eagle.query.parser.TokenType;
+import org.apache.eagle.storage.hbase.query.GenericQueryBuilder;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class TestGenericRollupAggregateQuery {
+    private static final long MINUTE = 60 * 1000;
+    private static final long HOUR = 60 * MINUTE;
+    // 2016-01-01 00:00:00 UTC
+    private static final long T0 = 1451606400000L;
+    private static final String METRIC = "hadoop.namenode.rpc.callqueuelength";
+    private static final List<String> CLUSTERS = Arrays.asList("cluster0", "cluster1");
+
+    /**
+     * Aggregates series of (timestamp, value) points by metric name, recording the metric names and time ranges it is asked to read.
+     */
+    private static class SeriesQueryFactory implements AggregateQueryFactory {
+        private final Map<String, Map<String, TreeMap<Long, Double>>> series = new HashMap<>();
+        private final List<String> reads = new ArrayList<>();
+
+        private void put(String metricName, String cluster, long timestamp, double value) {
+            series.computeIfAbsent(metricName, k -> new HashMap<>()).computeIfAbsent(cluster, k -> new TreeMap<>()).put(timestamp, value);
+        }
+
+        @Override
+        public GenericQuery create(String serviceName, SearchCondition condition, AggregateCondition aggregateCondition, String prefix) {
+            return new GenericQuery() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <T> List<T> result() throws Exception {
+                    reads.add(prefix + ":" + (condition.getStartTime() - T0) / HOUR + "-" + (condition.getEndTime() - T0) / HOUR);
+                    long intervalMs = aggregateCondition.getIntervalMS();
+                    int pointsNum = (int) ((condition.getEndTime() - 1 - condition.getStartTime()) / intervalMs + 1);
+                    List<Map.Entry<List<String>, List<double[]>>> result = new ArrayList<>();
+                    for (Map.Entry<String, TreeMap<Long, Double>> group : series.getOrDefault(prefix, Collections.emptyMap()).entrySet()) {
+                        List<double[]> values = new ArrayList<>();
+                        for (AggregateFunctionType function : aggregateCondition.getAggregateFunctionTypes()) {
+                            double[] points = new double[pointsNum];
+                            for (int i = 0; i < pointsNum; i++) {
+                                long from = condition.getStartTime() + i * intervalMs;
+                                points[i] = aggregate(function, group.getValue().subMap(from, Math.min(from + intervalMs, condition.getEndTime())).values());
+                            }
+                            values.add(points);
+                        }
+                        result.add(new AbstractMap.SimpleEntry<>(Collections.singletonList(group.getKey()), values));
+                    }
+                    return (List<T>) result;
+                }
+
+                @Override
+                public long getLastTimestamp() {
+                    return 0;
+                }
+
+                @Override
+                public long getFirstTimeStamp() {
+                    return 0;
+                }
+            };
+        }
+    }
+
+    private static double aggregate(AggregateFunctionType function, Collection<Double> values) {
+        if (values.isEmpty()) {
+            return 0.0;
+        }
+        double sum = 0;
+        double min = Double.MAX_VALUE;
+        double max = -Double.MAX_VALUE;
+        for (double value : values) {
+            sum += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        switch (function) {
+            case count:
+                return values.size();
+            case sum:
+                return sum;
+            case min:
+                return min;
+            case max:
+                return max;
+            case avg:
+                return sum / values.size();
+            default:
+                throw new IllegalArgumentException(function.name());
+        }
+    }
+
+    /**
+     * Raw points every 10 minutes over [start, end), and their hourly rollup series over [start, rolledUp).
+     */
+    private static SeriesQueryFactory createFactory(long start, long end, long rolledUp) {
+        SeriesQueryFactory factory = new SeriesQueryFactory();
+        for (int c = 0; c < CLUSTERS.size(); c++) {
+            for (long timestamp = start; timestamp < end; timestamp += 10 * MINUTE) {
+                factory.put(METRIC, CLUSTERS.get(c), timestamp, (timestamp / MINUTE) % 7 + c * 10);
+            }
+            Map<String, TreeMap<Long, Double>> raw = factory.series.get(METRIC);
+            for (long hour = start; hour < rolledUp; hour += HOUR) {
+                Collection<Double> values = raw.get(CLUSTERS.get(c)).subMap(hour, hour + HOUR).values();
+                factory.put(RollupTier.HOUR.metricName(METRIC, RollupStatistic.COUNT), CLUSTERS.get(c), hour, aggregate(AggregateFunctionType.count, values));
+                factory.put(RollupTier.HOUR.metricName(METRIC, RollupStatistic.SUM), CLUSTERS.get(c), hour, aggregate(AggregateFunctionType.sum, values));
+                factory.put(RollupTier.HOUR.metricName(METRIC, RollupStatistic.MIN), CLUSTERS.get(c), hour, aggregate(AggregateFunctionType.min, values));
+                factory.put(RollupTier.HOUR.metricName(METRIC, RollupStatistic.MAX), CLUSTERS.get(c), hour, aggregate(AggregateFunctionType.max, values));
+            }
+        }
+        return factory;
+    }
+
+    private static SearchCondition condition(long startTime, long endTime) {
+        SearchCondition condition = new SearchCondition();
+        condition.setStartTime(startTime);
+        condition.setEndTime(endTime);
+        condition.setPageSize(Integer.MAX_VALUE);
+        condition.setOutputFields(new ArrayList<>(Arrays.asList("cluster", GenericMetricEntity.VALUE_FIELD)));
+        return condition;
+    }
+
+    private static AggregateCondition aggregateCondition(long intervalMs, AggregateFunctionType... functions) {
+        AggregateCondition condition = new AggregateCondition();
+        condition.setGroupbyFields(Collections.singletonList("cluster"));
+        condition.setAggregateFunctionTypes(Arrays.asList(functions));
+        condition.setAggregateFields(new ArrayList<>(Collections.nCopies(functions.length, GenericMetricEntity.VALUE_FIELD)));
+        condition.setTimeSeries(true);
+        condition.setIntervalMS(intervalMs);
+        return condition;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<List<String>, List<double[]>> toMap(List<?> result) {
+        Map<List<String>, List<double[]>> map = new HashMap<>();
+        for (Object entry : result) {
+            map.put(((Map.Entry<List<String>, List<double[]>>) entry).getKey(), ((Map.Entry<List<String>, List<double[]>>) entry).getValue());
+        }
+        return map;
+    }
+
+    private static void assertSameAsRaw(SeriesQueryFactory factory, SearchCondition condition, AggregateCondition aggregateCondition,
+                                        List<?> result) throws Exception {
+        Map<List<String>, List<double[]>> expected = toMap(factory.create(GenericMetricEntity.GENERIC_METRIC_SERVICE, condition,
+            aggregateCondition, METRIC).result());
+        Map<List<String>, List<double[]>> actual = toMap(result);
+        Assert.assertEquals(expected.keySet(), actual.keySet());
+        for (List<String> key : expected.keySet()) {
+            for (int i = 0; i < aggregateCondition.getAggregateFunctionTypes().size(); i++) {
+                Assert.assertArrayEquals(key + " " + aggregateCondition.getAggregateFunctionTypes().get(i),
+                    expected.get(key).get(i), actual.get(key).get(i), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void testRollupAndRawPartsSameAsRaw() throws Exception {
+        SeriesQueryFactory factory = createFactory(T0, T0 + 10 * HOUR, T0 + 6 * HOUR);
+        SearchCondition condition = condition(T0, T0 + 10 * HOUR);
+        AggregateCondition aggregateCondition = aggregateCondition(2 * HOUR, AggregateFunctionType.count,
+            AggregateFunctionType.sum, AggregateFunctionType.min, AggregateFunctionType.max, AggregateFunctionType.avg);
+        GenericRollupAggregateQuery query = new GenericRollupAggregateQuery(GenericMetricEntity.GENERIC_METRIC_SERVICE, condition,
+            aggregateCondition, METRIC, RollupTier.HOUR, T0 + 6 * HOUR, factory);
+        List<?> result = query.result();
+
+        // rolled up part read once per statistic, avg is served from sum and count
+        Assert.assertEquals(Arrays.asList(
+            RollupTier.HOUR.metricName(METRIC, RollupStatistic.COUNT) + ":0-6",
+            RollupTier.HOUR.metricName(METRIC, RollupStatistic.SUM) + ":0-6",
+            RollupTier.HOUR.metricName(METRIC, RollupStatistic.MIN) + ":0-6",
+            RollupTier.HOUR.metricName(METRIC, RollupStatistic.MAX) + ":0-6",
+            METRIC + ":6-10"), factory.reads);
+        factory.reads.clear();
+        assertSameAsRaw(factory, condition, aggregateCondition, result);
+    }
+
+    @Test
+    public void testRollupPartOnly() throws Exception {
+        SeriesQueryFactory factory = createFactory(T0, T0 + 4 * HOUR, T0 + 4 * HOUR);
+        SearchCondition condition = condition(T0, T0 + 4 * HOUR);
+        AggregateCondition aggregateCondition = aggregateCondition(HOUR, AggregateFunctionType.avg, AggregateFunctionType.max);
+        GenericRollupAggregateQuery query = new GenericRollupAggregateQuery(GenericMetricEntity.GENERIC_METRIC_SERVICE, condition,
+            aggregateCondition, METRIC, RollupTier.HOUR, T0 + 4 * HOUR, factory);
+        List<?> result = query.result();
+
+        // raw series not read when the whole range is rolled up
+        for (String read : factory.reads) {
+            Assert.assertNotEquals(METRIC, read.substring(0, read.lastIndexOf(':')));
+        }
+        factory.reads.clear();
+        assertSameAsRaw(factory, condition, aggregateCondition, result);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBoundaryNotBucketBoundary() {
+        new GenericRollupAggregateQuery(GenericMetricEntity.GENERIC_METRIC_SERVICE, condition(T0, T0 + 10 * HOUR),
+            aggregateCondition(2 * HOUR, AggregateFunctionType.sum), METRIC, RollupTier.HOUR, T0 + 5 * HOUR, new SeriesQueryFactory());
+    }
+
+    private static ORExpression filter(String key, TokenType keyType, String value, TokenType valueType) {
+        AtomicExpression atomicExpression = new AtomicExpression();
+        atomicExpression.setKey(key);
+        atomicExpression.setKeyType(keyType);
+        atomicExpression.setOp(ComparisonOperator.GREATER);
+        atomicExpression.setValue(value);
+        atomicExpression.setValueType(valueType);
+        ANDExpression andExpression = new ANDExpression();
+        andExpression.getAtomicExprList().add(atomicExpression);
+        ORExpression orExpression = new ORExpression();
+        orExpression.getANDExprList().add(andExpression);
+        return orExpression;
+    }
+
+    private static GenericQuery buildRollup(ORExpression filter) throws Exception {
+        SearchCondition condition = condition(T0, T0 + 10 * HOUR);
+        condition.setQueryExpression(filter);
+        return GenericQueryBuilder.select(condition.getOutputFields())
+            .from(GenericMetricEntity.GENERIC_METRIC_SERVICE, METRIC).where(condition)
+            .groupBy(true, Collections.singletonList("cluster"), Collections.singletonList(AggregateFunctionType.sum),
+                Collections.singletonList(GenericMetricEntity.VALUE_FIELD))
+            .timeSeries(true, 120)
+            .rollup(MetricRollupConfig.fromConfig(ConfigFactory.parseString(
+                "storage.hbase.metricRollup {enabled = true, metrics = [\"" + METRIC + "\"]}")))
+            .withoutCoprocessor()
+            .buildRollup();
+    }
+
+    @Test
+    public void testValueFilterNotServedFromRollup() throws Exception {
+        Assert.assertTrue(buildRollup(null) instanceof GenericRollupAggregateQuery);
+        Assert.assertTrue(buildRollup(filter("@cluster", TokenType.ID, "value", TokenType.STRING)) instanceof GenericRollupAggregateQuery);
+        // filters on value would be applied to the statistics of the buckets instead of the raw points
+        Assert.assertNull(buildRollup(filter("@value", TokenType.ID, "100", TokenType.NUMBER)));
+        Assert.assertNull(buildRollup(filter(" value * 2", TokenType.EXP, "100", TokenType.NUMBER)));
+        Assert.assertNull(buildRollup(filter("@field1", TokenType.ID, " value / 2", TokenType.EXP)));
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.storage.hbase.query.coprocessor;
+
+import org.apache.eagle.query.aggregate.AggregateFunctionType;
+import org.apache.eagle.query.aggregate.raw.GroupbyKey;
+import org.apache.eagle.query.aggregate.raw.GroupbyKeyValue;
+import org.apache.eagle.storage.hbase.query.coprocessor.impl.AggregateResultCallbackImpl;
+import org.apache.eagle.storage.hbase.query.coprocessor.impl.TopNAggregateResultCallbackImpl;
+import org.apache.hadoop.hbase.client.Scan;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.io.ByteArrayDataOutput;
+import com.google.common.io.ByteStreams;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+public class TestTopNAggregation {
+    private static final List<AggregateFunctionType> FUNCTIONS = Arrays.asList(AggregateFunctionType.sum, AggregateFunctionType.count);
+
+    private static AggregateResult region(String[] groups, double[] sums, int[] counts) {
+        List<String[]> keys = new ArrayList<>();
+        List<double[]> values = new ArrayList<>();
+        List<Integer> metas = new ArrayList<>();
+        for (int i = 0; i < groups.length; i++) {
+            keys.add(new String[] {groups[i]});
+            values.add(new double[] {sums[i], counts[i]});
+            metas.add(counts[i]);
+        }
+        return AggregateResult.build(keys, values, metas, 0, 0);
+    }
+
+    private static AggregateResult randomRegion(Random random, int groups) {
+        String[] keys = new String[groups];
+        double[] sums = new double[groups];
+        int[] counts = new int[groups];
+        for (int i = 0; i < groups; i++) {
+            keys[i] = "group" + i;
+            counts[i] = 1 + random.nextInt(10);
+            sums[i] = random.nextInt(1000) * counts[i];
+        }
+        return region(keys, sums, counts);
+    }
+
+    /**
+     * Runs the region side of a round on every region and returns the client callback.
+     */
+    private static TopNAggregateResultCallbackImpl round(Scan scan, List<AggregateResult> regions, int index,
+                                                         boolean ascending, int top) throws IOException {
+        TopNAggregateResultCallbackImpl callback = new TopNAggregateResultCallbackImpl(FUNCTIONS, index, ascending, top);
+        for (AggregateResult region : regions) {
+            AggregateResult result = new AggregateResult();
+            result.setKeyValues(TopNAggregation.apply(scan, region.getKeyValues(), result));
+            callback.update(null, null, result);
+        }
+        return callback;
+    }
+
+    private static List<GroupbyKey> sortedKeys(AggregateResult result, int index, boolean ascending, int top) {
+        return result.getKeyValues().stream()
+            .sorted(Comparator.comparingDouble((GroupbyKeyValue kv) -> -TopNAggregation.rank(kv, index, ascending)))
+            .limit(top)
+            .map(GroupbyKeyValue::getKey)
+            .collect(Collectors.toList());
+    }
+
+    private static List<Double> sortedRanks(AggregateResult result, int index, boolean ascending, int top) {
+        return result.getKeyValues().stream()
+            .map(kv -> TopNAggregation.rank(kv, index, ascending))
+            .sorted(Comparator.reverseOrder())
+            .limit(top)
+            .collect(Collectors.toList());
+    }
+
+    private static void assertTopN(List<AggregateResult> regions, int index, boolean ascending, int top) throws IOException {
+        AggregateResultCallbackImpl full = new AggregateResultCallbackImpl(FUNCTIONS);
+        for (AggregateResult region : regions) {
+            full.update(null, null, region);
+        }
+        AggregateResult expected = full.result();
+
+        Scan topScan = new Scan();
+        TopNAggregation.setTopN(topScan, index, ascending, top);
+        TopNAggregateResultCallbackImpl topCallback = round(topScan, regions, index, ascending, top);
+        double unseenBound = topCallback.unseenBound();
+        AggregateResult actual;
+        if (topCallback.isExact(unseenBound)) {
+            actual = topCallback.result();
+        } else {
+            Scan groupScan = new Scan();
+            TopNAggregation.setGroups(groupScan, topCallback.candidates());
+            TopNAggregateResultCallbackImpl groupCallback = round(groupScan, regions, index, ascending, top);
+            if (!groupCallback.isExact(unseenBound)) {
+                return;
+            }
+            actual = groupCallback.result();
+        }
+        Assert.assertEquals(sortedRanks(expected, index, ascending, top), sortedRanks(actual, index, ascending, top));
+    }
+
+    @Test
+    public void testExactAfterFirstRound() throws IOException {
+        List<AggregateResult> regions = Arrays.asList(
+            region(new String[] {"a", "b", "c", "d"}, new double[] {100, 90, 1, 2}, new int[] {1, 1, 1, 1}),
+            region(new String[] {"a", "b"}, new double[] {80, 70}, new int[] {1, 1}));
+        Scan scan = new Scan();
+        TopNAggregation.setTopN(scan, 0, false, 2);
+        TopNAggregateResultCallbackImpl callback = round(scan, regions, 0, false, 2);
+        Assert.assertTrue(callback.isExact(callback.unseenBound()));
+
+        AggregateResult result = callback.result();
+        Assert.assertEquals(2, result.getKeyValues().size());
+        List<GroupbyKey> keys = sortedKeys(result, 0, false, 2);
+        Assert.assertEquals("a", new String(keys.get(0).getValue().get(0).copyBytes()));
+        Assert.assertEquals(180, result.getKeyValues().stream()
+            .filter(kv -> kv.getKey().equals(keys.get(0))).findFirst().get().getValue().get(0).get(), 0);
+        Assert.assertEquals("b", new String(keys.get(1).getValue().get(0).copyBytes()));
+    }
+
+    @Test
+    public void testCandidatesAfterFirstRound() throws IOException {
+        // c is third in both regions but first in total
+        List<AggregateResult> regions = Arrays.asList(
+            region(new String[] {"a", "b", "c"}, new double[] {100, 90, 80}, new int[] {1, 1, 1}),
+            region(new String[] {"d", "e", "c"}, new double[] {100, 90, 80}, new int[] {1, 1, 1}));
+        Scan scan = new Scan();
+        TopNAggregation.setTopN(scan, 0, false, 1);
+        TopNAggregateResultCallbackImpl callback = round(scan, regions, 0, false, 1);
+        Assert.assertFalse(callback.isExact(callback.unseenBound()));
+        Assert.assertEquals(2, callback.candidates().size());
+
+        Scan groupScan = new Scan();
+        TopNAggregation.setGroups(groupScan, callback.candidates());
+        TopNAggregateResultCallbackImpl groupCallback = round(groupScan, regions, 0, false, 1);
+        // c was never returned, and may reach 180 while a and d have 100
+        Assert.assertFalse(groupCallback.isExact(callback.unseenBound()));
+    }
+
+    @Test
+    public void testRandomRegions() throws IOException {
+        Random random = new Random(1);
+        for (int i = 0; i < 100; i++) {
+            List<AggregateResult> regions = new ArrayList<>();
+            for (int r = 0; r < 1 + random.nextInt(5); r++) {
+                regions.add(randomRegion(random, 1 + random.nextInt(50)));
+            }
+            int top = 1 + random.nextInt(10);
+            assertTopN(regions, 0, false, top);
+            assertTopN(regions, 0, true, top);
+            assertTopN(regions, 1, false, top);
+        }
+    }
+
+    @Test
+    public void testReadOlderResult() throws IOException {
+        AggregateResult result = region(new String[] {"a"}, new double[] {1}, new int[] {1});
+        result.setTruncated(true);
+        result.setTopThreshold(1);
+        ByteArrayDataOutput output = ByteStreams.newDataOutput();
+        result.write(output);
+        AggregateResult read = new AggregateResult();
+        read.readFields(new DataInputStream(new ByteArrayInputStream(output.toByteArray())));
+        Assert.assertTrue(read.isTruncated());
+        Assert.assertEquals(1, read.getTopThreshold(), 0);
+
+        // without the top N fields
+        output = ByteStreams.newDataOutput();
+        output.writeLong(0);
+        output.writeLong(0);
+        result.getKeyValues().write(output);
+        read = new AggregateResult();
+        read.readFields(new DataInputStream(new ByteArrayInputStream(output.toByteArray())));
+        Assert.assertFalse(read.isTruncated());
+        Assert.assertEquals(1, read.getKeyValues().size());
+    }
+}
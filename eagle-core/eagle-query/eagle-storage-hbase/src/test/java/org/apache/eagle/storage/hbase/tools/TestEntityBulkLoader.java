@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.storage.hbase.tools;
+
+import org.apache.eagle.log.entity.GenericEntityWriter;
+import org.apache.eagle.log.entity.meta.EntityDefinition;
+import org.apache.eagle.log.entity.meta.EntityDefinitionManager;
+import org.apache.eagle.log.entity.test.TestLogAPIEntity;
+import org.apache.eagle.service.hbase.TestHBaseBase;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.client.HTable;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TestEntityBulkLoader extends TestHBaseBase {
+    private static final byte[][] SPLIT_KEYS = {{(byte) 0x40}, {(byte) 0x80}, {(byte) 0xC0}};
+    private static EntityDefinition entityDefinition;
+
+    @BeforeClass
+    public static void initialize() throws Exception {
+        EntityDefinitionManager.registerEntity(TestLogAPIEntity.class);
+        entityDefinition = EntityDefinitionManager.getEntityDefinitionByEntityClass(TestLogAPIEntity.class);
+    }
+
+    private static TestLogAPIEntity createEntity(int i, String field7) {
+        TestLogAPIEntity entity = new TestLogAPIEntity();
+        entity.setField1(i);
+        entity.setField3(i * 1000L);
+        entity.setField5(i / 3.0);
+        entity.setField7(field7);
+        entity.setTimestamp(i * 60000L);
+        Map<String, String> tags = new HashMap<>();
+        tags.put("jobID", "job_" + i);
+        tags.put("hostname", "host" + (i % 7));
+        tags.put("cluster", "cluster" + (i % 3));
+        entity.setTags(tags);
+        return entity;
+    }
+
+    private static List<TestLogAPIEntity> createEntities(int count) {
+        List<TestLogAPIEntity> entities = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            entities.add(createEntity(i, "value" + i));
+        }
+        // same tags and timestamp written twice, the last one wins
+        entities.add(createEntity(0, "updated"));
+        return entities;
+    }
+
+    private static List<String> scan(HTable table) throws Exception {
+        List<String> cells = new ArrayList<>();
+        try (ResultScanner scanner = table.getScanner(new Scan())) {
+            for (Result result : scanner) {
+                for (Cell cell : result.rawCells()) {
+                    cells.add(Bytes.toStringBinary(CellUtil.cloneRow(cell)) + "/" + Bytes.toString(CellUtil.cloneFamily(cell))
+                        + ":" + Bytes.toStringBinary(CellUtil.cloneQualifier(cell)) + "=" + Bytes.toStringBinary(CellUtil.cloneValue(cell)));
+                }
+            }
+        }
+        return cells;
+    }
+
+    private static HTable recreateTable() throws Exception {
+        byte[] tableName = Bytes.toBytes(entityDefinition.getTable());
+        if (hbase.getHBaseAdmin().tableExists(tableName)) {
+            hbase.deleteTable(tableName);
+        }
+        return hbase.createTable(tableName, new byte[][] {Bytes.toBytes(entityDefinition.getColumnFamily())}, SPLIT_KEYS);
+    }
+
+    @Test
+    public void testBulkLoadSameAsWritePath() throws Exception {
+        List<TestLogAPIEntity> entities = createEntities(200);
+
+        List<String> written;
+        try (HTable table = recreateTable()) {
+            new GenericEntityWriter(entityDefinition).write(entities);
+            written = scan(table);
+        }
+        // rows and index rows
+        Assert.assertTrue(written.size() > 200);
+
+        try (HTable table = recreateTable()) {
+            Path output = new Path(hbase.getDataTestDirOnTestFS(), "bulkload");
+            EntityBulkLoader loader = new EntityBulkLoader(hbase.getConfiguration(), entityDefinition, output, table);
+            loader.setMaxCellsInMemory(500);
+            loader.write(entities);
+            loader.bulkLoad(table);
+            Assert.assertEquals(entities.size(), loader.getEntityCount());
+            Assert.assertTrue(loader.getRunDirs().size() > 1);
+            List<String> loaded = scan(table);
+            Assert.assertEquals(written, loaded);
+            Assert.assertTrue(loaded.stream().anyMatch(cell -> cell.endsWith("=updated")));
+            Assert.assertFalse(loaded.stream().anyMatch(cell -> cell.endsWith("=value0")));
+        }
+    }
+}
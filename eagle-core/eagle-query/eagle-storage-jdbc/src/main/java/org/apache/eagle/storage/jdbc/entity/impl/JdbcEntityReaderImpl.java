@@ -87,18 +87,19 @@ public class JdbcEntityReaderImpl implements JdbcEntityReader {
     }
 
     private <E> Map timeseriesAggregate(List<E> result, CompiledQuery query) throws Exception {
-        TimeSeriesAggregator aggregator = new TimeSeriesAggregator(query.getGroupByFields(),
+        try (TimeSeriesAggregator aggregator = new TimeSeriesAggregator(query.getGroupByFields(),
             query.getAggregateFunctionTypes(),
             query.getAggregateFields(),
             query.getStartTime(), query.getEndTime(),
             query.getIntervalMin()
-        );
-        for(E entity: result)
-            aggregator.accumulate((TaggedLogAPIEntity) entity);
-        if(this.jdbcEntityDefinition.isGenericMetric()) {
-            return aggregator.getMetric();
-        } else {
-            return aggregator.result();
+        )) {
+            for(E entity: result)
+                aggregator.accumulate((TaggedLogAPIEntity) entity);
+            if(this.jdbcEntityDefinition.isGenericMetric()) {
+                return aggregator.getMetric();
+            } else {
+                return aggregator.result();
+            }
         }
     }
 
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.log4j.kafka
+
+import java.util.concurrent.atomic.{AtomicLong, AtomicLongArray, AtomicReferenceArray}
+
+/**
+ * Bounded multi producer multi consumer queue over a ring of slots, which never blocks nor allocates per element.
+ *
+ * Every slot carries a sequence telling whether it is free for the producer or filled for the consumer of a
+ * position, so producers and consumers only compete with compare-and-set on their own position.
+ *
+ * @param requestedCapacity rounded up to a power of two, at least 2 so that a filled slot can't be taken for a free one
+ */
+class BoundedRingBuffer[T <: AnyRef](requestedCapacity: Int) {
+  require(requestedCapacity > 0, "capacity must be positive: " + requestedCapacity)
+
+  val capacity: Int = if (requestedCapacity <= 2) 2 else Integer.highestOneBit(requestedCapacity - 1) << 1
+  private val mask = capacity - 1
+  private val elements = new AtomicReferenceArray[T](capacity)
+  private val sequences = new AtomicLongArray(capacity)
+  private val enqueuePosition = new AtomicLong(0)
+  private val dequeuePosition = new AtomicLong(0)
+
+  for (i <- 0 until capacity) sequences.set(i, i)
+
+  /**
+   * @return false if the buffer is full
+   */
+  def offer(element: T): Boolean = {
+    var position = enqueuePosition.get
+    while (true) {
+      val index = (position & mask).toInt
+      val difference = sequences.get(index) - position
+      if (difference == 0) {
+        if (enqueuePosition.compareAndSet(position, position + 1)) {
+          elements.set(index, element)
+          sequences.set(index, position + 1)
+          return true
+        }
+        position = enqueuePosition.get
+      } else if (difference < 0) {
+        return false
+      } else {
+        position = enqueuePosition.get
+      }
+    }
+    false
+  }
+
+  /**
+   * @return the oldest element, or null if the buffer is empty
+   */
+  def poll(): T = {
+    var position = dequeuePosition.get
+    while (true) {
+      val index = (position & mask).toInt
+      val difference = sequences.get(index) - (position + 1)
+      if (difference == 0) {
+        if (dequeuePosition.compareAndSet(position, position + 1)) {
+          val element = elements.get(index)
+          elements.set(index, null.asInstanceOf[T])
+          sequences.set(index, position + capacity)
+          return element
+        }
+        position = dequeuePosition.get
+      } else if (difference < 0) {
+        return null.asInstanceOf[T]
+      } else {
+        position = dequeuePosition.get
+      }
+    }
+    null.asInstanceOf[T]
+  }
+
+  /**
+   * @return number of elements, only exact when no other thread is using the buffer
+   */
+  def size: Int = math.max(0, math.min(capacity.toLong, enqueuePosition.get - dequeuePosition.get)).toInt
+
+  def isEmpty: Boolean = size == 0
+}
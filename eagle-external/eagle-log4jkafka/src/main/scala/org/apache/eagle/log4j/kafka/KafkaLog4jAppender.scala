@@ -49,7 +49,15 @@ class KafkaLog4jAppender extends AppenderSkeleton with Logging {
 
   def setKeyPattern(keyPattern: String) { this.keyPattern = keyPattern }
 
+  /** enqueue to a bounded ring drained by a background sender instead of calling the producer while logging */
+  var nonBlocking: Boolean = false
+  var bufferSize: Int = 8192
+  var overflowPolicy: String = NonBlockingSender.DROP_NEWEST
+  var latencyThresholdMs: Long = 1000
+  var closeTimeoutMs: Long = 5000
+
   private var producer: Producer[String, String] = null
+  private var sender: NonBlockingSender = null
 
   def getTopic:String = topic
   def setTopic(topic: String) { this.topic = topic }
@@ -84,6 +92,31 @@ class KafkaLog4jAppender extends AppenderSkeleton with Logging {
   def getBatchSize:Int = batchSize
   def setBatchSize(batchSize:Int) { this.batchSize = batchSize };
 
+  def getNonBlocking: Boolean = nonBlocking
+  def setNonBlocking(nonBlocking: Boolean) { this.nonBlocking = nonBlocking }
+
+  def getBufferSize: Int = bufferSize
+  def setBufferSize(bufferSize: Int) { this.bufferSize = bufferSize }
+
+  def getOverflowPolicy: String = overflowPolicy
+  def setOverflowPolicy(overflowPolicy: String) { this.overflowPolicy = overflowPolicy }
+
+  def getLatencyThresholdMs: Long = latencyThresholdMs
+  def setLatencyThresholdMs(latencyThresholdMs: Long) { this.latencyThresholdMs = latencyThresholdMs }
+
+  def getCloseTimeoutMs: Long = closeTimeoutMs
+  def setCloseTimeoutMs(closeTimeoutMs: Long) { this.closeTimeoutMs = closeTimeoutMs }
+
+  /** messages dropped because the buffer of the non blocking mode was full */
+  def getDroppedCount: Long = if(sender != null) sender.getDroppedCount else 0
+
+  /** messages sent later than latencyThresholdMs after they were logged in the non blocking mode */
+  def getLatencyEventCount: Long = if(sender != null) sender.getLatencyEventCount else 0
+
+  def getSentCount: Long = if(sender != null) sender.getSentCount else 0
+
+  def getFailedCount: Long = if(sender != null) sender.getFailedCount else 0
+
   override def activateOptions() {
     // check for config parameter validity
     val props = new Properties()
@@ -131,19 +164,31 @@ class KafkaLog4jAppender extends AppenderSkeleton with Logging {
       }
     }
 
+    if(nonBlocking) {
+      sender = new NonBlockingSender(if(getName != null) getName else topic, bufferSize, overflowPolicy, batchSize,
+        latencyThresholdMs, messages => producer.send(messages.map(toKeyedMessage): _*))
+      LogLog.debug("Sending through a buffer of " + bufferSize + " messages, overflow policy: " + overflowPolicy)
+    }
+
     LogLog.debug("Kafka producer connected to " +  config.brokerList)
     LogLog.debug("Logging for topic: " + topic)
   }
 
   override def append(event: LoggingEvent)  {
     val message = subAppend(event)
-    LogLog.debug("[" + new Date(event.getTimeStamp).toString + "]" + message)
+    if(sender != null) {
+      // keyer, topic picker and producer run on the sender thread, this never blocks
+      sender.offer(message)
+    } else {
+      LogLog.debug("[" + new Date(event.getTimeStamp).toString + "]" + message)
+      producer.send(toKeyedMessage(message))
+    }
+  }
 
+  private def toKeyedMessage(message: String): KeyedMessage[String, String] = {
     val messageKey = if(keyer != null) keyer.getKey(message) else null
     val messageTopic = if(topicPicker != null) topicPicker.getTopic(message) else topic
-
-    val messageData = new KeyedMessage[String, String](messageTopic, messageKey, message)
-    producer.send(messageData)
+    new KeyedMessage[String, String](messageTopic, messageKey, message)
   }
 
   def subAppend(event: LoggingEvent): String = {
@@ -156,6 +201,7 @@ class KafkaLog4jAppender extends AppenderSkeleton with Logging {
   override def close() {
     if(!this.closed) {
       this.closed = true
+      if(sender != null) sender.close(closeTimeoutMs)
       producer.close()
     }
   }
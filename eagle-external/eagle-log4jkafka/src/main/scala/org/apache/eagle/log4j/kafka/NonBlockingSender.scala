@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.log4j.kafka
+
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.locks.LockSupport
+
+import org.apache.log4j.helpers.LogLog
+
+import scala.collection.mutable.ArrayBuffer
+
+/**
+ * Ships messages of logging threads through a bounded ring drained by a background thread, so that a slow or
+ * unreachable broker never blocks the thread which logged the message. When the ring is full, the overflow policy
+ * drops either the new message or the oldest queued one.
+ *
+ * @param bufferSize         capacity of the ring
+ * @param overflowPolicy     [[NonBlockingSender.DROP_NEWEST]] or [[NonBlockingSender.DROP_OLDEST]]
+ * @param batchSize          maximum number of messages given to send at once
+ * @param latencyThresholdMs messages sent later than that after they were logged are counted as latency events
+ * @param send               sends a batch of messages, called on the sender thread only
+ */
+class NonBlockingSender(name: String, bufferSize: Int, overflowPolicy: String, batchSize: Int,
+                        latencyThresholdMs: Long, send: Seq[String] => Unit) {
+  import NonBlockingSender._
+
+  require(overflowPolicy == DROP_NEWEST || overflowPolicy == DROP_OLDEST, "Unknown overflow policy: " + overflowPolicy)
+  require(batchSize > 0, "batch size must be positive: " + batchSize)
+
+  private val ring = new BoundedRingBuffer[QueuedMessage](bufferSize)
+  private val latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyThresholdMs)
+
+  private val droppedCount = new AtomicLong(0)
+  private val sentCount = new AtomicLong(0)
+  private val failedCount = new AtomicLong(0)
+  private val latencyEventCount = new AtomicLong(0)
+
+  @volatile private var running = true
+  @volatile private var idle = false
+  // only used by the sender thread
+  private var failing = false
+  // guarded by report
+  private var reportedDropped = 0L
+  private var reportedFailed = 0L
+  private var reportedLatencyEvents = 0L
+
+  // started once all the fields above are initialized
+  private val thread = new Thread(new Runnable {
+    override def run(): Unit = drain()
+  }, "kafka-log4j-sender-" + name)
+  thread.setDaemon(true)
+  thread.start()
+
+  /**
+   * Never blocks.
+   *
+   * @return false if the message or an older one was dropped
+   */
+  def offer(message: String): Boolean = {
+    val queued = new QueuedMessage(message, System.nanoTime)
+    var dropped = 0
+    var accepted = ring.offer(queued)
+    if (!accepted && overflowPolicy == DROP_OLDEST) {
+      if (ring.poll() != null) dropped += 1
+      accepted = ring.offer(queued)
+    }
+    if (!accepted) dropped += 1
+    if (dropped > 0) droppedCount.addAndGet(dropped)
+    if (idle) LockSupport.unpark(thread)
+    dropped == 0
+  }
+
+  def getDroppedCount: Long = droppedCount.get
+
+  def getSentCount: Long = sentCount.get
+
+  def getFailedCount: Long = failedCount.get
+
+  def getLatencyEventCount: Long = latencyEventCount.get
+
+  def getQueueSize: Int = ring.size
+
+  /**
+   * Stops accepting messages and waits for the queued ones to be sent.
+   *
+   * @return whether all the queued messages were sent within the timeout
+   */
+  def close(timeoutMs: Long): Boolean = {
+    running = false
+    LockSupport.unpark(thread)
+    thread.join(timeoutMs)
+    val drained = !thread.isAlive
+    if (!drained) LogLog.warn(name + " closed with about " + ring.size + " messages left unsent")
+    report()
+    drained
+  }
+
+  private def drain(): Unit = {
+    val batch = new ArrayBuffer[QueuedMessage](batchSize)
+    var lastReport = System.currentTimeMillis
+    while (running || !ring.isEmpty) {
+      var queued: QueuedMessage = null
+      while (batch.size < batchSize && { queued = ring.poll(); queued != null }) batch += queued
+      if (batch.isEmpty) {
+        // offer wakes the thread up when it sees it idle, the timeout covers the messages offered just before
+        idle = true
+        if (running && ring.isEmpty) LockSupport.parkNanos(this, IDLE_WAIT_NANOS)
+        idle = false
+      } else {
+        sendBatch(batch)
+        batch.clear()
+      }
+      if (System.currentTimeMillis - lastReport >= REPORT_INTERVAL_MS) {
+        report()
+        lastReport = System.currentTimeMillis
+      }
+    }
+  }
+
+  private def sendBatch(batch: ArrayBuffer[QueuedMessage]): Unit = {
+    try {
+      send(batch.map(_.message))
+      sentCount.addAndGet(batch.size)
+      failing = false
+    } catch {
+      case e: Exception =>
+        failedCount.addAndGet(batch.size)
+        // only log the first failure until a batch is sent again
+        if (!failing) LogLog.error(name + " failed to send " + batch.size + " messages", e)
+        failing = true
+    }
+    val now = System.nanoTime
+    var latencyEvents = 0
+    batch.foreach(queued => if (now - queued.enqueueTime > latencyThresholdNanos) latencyEvents += 1)
+    if (latencyEvents > 0) latencyEventCount.addAndGet(latencyEvents)
+  }
+
+  private def report(): Unit = synchronized {
+    val dropped = droppedCount.get
+    val failed = failedCount.get
+    val latencyEvents = latencyEventCount.get
+    if (dropped > reportedDropped || failed > reportedFailed || latencyEvents > reportedLatencyEvents) {
+      LogLog.warn(name + " dropped " + (dropped - reportedDropped) + ", failed to send " + (failed - reportedFailed)
+        + " and sent " + (latencyEvents - reportedLatencyEvents) + " messages later than " + latencyThresholdMs
+        + " ms since last report, " + sentCount.get + " messages sent in total")
+      reportedDropped = dropped
+      reportedFailed = failed
+      reportedLatencyEvents = latencyEvents
+    }
+  }
+}
+
+object NonBlockingSender {
+  /** drop the message being logged when the buffer is full */
+  val DROP_NEWEST = "DropNewest"
+  /** drop the oldest queued message to make room for the one being logged */
+  val DROP_OLDEST = "DropOldest"
+
+  private val IDLE_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(100)
+  private val REPORT_INTERVAL_MS = 60000L
+
+  private class QueuedMessage(val message: String, val enqueueTime: Long)
+}
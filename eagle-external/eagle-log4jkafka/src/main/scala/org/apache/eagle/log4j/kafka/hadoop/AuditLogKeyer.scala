@@ -25,9 +25,14 @@ class AuditLogKeyer(props:Properties) extends Keyer{
    * the data to the appropriate broker partition
    * @return returns a key based on the message
    */
-  override def getKey(msg: String): String = if(msg != null) AuditLogKeyer.getKey(msg.split("\\s+")) else null
+  override def getKey(msg: String): String = if(msg != null) AuditLogKeyer.getKey(msg) else null
 }
 
 object AuditLogKeyer{
   def getKey(fields: Array[String]):String = if(fields.length > 5) AuditLogUtils.parseUser(fields(5)) else null
+
+  def getKey(msg: String): String = {
+    val user = AuditLogUtils.field(msg, 5)
+    if(user != null) AuditLogUtils.parseUser(user) else null
+  }
 }
\ No newline at end of file
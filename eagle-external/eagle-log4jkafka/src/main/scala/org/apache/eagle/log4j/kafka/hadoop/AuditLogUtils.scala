@@ -26,4 +26,43 @@ object AuditLogUtils {
   }
 
   def parseIP(ipPort:String):String = ipPort.substring(0,ipPort.indexOf(':') + 1)
+
+  /**
+   * Field of the given index of the message, the same as msg.split("\\s+")(index) for non blank messages but
+   * without regex nor array, as keyers and filters run for every logged line.
+   *
+   * @return null if the message has no such field
+   */
+  def field(msg: String, index: Int): String = {
+    val start = fieldStart(msg, index)
+    if (start < 0) null else msg.substring(start, fieldEnd(msg, start))
+  }
+
+  /**
+   * @return whether the field of the given index of the message equals the value, without copying the field
+   */
+  def fieldEquals(msg: String, index: Int, value: String): Boolean = {
+    val start = fieldStart(msg, index)
+    start >= 0 && fieldEnd(msg, start) - start == value.length && msg.regionMatches(start, value, 0, value.length)
+  }
+
+  private def isWhitespace(c: Char): Boolean = c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r'
+
+  private def fieldEnd(msg: String, start: Int): Int = {
+    var end = start
+    while (end < msg.length && !isWhitespace(msg.charAt(end))) end += 1
+    end
+  }
+
+  private def fieldStart(msg: String, index: Int): Int = {
+    var start = 0
+    var i = 0
+    while (i < index) {
+      start = fieldEnd(msg, start)
+      while (start < msg.length && isWhitespace(msg.charAt(start))) start += 1
+      if (start == msg.length) return -1
+      i += 1
+    }
+    start
+  }
 }
\ No newline at end of file
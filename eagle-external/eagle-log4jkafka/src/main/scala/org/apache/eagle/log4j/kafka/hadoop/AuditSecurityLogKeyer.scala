@@ -32,12 +32,9 @@ class AuditSecurityLogKeyer(props:Properties) extends Keyer{
   val AUDITLOG_SOURCE:String = "FSNamesystem.audit:"
 
   override def getKey(msg: String): String = {
-    val fields: Array[String] = msg.split("\\s+")
-    if(fields.length > 3){
-      if(fields(3).equals(AUDITLOG_SOURCE))
-        AuditLogKeyer.getKey(fields)
-      else
-        SecurityLogKeyer.getKey(fields)
-    } else null
+    if(AuditLogUtils.fieldEquals(msg, 3, AUDITLOG_SOURCE))
+      AuditLogKeyer.getKey(msg)
+    else
+      SecurityLogKeyer.getKey(msg)
   }
 }
\ No newline at end of file
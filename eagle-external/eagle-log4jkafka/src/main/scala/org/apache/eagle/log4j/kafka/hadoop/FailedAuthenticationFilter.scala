@@ -26,8 +26,8 @@ class FailedAuthenticationFilter extends Filter{
   override def decide(event: LoggingEvent): Int = {
     event.getMessage match {
       case message: String =>
-        val fields: Array[String] = message.split("\\s+")
-        if (fields.length > 5 && fields(3).equals(FailedAuthenticationFilter.AUTH_LOG_SOURCE) && fields(5).equals(FailedAuthenticationFilter.FAILED)) {
+        if (AuditLogUtils.fieldEquals(message, 3, FailedAuthenticationFilter.AUTH_LOG_SOURCE)
+          && AuditLogUtils.fieldEquals(message, 5, FailedAuthenticationFilter.FAILED)) {
           Filter.DENY
         }
       case _ =>
@@ -25,15 +25,19 @@ import org.apache.eagle.log4j.kafka.Keyer
 import scala.util.matching.Regex
 
 class GenericLogKeyer(props:Properties) extends Keyer {
+  // compiled once rather than for every message
+  private val pattern: Regex = {
+    val keyPattern = props.getProperty("keyPattern")
+    if (keyPattern == null) null else new Regex(keyPattern, "key")
+  }
+
   /**
    * Uses the key to calculate a partition bucket id for routing
    * the data to the appropriate broker partition
    * @return returns a key based on the message
    */
   override def getKey(msg: String): String = {
-    val keyPattern = props.getProperty("keyPattern");
-    if(keyPattern == null) return null
-    val pattern = new Regex(keyPattern, "key");
+    if(pattern == null) return null
     val result = pattern.findFirstMatchIn(msg).getOrElse(null);
     if (result == null) {
       return null;
@@ -29,7 +29,7 @@ class SecurityLogKeyer(props:Properties) extends Keyer{
    * the data to the appropriate broker partition
    * @return returns a key based on the message
    */
-  override def getKey(msg: String): String = SecurityLogKeyer.getKey(msg.split("\\s+"))
+  override def getKey(msg: String): String = SecurityLogKeyer.getKey(msg)
 }
 
 object SecurityLogKeyer{
@@ -47,4 +47,14 @@ object SecurityLogKeyer{
     }
     null
   }
+
+  def getKey(msg: String): String = {
+    if (AuditLogUtils.fieldEquals(msg, 5, SUCCESSFUL)) {
+      val user = AuditLogUtils.field(msg, 7)
+      if (user != null) AuditLogUtils.parseUser(user) else null
+    } else if (AuditLogUtils.fieldEquals(msg, 5, FAILED)) {
+      val ip = AuditLogUtils.field(msg, 7)
+      if (ip != null) AuditLogUtils.parseIP(ip) else null
+    } else null
+  }
 }
\ No newline at end of file
@@ -44,8 +44,7 @@ class SecurityLogTopicPicker extends TopicPicker{
    * returns a topic based on the message.
    */
   override def getTopic(value: String): String = {
-    val fields = value.split("\\s+")
-    if(fields.length > 5 && fields(5).equals(FAILED))
+    if(AuditLogUtils.fieldEquals(value, 5, FAILED))
       failedAuthnTopic
     else
       securityTopic
@@ -20,7 +20,7 @@ import java.util.Properties
 
 import org.apache.kafka.clients.consumer.ConsumerConfig
 import org.apache.log4j.{Level, Logger}
-import org.junit.Test
+import org.junit.{Assert, Test}
 
 class KafkaLog4jAppenderIT extends KafkaTestBase {
   val KafkaLog4jAppenderTopic = "KafkaLog4jAppender"
@@ -62,6 +62,28 @@ class KafkaLog4jAppenderIT extends KafkaTestBase {
     }
   }
 
+  @Test def testNonBlockingKafkaLog4jAppender(): Unit = {
+    val kafkaLog4jAppender = new KafkaLog4jAppender()
+    try {
+      kafkaLog4jAppender.setName("NonBlocking" + classOf[KafkaLog4jAppender].getName)
+      kafkaLog4jAppender.setTopic(KafkaLog4jAppenderTopic)
+      kafkaLog4jAppender.setBrokerList(kafkaBrokerList)
+      kafkaLog4jAppender.setProducerType("sync")
+      kafkaLog4jAppender.setNonBlocking(true)
+      kafkaLog4jAppender.setBufferSize(1024)
+      kafkaLog4jAppender.setBatchSize(100)
+
+      kafkaLog4jAppender.activateOptions()
+      KafkaLog4jAppenderLogger.addAppender(kafkaLog4jAppender)
+      for (i <- 0 until 1000) KafkaLog4jAppenderLogger.info("message " + i + " to non blocking KafkaLog4jAppender")
+    } finally {
+      KafkaLog4jAppenderLogger.removeAppender(kafkaLog4jAppender)
+      kafkaLog4jAppender.close()
+    }
+    Assert.assertEquals(1000, kafkaLog4jAppender.getSentCount + kafkaLog4jAppender.getDroppedCount)
+    Assert.assertEquals(0, kafkaLog4jAppender.getFailedCount)
+  }
+
   @Test def testJKafkaLog4jAppender(): Unit = {
     val jKafkaLog4jAppender = new JKafkaLog4jAppender()
     try {
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.log4j.kafka
+
+import java.util.concurrent.{ConcurrentHashMap, CountDownLatch}
+
+import org.junit.{Assert, Test}
+
+class TestBoundedRingBuffer {
+
+  @Test def testCapacity() {
+    Assert.assertEquals(2, new BoundedRingBuffer[String](1).capacity)
+    Assert.assertEquals(8, new BoundedRingBuffer[String](8).capacity)
+    Assert.assertEquals(16, new BoundedRingBuffer[String](9).capacity)
+  }
+
+  @Test def testOfferAndPoll() {
+    val ring = new BoundedRingBuffer[String](4)
+    Assert.assertNull(ring.poll())
+    for (i <- 0 until 4) Assert.assertTrue(ring.offer("m" + i))
+    Assert.assertFalse(ring.offer("m4"))
+    Assert.assertEquals(4, ring.size)
+    Assert.assertEquals("m0", ring.poll())
+    Assert.assertTrue(ring.offer("m4"))
+    for (i <- 1 to 4) Assert.assertEquals("m" + i, ring.poll())
+    Assert.assertNull(ring.poll())
+    Assert.assertTrue(ring.isEmpty)
+  }
+
+  @Test def testConcurrentProducers() {
+    val ring = new BoundedRingBuffer[String](64)
+    val producers = 4
+    val messages = 10000
+    val start = new CountDownLatch(1)
+    val threads = (0 until producers).map(p => new Thread(new Runnable {
+      override def run(): Unit = {
+        start.await()
+        for (i <- 0 until messages) {
+          while (!ring.offer(p + "-" + i)) Thread.`yield`()
+        }
+      }
+    }))
+    threads.foreach(_.start())
+    start.countDown()
+
+    val received = new ConcurrentHashMap[String, String]()
+    val lastReceived = new Array[Int](producers).map(_ => -1)
+    while (received.size < producers * messages) {
+      val message = ring.poll()
+      if (message != null) {
+        Assert.assertNull("received twice: " + message, received.put(message, message))
+        val Array(p, i) = message.split("-").map(_.toInt)
+        // messages of a producer keep their order
+        Assert.assertTrue(i > lastReceived(p))
+        lastReceived(p) = i
+      }
+    }
+    threads.foreach(_.join())
+    Assert.assertTrue(ring.isEmpty)
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.log4j.kafka
+
+import java.util.concurrent.{CopyOnWriteArrayList, CountDownLatch, TimeUnit}
+
+import org.junit.{Assert, Test}
+
+import scala.collection.JavaConverters._
+
+class TestNonBlockingSender {
+
+  @Test def testSend() {
+    val sent = new CopyOnWriteArrayList[String]()
+    val sender = new NonBlockingSender("test", 16, NonBlockingSender.DROP_NEWEST, 4, 1000, messages => sent.addAll(messages.asJava))
+    for (i <- 0 until 100) {
+      while (!sender.offer("m" + i)) {
+        // only dropped when full
+        Assert.assertTrue(sender.getDroppedCount > 0)
+      }
+    }
+    Assert.assertTrue(sender.close(10000))
+    Assert.assertEquals(100, sender.getSentCount)
+    Assert.assertEquals(100, sent.size)
+    // retried until accepted, so all sent in order
+    Assert.assertEquals((0 until 100).map("m" + _), sent.asScala)
+  }
+
+  @Test def testDropNewestWithoutBlocking() {
+    val release = new CountDownLatch(1)
+    val sent = new CopyOnWriteArrayList[String]()
+    val sender = new NonBlockingSender("test", 4, NonBlockingSender.DROP_NEWEST, 1, 0, messages => {
+      release.await()
+      sent.addAll(messages.asJava)
+    })
+    val start = System.nanoTime
+    for (i <- 0 until 100) sender.offer("m" + i)
+    Assert.assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime - start) < 5)
+    // the sender holds one message, the buffer 4 more
+    Assert.assertTrue(sender.getDroppedCount >= 95)
+
+    release.countDown()
+    Assert.assertTrue(sender.close(10000))
+    Assert.assertEquals(100, sender.getDroppedCount + sender.getSentCount)
+    Assert.assertEquals("m0", sent.get(0))
+    Assert.assertEquals(sender.getSentCount, sender.getLatencyEventCount)
+  }
+
+  @Test def testDropOldest() {
+    val release = new CountDownLatch(1)
+    val sent = new CopyOnWriteArrayList[String]()
+    val sender = new NonBlockingSender("test", 4, NonBlockingSender.DROP_OLDEST, 1, 1000, messages => {
+      release.await()
+      sent.addAll(messages.asJava)
+    })
+    for (i <- 0 until 100) sender.offer("m" + i)
+    release.countDown()
+    Assert.assertTrue(sender.close(10000))
+    Assert.assertEquals(100, sender.getDroppedCount + sender.getSentCount)
+    // the newest messages are kept
+    Assert.assertEquals((96 until 100).map("m" + _), sent.asScala.takeRight(4))
+  }
+
+  @Test def testSendFailure() {
+    val sender = new NonBlockingSender("test", 16, NonBlockingSender.DROP_NEWEST, 4, 1000, messages => throw new RuntimeException("broker down"))
+    for (i <- 0 until 10) sender.offer("m" + i)
+    Assert.assertTrue(sender.close(10000))
+    Assert.assertEquals(10, sender.getFailedCount)
+    Assert.assertEquals(0, sender.getSentCount)
+  }
+}
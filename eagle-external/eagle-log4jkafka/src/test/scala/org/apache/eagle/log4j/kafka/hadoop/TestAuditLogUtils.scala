@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.log4j.kafka.hadoop
+
+import java.util.Properties
+
+import org.junit.{Assert, Test}
+
+class TestAuditLogUtils {
+  val auditLog = "2015-07-31 01:54:35,161 INFO FSNamesystem.audit: allowed=true ugi=root@EXAMPLE.COM (auth:TOKEN) ip=/10.0.0.1 cmd=open src=/tmp/private dst=null perm=null"
+  val successfulLog = "2015-12-24 03:17:47,019 INFO SecurityLogger.org.apache.hadoop.ipc.Server: Auth successful for hive@EXAMPLE.COM (auth:KERBEROS)"
+  val failedLog = "2015-12-24 03:17:47,019 INFO SecurityLogger.org.apache.hadoop.ipc.Server: Auth failed for 10.0.0.1:55555:null (GSS initiate failed)"
+
+  @Test def testField() {
+    for (msg <- Seq(auditLog, successfulLog, failedLog, "  leading  and trailing\twhitespace  ", "", "single")) {
+      val fields = msg.split("\\s+")
+      for (i <- fields.indices) {
+        Assert.assertEquals(fields(i), AuditLogUtils.field(msg, i))
+        Assert.assertTrue(AuditLogUtils.fieldEquals(msg, i, fields(i)))
+        Assert.assertFalse(AuditLogUtils.fieldEquals(msg, i, fields(i) + "x"))
+      }
+      Assert.assertNull(AuditLogUtils.field(msg, fields.length))
+      Assert.assertFalse(AuditLogUtils.fieldEquals(msg, fields.length, ""))
+    }
+  }
+
+  @Test def testKeyers() {
+    val keyer = new AuditSecurityLogKeyer(new Properties())
+    for (msg <- Seq(auditLog, successfulLog, failedLog, "too short")) {
+      val fields = msg.split("\\s+")
+      val expected = if (fields.length > 3) {
+        if (fields(3) == keyer.AUDITLOG_SOURCE) AuditLogKeyer.getKey(fields) else SecurityLogKeyer.getKey(fields)
+      } else null
+      Assert.assertEquals(expected, keyer.getKey(msg))
+    }
+    Assert.assertEquals("root", keyer.getKey(auditLog))
+    Assert.assertEquals("hive", keyer.getKey(successfulLog))
+    Assert.assertEquals("10.0.0.1:", keyer.getKey(failedLog))
+  }
+}
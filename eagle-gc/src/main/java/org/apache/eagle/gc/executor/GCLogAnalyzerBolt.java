@@ -39,10 +39,12 @@ public class GCLogAnalyzerBolt extends BaseRichBolt {
     public final static Logger LOG = LoggerFactory.getLogger(GCLogAnalyzerBolt.class);
     private OutputCollector collector;
     private long previousLogTime;
+    private GCStreamBuilder builder;
 
     @Override
     public void prepare(Map stormConf, TopologyContext context, OutputCollector collector) {
         this.collector = collector;
+        this.builder = new GCStreamBuilder();
     }
 
     @Override
@@ -55,7 +57,6 @@ public class GCLogAnalyzerBolt extends BaseRichBolt {
     @Override
     public void execute(Tuple input) {
         String log = input.getString(0);
-        GCStreamBuilder builder = new GCStreamBuilder();
         try {
             GCPausedEvent pauseEvent = builder.build(log);
             // Because some gc log like concurrent mode failure may miss timestamp info, so we set the previous log's timestamp for it
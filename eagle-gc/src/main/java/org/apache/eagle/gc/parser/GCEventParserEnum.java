@@ -26,21 +26,30 @@ import org.apache.eagle.gc.parser.full.ParaNewPromotionFailureParser;
 import org.apache.eagle.gc.parser.young.ParaNewParser;
 
 public enum GCEventParserEnum {
-	paraNew(new ParaNewParser()),
-	cmsInitialMark(new CMSInitialMarkParser()),
-	cmsRemark(new CMSRemarkParser()),
-	fullGC(new NormalFullGCParser()),
-	paraNewPromotionFailed(new ParaNewPromotionFailureParser()),
-	concurrentModeFailed(new ConcurrentModeFailureParser()),
-	other(new OtherLogFormatParser());
+	paraNew(new ParaNewParser(), "[ParNew: "),
+	cmsInitialMark(new CMSInitialMarkParser(), "[1 CMS-initial-mark: "),
+	cmsRemark(new CMSRemarkParser(), "[1 CMS-remark: "),
+	fullGC(new NormalFullGCParser(), "[Full GC"),
+	paraNewPromotionFailed(new ParaNewPromotionFailureParser(), "[ParNew (promotion failed): "),
+	concurrentModeFailed(new ConcurrentModeFailureParser(), "(concurrent mode failure): "),
+	other(new OtherLogFormatParser(), null);
 
 	private GCEventParser parser;
+	private String keyword;
 	
-	GCEventParserEnum(GCEventParser parser){
+	GCEventParserEnum(GCEventParser parser, String keyword){
 		this.parser = parser;
+		this.keyword = keyword;
 	}
 
 	public GCEventParser getParser(){
 		return parser;
 	}
+
+	/**
+	 * @return literal every line accepted by the parser contains, null for the fallback parser
+	 */
+	public String getKeyword(){
+		return keyword;
+	}
 }
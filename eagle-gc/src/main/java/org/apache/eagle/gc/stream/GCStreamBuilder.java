@@ -24,23 +24,51 @@ import org.apache.eagle.gc.parser.GCEventParserEnum;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Build GCPausedEvent from a gc log line.
+ * Every parser only accepts lines containing its keyword, so keywords are located in a single pass over the line
+ * and only the candidate parsers are tried, in the same priority order as before, instead of running every regex.
+ */
 public class GCStreamBuilder {
 	private static Logger LOGGER = LoggerFactory.getLogger(GCStreamBuilder.class);
 
+	// parsers in priority order
+	private static final GCEventParserEnum[] CANDIDATES = {
+		GCEventParserEnum.paraNew,
+		GCEventParserEnum.cmsInitialMark,
+		GCEventParserEnum.cmsRemark,
+		GCEventParserEnum.fullGC,
+		GCEventParserEnum.concurrentModeFailed,
+		GCEventParserEnum.paraNewPromotionFailed
+	};
+
 	public GCPausedEvent build(String line) throws Exception{
-		GCPausedEvent event;
-		event = GCEventParserEnum.paraNew.getParser().parse(line);
-		if (event != null) return event;
-		event = GCEventParserEnum.cmsInitialMark.getParser().parse(line);
-		if (event != null) return event;
-		event = GCEventParserEnum.cmsRemark.getParser().parse(line);
-		if (event != null) return event;
-		event = GCEventParserEnum.fullGC.getParser().parse(line);
-		if (event != null) return event;
-		event = GCEventParserEnum.concurrentModeFailed.getParser().parse(line);
-		if (event != null) return event;
-		event = GCEventParserEnum.paraNewPromotionFailed.getParser().parse(line);
-		if (event != null) return event;
+		int candidates = candidates(line);
+		for (int i = 0; candidates != 0 && i < CANDIDATES.length; i++) {
+			if ((candidates & (1 << i)) != 0) {
+				GCPausedEvent event = CANDIDATES[i].getParser().parse(line);
+				if (event != null) return event;
+				candidates &= ~(1 << i);
+			}
+		}
 		return GCEventParserEnum.other.getParser().parse(line);
 	}
+
+	/**
+	 * All keywords start with '[' or '(', so only those positions are compared.
+	 * @return bit i is set if the line contains keyword of CANDIDATES[i]
+	 */
+	static int candidates(String line) {
+		int candidates = 0;
+		for (int pos = 0; pos < line.length(); pos++) {
+			char c = line.charAt(pos);
+			if (c != '[' && c != '(') continue;
+			for (int i = 0; i < CANDIDATES.length; i++) {
+				if (line.startsWith(CANDIDATES[i].getKeyword(), pos)) {
+					candidates |= 1 << i;
+				}
+			}
+		}
+		return candidates;
+	}
 }
@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.eagle;
+
+import org.apache.commons.lang.time.StopWatch;
+import org.apache.eagle.gc.parser.exception.IgnoredLogFormatException;
+import org.apache.eagle.gc.stream.GCStreamBuilder;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+@Ignore("Ignore automatic heavy benchmark test")
+public class GCStreamBuilderBenchmarkTest {
+    private static final Logger LOG = LoggerFactory.getLogger(GCStreamBuilderBenchmarkTest.class);
+
+    // typical CMS log mix: mostly young collections and concurrent phases
+    private static final String[] LINES = {
+        "2015-12-28T19:42:34.013-0700: 5511298.821: [GC2015-12-28T19:42:34.014-0700: 5511298.821: [ParNew: 8563150K->138183K(9437184K), 0.1247550 secs] 78382766K->69967324K(124780544K), 0.1250410 secs] [Times: user=3.29 sys=0.00, real=0.12 secs]",
+        "2015-12-28T19:42:34.013-0700: 5511298.821: [GC2015-12-28T19:42:34.014-0700: 5511298.821: [ParNew: 8563150K->138183K(9437184K), 0.1247550 secs] 78382766K->69967324K(124780544K), 0.1250410 secs] [Times: user=3.29 sys=0.00, real=0.12 secs]",
+        "2015-12-28T19:42:34.013-0700: 5511298.821: [GC2015-12-28T19:42:34.014-0700: 5511298.821: [ParNew: 8563150K->138183K(9437184K), 0.1247550 secs] 78382766K->69967324K(124780544K), 0.1250410 secs] [Times: user=3.29 sys=0.00, real=0.12 secs]",
+        "2014-06-04T22:47:31.218-0700: 1582.012: [GC [1 CMS-initial-mark: 78942227K(97517568K)] 79264643K(100348736K), 0.2334170 secs] [Times: user=0.23 sys=0.00, real=0.24 secs]",
+        "2014-06-04T22:47:31.452-0700: 1582.246: [CMS-concurrent-mark-start]",
+        "2014-06-04T22:47:33.917-0700: 1584.711: [CMS-concurrent-preclean-start]",
+        "2014-06-04T22:49:50.603-0700: 1721.397: [GC[YG occupancy: 2777944 K (2831168 K)]1721.398: [Rescan (parallel) , 0.1706730 secs]1721.568: [weak refs processing, 0.0156130 secs] [1 CMS-remark: 83730081K(97517568K)] 86508026K(100348736K), 0.1868130 secs] [Times: user=3.04 sys=0.01, real=0.18 secs]",
+        "2014-06-04T22:49:50.790-0700: 1721.584: [CMS-concurrent-sweep-start]"
+    };
+
+    @Test
+    public void testBuild() throws Exception {
+        GCStreamBuilder builder = new GCStreamBuilder();
+        int rounds = 1000000;
+        // warm up
+        build(builder, rounds / 10);
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
+        int events = build(builder, rounds);
+        stopWatch.stop();
+        LOG.info("Built {} events from {} lines in {} ms", events, rounds, stopWatch.getTime());
+    }
+
+    private int build(GCStreamBuilder builder, int rounds) throws Exception {
+        int events = 0;
+        for (int i = 0; i < rounds; i++) {
+            try {
+                if (builder.build(LINES[i % LINES.length]) != null) {
+                    events++;
+                }
+            } catch (IgnoredLogFormatException e) {
+                // non stop the world event
+            }
+        }
+        return events;
+    }
+}
@@ -22,10 +22,13 @@ package org.apache.eagle;
 import org.apache.eagle.gc.model.GCPausedEvent;
 import org.apache.eagle.gc.parser.full.ConcurrentModeFailureParser;
 import org.apache.eagle.gc.parser.full.NormalFullGCParser;
+import org.apache.eagle.gc.parser.exception.IgnoredLogFormatException;
+import org.apache.eagle.gc.parser.exception.UnrecognizedLogFormatException;
 import org.apache.eagle.gc.parser.full.ParaNewPromotionFailureParser;
 import org.apache.eagle.gc.parser.tenured.CMSInitialMarkParser;
 import org.apache.eagle.gc.parser.tenured.CMSRemarkParser;
 import org.apache.eagle.gc.parser.young.ParaNewParser;
+import org.apache.eagle.gc.stream.GCStreamBuilder;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -115,4 +118,40 @@ public class TestGCLogParser {
         Assert.assertTrue(event.getYoungTotalHeapK() == 2831168);
     }
 
+    @Test
+    public void testStreamBuilder() throws Exception {
+        GCStreamBuilder builder = new GCStreamBuilder();
+
+        GCPausedEvent event = builder.build("2015-12-28T19:42:34.013-0700: 5511298.821: [GC2015-12-28T19:42:34.014-0700: 5511298.821: [ParNew: 8563150K->138183K(9437184K), 0.1247550 secs] 78382766K->69967324K(124780544K), 0.1250410 secs] [Times: user=3.29 sys=0.00, real=0.12 secs]");
+        Assert.assertTrue(event.getYoungUsedHeapK() == 8563150);
+
+        event = builder.build("2014-06-04T22:47:31.218-0700: 1582.012: [GC [1 CMS-initial-mark: 78942227K(97517568K)] 79264643K(100348736K), 0.2334170 secs] [Times: user=0.23 sys=0.00, real=0.24 secs]");
+        Assert.assertTrue(event.getTenuredUsedHeapK() == 78942227);
+
+        event = builder.build("2014-06-04T22:49:50.603-0700: 1721.397: [GC[YG occupancy: 2777944 K (2831168 K)]1721.398: [Rescan (parallel) , 0.1706730 secs]1721.568: [weak refs processing, 0.0156130 secs] [1 CMS-remark: 83730081K(97517568K)] 86508026K(100348736K), 0.1868130 secs] [Times: user=3.04 sys=0.01, real=0.18 secs]");
+        Assert.assertTrue(event.getTenuredUsedHeapK() == 83730081);
+
+        event = builder.build("2014-08-13T12:22:25.488-0700: 144.526: [Full GC2014-08-13T12:22:25.488-0700: 144.526: [CMS: 9845647K->10115891K(97517568K), 14.2064400 secs] 10215536K->10115891K(100348736K), [CMS Perm : 24119K->24107K(24320K)], 14.2066090 secs] [Times: user=13.86 sys=0.32, real=14.20 secs]");
+        Assert.assertTrue(event.getTenuredUsedHeapK() == 9845647);
+
+        event = builder.build("(concurrent mode failure): 89131378K->75055239K(97517568K), 430.8303930 secs] 91834503K->75055239K(100348736K), [CMS Perm : 54559K->54414K(83968K)], 431.5362150 secs] [Times: user=574.23 sys=0.00, real=431.47 secs]");
+        Assert.assertTrue(event.getTenuredUsedHeapK() == 89131378);
+
+        // contains CMS-concurrent-mark, but is a promotion failure
+        event = builder.build("2014-09-16T02:10:29.456-0700: 1732113.520: [GC2014-09-16T02:10:29.456-0700: 1732113.520: [ParNew (promotion failed): 4703469K->4718592K(4718592K), 0.9636440 secs]2014-09-16T02:10:30.420-0700: 1732114.484: [CMS2014-09-16T02:10:48.794-0700: 1732132.858: [CMS-concurrent-mark: 28.139/29.793 secs] [Times: user=214.69 sys=8.41, real=29.79 secs]");
+        Assert.assertTrue(event.getYoungUsedHeapK() == 4703469);
+
+        try {
+            builder.build("2014-06-04T22:47:31.452-0700: 1582.246: [CMS-concurrent-mark-start]");
+            Assert.fail("concurrent phase should be ignored");
+        } catch (IgnoredLogFormatException e) {
+            // expected
+        }
+        try {
+            builder.build("2014-06-04T22:47:31.452-0700: 1582.246: [ParNew: unknown]");
+            Assert.fail("malformed line should not be recognized");
+        } catch (UnrecognizedLogFormatException e) {
+            // expected
+        }
+    }
 }
@@ -27,6 +27,8 @@ public class AggregationConfig implements Serializable {
     private static final Logger LOG = LoggerFactory.getLogger(AggregationConfig.class);
 
     private static final String ZK_ROOT_PREFIX = "/apps/mr/aggregation";
+    private static final long DEFAULT_AGGREGATION_SLICE_DURATION = 600;
+    private static final int DEFAULT_AGGREGATION_PAGE_SIZE = 100000;
 
     public ZKStateConfig getZkStateConfig() {
         return zkStateConfig;
@@ -63,6 +65,8 @@ public class AggregationConfig implements Serializable {
     public static class StormConfig implements Serializable {
         public String site;
         public long aggregationDuration;
+        public long aggregationSliceDuration;
+        public int aggregationPageSize;
     }
 
     public static class EagleServiceConfig implements Serializable {
@@ -92,6 +96,10 @@ public class AggregationConfig implements Serializable {
         //parse stormConfig
         this.stormConfig.site = config.getString("siteId");
         this.stormConfig.aggregationDuration = config.getLong("stormConfig.aggregationDuration");
+        this.stormConfig.aggregationSliceDuration = config.hasPath("stormConfig.aggregationSliceDuration")
+            ? config.getLong("stormConfig.aggregationSliceDuration") : DEFAULT_AGGREGATION_SLICE_DURATION;
+        this.stormConfig.aggregationPageSize = config.hasPath("stormConfig.aggregationPageSize")
+            ? config.getInt("stormConfig.aggregationPageSize") : DEFAULT_AGGREGATION_PAGE_SIZE;
 
         //parse eagle zk
         this.zkStateConfig.zkQuorum = config.getString("zookeeper.zkQuorum");
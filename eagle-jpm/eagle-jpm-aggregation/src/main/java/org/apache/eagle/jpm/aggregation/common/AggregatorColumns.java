@@ -19,6 +19,7 @@
 package org.apache.eagle.jpm.aggregation.common;
 
 import java.util.List;
+import java.util.Objects;
 
 public class AggregatorColumns implements Comparable<AggregatorColumns> {
     private List<String> columnNames;
@@ -48,6 +49,23 @@ public class AggregatorColumns implements Comparable<AggregatorColumns> {
         return sb.deleteCharAt(sb.length() - 1).toString();
     }
 
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof AggregatorColumns)) {
+            return false;
+        }
+        AggregatorColumns that = (AggregatorColumns) obj;
+        return Objects.equals(columnNames, that.columnNames) && Objects.equals(columnValues, that.columnValues);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(columnNames, columnValues);
+    }
+
     @Override
     public int compareTo(AggregatorColumns o) {
         if (this.columnValues.size() > o.columnValues.size()) {
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.apache.eagle.jpm.aggregation.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Sum minute metric values of one time slice by aggregator columns.
+ * Each group holds a long array indexed by minute offset in the slice instead of a map of boxed timestamps and values.
+ */
+public class SliceMetricAccumulator {
+    private static final Logger LOG = LoggerFactory.getLogger(SliceMetricAccumulator.class);
+    private static final long MINUTE_MS = 60000L;
+
+    private final long sliceStart;
+    private final int minutes;
+    private final Map<AggregatorColumns, MinuteValues> groups = new HashMap<>();
+
+    /**
+     * @param sliceStart inclusive
+     * @param sliceEnd exclusive
+     */
+    public SliceMetricAccumulator(long sliceStart, long sliceEnd) {
+        if (sliceEnd <= sliceStart) {
+            throw new IllegalArgumentException("invalid slice [" + sliceStart + ", " + sliceEnd + ")");
+        }
+        this.sliceStart = sliceStart / MINUTE_MS * MINUTE_MS;
+        this.minutes = (int) ((sliceEnd - this.sliceStart + MINUTE_MS - 1) / MINUTE_MS);
+    }
+
+    /**
+     * Points out of the slice, such as one at its end, are skipped.
+     */
+    public void add(AggregatorColumns columns, long timestamp, long value) {
+        if (timestamp < sliceStart || (timestamp - sliceStart) / MINUTE_MS >= minutes) {
+            LOG.warn("skip point of {} at {}, out of slice starting at {}", columns, timestamp, sliceStart);
+            return;
+        }
+        int index = (int) ((timestamp - sliceStart) / MINUTE_MS);
+        MinuteValues values = groups.get(columns);
+        if (values == null) {
+            values = new MinuteValues(minutes);
+            groups.put(columns, values);
+        }
+        values.sums[index] += value;
+        values.present.set(index);
+    }
+
+    public Set<AggregatorColumns> getColumns() {
+        return groups.keySet();
+    }
+
+    /**
+     * @return aggregated value by minute timestamp, only minutes having data points are included
+     */
+    public Map<Long, Long> getValues(AggregatorColumns columns) {
+        MinuteValues values = groups.get(columns);
+        Map<Long, Long> result = new HashMap<>();
+        if (values != null) {
+            for (int i = values.present.nextSetBit(0); i >= 0; i = values.present.nextSetBit(i + 1)) {
+                result.put(sliceStart + i * MINUTE_MS, values.sums[i]);
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        int size = 0;
+        for (MinuteValues values : groups.values()) {
+            size += values.present.cardinality();
+        }
+        return size;
+    }
+
+    private static class MinuteValues {
+        private final long[] sums;
+        private final BitSet present;
+
+        MinuteValues(int minutes) {
+            this.sums = new long[minutes];
+            this.present = new BitSet(minutes);
+        }
+    }
+}
@@ -21,6 +21,7 @@ package org.apache.eagle.jpm.aggregation.mr;
 import org.apache.eagle.jpm.aggregation.AggregationConfig;
 import org.apache.eagle.jpm.aggregation.common.AggregatorColumns;
 import org.apache.eagle.jpm.aggregation.common.MetricAggregator;
+import org.apache.eagle.jpm.aggregation.common.SliceMetricAccumulator;
 import org.apache.eagle.jpm.util.Constants;
 import org.apache.eagle.log.entity.GenericMetricEntity;
 import org.apache.eagle.log.entity.GenericServiceAPIResponseEntity;
@@ -29,6 +30,7 @@ import org.apache.eagle.service.client.impl.EagleServiceClientImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.*;
 
@@ -36,22 +38,23 @@ import static org.apache.eagle.jpm.aggregation.AggregationConfig.EagleServiceCon
 
 public class MRMetricAggregator implements MetricAggregator, Serializable {
     private static final Logger LOG = LoggerFactory.getLogger(MRMetricAggregator.class);
+    private static final long MINUTE_MS = 60000L;
 
     private String metric;
     private List<List<String>> aggregateColumns;
-    //key is AggregatorColumns, value is a map(key is timeStamp, value is metric value)
-    private Map<AggregatorColumns, Map<Long, Long>> aggregateValues;
     private AggregationConfig appConfig;
     private EagleServiceConfig eagleServiceConfig;
 
     public MRMetricAggregator(String metric, List<List<String>> aggregateColumns, AggregationConfig appConfig) {
         this.metric = metric;
         this.aggregateColumns = aggregateColumns;
-        this.aggregateValues = new TreeMap<>();
         this.appConfig = appConfig;
         eagleServiceConfig = appConfig.getEagleServiceConfig();
     }
 
+    /**
+     * Fetch, aggregate and flush metrics slice by slice, so that only one slice of job metrics is in memory at a time.
+     */
     @Override
     public boolean aggregate(long startTime, long endTime) {
         LOG.info("start to aggregate {} from {} to {}", metric, startTime, endTime);
@@ -61,31 +64,72 @@ public class MRMetricAggregator implements MetricAggregator, Serializable {
                 eagleServiceConfig.username,
                 eagleServiceConfig.password);
 
+        long sliceDuration = Math.max(appConfig.getStormConfig().aggregationSliceDuration * 1000, MINUTE_MS);
+        try {
+            long sliceStart = startTime;
+            while (sliceStart < endTime) {
+                long sliceEnd = Math.min(alignToMinute(sliceStart + sliceDuration), endTime);
+                if (!aggregate(client, sliceStart, sliceEnd)) {
+                    return false;
+                }
+                sliceStart = sliceEnd;
+            }
+            return true;
+        } finally {
+            try {
+                client.close();
+            } catch (IOException e) {
+                LOG.warn("failed to close eagle service client", e);
+            }
+        }
+    }
+
+    /**
+     * Fetch, aggregate and flush one slice, fetched again in halves while it fills a page.
+     */
+    boolean aggregate(IEagleServiceClient client, long startTime, long endTime) {
         String query = String.format("%s[@site=\"%s\"]{*}",
             Constants.GENERIC_METRIC_SERVICE,
             appConfig.getStormConfig().site);
+        int pageSize = appConfig.getStormConfig().aggregationPageSize;
 
-        GenericServiceAPIResponseEntity response;
+        GenericServiceAPIResponseEntity<GenericMetricEntity> response;
         try {
             response = client
                 .search(query)
                 .metricName(String.format(Constants.HADOOP_HISTORY_MINUTE_METRIC_FORMAT, Constants.JOB_LEVEL, metric))
                 .startTime(startTime)
                 .endTime(endTime)
-                .pageSize(Integer.MAX_VALUE)
+                .pageSize(pageSize)
                 .send();
-
-            client.close();
         } catch (Exception e) {
             LOG.warn("{}", e);
             return false;
         }
+        if (!response.isSuccess()) {
+            LOG.warn("failed to fetch {} from {} to {}: {}", metric, startTime, endTime, response.getException());
+            return false;
+        }
 
         List<GenericMetricEntity> entities = response.getObj();
+        if (entities.size() >= pageSize) {
+            // slice may be truncated, split it by minute boundary and fetch each half again
+            long middle = alignToMinute(startTime + (endTime - startTime) / 2);
+            if (middle <= startTime) {
+                middle = alignToMinute(startTime) + MINUTE_MS;
+            }
+            if (middle < endTime) {
+                LOG.info("{} entities of {} from {} to {} reach page size, split at {}", entities.size(), metric, startTime, endTime, middle);
+                return aggregate(client, startTime, middle) && aggregate(client, middle, endTime);
+            }
+            LOG.warn("{} entities of {} from {} to {} reach page size, results may be incomplete", entities.size(), metric, startTime, endTime);
+        }
+
+        SliceMetricAccumulator accumulator = new SliceMetricAccumulator(startTime, endTime);
         for (GenericMetricEntity entity : entities) {
             Map<String, String> tags = entity.getTags();
             for (List<String> columnNames : this.aggregateColumns) {
-                List<String> columnValues = new ArrayList<>();
+                List<String> columnValues = new ArrayList<>(columnNames.size());
                 boolean allContains = true;
                 for (String columnName : columnNames) {
                     if (tags.containsKey(columnName)) {
@@ -101,35 +145,23 @@ public class MRMetricAggregator implements MetricAggregator, Serializable {
                     continue;
                 }
 
-                AggregatorColumns aggregatorColumns = new AggregatorColumns(columnNames, columnValues);
-                if (!this.aggregateValues.containsKey(aggregatorColumns)) {
-                    this.aggregateValues.put(aggregatorColumns, new HashMap<>());
-                }
-
-                if (!this.aggregateValues.get(aggregatorColumns).containsKey(entity.getTimestamp())) {
-                    this.aggregateValues.get(aggregatorColumns).put(entity.getTimestamp(), 0L);
-                }
-
-                Long previous = this.aggregateValues.get(aggregatorColumns).get(entity.getTimestamp());
-                this.aggregateValues.get(aggregatorColumns).put(entity.getTimestamp(), previous + (long)entity.getValue()[0]);
+                accumulator.add(new AggregatorColumns(columnNames, columnValues), entity.getTimestamp(), (long)entity.getValue()[0]);
             }
         }
-        return flush();
+        return flush(client, accumulator);
+    }
+
+    private static long alignToMinute(long timestamp) {
+        return timestamp / MINUTE_MS * MINUTE_MS;
     }
 
     private String buildMetricName(List<String> columnNames) {
         return String.format(Constants.HADOOP_HISTORY_MINUTE_METRIC_FORMAT, columnNames.get(columnNames.size() - 1).toLowerCase(), metric);
     }
 
-    private boolean flush() {
-        IEagleServiceClient client = new EagleServiceClientImpl(
-                eagleServiceConfig.eagleServiceHost,
-                eagleServiceConfig.eagleServicePort,
-                eagleServiceConfig.username,
-                eagleServiceConfig.password);
-
-        List<GenericMetricEntity> entities = new ArrayList<>();
-        for (AggregatorColumns aggregatorColumns : this.aggregateValues.keySet()) {
+    private boolean flush(IEagleServiceClient client, SliceMetricAccumulator accumulator) {
+        List<GenericMetricEntity> entities = new ArrayList<>(accumulator.size());
+        for (AggregatorColumns aggregatorColumns : accumulator.getColumns()) {
             List<String> columnNames = aggregatorColumns.getColumnNames();
             List<String> columnValues = aggregatorColumns.getColumnValues();
             Map<String, String> baseTags = new HashMap<>();
@@ -137,7 +169,7 @@ public class MRMetricAggregator implements MetricAggregator, Serializable {
                 baseTags.put(columnNames.get(i), columnValues.get(i));
             }
 
-            Map<Long, Long> metricByMin = this.aggregateValues.get(aggregatorColumns);
+            Map<Long, Long> metricByMin = accumulator.getValues(aggregatorColumns);
             for (Long timeStamp : metricByMin.keySet()) {
                 GenericMetricEntity metricEntity = new GenericMetricEntity();
                 metricEntity.setTimestamp(timeStamp);
@@ -148,12 +180,14 @@ public class MRMetricAggregator implements MetricAggregator, Serializable {
             }
         }
 
+        if (entities.isEmpty()) {
+            return true;
+        }
         try {
             LOG.info("start flushing entities of total number " + entities.size());
             client.create(entities);
             LOG.info("finish flushing entities of total number " + entities.size());
             entities.clear();
-            client.close();
         } catch (Exception e) {
             LOG.warn("{}", e);
             return false;
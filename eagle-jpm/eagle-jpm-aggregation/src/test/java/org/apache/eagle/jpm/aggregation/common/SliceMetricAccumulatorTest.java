@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.jpm.aggregation.common;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+public class SliceMetricAccumulatorTest {
+    private static final long MINUTE_MS = 60000L;
+
+    private static AggregatorColumns columns(String user) {
+        return new AggregatorColumns(Arrays.asList("site", "user"), Arrays.asList("sandbox", user));
+    }
+
+    @Test
+    public void testSumByMinute() {
+        // the slice starts at the minute of its start
+        SliceMetricAccumulator accumulator = new SliceMetricAccumulator(MINUTE_MS + 30000, 4 * MINUTE_MS);
+        accumulator.add(columns("a"), MINUTE_MS, 1);
+        accumulator.add(columns("a"), MINUTE_MS + 59999, 2);
+        accumulator.add(columns("a"), 3 * MINUTE_MS + 1, 4);
+        accumulator.add(columns("b"), 2 * MINUTE_MS, 8);
+
+        Map<Long, Long> expected = new HashMap<>();
+        expected.put(MINUTE_MS, 3L);
+        expected.put(3 * MINUTE_MS, 4L);
+        Assert.assertEquals(expected, accumulator.getValues(columns("a")));
+        Assert.assertEquals(Collections.singletonMap(2 * MINUTE_MS, 8L), accumulator.getValues(columns("b")));
+        Assert.assertTrue(accumulator.getValues(columns("c")).isEmpty());
+        Assert.assertEquals(2, accumulator.getColumns().size());
+        Assert.assertEquals(3, accumulator.size());
+    }
+
+    @Test
+    public void testSkipPointsOutOfSlice() {
+        SliceMetricAccumulator accumulator = new SliceMetricAccumulator(MINUTE_MS, 3 * MINUTE_MS);
+        accumulator.add(columns("a"), MINUTE_MS - 1, 1);
+        accumulator.add(columns("a"), 3 * MINUTE_MS, 2);
+        accumulator.add(columns("a"), 10 * MINUTE_MS, 4);
+        Assert.assertEquals(0, accumulator.size());
+
+        accumulator.add(columns("a"), 3 * MINUTE_MS - 1, 8);
+        Assert.assertEquals(Collections.singletonMap(2 * MINUTE_MS, 8L), accumulator.getValues(columns("a")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptySlice() {
+        new SliceMetricAccumulator(MINUTE_MS, MINUTE_MS);
+    }
+}
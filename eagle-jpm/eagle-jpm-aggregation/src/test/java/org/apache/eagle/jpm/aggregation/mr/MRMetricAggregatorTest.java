@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.jpm.aggregation.mr;
+
+import com.typesafe.config.ConfigFactory;
+import org.apache.eagle.jpm.aggregation.AggregationConfig;
+import org.apache.eagle.log.entity.GenericMetricEntity;
+import org.apache.eagle.log.entity.GenericServiceAPIResponseEntity;
+import org.apache.eagle.service.client.EagleServiceSingleEntityQueryRequest;
+import org.apache.eagle.service.client.IEagleServiceClient;
+import org.apache.eagle.service.client.impl.SearchRequestBuilder;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.*;
+
+public class MRMetricAggregatorTest {
+    private static final long MINUTE_MS = 60000L;
+
+    private final List<long[]> fetched = new ArrayList<>();
+    private final Map<Long, Double> created = new TreeMap<>();
+    private IEagleServiceClient client;
+    private AggregationConfig config;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        config = AggregationConfig.newInstance(ConfigFactory.load());
+        client = Mockito.mock(IEagleServiceClient.class);
+        Mockito.when(client.search(Mockito.anyString()))
+            .thenAnswer(invocation -> new SearchRequestBuilder(client).query((String) invocation.getArguments()[0]));
+        // two jobs of one user write a point every minute, with values 1 and 2
+        Mockito.when(client.search(Mockito.any(EagleServiceSingleEntityQueryRequest.class))).thenAnswer(invocation -> {
+            EagleServiceSingleEntityQueryRequest request = (EagleServiceSingleEntityQueryRequest) invocation.getArguments()[0];
+            fetched.add(new long[] {request.getStartTime(), request.getEndTime()});
+            List<GenericMetricEntity> entities = new ArrayList<>();
+            for (long minute = request.getStartTime(); minute < request.getEndTime() && entities.size() < request.getPageSize();
+                 minute += MINUTE_MS) {
+                for (int job = 1; job <= 2 && entities.size() < request.getPageSize(); job++) {
+                    entities.add(point(minute, "job" + job, job));
+                }
+            }
+            GenericServiceAPIResponseEntity<GenericMetricEntity> response = new GenericServiceAPIResponseEntity<>();
+            response.setSuccess(true);
+            response.setObj(entities);
+            return response;
+        });
+        Mockito.when(client.create(Mockito.anyList())).thenAnswer(invocation -> {
+            for (GenericMetricEntity entity : (List<GenericMetricEntity>) invocation.getArguments()[0]) {
+                Assert.assertNull(created.put(entity.getTimestamp(), entity.getValue()[0]));
+            }
+            return new GenericServiceAPIResponseEntity<String>();
+        });
+    }
+
+    private static GenericMetricEntity point(long timestamp, String jobId, double value) {
+        GenericMetricEntity entity = new GenericMetricEntity();
+        Map<String, String> tags = new HashMap<>();
+        tags.put("site", "sandbox");
+        tags.put("user", "user");
+        tags.put("jobId", jobId);
+        entity.setTags(tags);
+        entity.setTimestamp(timestamp);
+        entity.setValue(new double[] {value});
+        return entity;
+    }
+
+    private MRMetricAggregator aggregator(int pageSize) {
+        config.getStormConfig().aggregationPageSize = pageSize;
+        return new MRMetricAggregator("cpu_milliseconds", Collections.singletonList(Arrays.asList("site", "user")), config);
+    }
+
+    private Map<Long, Double> expected(int minutes) {
+        Map<Long, Double> expected = new TreeMap<>();
+        for (int i = 0; i < minutes; i++) {
+            expected.put(i * MINUTE_MS, 3.0);
+        }
+        return expected;
+    }
+
+    @Test
+    public void testSliceWithinPage() {
+        Assert.assertTrue(aggregator(100).aggregate(client, 0, 6 * MINUTE_MS));
+        Assert.assertEquals(1, fetched.size());
+        Assert.assertEquals(expected(6), created);
+    }
+
+    @Test
+    public void testFullPageSplitAtMinutes() {
+        Assert.assertTrue(aggregator(5).aggregate(client, 0, 6 * MINUTE_MS));
+        // slices filling the page are fetched again in halves split at a minute
+        List<String> windows = new ArrayList<>();
+        for (long[] window : fetched) {
+            windows.add(window[0] / MINUTE_MS + "-" + window[1] / MINUTE_MS);
+        }
+        Assert.assertEquals(Arrays.asList("0-6", "0-3", "0-1", "1-3", "3-6", "3-4", "4-6"), windows);
+        Assert.assertEquals(expected(6), created);
+    }
+
+    @Test
+    public void testFullMinuteNotSplit() {
+        // a minute filling the page can not be split, what it fetched is aggregated
+        Assert.assertTrue(aggregator(1).aggregate(client, 0, 2 * MINUTE_MS));
+        Assert.assertEquals(3, fetched.size());
+        Map<Long, Double> expected = new TreeMap<>();
+        expected.put(0L, 1.0);
+        expected.put(MINUTE_MS, 1.0);
+        Assert.assertEquals(expected, created);
+    }
+}
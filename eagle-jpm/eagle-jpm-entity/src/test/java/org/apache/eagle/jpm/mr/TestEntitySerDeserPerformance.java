@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.eagle.jpm.mr;
+
+import org.apache.commons.lang.time.StopWatch;
+import org.apache.eagle.jpm.mr.runningentity.TaskExecutionAPIEntity;
+import org.apache.eagle.jpm.util.jobcounter.JobCounters;
+import org.apache.eagle.jpm.util.jobcounter.JobCountersSerDeser;
+import org.apache.eagle.log.base.taggedlog.TaggedLogAPIEntity;
+import org.apache.eagle.log.entity.GenericMetricEntity;
+import org.apache.eagle.log.entity.meta.EntityDefinition;
+import org.apache.eagle.log.entity.meta.EntityDefinitionManager;
+import org.apache.eagle.log.entity.meta.EntitySerDeserializer;
+import org.apache.eagle.log.entity.meta.Qualifier;
+import org.junit.BeforeClass;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compares writing and reading entities through the generated property accessors with the reflection path.
+ */
+@Ignore
+public class TestEntitySerDeserPerformance {
+    private static final Logger LOG = LoggerFactory.getLogger(TestEntitySerDeserPerformance.class);
+    private static final int WARMUP = 100000;
+    private static final int ROUNDS = 1000000;
+
+    @BeforeClass
+    public static void setUp() {
+        EntityDefinitionManager.registerSerDeser(JobCounters.class, new JobCountersSerDeser());
+    }
+
+    private static TaskExecutionAPIEntity createTask() {
+        TaskExecutionAPIEntity task = new TaskExecutionAPIEntity();
+        Map<String, String> tags = new HashMap<>();
+        tags.put("site", "sandbox");
+        tags.put("jobId", "job_1479206441898_0001");
+        tags.put("taskId", "task_1479206441898_0001_m_000000");
+        task.setTags(tags);
+        task.setStartTime(1479206441898L);
+        task.setEndTime(1479206451898L);
+        task.setDuration(10000L);
+        task.setProgress(100.0);
+        task.setTaskStatus("SUCCEEDED");
+        task.setSuccessfulAttempt("attempt_1479206441898_0001_m_000000_0");
+        task.setStatusDesc("map > sort");
+        return task;
+    }
+
+    private static GenericMetricEntity createMetric() {
+        GenericMetricEntity metric = new GenericMetricEntity();
+        metric.setTags(new HashMap<>());
+        metric.setValue(new double[] {1.0});
+        return metric;
+    }
+
+    private static long roundTrip(TaggedLogAPIEntity entity, EntityDefinition ed, int rounds) throws Exception {
+        EntitySerDeserializer serDeserializer = new EntitySerDeserializer();
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
+        for (int i = 0; i < rounds; i++) {
+            serDeserializer.readValue(serDeserializer.writeValue(entity, ed), ed);
+        }
+        stopWatch.stop();
+        return stopWatch.getTime();
+    }
+
+    private static void compare(TaggedLogAPIEntity entity) throws Exception {
+        EntityDefinition accessorEd = EntityDefinitionManager.createEntityDefinition(entity.getClass());
+        EntityDefinition reflectionEd = EntityDefinitionManager.createEntityDefinition(entity.getClass());
+        for (Qualifier q : reflectionEd.getQualifierNameMap().values()) {
+            q.setAccessor(null);
+        }
+
+        roundTrip(entity, accessorEd, WARMUP);
+        roundTrip(entity, reflectionEd, WARMUP);
+        long accessorTime = roundTrip(entity, accessorEd, ROUNDS);
+        long reflectionTime = roundTrip(entity, reflectionEd, ROUNDS);
+        LOG.info("{} round trips of {}: accessors {} ms, reflection {} ms", ROUNDS,
+            entity.getClass().getSimpleName(), accessorTime, reflectionTime);
+    }
+
+    @Test
+    public void testTaskExecutionEntity() throws Exception {
+        compare(createTask());
+    }
+
+    @Test
+    public void testMetricEntity() throws Exception {
+        compare(createMetric());
+    }
+}
@@ -80,6 +80,10 @@ public class MRRunningJobConfig implements Serializable {
         public String limitPerRequest;
         public int timeRangePerRequestInMin;
         public int parseJobThreadPoolSize;
+        public int fetchThreadPoolSize;
+        public int maxRequestsPerRM;
+        public int maxJobsInFlight;
+        public int fetchTasksEveryTime;
     }
 
     public Config getConfig() {
@@ -133,6 +137,10 @@ public class MRRunningJobConfig implements Serializable {
         this.endpointConfig.site = config.getString("siteId");
         this.endpointConfig.fetchRunningJobInterval = config.getInt("endpointConfig.fetchRunningJobInterval");
         this.endpointConfig.parseJobThreadPoolSize = config.getInt("endpointConfig.parseJobThreadPoolSize");
+        this.endpointConfig.fetchThreadPoolSize = getConfigValue(config, "endpointConfig.fetchThreadPoolSize", 8);
+        this.endpointConfig.maxRequestsPerRM = getConfigValue(config, "endpointConfig.maxRequestsPerRM", 8);
+        this.endpointConfig.maxJobsInFlight = getConfigValue(config, "endpointConfig.maxJobsInFlight", 4);
+        this.endpointConfig.fetchTasksEveryTime = getConfigValue(config, "endpointConfig.fetchTasksEveryTime", 5);
         this.endpointConfig.requestsNum = getConfigValue(config, "endpointConfig.requestsNum", 1);
         this.endpointConfig.limitPerRequest = getConfigValue(config, "endpointConfig.limitPerRequest", "");
         this.endpointConfig.timeRangePerRequestInMin = getConfigValue(config, "endpointConfig.timeRangePerRequestInMin", 60);
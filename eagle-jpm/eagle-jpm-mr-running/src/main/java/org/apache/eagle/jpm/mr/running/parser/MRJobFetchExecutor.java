@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package org.apache.eagle.jpm.mr.running.parser;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.net.URI;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executes REST requests to the application masters of running jobs, shared by the parsers of all applications.
+ *
+ * <p>Requests to the application masters go through the proxy of the resource manager, so they are queued per
+ * RM host and at most maxRequestsPerRM of them are running at the same time. Queued requests hold no thread.</p>
+ */
+public class MRJobFetchExecutor implements Closeable {
+    private static final Logger LOG = LoggerFactory.getLogger(MRJobFetchExecutor.class);
+
+    private final Executor executor;
+    private final int maxRequestsPerRM;
+    private final ConcurrentMap<String, RequestQueue> requestQueues = new ConcurrentHashMap<>();
+
+    public MRJobFetchExecutor(int threads, int maxRequestsPerRM) {
+        this(Executors.newFixedThreadPool(threads), maxRequestsPerRM);
+    }
+
+    MRJobFetchExecutor(Executor executor, int maxRequestsPerRM) {
+        if (maxRequestsPerRM <= 0) {
+            throw new IllegalArgumentException("maxRequestsPerRM should be positive, but was " + maxRequestsPerRM);
+        }
+        this.executor = executor;
+        this.maxRequestsPerRM = maxRequestsPerRM;
+    }
+
+    /**
+     * Executor running every request in the submitting thread, one by one.
+     */
+    public static MRJobFetchExecutor callerRuns() {
+        return new MRJobFetchExecutor(Runnable::run, 1);
+    }
+
+    public <T> CompletableFuture<T> submit(String url, Callable<T> call) {
+        RequestQueue queue = requestQueues.computeIfAbsent(hostOf(url), host -> new RequestQueue());
+        Request<T> request = new Request<>(queue, call);
+        queue.pending.add(request);
+        dispatch(queue);
+        return request.future;
+    }
+
+    /**
+     * Number of requests queued or running for the RM host of the url.
+     */
+    public int getRequests(String url) {
+        RequestQueue queue = requestQueues.get(hostOf(url));
+        return queue == null ? 0 : queue.pending.size() + queue.running.get();
+    }
+
+    @Override
+    public void close() {
+        if (executor instanceof ExecutorService) {
+            ((ExecutorService) executor).shutdownNow();
+        }
+    }
+
+    private void dispatch(RequestQueue queue) {
+        while (!queue.pending.isEmpty()) {
+            int running = queue.running.get();
+            if (running >= maxRequestsPerRM) {
+                // the last running request dispatches again when it completes
+                return;
+            }
+            if (!queue.running.compareAndSet(running, running + 1)) {
+                continue;
+            }
+            Request<?> request = queue.pending.poll();
+            if (request == null) {
+                queue.running.decrementAndGet();
+                continue;
+            }
+            try {
+                executor.execute(request);
+            } catch (RejectedExecutionException e) {
+                queue.running.decrementAndGet();
+                request.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private static String hostOf(String url) {
+        try {
+            String authority = URI.create(url).getAuthority();
+            return authority == null ? url : authority;
+        } catch (IllegalArgumentException e) {
+            LOG.warn("invalid url {}, {}", url, e.getMessage());
+            return url;
+        }
+    }
+
+    private static class RequestQueue {
+        private final Queue<Request<?>> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger running = new AtomicInteger();
+    }
+
+    private class Request<T> implements Runnable {
+        private final RequestQueue queue;
+        private final Callable<T> call;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        private Request(RequestQueue queue, Callable<T> call) {
+            this.queue = queue;
+            this.call = call;
+        }
+
+        @Override
+        public void run() {
+            T result = null;
+            Throwable failure = null;
+            try {
+                result = call.call();
+            } catch (Throwable e) {
+                failure = e;
+            }
+            queue.running.decrementAndGet();
+            if (failure == null) {
+                future.complete(result);
+            } else {
+                future.completeExceptionally(failure);
+            }
+            dispatch(queue);
+        }
+    }
+}
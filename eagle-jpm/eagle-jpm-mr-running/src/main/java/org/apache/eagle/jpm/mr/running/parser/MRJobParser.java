@@ -38,6 +38,7 @@ import org.apache.eagle.jpm.util.resourcefetch.model.*;
 import org.apache.eagle.jpm.util.resourcefetch.model.JobCounters;
 import org.apache.commons.lang3.tuple.Pair;
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -46,9 +47,14 @@ import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.URLConnection;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.function.Function;
 import javax.xml.XMLConstants;
 import javax.xml.parsers.DocumentBuilder;
@@ -78,12 +84,17 @@ public class MRJobParser implements Runnable {
     private Map<String, String> commonTags = new HashMap<>();
     private MRRunningJobManager runningJobManager;
     private ParserStatus parserStatus;
-    private Set<String> finishedTaskIds;
+    //<taskId, finishTime> of finished tasks, read by fetching threads
+    private Map<String, Long> taskFinishTimes;
     private List<String> configKeys;
     private static final int TOP_BOTTOM_TASKS_BY_ELAPSED_TIME = 10;
     private static final int FLUSH_TASKS_EVERY_TIME = 5;
     private static final int MAX_TASKS_PERMIT = 5000;
+    private static final int MAX_JOBS_IN_FLIGHT = 4;
+    private int fetchTasksEveryTime;
+    private int maxJobsInFlight;
     private Config config;
+    private MRJobFetchExecutor fetchExecutor;
 
     static {
         OBJ_MAPPER.configure(JsonParser.Feature.ALLOW_NON_NUMERIC_NUMBERS, true);
@@ -95,6 +106,16 @@ public class MRJobParser implements Runnable {
                        MRRunningJobManager runningJobManager,
                        List<String> configKeys,
                        Config config) {
+        this(endpointConfig, eagleServiceConfig, app, mrJobMap, runningJobManager, configKeys, config, MRJobFetchExecutor.callerRuns());
+    }
+
+    public MRJobParser(MRRunningJobConfig.EndpointConfig endpointConfig,
+                       MRRunningJobConfig.EagleServiceConfig eagleServiceConfig,
+                       AppInfo app, Map<String, JobExecutionAPIEntity> mrJobMap,
+                       MRRunningJobManager runningJobManager,
+                       List<String> configKeys,
+                       Config config,
+                       MRJobFetchExecutor fetchExecutor) {
         this.app = app;
         if (mrJobMap == null) {
             this.mrJobEntityMap = new HashMap<>();
@@ -110,9 +131,12 @@ public class MRJobParser implements Runnable {
         this.commonTags.put(MRJobTagName.JOB_QUEUE.toString(), app.getQueue());
         this.runningJobManager = runningJobManager;
         this.parserStatus = ParserStatus.FINISHED;
-        this.finishedTaskIds = new HashSet<>();
+        this.taskFinishTimes = new ConcurrentHashMap<>();
         this.configKeys = configKeys;
         this.config = config;
+        this.fetchExecutor = fetchExecutor;
+        this.fetchTasksEveryTime = endpointConfig.fetchTasksEveryTime > 0 ? endpointConfig.fetchTasksEveryTime : FLUSH_TASKS_EVERY_TIME;
+        this.maxJobsInFlight = endpointConfig.maxJobsInFlight > 0 ? endpointConfig.maxJobsInFlight : MAX_JOBS_IN_FLIGHT;
     }
 
     public void setAppInfo(AppInfo app) {
@@ -152,41 +176,100 @@ public class MRJobParser implements Runnable {
             }
         }
 
-        List<Function<String, Boolean>> functions = new ArrayList<>();
-        functions.add(fetchJobConfig);
-        functions.add(fetchJobCounters);
-        if ((int) (Math.random() * 10) % FLUSH_TASKS_EVERY_TIME == 0) {
-            functions.add(fetchTasks);
+        boolean fetchTasks = (int) (Math.random() * 10) % fetchTasksEveryTime == 0;
+        // configs, counters and tasks of at most maxJobsInFlight jobs are fetched concurrently, then applied in order in this thread
+        Deque<JobFetches> jobFetches = new ArrayDeque<>();
+        for (String jobId : new ArrayList<>(mrJobEntityMap.keySet())) {
+            if (jobFetches.size() >= maxJobsInFlight) {
+                applyJobFetches(jobFetches.poll());
+            }
+            jobFetches.add(new JobFetches(jobId, fetchTasks));
+        }
+        while (!jobFetches.isEmpty()) {
+            applyJobFetches(jobFetches.poll());
+        }
+    }
+
+    private void applyJobFetches(JobFetches fetches) {
+        // later steps of a job are skipped once one fails
+        if (applyJobConfig(fetches.jobId, fetches.jobConfig)
+            && applyJobCounters(fetches.jobId, fetches.jobCounters)) {
+            applyTasks(fetches.jobId, fetches.tasks);
         }
+    }
 
-        for (String jobId : mrJobEntityMap.keySet()) {
-            for (Function<String, Boolean> function : functions) {
-                int i = 0;
-                for (; i < MAX_RETRY_TIMES; i++) {
-                    if (function.apply(jobId)) {
-                        break;
+    private class JobFetches {
+        private final String jobId;
+        private final CompletableFuture<JobConfig> jobConfig;
+        private final CompletableFuture<JobCounters> jobCounters;
+        private final CompletableFuture<List<MRTask>> tasks;
+
+        private JobFetches(String jobId, boolean fetchTasks) {
+            this.jobId = jobId;
+            String jobURL = app.getTrackingUrl() + Constants.MR_JOBS_URL + "/" + jobId + "/";
+            if (mrJobConfigs.containsKey(jobId)) {
+                this.jobConfig = null;
+            } else {
+                String confURL = jobURL + Constants.MR_CONF_URL + "?" + Constants.ANONYMOUS_PARAMETER;
+                this.jobConfig = fetch(confURL, () -> fetchJobConfig(confURL));
+            }
+            String jobCounterURL = jobURL + Constants.MR_JOB_COUNTERS_URL + "?" + Constants.ANONYMOUS_PARAMETER;
+            this.jobCounters = fetch(jobCounterURL, () -> fetchJobCounters(jobCounterURL));
+            if (fetchTasks && !tooManyTasks(jobId)) {
+                String taskURL = jobURL + Constants.MR_TASKS_URL + "?" + Constants.ANONYMOUS_PARAMETER;
+                this.tasks = fetch(taskURL, () -> fetchTasks(taskURL));
+            } else {
+                this.tasks = null;
+            }
+        }
+    }
+
+    private <T> CompletableFuture<T> fetch(String url, Callable<T> call) {
+        return fetchExecutor.submit(url, () -> {
+            for (int i = 0; ; i++) {
+                try {
+                    return call.call();
+                } catch (Exception e) {
+                    LOG.warn("fetch {} failed, {}", url, e);
+                    if (i >= MAX_RETRY_TIMES - 1) {
+                        throw e;
                     }
                 }
-                if (i >= MAX_RETRY_TIMES) {
-                    break;
-                }
             }
+        });
+    }
+
+    private static <T> T getFetched(CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            return null;
         }
     }
 
     private boolean fetchMRJobs() {
         String jobURL = app.getTrackingUrl() + Constants.MR_JOBS_URL + "?" + Constants.ANONYMOUS_PARAMETER;
-        InputStream is = null;
-        List<MRJob> mrJobs = null;
+        List<MRJob> mrJobs;
         try {
-            is = InputStreamUtils.getInputStream(jobURL, null, Constants.CompressionType.NONE);
-            LOG.info("fetch mr job from {}", jobURL);
-            mrJobs = OBJ_MAPPER.readValue(is, MRJobsWrapper.class).getJobs().getJob();
+            mrJobs = fetchExecutor.submit(jobURL, () -> {
+                InputStream is = null;
+                try {
+                    is = InputStreamUtils.getInputStream(jobURL, null, Constants.CompressionType.NONE);
+                    LOG.info("fetch mr job from {}", jobURL);
+                    return OBJ_MAPPER.readValue(is, MRJobsWrapper.class).getJobs().getJob();
+                } finally {
+                    Utils.closeInputStream(is);
+                }
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
         } catch (Exception e) {
             LOG.warn("fetch mr job from {} failed, {}", jobURL, e.getMessage());
             return false;
-        } finally {
-            Utils.closeInputStream(is);
         }
 
         for (MRJob mrJob : mrJobs) {
@@ -243,21 +326,22 @@ public class MRJobParser implements Runnable {
         return true;
     }
 
-    private Function<String, Boolean> fetchJobCounters = jobId -> {
-        String jobCounterURL = app.getTrackingUrl() + Constants.MR_JOBS_URL + "/" + jobId + "/" + Constants.MR_JOB_COUNTERS_URL + "?" + Constants.ANONYMOUS_PARAMETER;
+    private JobCounters fetchJobCounters(String jobCounterURL) throws Exception {
         InputStream is = null;
-        JobCounters jobCounters = null;
         try {
             is = InputStreamUtils.getInputStream(jobCounterURL, null, Constants.CompressionType.NONE);
             LOG.info("fetch mr job counter from {}", jobCounterURL);
-            jobCounters = OBJ_MAPPER.readValue(is, JobCountersWrapper.class).getJobCounters();
-        } catch (Exception e) {
-            LOG.warn("fail to fetch mr job counter from {}, {}", jobCounterURL, e.getMessage());
-            return false;
+            return OBJ_MAPPER.readValue(is, JobCountersWrapper.class).getJobCounters();
         } finally {
             Utils.closeInputStream(is);
         }
+    }
 
+    private boolean applyJobCounters(String jobId, CompletableFuture<JobCounters> future) {
+        JobCounters jobCounters = getFetched(future);
+        if (jobCounters == null) {
+            return false;
+        }
         if (jobCounters.getCounterGroup() == null) {
             return true;
         }
@@ -298,7 +382,7 @@ public class MRJobParser implements Runnable {
             jobExecutionAPIEntity.setRackLocalMapsPercentage(jobExecutionAPIEntity.getRackLocalMaps() * 1.0 / jobExecutionAPIEntity.getTotalLaunchedMaps());
         }
         return true;
-    };
+    }
 
     private Function<Pair<String, String>, org.apache.eagle.jpm.util.jobcounter.JobCounters> fetchTaskCounters = jobAndTaskId -> {
         org.apache.eagle.jpm.util.jobcounter.JobCounters jobCounter = new org.apache.eagle.jpm.util.jobcounter.JobCounters();
@@ -432,7 +516,7 @@ public class MRJobParser implements Runnable {
         return needFetchAttemptTasks;
     }
 
-    private Function<String, Boolean> fetchTasks = jobId -> {
+    private boolean tooManyTasks(String jobId) {
         try {
             JobExecutionAPIEntity entity = this.mrJobEntityMap.get(jobId);
             int taskNumber = entity.getNumTotalMaps() + entity.getNumTotalReduces();
@@ -443,25 +527,75 @@ public class MRJobParser implements Runnable {
         } catch (Exception e) {
             return true;
         }
-        String taskURL = app.getTrackingUrl() + Constants.MR_JOBS_URL + "/" + jobId + "/" + Constants.MR_TASKS_URL + "?" + Constants.ANONYMOUS_PARAMETER;
+        return false;
+    }
+
+    /**
+     * Tasks are read one by one from the response stream, and finished tasks already seen with the same
+     * finish time are skipped without being kept.
+     */
+    private List<MRTask> fetchTasks(String taskURL) throws Exception {
+        List<MRTask> tasks = new ArrayList<>();
         InputStream is = null;
-        List<MRTask> tasks = null;
         try {
             is = InputStreamUtils.getInputStream(taskURL, null, Constants.CompressionType.NONE);
             LOG.info("fetch mr task from {}", taskURL);
-            tasks = OBJ_MAPPER.readValue(is, MRTasksWrapper.class).getTasks().getTask();
-        } catch (Exception e) {
-            LOG.warn("fetch mr task from {} failed, {}", taskURL, e);
-            return false;
+            try (JsonParser parser = OBJ_MAPPER.getFactory().createParser(is)) {
+                // {"tasks":{"task":[{...}, ...]}}
+                if (!moveToArray(parser, "tasks", "task")) {
+                    return tasks;
+                }
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    MRTask task = OBJ_MAPPER.readValue(parser, MRTask.class);
+                    Long finishTime = taskFinishTimes.get(task.getId());
+                    if (finishTime == null || finishTime != task.getFinishTime()) {
+                        tasks.add(task);
+                    }
+                }
+            }
         } finally {
             Utils.closeInputStream(is);
         }
+        return tasks;
+    }
+
+    private static boolean moveToArray(JsonParser parser, String... path) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return false;
+        }
+        for (int i = 0; i < path.length; i++) {
+            JsonToken expected = i == path.length - 1 ? JsonToken.START_ARRAY : JsonToken.START_OBJECT;
+            boolean found = false;
+            while (!found && parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (name.equals(path[i])) {
+                    if (value != expected) {
+                        return false;
+                    }
+                    found = true;
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean applyTasks(String jobId, CompletableFuture<List<MRTask>> future) {
+        if (future == null) {
+            return true;
+        }
+        List<MRTask> tasks = getFetched(future);
+        if (tasks == null) {
+            return false;
+        }
 
         Set<String> needFetchAttemptTasks = new HashSet<>();//calcFetchCounterAndAttemptTaskId(tasks);
         for (MRTask task : tasks) {
-            if (this.finishedTaskIds.contains(task.getId()) && !needFetchAttemptTasks.contains(task.getId())) {
-                continue;
-            }
             TaskExecutionAPIEntity taskExecutionAPIEntity = new TaskExecutionAPIEntity();
             taskExecutionAPIEntity.setTags(new HashMap<>(mrJobEntityMap.get(jobId).getTags()));
             taskExecutionAPIEntity.getTags().put(MRJobTagName.TASK_TYPE.toString(), task.getType());
@@ -496,19 +630,16 @@ public class MRJobParser implements Runnable {
                     || task.getState().equals(Constants.TaskState.KILLED.toString())
                     || task.getState().equals(Constants.TaskState.KILL_WAIT.toString())) {
                 //LOG.info("mr job {} task {} has finished", jobId, task.getId());
-                this.finishedTaskIds.add(task.getId());
+                this.taskFinishTimes.put(task.getId(), task.getFinishTime());
             }
         }
         return true;
-    };
+    }
 
-    private Function<String, Boolean> fetchJobConfig = jobId -> {
-        if (mrJobConfigs.containsKey(jobId)) {
-            mrJobEntityMap.get(jobId).setJobConfig(mrJobConfigs.get(jobId));
-            mrJobEntityMap.get(jobId).getTags().put(MRJobTagName.JOB_TYPE.toString(), Utils.fetchJobType(mrJobConfigs.get(jobId)).toString());
-            return true;
-        }
-        String confURL = app.getTrackingUrl() + Constants.MR_JOBS_URL + "/" + jobId + "/" + Constants.MR_CONF_URL + "?" + Constants.ANONYMOUS_PARAMETER;
+    /**
+     * Fetch the job configuration, keeping only the values of configKeys.
+     */
+    private JobConfig fetchJobConfig(String confURL) throws Exception {
         InputStream is = null;
         try {
             LOG.info("fetch job conf from {}", confURL);
@@ -533,10 +664,26 @@ public class MRJobParser implements Runnable {
                 if (this.configKeys.contains(key)) {
                     config.put(key, value);
                 }
+            }
+            return config;
+        } finally {
+            Utils.closeInputStream(is);
+        }
+    }
 
-                if (!this.configKeys.isEmpty() && key.equals(this.configKeys.get(0))) {
-                    mrJobEntityMap.get(jobId).getTags().put(MRJobTagName.JOD_DEF_ID.toString(), value);
-                }
+    private boolean applyJobConfig(String jobId, CompletableFuture<JobConfig> future) {
+        if (future == null) {
+            mrJobEntityMap.get(jobId).setJobConfig(mrJobConfigs.get(jobId));
+            mrJobEntityMap.get(jobId).getTags().put(MRJobTagName.JOB_TYPE.toString(), Utils.fetchJobType(mrJobConfigs.get(jobId)).toString());
+            return true;
+        }
+        JobConfig config = getFetched(future);
+        if (config == null) {
+            return false;
+        }
+        try {
+            if (!this.configKeys.isEmpty() && config.containsKey(this.configKeys.get(0))) {
+                mrJobEntityMap.get(jobId).getTags().put(MRJobTagName.JOD_DEF_ID.toString(), config.get(this.configKeys.get(0)));
             }
             mrJobEntityMap.get(jobId).getTags().put(MRJobTagName.JOB_TYPE.toString(), Utils.fetchJobType(config).toString());
             mrJobEntityMap.get(jobId).setJobConfig(config);
@@ -545,14 +692,11 @@ public class MRJobParser implements Runnable {
             mrJobEntityCreationHandler.add(mrJobEntityMap.get(jobId));
             runningJobManager.update(app.getId(), jobId, mrJobEntityMap.get(jobId));
         } catch (Exception e) {
-            LOG.warn("fetch job conf from {} failed, {}", confURL, e);
+            LOG.warn("apply job conf of {} failed, {}", jobId, e);
             return false;
-        } finally {
-            Utils.closeInputStream(is);
         }
-
         return true;
-    };
+    }
 
     @Override
     public void run() {
@@ -568,6 +712,7 @@ public class MRJobParser implements Runnable {
             } catch (Exception e) {
                 LOG.warn("exception found when process application {}, {}", app.getId(), e);
             } finally {
+                this.runningJobManager.flush(app.getId());
                 for (String jobId : mrJobEntityMap.keySet()) {
                     JobExecutionAPIEntity entity = mrJobEntityMap.get(jobId);
                     if (entity.getTags().containsKey(MRJobTagName.JOB_TYPE.toString())) {
@@ -34,7 +34,7 @@ public class MRRunningJobManager implements Serializable {
 
     public MRRunningJobManager(MRRunningJobConfig.ZKStateConfig config) {
         this.runningJobManager = new RunningJobManager(config.zkQuorum,
-                config.zkSessionTimeoutMs, config.zkRetryTimes, config.zkRetryInterval, config.zkRoot, config.zkLockPath);
+                config.zkSessionTimeoutMs, config.zkRetryTimes, config.zkRetryInterval, config.zkRoot);
     }
 
     public Map<String, JobExecutionAPIEntity> recoverYarnApp(String appId) throws Exception {
@@ -79,4 +79,8 @@ public class MRRunningJobManager implements Serializable {
     public void delete(String yarnAppId, String jobId) {
         this.runningJobManager.delete(yarnAppId, jobId);
     }
+
+    public void flush(String yarnAppId) {
+        this.runningJobManager.flush(yarnAppId);
+    }
 }
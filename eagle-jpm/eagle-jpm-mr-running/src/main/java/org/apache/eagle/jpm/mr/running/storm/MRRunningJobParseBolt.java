@@ -21,6 +21,7 @@ package org.apache.eagle.jpm.mr.running.storm;
 import com.typesafe.config.Config;
 import org.apache.eagle.jpm.analyzer.mr.MRJobPerformanceAnalyzer;
 import org.apache.eagle.jpm.mr.running.MRRunningJobConfig;
+import org.apache.eagle.jpm.mr.running.parser.MRJobFetchExecutor;
 import org.apache.eagle.jpm.mr.running.parser.MRJobParser;
 import org.apache.eagle.jpm.mr.running.recover.MRRunningJobManager;
 import org.apache.eagle.jpm.mr.runningentity.JobExecutionAPIEntity;
@@ -46,6 +47,7 @@ public class MRRunningJobParseBolt extends BaseRichBolt {
     private MRRunningJobConfig.EndpointConfig endpointConfig;
     private MRRunningJobConfig.ZKStateConfig zkStateConfig;
     private ExecutorService executorService;
+    private transient MRJobFetchExecutor fetchExecutor;
     private Map<String, MRJobParser> runningMRParsers;
     private transient MRRunningJobManager runningJobManager;
     private MRRunningJobConfig.EagleServiceConfig eagleServiceConfig;
@@ -68,6 +70,7 @@ public class MRRunningJobParseBolt extends BaseRichBolt {
     @Override
     public void prepare(Map map, TopologyContext topologyContext, OutputCollector outputCollector) {
         this.executorService = Executors.newFixedThreadPool(endpointConfig.parseJobThreadPoolSize);
+        this.fetchExecutor = new MRJobFetchExecutor(endpointConfig.fetchThreadPoolSize, endpointConfig.maxRequestsPerRM);
 
         this.runningJobManager = new MRRunningJobManager(zkStateConfig);
     }
@@ -82,7 +85,7 @@ public class MRRunningJobParseBolt extends BaseRichBolt {
         MRJobParser applicationParser;
         if (!runningMRParsers.containsKey(appInfo.getId())) {
             applicationParser = new MRJobParser(endpointConfig, eagleServiceConfig,
-                    appInfo, mrJobs, runningJobManager, configKeys, this.config);
+                    appInfo, mrJobs, runningJobManager, configKeys, this.config, fetchExecutor);
             runningMRParsers.put(appInfo.getId(), applicationParser);
             LOG.info("create application parser for {}", appInfo.getId());
         } else {
@@ -111,6 +114,12 @@ public class MRRunningJobParseBolt extends BaseRichBolt {
 
     @Override
     public void cleanup() {
+        if (executorService != null) {
+            executorService.shutdownNow();
+        }
+        if (fetchExecutor != null) {
+            fetchExecutor.close();
+        }
         super.cleanup();
     }
 }
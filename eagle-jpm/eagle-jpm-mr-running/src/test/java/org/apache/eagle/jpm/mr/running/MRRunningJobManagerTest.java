@@ -24,6 +24,7 @@ import org.apache.curator.retry.ExponentialBackoffRetry;
 import org.apache.curator.test.TestingServer;
 import org.apache.curator.utils.CloseableUtils;
 import org.apache.eagle.jpm.mr.running.recover.MRRunningJobManager;
+import org.apache.eagle.jpm.mr.runningentity.JobExecutionAPIEntity;
 import org.apache.eagle.jpm.util.jobrecover.RunningJobManager;
 import org.apache.zookeeper.CreateMode;
 import org.junit.*;
@@ -192,6 +193,55 @@ public class MRRunningJobManagerTest {
         verify(log, never()).error(anyString(), any(Throwable.class));
     }
 
+    @Test
+    public void testMRRunningJobManagerWritesOnlyChangedStates() throws Exception {
+        String jobPath = zkStateConfig.zkRoot + "/yarnAppId/jobId";
+        curator.create().creatingParentsIfNeeded().forPath(jobPath, generateZkSetData());
+        MRRunningJobManager mrRunningJobManager = new MRRunningJobManager(zkStateConfig);
+        JobExecutionAPIEntity job = mrRunningJobManager.recover().get("yarnAppId").get("jobId");
+        Assert.assertNotNull(job);
+
+        mrRunningJobManager.update("yarnAppId", "jobId", job);
+        mrRunningJobManager.flush("yarnAppId");
+        int version = curator.checkExists().forPath(jobPath).getVersion();
+        mrRunningJobManager.update("yarnAppId", "jobId", job);
+        mrRunningJobManager.flush("yarnAppId");
+        Assert.assertEquals(version, curator.checkExists().forPath(jobPath).getVersion());
+
+        job.getAppInfo().setProgress(99.0);
+        mrRunningJobManager.update("yarnAppId", "jobId", job);
+        mrRunningJobManager.flush("yarnAppId");
+        Assert.assertEquals(version + 1, curator.checkExists().forPath(jobPath).getVersion());
+        Assert.assertEquals(99.0, new MRRunningJobManager(zkStateConfig).recoverYarnApp("yarnAppId")
+            .get("jobId").getAppInfo().getProgress(), 0);
+        curator.delete().deletingChildrenIfNeeded().forPath(zkStateConfig.zkRoot);
+    }
+
+    @Test
+    public void testMRRunningJobManagerFlushesOnlyItsApplication() throws Exception {
+        curator.create().creatingParentsIfNeeded().forPath(zkStateConfig.zkRoot + "/yarnAppId/jobId", generateZkSetData());
+        MRRunningJobManager mrRunningJobManager = new MRRunningJobManager(zkStateConfig);
+        JobExecutionAPIEntity job = mrRunningJobManager.recover().get("yarnAppId").get("jobId");
+
+        mrRunningJobManager.update("otherYarnAppId", "otherJobId", job);
+        mrRunningJobManager.update("yarnAppId", "newJobId", job);
+        mrRunningJobManager.flush("yarnAppId");
+        Assert.assertNotNull(curator.checkExists().forPath(zkStateConfig.zkRoot + "/yarnAppId/newJobId"));
+        Assert.assertNull(curator.checkExists().forPath(zkStateConfig.zkRoot + "/otherYarnAppId/otherJobId"));
+
+        mrRunningJobManager.flush("otherYarnAppId");
+        Assert.assertNotNull(curator.checkExists().forPath(zkStateConfig.zkRoot + "/otherYarnAppId/otherJobId"));
+
+        // a deleted job is not written by a later flush
+        mrRunningJobManager.update("yarnAppId", "newJobId", job);
+        job.getAppInfo().setProgress(99.0);
+        mrRunningJobManager.update("yarnAppId", "newJobId", job);
+        mrRunningJobManager.delete("yarnAppId", "newJobId");
+        mrRunningJobManager.flush("yarnAppId");
+        Assert.assertNull(curator.checkExists().forPath(zkStateConfig.zkRoot + "/yarnAppId/newJobId"));
+        curator.delete().deletingChildrenIfNeeded().forPath(zkStateConfig.zkRoot);
+    }
+
     private byte[] generateZkSetData() throws IOException {
         InputStream jsonstream = this.getClass().getResourceAsStream("/jobInfo_805.json");
         ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
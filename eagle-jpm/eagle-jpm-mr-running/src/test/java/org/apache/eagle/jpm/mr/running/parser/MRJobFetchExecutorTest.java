@@ -0,0 +1,277 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.eagle.jpm.mr.running.parser;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.typesafe.config.ConfigFactory;
+import org.apache.eagle.jpm.mr.running.MRRunningJobConfig;
+import org.apache.eagle.jpm.mr.running.recover.MRRunningJobManager;
+import org.apache.eagle.jpm.mr.runningentity.JobExecutionAPIEntity;
+import org.apache.eagle.jpm.mr.runningentity.TaskExecutionAPIEntity;
+import org.apache.eagle.jpm.util.resourcefetch.model.AppInfo;
+import org.apache.eagle.log.entity.GenericMetricEntity;
+import org.apache.eagle.log.entity.meta.EntityDefinitionManager;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+public class MRJobFetchExecutorTest {
+    private static final String APP_ID = "application_1479206441898_0001";
+    private static final int JOBS = 6;
+    private static final int MAX_REQUESTS_PER_RM = 8;
+    private static final int MAX_JOBS_IN_FLIGHT = 2;
+
+    private HttpServer server;
+    private MRJobFetchExecutor fetchExecutor;
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+    private final Map<String, Integer> runningJobs = new HashMap<>();
+    private final AtomicInteger maxRunningJobs = new AtomicInteger();
+    private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+    private final List<String> createdTaskIds = Collections.synchronizedList(new ArrayList<>());
+    private volatile long reranTaskFinishTime = 200;
+
+    @BeforeClass
+    public static void registerEntities() throws Exception {
+        EntityDefinitionManager.registerEntity(JobExecutionAPIEntity.class);
+        EntityDefinitionManager.registerEntity(TaskExecutionAPIEntity.class);
+        EntityDefinitionManager.registerEntity(GenericMetricEntity.class);
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/proxy/" + APP_ID + "/ws/v1/mapreduce/jobs", this::handleAM);
+        server.createContext("/rest/entities", this::handleEagleService);
+        server.start();
+        fetchExecutor = new MRJobFetchExecutor(2 * MAX_REQUESTS_PER_RM, MAX_REQUESTS_PER_RM);
+    }
+
+    @After
+    public void tearDown() {
+        fetchExecutor.close();
+        server.stop(0);
+    }
+
+    private String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    private static String jobId(int i) {
+        return "job_1479206441898_000" + i;
+    }
+
+    private void handleAM(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String[] parts = path.substring(path.indexOf("/jobs") + 1).split("/");
+        String resource = parts.length == 1 ? "jobs" : parts.length == 2 ? "job" : parts[2];
+        requests.computeIfAbsent(resource, k -> new AtomicInteger()).incrementAndGet();
+        int current = running.incrementAndGet();
+        maxRunning.accumulateAndGet(current, Math::max);
+        String jobId = parts.length == 1 ? null : parts[1];
+        if (jobId != null) {
+            synchronized (runningJobs) {
+                runningJobs.merge(jobId, 1, Integer::sum);
+                maxRunningJobs.accumulateAndGet(runningJobs.size(), Math::max);
+            }
+        }
+        try {
+            if (!"jobs".equals(resource)) {
+                Thread.sleep(20);
+            }
+            switch (resource) {
+                case "jobs":
+                    StringBuilder jobs = new StringBuilder("{\"jobs\":{\"job\":[");
+                    for (int i = 0; i < JOBS; i++) {
+                        jobs.append(i == 0 ? "" : ",").append("{\"id\":\"").append(jobId(i))
+                            .append("\",\"name\":\"test").append(i).append("\",\"state\":\"RUNNING\",\"mapsTotal\":3}");
+                    }
+                    respond(exchange, jobs.append("]}}").toString());
+                    break;
+                case "conf":
+                    respond(exchange, "<conf><property><name>eagle.job.name</name><value>test</value></property>"
+                        + "<property><name>other</name><value>value</value></property></conf>");
+                    break;
+                case "counters":
+                    respond(exchange, "{\"jobCounters\":{\"id\":\"" + parts[1] + "\",\"counterGroup\":[{\"counterGroupName\":"
+                        + "\"org.apache.hadoop.mapreduce.JobCounter\",\"counter\":[{\"name\":\"TOTAL_LAUNCHED_MAPS\",\"totalCounterValue\":3}]}]}}");
+                    break;
+                case "tasks":
+                    String prefix = "task_1479206441898_000" + parts[1].substring(parts[1].length() - 1) + "_m_00000";
+                    respond(exchange, "{\"tasks\":{\"task\":["
+                        + "{\"id\":\"" + prefix + "0\",\"state\":\"RUNNING\",\"type\":\"MAP\",\"startTime\":10,\"finishTime\":0,\"unknown\":{\"a\":[1]}},"
+                        + "{\"id\":\"" + prefix + "1\",\"state\":\"SUCCEEDED\",\"type\":\"MAP\",\"startTime\":10,\"finishTime\":100},"
+                        + "{\"id\":\"" + prefix + "2\",\"state\":\"SUCCEEDED\",\"type\":\"MAP\",\"startTime\":10,\"finishTime\":" + reranTaskFinishTime + "}"
+                        + "]}}");
+                    break;
+                default:
+                    exchange.sendResponseHeaders(404, -1);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (jobId != null) {
+                synchronized (runningJobs) {
+                    runningJobs.computeIfPresent(jobId, (k, v) -> v == 1 ? null : v - 1);
+                }
+            }
+            running.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    private void handleEagleService(HttpExchange exchange) throws IOException {
+        InputStream body = exchange.getRequestBody();
+        if ("gzip".equals(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+            body = new GZIPInputStream(body);
+        }
+        Scanner scanner = new Scanner(body, "UTF-8").useDelimiter("\"taskId\":\"");
+        if (exchange.getRequestURI().getQuery().contains("RunningTaskExecutionService") && scanner.hasNext()) {
+            scanner.next();
+            while (scanner.hasNext()) {
+                String next = scanner.next();
+                createdTaskIds.add(next.substring(0, next.indexOf('"')));
+            }
+        }
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        respond(exchange, "{\"success\":true}");
+    }
+
+    private static void respond(HttpExchange exchange, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    private MRJobParser createParser(MRRunningJobManager runningJobManager) throws Exception {
+        MRRunningJobConfig.EndpointConfig endpointConfig = new MRRunningJobConfig.EndpointConfig();
+        endpointConfig.site = "sandbox";
+        endpointConfig.maxJobsInFlight = MAX_JOBS_IN_FLIGHT;
+        endpointConfig.fetchTasksEveryTime = 1;
+        MRRunningJobConfig.EagleServiceConfig eagleServiceConfig = new MRRunningJobConfig.EagleServiceConfig();
+        eagleServiceConfig.eagleServiceHost = "localhost";
+        eagleServiceConfig.eagleServicePort = server.getAddress().getPort();
+        eagleServiceConfig.readTimeoutSeconds = 10;
+
+        AppInfo app = new AppInfo();
+        app.setId(APP_ID);
+        app.setUser("user");
+        app.setQueue("default");
+        app.setState("RUNNING");
+        app.setStartedTime(1000L);
+        app.setTrackingUrl(baseUrl() + "/proxy/" + APP_ID + "/");
+        return new MRJobParser(endpointConfig, eagleServiceConfig, app, null, runningJobManager,
+            Arrays.asList("eagle.job.name", "hive.query.string"), ConfigFactory.load(), fetchExecutor);
+    }
+
+    @Test
+    public void testMaxRequestsPerRM() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger concurrent = new AtomicInteger();
+        AtomicInteger maxConcurrent = new AtomicInteger();
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            int value = i;
+            futures.add(fetchExecutor.submit("http://rm1:8088/proxy/app/ws/v1/mapreduce/jobs/" + i, () -> {
+                maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+                release.await();
+                concurrent.decrementAndGet();
+                return value;
+            }));
+        }
+        CompletableFuture<String> otherRM = fetchExecutor.submit("http://rm2:8088/proxy/app/ws/v1/mapreduce/jobs", () -> "rm2");
+        // requests to other RMs are not queued behind the busy one
+        Assert.assertEquals("rm2", otherRM.get(10, TimeUnit.SECONDS));
+        Assert.assertEquals(10, fetchExecutor.getRequests("http://rm1:8088/ws/v1/cluster/apps"));
+
+        release.countDown();
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(i, futures.get(i).get(10, TimeUnit.SECONDS).intValue());
+        }
+        Assert.assertEquals(MAX_REQUESTS_PER_RM, maxConcurrent.get());
+        Assert.assertEquals(0, fetchExecutor.getRequests("http://rm1:8088/ws/v1/cluster/apps"));
+    }
+
+    @Test
+    public void testFailedRequest() throws Exception {
+        CompletableFuture<String> future = fetchExecutor.submit("http://rm1:8088/proxy", () -> {
+            throw new IOException("connection refused");
+        });
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof IOException);
+        }
+        Assert.assertEquals("next", fetchExecutor.submit("http://rm1:8088/proxy", () -> "next").get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testParseJobsFromMockAM() throws Exception {
+        MRRunningJobManager runningJobManager = Mockito.mock(MRRunningJobManager.class);
+        MRJobParser parser = createParser(runningJobManager);
+        parser.run();
+
+        Assert.assertEquals(MRJobParser.ParserStatus.FINISHED, parser.status());
+        Assert.assertEquals(1, requests.get("jobs").get());
+        Assert.assertEquals(JOBS, requests.get("conf").get());
+        Assert.assertEquals(JOBS, requests.get("counters").get());
+        Assert.assertEquals(JOBS, requests.get("tasks").get());
+        Assert.assertTrue(maxRunning.get() > 1);
+        Assert.assertTrue(maxRunning.get() <= MAX_REQUESTS_PER_RM);
+        // fetches of the next job are only submitted once the oldest job in flight is applied
+        Assert.assertTrue(maxRunningJobs.get() > 1);
+        Assert.assertTrue(maxRunningJobs.get() <= MAX_JOBS_IN_FLIGHT);
+        Mockito.verify(runningJobManager, Mockito.times(JOBS)).update(Mockito.eq(APP_ID), Mockito.anyString(), Mockito.any(JobExecutionAPIEntity.class));
+        Assert.assertEquals(JOBS * 3, createdTaskIds.size());
+
+        // configs are cached, finished tasks are only created again once their finish time changes
+        createdTaskIds.clear();
+        reranTaskFinishTime = 300;
+        parser.run();
+        Assert.assertEquals(JOBS, requests.get("conf").get());
+        Assert.assertEquals(JOBS * 2, requests.get("counters").get());
+        Assert.assertEquals(JOBS * 2, requests.get("tasks").get());
+        Assert.assertEquals(JOBS * 2, createdTaskIds.size());
+        for (int i = 0; i < JOBS; i++) {
+            Assert.assertTrue(createdTaskIds.contains("task_1479206441898_000" + i + "_m_000000"));
+            Assert.assertTrue(createdTaskIds.contains("task_1479206441898_000" + i + "_m_000002"));
+        }
+
+        createdTaskIds.clear();
+        parser.run();
+        Assert.assertEquals(JOBS, createdTaskIds.size());
+    }
+}
@@ -83,6 +83,7 @@ public class SparkRunningJobAppConfig implements Serializable {
         public String site;
         public int fetchRunningJobInterval;
         public int parseThreadPoolSize;
+        public int fetchThreadPoolSize;
         public int jobFetchSpoutParallism;
         public int jobFetchSpoutTasksNum;
         public int jobParseBoltParallism;
@@ -146,6 +147,10 @@ public class SparkRunningJobAppConfig implements Serializable {
         this.jobExtractorConfig.site = config.getString("siteId");
         this.jobExtractorConfig.fetchRunningJobInterval = config.getInt("jobExtractorConfig.fetchRunningJobInterval");
         this.jobExtractorConfig.parseThreadPoolSize = config.getInt("jobExtractorConfig.parseThreadPoolSize");
+        this.jobExtractorConfig.fetchThreadPoolSize = 8;
+        if (config.hasPath("jobExtractorConfig.fetchThreadPoolSize")) {
+            this.jobExtractorConfig.fetchThreadPoolSize = config.getInt("jobExtractorConfig.fetchThreadPoolSize");
+        }
         this.jobExtractorConfig.jobFetchSpoutParallism = config.getInt("jobExtractorConfig.numOfSpoutExecutors");
         this.jobExtractorConfig.jobFetchSpoutTasksNum = config.getInt("jobExtractorConfig.numOfSpoutTasks");
         this.jobExtractorConfig.jobParseBoltParallism = config.getInt("jobExtractorConfig.numOfParseBoltExecutors");
@@ -29,18 +29,24 @@ import org.apache.commons.lang3.tuple.Pair;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.*;
-import java.util.function.Function;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 
 public class SparkApplicationParser implements Runnable {
     private static final Logger LOG = LoggerFactory.getLogger(SparkApplicationParser.class);
@@ -58,20 +64,30 @@ public class SparkApplicationParser implements Runnable {
     private Map<String, SparkAppEntity> sparkAppEntityMap;
     private Map<String, JobConfig> sparkJobConfigs;
     private Map<Integer, Pair<Integer, Pair<Long, Long>>> stagesTime;
-    private Set<Integer> completeStages;
+    //<sparkAppId, stageId_attemptId of complete or failed stages>
+    private Map<String, Set<String>> finishedStages;
+    //<sparkAppId, stageId_attemptId of finished stages skipped because their job was not listed yet>
+    private Map<String, Set<String>> skippedStages;
     private Configuration hdfsConf;
     private SparkRunningJobAppConfig.EndpointConfig endpointConfig;
     private final Object lock = new Object();
     private static final ObjectMapper OBJ_MAPPER = new ObjectMapper();
+    private static final ObjectReader EXECUTOR_READER;
+    private static final ObjectReader JOB_READER;
+    private static final ObjectReader STAGE_READER;
     private Map<String, String> commonTags = new HashMap<>();
     private SparkRunningJobManager sparkRunningJobManager;
     private ParserStatus parserStatus;
     private ResourceFetcher rmResourceFetcher;
     private int currentAttempt;
     private boolean first;
+    private final Executor fetchExecutor;
 
     static {
         OBJ_MAPPER.configure(JsonParser.Feature.ALLOW_NON_NUMERIC_NUMBERS, true);
+        EXECUTOR_READER = OBJ_MAPPER.reader(SparkExecutor.class);
+        JOB_READER = OBJ_MAPPER.reader(SparkJob.class);
+        STAGE_READER = OBJ_MAPPER.reader(SparkStage.class);
     }
 
     public SparkApplicationParser(SparkRunningJobAppConfig.EagleServiceConfig eagleServiceConfig,
@@ -79,12 +95,26 @@ public class SparkApplicationParser implements Runnable {
                                   SparkRunningJobAppConfig.JobExtractorConfig jobExtractorConfig,
                                   AppInfo app, Map<String, SparkAppEntity> sparkApp,
                                   SparkRunningJobManager sparkRunningJobManager, ResourceFetcher rmResourceFetcher) {
+        this(eagleServiceConfig, endpointConfig, jobExtractorConfig, app, sparkApp, sparkRunningJobManager,
+            rmResourceFetcher, Runnable::run);
+    }
+
+    /**
+     * @param fetchExecutor runs the requests to the spark application master, may be shared by parsers.
+     */
+    public SparkApplicationParser(SparkRunningJobAppConfig.EagleServiceConfig eagleServiceConfig,
+                                  SparkRunningJobAppConfig.EndpointConfig endpointConfig,
+                                  SparkRunningJobAppConfig.JobExtractorConfig jobExtractorConfig,
+                                  AppInfo app, Map<String, SparkAppEntity> sparkApp,
+                                  SparkRunningJobManager sparkRunningJobManager, ResourceFetcher rmResourceFetcher,
+                                  Executor fetchExecutor) {
         this.sparkAppEntityCreationHandler = new SparkAppEntityCreationHandler(eagleServiceConfig);
         this.endpointConfig = endpointConfig;
         this.app = app;
         this.sparkJobConfigs = new HashMap<>();
         this.stagesTime = new HashMap<>();
-        this.completeStages = new HashSet<>();
+        this.finishedStages = new HashMap<>();
+        this.skippedStages = new HashMap<>();
         this.sparkAppEntityMap = sparkApp;
         if (this.sparkAppEntityMap == null) {
             this.sparkAppEntityMap = new HashMap<>();
@@ -104,6 +134,7 @@ public class SparkApplicationParser implements Runnable {
         this.commonTags.put(SparkJobTagName.SPARK_QUEUE.toString(), app.getQueue());
         this.parserStatus  = ParserStatus.FINISHED;
         this.sparkRunningJobManager = sparkRunningJobManager;
+        this.fetchExecutor = fetchExecutor;
     }
 
     public ParserStatus status() {
@@ -139,28 +170,21 @@ public class SparkApplicationParser implements Runnable {
             }
         }
 
-        List<Function<String, Boolean>> functions = new ArrayList<>();
-        functions.add(fetchSparkExecutors);
-        functions.add(fetchSparkJobs);
-        if (!first) {
-            functions.add(fetchSparkStagesAndTasks);
-        }
-
+        boolean fetchStages = !first;
         this.first = false;
+        //requests of all spark apps are sent at once, responses are applied app by app in this thread
+        List<SparkAppFetch> fetches = new ArrayList<>();
         for (String sparkAppId : sparkAppEntityMap.keySet()) {
-            for (Function<String, Boolean> function : functions) {
-                int i = 0;
-                for (; i < MAX_RETRY_TIMES; i++) {
-                    if (function.apply(sparkAppId)) {
-                        break;
-                    }
-                }
-                if (i >= MAX_RETRY_TIMES) {
-                    //may caused by rm unreachable
-                    rmResourceFetcher.getResource(Constants.ResourceType.RUNNING_SPARK_JOB);
-                    finishSparkApp(sparkAppId);
-                    break;
-                }
+            fetches.add(new SparkAppFetch(sparkAppId, fetchStages));
+        }
+        for (SparkAppFetch fetch : fetches) {
+            fetch.fetchStageDetails();
+        }
+        for (SparkAppFetch fetch : fetches) {
+            if (!fetch.apply()) {
+                //may caused by rm unreachable
+                rmResourceFetcher.getResource(Constants.ResourceType.RUNNING_SPARK_JOB);
+                finishSparkApp(fetch.sparkAppId);
             }
         }
     }
@@ -179,6 +203,7 @@ public class SparkApplicationParser implements Runnable {
                 LOG.warn("exception found when process application {}, {}", app.getId(), e);
                 e.printStackTrace();
             } finally {
+                this.sparkRunningJobManager.flush(app.getId());
                 for (String jobId : sparkAppEntityMap.keySet()) {
                     sparkAppEntityCreationHandler.add(sparkAppEntityMap.get(jobId));
                 }
@@ -371,28 +396,112 @@ public class SparkApplicationParser implements Runnable {
         return true;
     }
 
-    private Function<String, Boolean> fetchSparkExecutors = sparkAppId -> {
-        //only get current attempt
-        SparkAppEntity sparkAppEntity = sparkAppEntityMap.get(sparkAppId);
-        String executorURL = app.getTrackingUrl() + Constants.SPARK_APPS_URL + "/" + sparkAppId + "/" + Constants.SPARK_EXECUTORS_URL + "?" + Constants.ANONYMOUS_PARAMETER;
-        InputStream is = null;
-        SparkExecutor[] sparkExecutors = null;
+    private String sparkAppUrl(String sparkAppId, String resource) {
+        return app.getTrackingUrl() + Constants.SPARK_APPS_URL + "/" + sparkAppId + "/" + resource;
+    }
+
+    private static String stageKey(SparkStage stage) {
+        return stage.getStageId() + "_" + stage.getAttemptId();
+    }
+
+    private static boolean isFinished(SparkStage stage) {
+        return stage.getStatus().equalsIgnoreCase(Constants.StageState.COMPLETE.toString())
+            || stage.getStatus().equalsIgnoreCase(Constants.StageState.FAILED.toString());
+    }
+
+    @FunctionalInterface
+    private interface ResponseReader<T> {
+        T read(InputStream is) throws Exception;
+    }
+
+    /**
+     * Fetches the url on the fetch executor, retrying up to MAX_RETRY_TIMES.
+     * The future completes with null if the application master is not reachable any more.
+     */
+    private <T> CompletableFuture<T> fetch(String url, ResponseReader<T> reader) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Runnable request = () -> {
+            for (int i = 0; ; i++) {
+                InputStream is = null;
+                try {
+                    is = InputStreamUtils.getInputStream(url, null, Constants.CompressionType.NONE);
+                    LOG.info("fetch spark resource from {}", url);
+                    future.complete(reader.read(is));
+                    return;
+                } catch (java.net.ConnectException e) {
+                    LOG.warn("fetch spark resource from {} failed, {}", url, e);
+                    future.complete(null);
+                    return;
+                } catch (Exception e) {
+                    LOG.warn("fetch spark resource from {} failed, {}", url, e);
+                    if (i >= MAX_RETRY_TIMES - 1) {
+                        future.completeExceptionally(e);
+                        return;
+                    }
+                } finally {
+                    Utils.closeInputStream(is);
+                }
+            }
+        };
         try {
-            is = InputStreamUtils.getInputStream(executorURL, null, Constants.CompressionType.NONE);
-            LOG.info("fetch spark executor from {}", executorURL);
-            sparkExecutors = OBJ_MAPPER.readValue(is, SparkExecutor[].class);
-        } catch (java.net.ConnectException e) {
-            LOG.warn("fetch spark application from {} failed, {}", executorURL, e);
-            e.printStackTrace();
-            return true;
-        } catch (Exception e) {
-            LOG.warn("fetch spark executor from {} failed, {}", executorURL, e);
-            e.printStackTrace();
-            return false;
-        } finally {
-            Utils.closeInputStream(is);
+            fetchExecutor.execute(request);
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private static <T> List<T> readList(InputStream is, ObjectReader reader) throws IOException {
+        List<T> values = new ArrayList<>();
+        Iterator<T> iterator = reader.readValues(is);
+        while (iterator.hasNext()) {
+            values.add(iterator.next());
+        }
+        return values;
+    }
+
+    /**
+     * Reads the id, attempt and status of the stages in a stage list, skipping all other fields.
+     * Stages in finished are left out. Spark lists complete and failed stages newest first, so if
+     * stopAtFinished, reading stops at the first stage in finished and the rest of the response is not parsed.
+     */
+    private static List<SparkStage> readStages(InputStream is, Set<String> finished, boolean stopAtFinished) throws IOException {
+        List<SparkStage> stages = new ArrayList<>();
+        try (JsonParser parser = OBJ_MAPPER.getFactory().createParser(is)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new JsonParseException("stage list is not an array", parser.getCurrentLocation());
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                SparkStage stage = new SparkStage();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.getCurrentName();
+                    parser.nextToken();
+                    if ("stageId".equals(field)) {
+                        stage.setStageId(parser.getIntValue());
+                    } else if ("attemptId".equals(field)) {
+                        stage.setAttemptId(parser.getIntValue());
+                    } else if ("status".equals(field)) {
+                        stage.setStatus(parser.getText());
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                if (finished != null && finished.contains(stageKey(stage))) {
+                    if (stopAtFinished) {
+                        break;
+                    }
+                    continue;
+                }
+                stages.add(stage);
+            }
         }
-        sparkAppEntity.setExecutors(sparkExecutors.length);
+        return stages;
+    }
+
+    private void applySparkExecutors(String sparkAppId, List<SparkExecutor> sparkExecutors) {
+        //only get current attempt
+        SparkAppEntity sparkAppEntity = sparkAppEntityMap.get(sparkAppId);
+        sparkAppEntity.setExecutors(sparkExecutors.size());
 
         for (SparkExecutor executor : sparkExecutors) {
             SparkExecutorEntity entity = new SparkExecutorEntity();
@@ -425,35 +534,15 @@ public class SparkApplicationParser implements Runnable {
             }
             sparkAppEntityCreationHandler.add(entity);
         }
-        return true;
-    };
+    }
 
-    private Function<String, Boolean> fetchSparkJobs = sparkAppId -> {
+    private void applySparkJobs(String sparkAppId, List<SparkJob> sparkJobs) {
         //only get current attempt
         SparkAppEntity sparkAppEntity = sparkAppEntityMap.get(sparkAppId);
-        String jobURL = app.getTrackingUrl() + Constants.SPARK_APPS_URL + "/" + sparkAppId + "/" + Constants.SPARK_JOBS_URL + "?" + Constants.ANONYMOUS_PARAMETER;
-        InputStream is = null;
-        SparkJob[] sparkJobs = null;
-        try {
-            is = InputStreamUtils.getInputStream(jobURL, null, Constants.CompressionType.NONE);
-            LOG.info("fetch spark job from {}", jobURL);
-            sparkJobs = OBJ_MAPPER.readValue(is, SparkJob[].class);
-        } catch (java.net.ConnectException e) {
-            LOG.warn("fetch spark application from {} failed, {}", jobURL, e);
-            e.printStackTrace();
-            return true;
-        } catch (Exception e) {
-            LOG.warn("fetch spark job from {} failed, {}", jobURL, e);
-            e.printStackTrace();
-            return false;
-        } finally {
-            Utils.closeInputStream(is);
-        }
-
-        sparkAppEntity.setNumJobs(sparkJobs.length);
+        sparkAppEntity.setNumJobs(sparkJobs.size());
         for (SparkJob sparkJob : sparkJobs) {
             SparkJobEntity entity = new SparkJobEntity();
-            entity.setTags(new HashMap<>(commonTags));
+            entity.setTags(new HashMap<>(sparkAppEntity.getTags()));
             entity.getTags().put(SparkJobTagName.SPARK_JOB_ID.toString(), sparkJob.getJobId() + "");
             entity.setSubmissionTime(Utils.dateTimeToLong(sparkJob.getSubmissionTime()));
             if (sparkJob.getCompletionTime() != null) {
@@ -489,105 +578,78 @@ public class SparkApplicationParser implements Runnable {
             }
             sparkAppEntityCreationHandler.add(entity);
         }
-        return true;
-    };
+    }
 
-    private Function<String, Boolean> fetchSparkStagesAndTasks = sparkAppId -> {
+    private void applySparkStage(String sparkAppId, SparkStage stage) {
         SparkAppEntity sparkAppEntity = sparkAppEntityMap.get(sparkAppId);
-        String stageURL = app.getTrackingUrl() + Constants.SPARK_APPS_URL + "/" + sparkAppId + "/" + Constants.SPARK_STAGES_URL + "?" + Constants.ANONYMOUS_PARAMETER;
-        InputStream is = null;
-        SparkStage[] sparkStages;
-        try {
-            is = InputStreamUtils.getInputStream(stageURL, null, Constants.CompressionType.NONE);
-            LOG.info("fetch spark stage from {}", stageURL);
-            sparkStages = OBJ_MAPPER.readValue(is, SparkStage[].class);
-        } catch (java.net.ConnectException e) {
-            LOG.warn("fetch spark application from {} failed, {}", stageURL, e);
-            e.printStackTrace();
-            return true;
-        } catch (Exception e) {
-            LOG.warn("fetch spark stage from {} failed, {}", stageURL, e);
-            e.printStackTrace();
-            return false;
-        } finally {
-            Utils.closeInputStream(is);
-        }
-
-        for (SparkStage sparkStage : sparkStages) {
-            //TODO
-            //we need a thread pool to handle this if there are many stages
-            SparkStage stage;
-            try {
-                stageURL = app.getTrackingUrl() + Constants.SPARK_APPS_URL + "/" + sparkAppId + "/" + Constants.SPARK_STAGES_URL + "/" + sparkStage.getStageId() + "?" + Constants.ANONYMOUS_PARAMETER;
-                is = InputStreamUtils.getInputStream(stageURL, null, Constants.CompressionType.NONE);
-                LOG.info("fetch spark stage from {}", stageURL);
-                stage = OBJ_MAPPER.readValue(is, SparkStage[].class)[0];
-            } catch (Exception e) {
-                LOG.warn("fetch spark stage from {} failed, {}", stageURL, e);
-                e.printStackTrace();
-                return false;
-            } finally {
-                Utils.closeInputStream(is);
+        if (!stagesTime.containsKey(stage.getStageId())) {
+            //the job of the stage was not listed yet, the stage is fetched again next time
+            LOG.info("skip stage {} of spark {} without job", stage.getStageId(), sparkAppId);
+            if (isFinished(stage)) {
+                skippedStages.computeIfAbsent(sparkAppId, id -> new HashSet<>()).add(stageKey(stage));
             }
-
-            if (this.completeStages.contains(stage.getStageId())) {
-                return true;
-            }
-            SparkStageEntity stageEntity = new SparkStageEntity();
-            stageEntity.setTags(new HashMap<>(commonTags));
-            stageEntity.getTags().put(SparkJobTagName.SPARK_JOB_ID.toString(), stagesTime.get(stage.getStageId()).getLeft() + "");
-            stageEntity.getTags().put(SparkJobTagName.SPARK_SATGE_ID.toString(), stage.getStageId() + "");
-            stageEntity.getTags().put(SparkJobTagName.SPARK_STAGE_ATTEMPT_ID.toString(), stage.getAttemptId() + "");
-            stageEntity.setStatus(stage.getStatus());
-            stageEntity.setNumActiveTasks(stage.getNumActiveTasks());
-            stageEntity.setNumCompletedTasks(stage.getNumCompleteTasks());
-            stageEntity.setNumFailedTasks(stage.getNumFailedTasks());
-            stageEntity.setExecutorRunTime(stage.getExecutorRunTime());
-            stageEntity.setInputBytes(stage.getInputBytes());
-            stageEntity.setInputRecords(stage.getInputRecords());
-            stageEntity.setOutputBytes(stage.getOutputBytes());
-            stageEntity.setOutputRecords(stage.getOutputRecords());
-            stageEntity.setShuffleReadBytes(stage.getShuffleReadBytes());
-            stageEntity.setShuffleReadRecords(stage.getShuffleReadRecords());
-            stageEntity.setShuffleWriteBytes(stage.getShuffleWriteBytes());
-            stageEntity.setShuffleWriteRecords(stage.getShuffleWriteRecords());
-            stageEntity.setMemoryBytesSpilled(stage.getMemoryBytesSpilled());
-            stageEntity.setDiskBytesSpilled(stage.getDiskBytesSpilled());
-            stageEntity.setName(stage.getName());
-            stageEntity.setSchedulingPool(stage.getSchedulingPool());
-            stageEntity.setSubmitTime(stagesTime.get(stage.getStageId()).getRight().getLeft());
-            stageEntity.setTimestamp(stageEntity.getSubmitTime());
-            stageEntity.setCompleteTime(stagesTime.get(stage.getStageId()).getRight().getRight());
-            stageEntity.setNumTasks(stage.getTasks() == null ? 0 : stage.getTasks().size());
-            fetchTasksFromStage(stageEntity, stage);
-            sparkAppEntityCreationHandler.add(stageEntity);
-            if (stage.getStatus().equals(Constants.StageState.COMPLETE.toString())) {
-                this.completeStages.add(stage.getStageId());
-                LOG.info("stage {} of spark {} has finished", stage.getStageId(), sparkAppId);
+            return;
+        }
+        SparkStageEntity stageEntity = new SparkStageEntity();
+        stageEntity.setTags(new HashMap<>(sparkAppEntity.getTags()));
+        stageEntity.getTags().put(SparkJobTagName.SPARK_JOB_ID.toString(), stagesTime.get(stage.getStageId()).getLeft() + "");
+        stageEntity.getTags().put(SparkJobTagName.SPARK_SATGE_ID.toString(), stage.getStageId() + "");
+        stageEntity.getTags().put(SparkJobTagName.SPARK_STAGE_ATTEMPT_ID.toString(), stage.getAttemptId() + "");
+        stageEntity.setStatus(stage.getStatus());
+        stageEntity.setNumActiveTasks(stage.getNumActiveTasks());
+        stageEntity.setNumCompletedTasks(stage.getNumCompleteTasks());
+        stageEntity.setNumFailedTasks(stage.getNumFailedTasks());
+        stageEntity.setExecutorRunTime(stage.getExecutorRunTime());
+        stageEntity.setInputBytes(stage.getInputBytes());
+        stageEntity.setInputRecords(stage.getInputRecords());
+        stageEntity.setOutputBytes(stage.getOutputBytes());
+        stageEntity.setOutputRecords(stage.getOutputRecords());
+        stageEntity.setShuffleReadBytes(stage.getShuffleReadBytes());
+        stageEntity.setShuffleReadRecords(stage.getShuffleReadRecords());
+        stageEntity.setShuffleWriteBytes(stage.getShuffleWriteBytes());
+        stageEntity.setShuffleWriteRecords(stage.getShuffleWriteRecords());
+        stageEntity.setMemoryBytesSpilled(stage.getMemoryBytesSpilled());
+        stageEntity.setDiskBytesSpilled(stage.getDiskBytesSpilled());
+        stageEntity.setName(stage.getName());
+        stageEntity.setSchedulingPool(stage.getSchedulingPool());
+        stageEntity.setSubmitTime(stagesTime.get(stage.getStageId()).getRight().getLeft());
+        stageEntity.setTimestamp(stageEntity.getSubmitTime());
+        stageEntity.setCompleteTime(stagesTime.get(stage.getStageId()).getRight().getRight());
+        stageEntity.setNumTasks(stage.getTasks() == null ? 0 : stage.getTasks().size());
+        fetchTasksFromStage(stageEntity, stage);
+        sparkAppEntityCreationHandler.add(stageEntity);
+        if (isFinished(stage)) {
+            finishedStages.get(sparkAppId).add(stageKey(stage));
+            Set<String> skipped = skippedStages.get(sparkAppId);
+            if (skipped != null) {
+                skipped.remove(stageKey(stage));
             }
-
-            sparkAppEntity.setInputBytes(sparkAppEntity.getInputBytes() + stageEntity.getInputBytes());
-            sparkAppEntity.setInputRecords(sparkAppEntity.getInputBytes() + stageEntity.getInputRecords());
-            sparkAppEntity.setOutputBytes(sparkAppEntity.getOutputBytes() + stageEntity.getOutputBytes());
-            sparkAppEntity.setOutputRecords(sparkAppEntity.getOutputBytes() + stageEntity.getOutputRecords());
-            sparkAppEntity.setShuffleReadBytes(sparkAppEntity.getShuffleReadBytes() + stageEntity.getShuffleReadBytes());
-            sparkAppEntity.setShuffleReadRecords(sparkAppEntity.getShuffleReadRecords() + stageEntity.getShuffleReadRecords());
-            sparkAppEntity.setShuffleWriteBytes(sparkAppEntity.getShuffleWriteBytes() + stageEntity.getShuffleWriteBytes());
-            sparkAppEntity.setShuffleWriteRecords(sparkAppEntity.getShuffleWriteRecords() + stageEntity.getShuffleWriteRecords());
-            sparkAppEntity.setExecutorRunTime(sparkAppEntity.getExecutorRunTime() + stageEntity.getExecutorRunTime());
-            sparkAppEntity.setExecutorDeserializeTime(sparkAppEntity.getExecutorDeserializeTime() + stageEntity.getExecutorDeserializeTime());
-            sparkAppEntity.setResultSize(sparkAppEntity.getResultSize() + stageEntity.getResultSize());
-            sparkAppEntity.setJvmGcTime(sparkAppEntity.getJvmGcTime() + stageEntity.getJvmGcTime());
-            sparkAppEntity.setResultSerializationTime(sparkAppEntity.getResultSerializationTime() + stageEntity.getResultSerializationTime());
-            sparkAppEntity.setMemoryBytesSpilled(sparkAppEntity.getMemoryBytesSpilled() + stageEntity.getMemoryBytesSpilled());
-            sparkAppEntity.setDiskBytesSpilled(sparkAppEntity.getDiskBytesSpilled() + stageEntity.getDiskBytesSpilled());
-            sparkAppEntity.setCompleteTasks(sparkAppEntity.getCompleteTasks() + stageEntity.getNumCompletedTasks());
+            LOG.info("stage {} of spark {} has finished", stage.getStageId(), sparkAppId);
         }
-        return true;
-    };
+
+        sparkAppEntity.setInputBytes(sparkAppEntity.getInputBytes() + stageEntity.getInputBytes());
+        sparkAppEntity.setInputRecords(sparkAppEntity.getInputBytes() + stageEntity.getInputRecords());
+        sparkAppEntity.setOutputBytes(sparkAppEntity.getOutputBytes() + stageEntity.getOutputBytes());
+        sparkAppEntity.setOutputRecords(sparkAppEntity.getOutputBytes() + stageEntity.getOutputRecords());
+        sparkAppEntity.setShuffleReadBytes(sparkAppEntity.getShuffleReadBytes() + stageEntity.getShuffleReadBytes());
+        sparkAppEntity.setShuffleReadRecords(sparkAppEntity.getShuffleReadRecords() + stageEntity.getShuffleReadRecords());
+        sparkAppEntity.setShuffleWriteBytes(sparkAppEntity.getShuffleWriteBytes() + stageEntity.getShuffleWriteBytes());
+        sparkAppEntity.setShuffleWriteRecords(sparkAppEntity.getShuffleWriteRecords() + stageEntity.getShuffleWriteRecords());
+        sparkAppEntity.setExecutorRunTime(sparkAppEntity.getExecutorRunTime() + stageEntity.getExecutorRunTime());
+        sparkAppEntity.setExecutorDeserializeTime(sparkAppEntity.getExecutorDeserializeTime() + stageEntity.getExecutorDeserializeTime());
+        sparkAppEntity.setResultSize(sparkAppEntity.getResultSize() + stageEntity.getResultSize());
+        sparkAppEntity.setJvmGcTime(sparkAppEntity.getJvmGcTime() + stageEntity.getJvmGcTime());
+        sparkAppEntity.setResultSerializationTime(sparkAppEntity.getResultSerializationTime() + stageEntity.getResultSerializationTime());
+        sparkAppEntity.setMemoryBytesSpilled(sparkAppEntity.getMemoryBytesSpilled() + stageEntity.getMemoryBytesSpilled());
+        sparkAppEntity.setDiskBytesSpilled(sparkAppEntity.getDiskBytesSpilled() + stageEntity.getDiskBytesSpilled());
+        sparkAppEntity.setCompleteTasks(sparkAppEntity.getCompleteTasks() + stageEntity.getNumCompletedTasks());
+    }
 
     private void fetchTasksFromStage(SparkStageEntity stageEntity, SparkStage stage) {
         Map<String, SparkTask> tasks = stage.getTasks();
+        if (tasks == null) {
+            return;
+        }
         for (String key : tasks.keySet()) {
             SparkTask task = tasks.get(key);
             SparkTaskEntity taskEntity = new SparkTaskEntity();
@@ -641,4 +703,86 @@ public class SparkApplicationParser implements Runnable {
             this.sparkAppEntityCreationHandler.add(taskEntity);
         }
     }
+
+    /**
+     * Requests of one spark app of the current attempt. Responses are decoded on the fetch executor,
+     * entities are only created by {@link #apply()} in the parser thread.
+     */
+    private class SparkAppFetch {
+        private final String sparkAppId;
+        private final CompletableFuture<List<SparkExecutor>> executors;
+        private final CompletableFuture<List<SparkJob>> jobs;
+        private final List<CompletableFuture<List<SparkStage>>> stageLists = new ArrayList<>();
+        private final List<CompletableFuture<SparkStage>> stages = new ArrayList<>();
+        private Throwable stageListFailure;
+
+        private SparkAppFetch(String sparkAppId, boolean fetchStages) {
+            this.sparkAppId = sparkAppId;
+            this.executors = fetch(sparkAppUrl(sparkAppId, Constants.SPARK_EXECUTORS_URL) + "?" + Constants.ANONYMOUS_PARAMETER,
+                is -> readList(is, EXECUTOR_READER));
+            this.jobs = fetch(sparkAppUrl(sparkAppId, Constants.SPARK_JOBS_URL) + "?" + Constants.ANONYMOUS_PARAMETER,
+                is -> readList(is, JOB_READER));
+            if (fetchStages) {
+                //running stages are fetched every time, finished ones only until they are seen finished.
+                //a skipped finished stage may be listed after stages seen finished, so while there is one
+                //the lists are read to the end
+                Set<String> finished = finishedStages.computeIfAbsent(sparkAppId, id -> new HashSet<>());
+                boolean stopAtFinished = skippedStages.getOrDefault(sparkAppId, Collections.emptySet()).isEmpty();
+                String stageURL = sparkAppUrl(sparkAppId, Constants.SPARK_STAGES_URL) + "?" + Constants.ANONYMOUS_PARAMETER;
+                stageLists.add(fetch(stageURL + "&status=active&status=pending", is -> readStages(is, null, false)));
+                stageLists.add(fetch(stageURL + "&status=complete", is -> readStages(is, finished, stopAtFinished)));
+                stageLists.add(fetch(stageURL + "&status=failed", is -> readStages(is, finished, stopAtFinished)));
+            }
+        }
+
+        private void fetchStageDetails() throws InterruptedException {
+            for (CompletableFuture<List<SparkStage>> stageList : stageLists) {
+                List<SparkStage> listed;
+                try {
+                    listed = stageList.get();
+                } catch (ExecutionException e) {
+                    stageListFailure = e.getCause();
+                    return;
+                }
+                if (listed == null) {
+                    continue;
+                }
+                for (SparkStage stage : listed) {
+                    String stageURL = sparkAppUrl(sparkAppId, Constants.SPARK_STAGES_URL) + "/" + stage.getStageId()
+                        + "/" + stage.getAttemptId() + "?" + Constants.ANONYMOUS_PARAMETER;
+                    stages.add(fetch(stageURL, is -> STAGE_READER.readValue(is)));
+                }
+            }
+        }
+
+        /**
+         * @return false if the spark app could not be fetched.
+         */
+        private boolean apply() throws InterruptedException {
+            try {
+                List<SparkExecutor> sparkExecutors = executors.get();
+                if (sparkExecutors != null) {
+                    applySparkExecutors(sparkAppId, sparkExecutors);
+                }
+                List<SparkJob> sparkJobs = jobs.get();
+                if (sparkJobs != null) {
+                    applySparkJobs(sparkAppId, sparkJobs);
+                }
+                if (stageListFailure != null) {
+                    LOG.warn("fetch spark stages of {} failed, {}", sparkAppId, stageListFailure);
+                    return false;
+                }
+                for (CompletableFuture<SparkStage> stage : stages) {
+                    SparkStage sparkStage = stage.get();
+                    if (sparkStage != null) {
+                        applySparkStage(sparkAppId, sparkStage);
+                    }
+                }
+            } catch (ExecutionException e) {
+                LOG.warn("fetch spark app {} failed, {}", sparkAppId, e.getCause());
+                return false;
+            }
+            return true;
+        }
+    }
 }
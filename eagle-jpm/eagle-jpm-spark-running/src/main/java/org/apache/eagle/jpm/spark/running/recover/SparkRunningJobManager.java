@@ -33,7 +33,7 @@ public class SparkRunningJobManager implements Serializable {
 
     public SparkRunningJobManager(SparkRunningJobAppConfig.ZKStateConfig config) {
         this.runningJobManager = new RunningJobManager(config.zkQuorum,
-                config.zkSessionTimeoutMs, config.zkRetryTimes, config.zkRetryInterval, config.zkRoot, config.zkLockPath);
+                config.zkSessionTimeoutMs, config.zkRetryTimes, config.zkRetryInterval, config.zkRoot);
     }
 
     public Map<String, SparkAppEntity> recoverYarnApp(String appId) throws Exception {
@@ -78,4 +78,8 @@ public class SparkRunningJobManager implements Serializable {
     public void delete(String yarnAppId, String jobId) {
         this.runningJobManager.delete(yarnAppId, jobId);
     }
+
+    public void flush(String yarnAppId) {
+        this.runningJobManager.flush(yarnAppId);
+    }
 }
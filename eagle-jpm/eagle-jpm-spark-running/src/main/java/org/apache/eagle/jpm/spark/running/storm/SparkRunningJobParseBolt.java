@@ -51,6 +51,7 @@ public class SparkRunningJobParseBolt extends BaseRichBolt {
     private SparkRunningJobAppConfig.EndpointConfig endpointConfig;
     private SparkRunningJobAppConfig.JobExtractorConfig jobExtractorConfig;
     private ExecutorService executorService;
+    private transient ExecutorService fetchExecutor;
     private Map<String, SparkApplicationParser> runningSparkParsers;
     private ResourceFetcher resourceFetcher;
 
@@ -68,6 +69,7 @@ public class SparkRunningJobParseBolt extends BaseRichBolt {
     @Override
     public void prepare(Map map, TopologyContext topologyContext, OutputCollector outputCollector) {
         this.executorService = Executors.newFixedThreadPool(jobExtractorConfig.parseThreadPoolSize);
+        this.fetchExecutor = Executors.newFixedThreadPool(jobExtractorConfig.fetchThreadPoolSize);
         this.resourceFetcher = new RMResourceFetcher(endpointConfig.rmUrls);
     }
 
@@ -87,7 +89,8 @@ public class SparkRunningJobParseBolt extends BaseRichBolt {
                     appInfo,
                     sparkApp,
                     new SparkRunningJobManager(zkStateConfig),
-                    resourceFetcher);
+                    resourceFetcher,
+                    fetchExecutor);
             runningSparkParsers.put(appInfo.getId(), applicationParser);
             LOG.info("create application parser for {}", appInfo.getId());
         } else {
@@ -115,6 +118,12 @@ public class SparkRunningJobParseBolt extends BaseRichBolt {
 
     @Override
     public void cleanup() {
+        if (executorService != null) {
+            executorService.shutdownNow();
+        }
+        if (fetchExecutor != null) {
+            fetchExecutor.shutdownNow();
+        }
         super.cleanup();
     }
 }
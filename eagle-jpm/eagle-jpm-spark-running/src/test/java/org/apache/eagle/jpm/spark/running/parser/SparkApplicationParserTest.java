@@ -0,0 +1,251 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.eagle.jpm.spark.running.parser;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.eagle.jpm.spark.running.SparkRunningJobAppConfig;
+import org.apache.eagle.jpm.spark.running.entities.*;
+import org.apache.eagle.jpm.spark.running.recover.SparkRunningJobManager;
+import org.apache.eagle.jpm.util.resourcefetch.ResourceFetcher;
+import org.apache.eagle.jpm.util.resourcefetch.model.AppInfo;
+import org.apache.eagle.log.entity.meta.EntityDefinitionManager;
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.net.InetSocketAddress;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SparkApplicationParserTest {
+    private static final String APP_ID = "application_1479206441898_0001";
+    private static final String SPARK_APP_ID = "application_1479206441898_0001";
+    private static final String TIME = "2016-11-20T10:00:00.000GMT";
+
+    @Rule
+    public TemporaryFolder eventLogDir = new TemporaryFolder();
+
+    private HttpServer server;
+    private ExecutorService fetchExecutor;
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+    private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+    //stage ids in the order spark lists them, newest first
+    private volatile List<Integer> completeStages = Arrays.asList(1, 0);
+    private volatile List<Integer> activeStages = Collections.singletonList(2);
+    private volatile List<Integer> jobStages = Arrays.asList(0, 1, 2);
+
+    @BeforeClass
+    public static void registerEntities() throws Exception {
+        EntityDefinitionManager.registerEntity(SparkAppEntity.class);
+        EntityDefinitionManager.registerEntity(SparkExecutorEntity.class);
+        EntityDefinitionManager.registerEntity(SparkJobEntity.class);
+        EntityDefinitionManager.registerEntity(SparkStageEntity.class);
+        EntityDefinitionManager.registerEntity(SparkTaskEntity.class);
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/proxy/" + APP_ID + "/api/v1/applications", this::handleSparkUI);
+        server.createContext("/rest/entities", exchange -> respond(exchange, "{\"success\":true}"));
+        server.start();
+        fetchExecutor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        fetchExecutor.shutdownNow();
+        server.stop(0);
+    }
+
+    private void count(String resource) {
+        requests.computeIfAbsent(resource, k -> new AtomicInteger()).incrementAndGet();
+    }
+
+    private int requests(String resource) {
+        AtomicInteger count = requests.get(resource);
+        return count == null ? 0 : count.get();
+    }
+
+    private static String stage(int stageId, String status) {
+        return "{\"status\":\"" + status + "\",\"stageId\":" + stageId + ",\"attemptId\":0,\"numActiveTasks\":0,"
+            + "\"inputBytes\":10,\"name\":\"stage" + stageId + "\",\"accumulatorUpdates\":[{\"id\":1,\"name\":\"a\"}]";
+    }
+
+    private void handleSparkUI(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String query = exchange.getRequestURI().getQuery();
+        String[] parts = path.substring(path.indexOf("/applications") + 1).split("/");
+        int current = running.incrementAndGet();
+        maxRunning.accumulateAndGet(current, Math::max);
+        try {
+            if (parts.length == 1) {
+                count("applications");
+                respond(exchange, "[{\"id\":\"" + SPARK_APP_ID + "\",\"name\":\"test\",\"attempts\":[{\"startTime\":\""
+                    + TIME + "\",\"endTime\":\"" + TIME + "\",\"sparkUser\":\"user\",\"completed\":false}]}]");
+                return;
+            }
+            Thread.sleep(20);
+            String resource = parts[2];
+            if ("stages".equals(resource) && parts.length == 3) {
+                String status = query.contains("status=complete") ? "complete"
+                    : query.contains("status=failed") ? "failed" : "active";
+                count("stages?" + status);
+                List<Integer> stageIds = "complete".equals(status) ? completeStages
+                    : "active".equals(status) ? activeStages : Collections.emptyList();
+                StringBuilder stages = new StringBuilder("[");
+                for (int stageId : stageIds) {
+                    stages.append(stages.length() > 1 ? "," : "").append(stage(stageId, status.toUpperCase())).append("}");
+                }
+                respond(exchange, stages.append("]").toString());
+            } else if ("stages".equals(resource)) {
+                count("stages/" + parts[3] + "/" + parts[4]);
+                int stageId = Integer.parseInt(parts[3]);
+                String status = activeStages.contains(stageId) ? "ACTIVE" : "COMPLETE";
+                respond(exchange, stage(stageId, status) + ",\"tasks\":{\"" + stageId + "\":{\"taskId\":" + stageId
+                    + ",\"index\":0,\"attempt\":0,\"launchTime\":\"" + TIME + "\",\"host\":\"host\",\"speculative\":false}}}");
+            } else if ("executors".equals(resource)) {
+                count(resource);
+                respond(exchange, "[{\"id\":\"driver\",\"hostPort\":\"host:1\",\"totalTasks\":0},"
+                    + "{\"id\":\"1\",\"hostPort\":\"host:2\",\"totalTasks\":3}]");
+            } else if ("jobs".equals(resource)) {
+                count(resource);
+                respond(exchange, "[{\"jobId\":0,\"name\":\"job\",\"submissionTime\":\"" + TIME + "\",\"stageIds\":"
+                    + jobStages + ",\"status\":\"RUNNING\",\"numTasks\":3}]");
+            } else {
+                exchange.sendResponseHeaders(404, -1);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            running.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    private SparkApplicationParser createParser(SparkRunningJobManager sparkRunningJobManager) throws IOException {
+        File eventLog = new File(eventLogDir.getRoot(), SPARK_APP_ID + "_1");
+        Files.write(eventLog.toPath(), ("{\"Event\":\"SparkListenerEnvironmentUpdate\",\"Spark Properties\":{"
+            + "\"spark.executor.memory\":\"1g\",\"spark.driver.memory\":\"1g\",\"spark.executor.cores\":\"2\","
+            + "\"spark.master\":\"yarn-cluster\"}}\n").getBytes(StandardCharsets.UTF_8));
+
+        SparkRunningJobAppConfig.EagleServiceConfig eagleServiceConfig = new SparkRunningJobAppConfig.EagleServiceConfig();
+        eagleServiceConfig.eagleServiceHost = "localhost";
+        eagleServiceConfig.eagleServicePort = server.getAddress().getPort();
+        eagleServiceConfig.readTimeoutSeconds = 10;
+        eagleServiceConfig.maxFlushNum = 500;
+        SparkRunningJobAppConfig.EndpointConfig endpointConfig = new SparkRunningJobAppConfig.EndpointConfig();
+        endpointConfig.eventLog = eventLogDir.getRoot().getAbsolutePath();
+        endpointConfig.hdfs = Collections.singletonMap("fs.defaultFS", "file:///");
+        SparkRunningJobAppConfig.JobExtractorConfig jobExtractorConfig = new SparkRunningJobAppConfig.JobExtractorConfig();
+        jobExtractorConfig.site = "sandbox";
+
+        AppInfo app = new AppInfo();
+        app.setId(APP_ID);
+        app.setUser("user");
+        app.setQueue("default");
+        app.setState("RUNNING");
+        app.setFinalStatus("UNDEFINED");
+        app.setTrackingUrl("http://localhost:" + server.getAddress().getPort() + "/proxy/" + APP_ID + "/");
+        return new SparkApplicationParser(eagleServiceConfig, endpointConfig, jobExtractorConfig, app, null,
+            sparkRunningJobManager, Mockito.mock(ResourceFetcher.class), fetchExecutor);
+    }
+
+    private void run(SparkApplicationParser parser) {
+        parser.setStatus(SparkApplicationParser.ParserStatus.RUNNING);
+        parser.run();
+        Assert.assertEquals(SparkApplicationParser.ParserStatus.FINISHED, parser.status());
+    }
+
+    @Test
+    public void testFetchStagesIncrementally() throws Exception {
+        SparkRunningJobManager sparkRunningJobManager = Mockito.mock(SparkRunningJobManager.class);
+        SparkApplicationParser parser = createParser(sparkRunningJobManager);
+
+        // stages are not fetched in the first round
+        run(parser);
+        Assert.assertEquals(1, requests("executors"));
+        Assert.assertEquals(1, requests("jobs"));
+        Assert.assertEquals(0, requests("stages?active"));
+        Mockito.verify(sparkRunningJobManager).update(Mockito.eq(APP_ID), Mockito.eq(SPARK_APP_ID), Mockito.any(SparkAppEntity.class));
+
+        run(parser);
+        Assert.assertEquals(1, requests("stages?active"));
+        Assert.assertEquals(1, requests("stages?complete"));
+        Assert.assertEquals(1, requests("stages?failed"));
+        for (int stageId = 0; stageId < 3; stageId++) {
+            Assert.assertEquals(1, requests("stages/" + stageId + "/0"));
+        }
+        Assert.assertTrue(maxRunning.get() > 1);
+
+        // finished stages are not fetched again, running ones are until they finish
+        completeStages = Arrays.asList(2, 1, 0);
+        activeStages = Collections.emptyList();
+        run(parser);
+        Assert.assertEquals(1, requests("stages/0/0"));
+        Assert.assertEquals(1, requests("stages/1/0"));
+        Assert.assertEquals(2, requests("stages/2/0"));
+
+        run(parser);
+        Assert.assertEquals(3, requests("stages?complete"));
+        Assert.assertEquals(2, requests("stages/2/0"));
+        Assert.assertEquals(4, requests("executors"));
+        Assert.assertEquals(4, requests("jobs"));
+    }
+
+    @Test
+    public void testSkippedStageFetchedAgain() throws Exception {
+        SparkApplicationParser parser = createParser(Mockito.mock(SparkRunningJobManager.class));
+        activeStages = Collections.emptyList();
+        // stage 0 finished before stage 1, but its job is not listed yet
+        jobStages = Collections.singletonList(1);
+        run(parser);
+        run(parser);
+        Assert.assertEquals(1, requests("stages/0/0"));
+        Assert.assertEquals(1, requests("stages/1/0"));
+
+        jobStages = Arrays.asList(0, 1);
+        run(parser);
+        Assert.assertEquals(2, requests("stages/0/0"));
+        Assert.assertEquals(1, requests("stages/1/0"));
+
+        run(parser);
+        Assert.assertEquals(2, requests("stages/0/0"));
+        Assert.assertEquals(1, requests("stages/1/0"));
+    }
+}
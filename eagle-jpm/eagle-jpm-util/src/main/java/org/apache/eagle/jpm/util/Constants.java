@@ -89,7 +89,7 @@ public class Constants {
     }
 
     public enum StageState {
-        ACTIVE, COMPLETE, PENDING
+        ACTIVE, COMPLETE, PENDING, FAILED
     }
 
     public enum AppState {
@@ -18,28 +18,49 @@
 
 package org.apache.eagle.jpm.util.jobrecover;
 
-import org.apache.curator.framework.recipes.locks.InterProcessMutex;
 import org.apache.eagle.jpm.util.resourcefetch.model.AppInfo;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.framework.api.BackgroundCallback;
+import org.apache.curator.framework.api.CuratorEvent;
 import org.apache.curator.retry.RetryNTimes;
 import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
 import org.codehaus.jettison.json.JSONException;
 import org.codehaus.jettison.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+/**
+ * Checkpoints the state of running jobs in zookeeper, under zkRoot/yarnAppId/jobId.
+ *
+ * <p>The jobs of a yarn application are all parsed by the bolt task which the application is grouped to, so every
+ * job node has a single writer and no lock is taken. Updates only record the state, which {@link #flush(String)}
+ * writes at the end of every parse cycle of the application if it differs from the state last written or
+ * recovered.</p>
+ */
 public class RunningJobManager implements Serializable {
     public static final Logger LOG = LoggerFactory.getLogger(RunningJobManager.class);
     private String zkRoot;
     private CuratorFramework curator;
+    private final int zkSessionTimeoutMs;
     private static final String ENTITY_TAGS_KEY = "entityTags";
     private static final String APP_INFO_KEY = "appInfo";
     private static final String ZNODE_LAST_FINISH_TIME = "lastFinishTime";
-    private final InterProcessMutex lock;
+
+    // states waiting for the next flush, by yarn application and then by job path
+    private final ConcurrentMap<String, Map<String, String>> pendingStates = new ConcurrentHashMap<>();
+    // states last written or recovered, by job path, whose node therefore exists
+    private final ConcurrentMap<String, String> writtenStates = new ConcurrentHashMap<>();
 
     private CuratorFramework newCurator(String zkQuorum, int zkSessionTimeoutMs, int zkRetryTimes, int zkRetryInterval) {
         return CuratorFrameworkFactory.newClient(
@@ -50,16 +71,15 @@ public class RunningJobManager implements Serializable {
         );
     }
 
-    public RunningJobManager(String zkQuorum, int zkSessionTimeoutMs, int zkRetryTimes, int zkRetryInterval, String zkRoot, String lockPath) {
+    public RunningJobManager(String zkQuorum, int zkSessionTimeoutMs, int zkRetryTimes, int zkRetryInterval, String zkRoot) {
         this.zkRoot = zkRoot;
+        this.zkSessionTimeoutMs = zkSessionTimeoutMs;
         curator = newCurator(zkQuorum, zkSessionTimeoutMs, zkRetryTimes, zkRetryInterval);
         try {
             curator.start();
         } catch (Exception e) {
             LOG.error("curator start error {}", e);
         }
-        LOG.info("InterProcessMutex lock path is " + lockPath);
-        lock = new InterProcessMutex(curator, lockPath);
         try {
             if (curator.checkExists().forPath(this.zkRoot) == null) {
                 curator.create()
@@ -73,69 +93,19 @@ public class RunningJobManager implements Serializable {
     }
 
     public Map<String, Pair<Map<String, String>, AppInfo>> recoverYarnApp(String yarnAppId) throws Exception {
-        Map<String, Pair<Map<String, String>, AppInfo>> result = new HashMap<>();
         String path = this.zkRoot + "/" + yarnAppId;
         try {
-            lock.acquire();
-            if (curator.checkExists().forPath(path) == null) {
-                return result;
-            }
-            List<String> jobIds = curator.getChildren().forPath(path);
-            if (jobIds.size() == 0) {
-                LOG.info("delete empty path {}", path);
-                delete(yarnAppId);
-            }
-
-            for (String jobId : jobIds) {
-                String jobPath = path + "/" + jobId;
-                LOG.info("recover path {}", jobPath);
-                String fields = new String(curator.getData().forPath(jobPath), "UTF-8");
-                if (fields.length() == 0) {
-                    //LOG.info("delete empty path {}", jobPath);
-                    //delete(yarnAppId, jobId);
-                    continue;
-                }
-                JSONObject object = new JSONObject(fields);
-                Map<String, Map<String, String>> parseResult = parse(object);
-
-                Map<String, String> appInfoMap = parseResult.get(APP_INFO_KEY);
-                AppInfo appInfo = new AppInfo();
-                appInfo.setId(appInfoMap.get("id"));
-                appInfo.setUser(appInfoMap.get("user"));
-                appInfo.setName(appInfoMap.get("name"));
-                appInfo.setQueue(appInfoMap.get("queue"));
-                appInfo.setState(appInfoMap.get("state"));
-                appInfo.setFinalStatus(appInfoMap.get("finalStatus"));
-                appInfo.setProgress(Double.parseDouble(appInfoMap.get("progress")));
-                appInfo.setTrackingUI(appInfoMap.get("trackingUI"));
-                appInfo.setDiagnostics(appInfoMap.get("diagnostics"));
-                appInfo.setTrackingUrl(appInfoMap.get("trackingUrl"));
-                appInfo.setClusterId(appInfoMap.get("clusterId"));
-                appInfo.setApplicationType(appInfoMap.get("applicationType"));
-                appInfo.setStartedTime(Long.parseLong(appInfoMap.get("startedTime")));
-                appInfo.setFinishedTime(Long.parseLong(appInfoMap.get("finishedTime")));
-                appInfo.setElapsedTime(Long.parseLong(appInfoMap.get("elapsedTime")));
-                appInfo.setAmContainerLogs(appInfoMap.get("amContainerLogs") == null ? "" : appInfoMap.get("amContainerLogs"));
-                appInfo.setAmHostHttpAddress(appInfoMap.get("amHostHttpAddress") == null ? "" : appInfoMap.get("amHostHttpAddress"));
-                appInfo.setAllocatedMB(Integer.parseInt(appInfoMap.get("allocatedMB")));
-                appInfo.setAllocatedVCores(Integer.parseInt(appInfoMap.get("allocatedVCores")));
-                appInfo.setRunningContainers(Integer.parseInt(appInfoMap.get("runningContainers")));
-
-                Map<String, String> tags = parseResult.get(ENTITY_TAGS_KEY);
-                result.put(jobId, Pair.of(tags, appInfo));
+            List<String> jobIds;
+            try {
+                jobIds = curator.getChildren().forPath(path);
+            } catch (KeeperException.NoNodeException e) {
+                return new HashMap<>();
             }
+            return recoverJobs(yarnAppId, jobIds, readAll(jobPaths(yarnAppId, jobIds), false));
         } catch (Exception e) {
             LOG.error("fail to recoverYarnApp", e);
             throw new RuntimeException(e);
-        } finally {
-            try {
-                lock.release();
-            } catch (Exception e) {
-                LOG.error("fail releasing lock", e);
-            }
         }
-
-        return result;
     }
 
     public Map<String, Map<String, Pair<Map<String, String>, AppInfo>>> recover() {
@@ -147,28 +117,130 @@ public class RunningJobManager implements Serializable {
         //<yarnAppId, <jobId, Pair<<Map<String, String>, AppInfo>>>
         Map<String, Map<String, Pair<Map<String, String>, AppInfo>>> result = new HashMap<>();
         try {
-            lock.acquire();
+            // children of all the applications, then data of all the jobs, each read as one pipelined batch
             List<String> yarnAppIds = curator.getChildren().forPath(this.zkRoot);
+            List<String> yarnAppPaths = new ArrayList<>(yarnAppIds.size());
+            for (String yarnAppId : yarnAppIds) {
+                yarnAppPaths.add(this.zkRoot + "/" + yarnAppId);
+            }
+            Map<String, CuratorEvent> children = readAll(yarnAppPaths, true);
+            List<String> allJobPaths = new ArrayList<>();
             for (String yarnAppId : yarnAppIds) {
-                if (!result.containsKey(yarnAppId)) {
-                    result.put(yarnAppId, new HashMap<>());
+                CuratorEvent event = children.get(this.zkRoot + "/" + yarnAppId);
+                if (event.getResultCode() == KeeperException.Code.OK.intValue()) {
+                    allJobPaths.addAll(jobPaths(yarnAppId, event.getChildren()));
+                }
+            }
+            Map<String, CuratorEvent> data = readAll(allJobPaths, false);
+            for (String yarnAppId : yarnAppIds) {
+                CuratorEvent event = children.get(this.zkRoot + "/" + yarnAppId);
+                if (event.getResultCode() == KeeperException.Code.OK.intValue()) {
+                    result.put(yarnAppId, recoverJobs(yarnAppId, event.getChildren(), data));
                 }
-
-                result.put(yarnAppId, recoverYarnApp(yarnAppId));
             }
         } catch (Exception e) {
             LOG.error("fail to recover", e);
             throw new RuntimeException(e);
-        } finally {
-            try {
-                lock.release();
-            } catch (Exception e) {
-                LOG.error("fail releasing lock", e);
+        }
+        return result;
+    }
+
+    private List<String> jobPaths(String yarnAppId, List<String> jobIds) {
+        List<String> paths = new ArrayList<>(jobIds.size());
+        for (String jobId : jobIds) {
+            paths.add(this.zkRoot + "/" + yarnAppId + "/" + jobId);
+        }
+        return paths;
+    }
+
+    /**
+     * Sends all the reads before waiting for any, so they take one round trip instead of one each.
+     *
+     * @param children whether to read the children or the data of the paths
+     * @return results by path
+     */
+    private Map<String, CuratorEvent> readAll(Collection<String> paths, boolean children) throws Exception {
+        Map<String, CuratorEvent> events = new ConcurrentHashMap<>();
+        if (paths.isEmpty()) {
+            return events;
+        }
+        CountDownLatch latch = new CountDownLatch(paths.size());
+        BackgroundCallback callback = (client, event) -> {
+            events.put(event.getPath(), event);
+            latch.countDown();
+        };
+        for (String path : paths) {
+            if (children) {
+                curator.getChildren().inBackground(callback).forPath(path);
+            } else {
+                curator.getData().inBackground(callback).forPath(path);
             }
         }
+        if (!latch.await(zkSessionTimeoutMs, TimeUnit.MILLISECONDS)) {
+            throw new TimeoutException("read " + (paths.size() - latch.getCount()) + " of " + paths.size() + " paths");
+        }
+        return events;
+    }
+
+    private Map<String, Pair<Map<String, String>, AppInfo>> recoverJobs(String yarnAppId, List<String> jobIds,
+                                                                        Map<String, CuratorEvent> data) throws Exception {
+        Map<String, Pair<Map<String, String>, AppInfo>> result = new HashMap<>();
+        if (jobIds.size() == 0) {
+            LOG.info("delete empty path {}", this.zkRoot + "/" + yarnAppId);
+            delete(yarnAppId);
+        }
+
+        for (String jobId : jobIds) {
+            String jobPath = this.zkRoot + "/" + yarnAppId + "/" + jobId;
+            CuratorEvent event = data.get(jobPath);
+            if (event.getResultCode() != KeeperException.Code.OK.intValue() || event.getData() == null) {
+                // deleted since its application was read
+                continue;
+            }
+            LOG.info("recover path {}", jobPath);
+            String fields = new String(event.getData(), StandardCharsets.UTF_8);
+            if (fields.length() == 0) {
+                continue;
+            }
+            writtenStates.put(jobPath, fields);
+            JSONObject object = new JSONObject(fields);
+            Map<String, Map<String, String>> parseResult = parse(object);
+
+            Map<String, String> tags = parseResult.get(ENTITY_TAGS_KEY);
+            result.put(jobId, Pair.of(tags, toAppInfo(parseResult.get(APP_INFO_KEY))));
+        }
         return result;
     }
 
+    private static AppInfo toAppInfo(Map<String, String> appInfoMap) {
+        AppInfo appInfo = new AppInfo();
+        appInfo.setId(appInfoMap.get("id"));
+        appInfo.setUser(appInfoMap.get("user"));
+        appInfo.setName(appInfoMap.get("name"));
+        appInfo.setQueue(appInfoMap.get("queue"));
+        appInfo.setState(appInfoMap.get("state"));
+        appInfo.setFinalStatus(appInfoMap.get("finalStatus"));
+        appInfo.setProgress(Double.parseDouble(appInfoMap.get("progress")));
+        appInfo.setTrackingUI(appInfoMap.get("trackingUI"));
+        appInfo.setDiagnostics(appInfoMap.get("diagnostics"));
+        appInfo.setTrackingUrl(appInfoMap.get("trackingUrl"));
+        appInfo.setClusterId(appInfoMap.get("clusterId"));
+        appInfo.setApplicationType(appInfoMap.get("applicationType"));
+        appInfo.setStartedTime(Long.parseLong(appInfoMap.get("startedTime")));
+        appInfo.setFinishedTime(Long.parseLong(appInfoMap.get("finishedTime")));
+        appInfo.setElapsedTime(Long.parseLong(appInfoMap.get("elapsedTime")));
+        appInfo.setAmContainerLogs(appInfoMap.get("amContainerLogs") == null ? "" : appInfoMap.get("amContainerLogs"));
+        appInfo.setAmHostHttpAddress(appInfoMap.get("amHostHttpAddress") == null ? "" : appInfoMap.get("amHostHttpAddress"));
+        appInfo.setAllocatedMB(Integer.parseInt(appInfoMap.get("allocatedMB")));
+        appInfo.setAllocatedVCores(Integer.parseInt(appInfoMap.get("allocatedVCores")));
+        appInfo.setRunningContainers(Integer.parseInt(appInfoMap.get("runningContainers")));
+        return appInfo;
+    }
+
+    /**
+     * Records the state of the job, to be written by the next {@link #flush(String)} of its application if it
+     * changed.
+     */
     public boolean update(String yarnAppId, String jobId, Map<String, String> tags, AppInfo app) {
         String path = this.zkRoot + "/" + yarnAppId + "/" + jobId;
         Map<String, String> appInfo = new HashMap<>();
@@ -196,69 +268,108 @@ public class RunningJobManager implements Serializable {
         Map<String, String> fields = new HashMap<>();
         fields.put(ENTITY_TAGS_KEY, (new JSONObject(tags)).toString());
         fields.put(APP_INFO_KEY, (new JSONObject(appInfo)).toString());
+        String state = new JSONObject(fields).toString();
+        if (state.equals(writtenStates.get(path))) {
+            Map<String, String> pending = pendingStates.get(yarnAppId);
+            if (pending != null) {
+                pending.remove(path);
+            }
+        } else {
+            pendingStates.computeIfAbsent(yarnAppId, k -> new ConcurrentHashMap<>()).put(path, state);
+        }
+        return true;
+    }
+
+    /**
+     * Writes the states of the application's jobs recorded since its last flush, all sent before any reply is
+     * awaited so that they take one round trip. A failed write is retried by the next update of the job.
+     */
+    public void flush(String yarnAppId) {
+        Map<String, String> states = pendingStates.remove(yarnAppId);
+        if (states == null || states.isEmpty()) {
+            return;
+        }
+        CountDownLatch written = new CountDownLatch(states.size());
+        for (Map.Entry<String, String> state : states.entrySet()) {
+            write(state.getKey(), state.getValue(), writtenStates.put(state.getKey(), state.getValue()) == null, written);
+        }
         try {
-            lock.acquire();
-            JSONObject object = new JSONObject(fields);
-            if (curator.checkExists().forPath(path) == null) {
+            if (!written.await(zkSessionTimeoutMs, TimeUnit.MILLISECONDS)) {
+                LOG.warn("{} of {} job states are not written yet", written.getCount(), states.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @param create  whether the node is not known to exist, otherwise it is created if it doesn't and the job has
+     *                not been deleted meanwhile
+     * @param written counted down once the state is written or failed
+     */
+    private void write(String path, String state, boolean create, CountDownLatch written) {
+        byte[] data = state.getBytes(StandardCharsets.UTF_8);
+        BackgroundCallback callback = (client, event) -> {
+            KeeperException.Code code = KeeperException.Code.get(event.getResultCode());
+            if (create && code == KeeperException.Code.NODEEXISTS) {
+                write(path, state, false, written);
+                return;
+            } else if (!create && code == KeeperException.Code.NONODE && writtenStates.containsKey(path)) {
+                write(path, state, true, written);
+                return;
+            } else if (code != KeeperException.Code.OK) {
+                writtenStates.remove(path, state);
+                LOG.warn("failed to write state of {}, {}", path, code);
+            }
+            written.countDown();
+        };
+        try {
+            if (create) {
                 curator.create()
                         .creatingParentsIfNeeded()
                         .withMode(CreateMode.PERSISTENT)
-                        .forPath(path);
+                        .inBackground(callback)
+                        .forPath(path, data);
+            } else {
+                curator.setData().inBackground(callback).forPath(path, data);
             }
-            curator.setData().forPath(path, object.toString().getBytes("UTF-8"));
-
         } catch (Exception e) {
-            LOG.error("failed to update job {} for yarn app {} ", jobId, yarnAppId);
-        } finally {
-            try {
-                lock.release();
-            } catch (Exception e) {
-                LOG.error("fail releasing lock", e);
-            }
+            writtenStates.remove(path, state);
+            LOG.warn("failed to write state of {}, {}", path, e);
+            written.countDown();
         }
-        return true;
     }
 
     public void delete(String yarnAppId, String jobId) {
         String path = this.zkRoot + "/" + yarnAppId + "/" + jobId;
+        Map<String, String> pending = pendingStates.get(yarnAppId);
+        if (pending != null) {
+            pending.remove(path);
+        }
+        writtenStates.remove(path);
         try {
-            lock.acquire();
-            if (curator.checkExists().forPath(path) != null) {
-                curator.delete().deletingChildrenIfNeeded().forPath(path);
-                LOG.info("delete job {} for yarn app {}, path {} ", jobId, yarnAppId, path);
-                String yarnPath = this.zkRoot + "/" + yarnAppId;
-                if (curator.getChildren().forPath(yarnPath).size() == 0) {
-                    delete(yarnAppId);
-                }
+            curator.delete().deletingChildrenIfNeeded().forPath(path);
+            LOG.info("delete job {} for yarn app {}, path {} ", jobId, yarnAppId, path);
+            String yarnPath = this.zkRoot + "/" + yarnAppId;
+            if (curator.getChildren().forPath(yarnPath).size() == 0) {
+                delete(yarnAppId);
             }
+        } catch (KeeperException.NoNodeException e) {
+            // already deleted
         } catch (Exception e) {
-            LOG.error("failed to delete job {} for yarn app {}, path {}, {}", jobId, yarnAppId, path, e);
-        } finally {
-            try {
-                lock.release();
-            } catch (Exception e) {
-                LOG.error("fail releasing lock", e);
-
-            }
+            LOG.warn("failed to delete job {} for yarn app {}, path {}, {}", jobId, yarnAppId, path, e);
         }
     }
 
     public void delete(String yarnAppId) {
         String path = this.zkRoot + "/" + yarnAppId;
         try {
-            lock.acquire();
-            if (curator.checkExists().forPath(path) != null) {
-                curator.delete().forPath(path);
-                LOG.info("delete yarn app {}, path {} ", yarnAppId, path);
-            }
+            curator.delete().forPath(path);
+            LOG.info("delete yarn app {}, path {} ", yarnAppId, path);
+        } catch (KeeperException.NoNodeException | KeeperException.NotEmptyException e) {
+            // already deleted, or a job was checkpointed meanwhile
         } catch (Exception e) {
-            LOG.error("failed to delete yarn app {}, path {} ", yarnAppId, path);
-        } finally {
-            try {
-                lock.release();
-            } catch (Exception e) {
-                LOG.error("fail releasing lock", e);
-            }
+            LOG.warn("failed to delete yarn app {}, path {} ", yarnAppId, path);
         }
     }
 
@@ -54,10 +54,11 @@ public class HadoopMetricMonitorApp extends StormApplication {
             .dimensionFields("host", "site", "device")
             .granularity(Calendar.SECOND)
             .valueField("value");
+        // samples arrive about every minute, keep the counters across a few missed ones
         return environment.newApp(config)
-            .fromStream("HADOOP_JMX_METRIC_STREAM").transformBy(new CounterToRateFunction(hadoopMetricDescriptor,3, TimeUnit.SECONDS, ClockWithOffset.INSTANCE))
+            .fromStream("HADOOP_JMX_METRIC_STREAM").transformBy(new CounterToRateFunction(hadoopMetricDescriptor, 5, TimeUnit.MINUTES, ClockWithOffset.INSTANCE))
             .saveAsMetric(hadoopMetricDescriptor)
-            .fromStream("SYSTEM_METRIC_STREAM").transformBy(new CounterToRateFunction(systemMetricDescriptor,3, TimeUnit.SECONDS, ClockWithOffset.INSTANCE))
+            .fromStream("SYSTEM_METRIC_STREAM").transformBy(new CounterToRateFunction(systemMetricDescriptor, 5, TimeUnit.MINUTES, ClockWithOffset.INSTANCE))
             .saveAsMetric(systemMetricDescriptor)
             .toTopology();
     }
@@ -29,6 +29,21 @@ import java.util.*;
 public class GreedyPartitionAlgorithm implements PartitionAlgorithm {
 
     private static final Logger LOG = LoggerFactory.getLogger(GreedyPartitionAlgorithm.class);
+    public static final double DEFAULT_IMBALANCE_TOLERANCE = 0.1;
+
+    private final double imbalanceTolerance;
+
+    public GreedyPartitionAlgorithm() {
+        this(DEFAULT_IMBALANCE_TOLERANCE);
+    }
+
+    /**
+     * @param imbalanceTolerance how much a bucket may be loaded above the average, e.g. 0.1 for 10%,
+     *                           before keys are moved out of it in incremental partition
+     */
+    public GreedyPartitionAlgorithm(double imbalanceTolerance) {
+        this.imbalanceTolerance = imbalanceTolerance;
+    }
 
     public void printWeightTable(PriorityQueue<Bucket> queue) {
         double total = 0;
@@ -62,4 +77,98 @@ public class GreedyPartitionAlgorithm implements PartitionAlgorithm {
         printWeightTable(queue);
         return ret;
     }
+
+    /**
+     * Keys of the previous routing table stay in their bucket and new keys go to the least loaded bucket,
+     * heaviest first. Then keys are moved out of the most loaded bucket only while it is loaded more than
+     * imbalanceTolerance above the average, so most keys keep their bucket when weights shift slightly.
+     */
+    @Override
+    public HashMap<String, Integer> partition(List<Weight> weights, int k, Map<String, Integer> previous) {
+        if (previous == null || previous.isEmpty()) {
+            return partition(weights, k);
+        }
+        HashMap<String, Integer> ret = new HashMap<>();
+        double[] loads = new double[k];
+        List<List<Weight>> buckets = new ArrayList<>(k);
+        for (int i = 0; i < k; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        List<Weight> newWeights = new ArrayList<>();
+        for (Weight weight : weights) {
+            Integer bucketNum = previous.get(weight.key);
+            if (bucketNum != null && bucketNum >= 0 && bucketNum < k) {
+                assign(weight, bucketNum, loads, buckets, ret);
+            } else {
+                newWeights.add(weight);
+            }
+        }
+        newWeights.sort((w1, w2) -> Double.compare(w2.value, w1.value));
+        for (Weight weight : newWeights) {
+            assign(weight, leastLoaded(loads), loads, buckets, ret);
+        }
+        int moved = rebalance(loads, buckets, ret);
+        LOG.info("Incremental partition of {} keys, {} new keys, {} keys moved", weights.size(), newWeights.size(), moved);
+        return ret;
+    }
+
+    private int rebalance(double[] loads, List<List<Weight>> buckets, Map<String, Integer> ret) {
+        double total = 0;
+        for (double load : loads) {
+            total += load;
+        }
+        double threshold = total / loads.length * (1 + imbalanceTolerance);
+        int moved = 0;
+        // each move strictly reduces the sum of squared loads, the bound is only a safeguard
+        for (int round = 0; round < ret.size(); round++) {
+            int max = mostLoaded(loads);
+            int min = leastLoaded(loads);
+            if (loads[max] <= threshold) {
+                break;
+            }
+            // move the key bringing both buckets closest to each other
+            double gap = loads[max] - loads[min];
+            Weight candidate = null;
+            for (Weight weight : buckets.get(max)) {
+                if (weight.value > 0 && weight.value < gap
+                        && (candidate == null || Math.abs(gap / 2 - weight.value) < Math.abs(gap / 2 - candidate.value))) {
+                    candidate = weight;
+                }
+            }
+            if (candidate == null) {
+                break;
+            }
+            buckets.get(max).remove(candidate);
+            loads[max] -= candidate.value;
+            assign(candidate, min, loads, buckets, ret);
+            moved++;
+        }
+        return moved;
+    }
+
+    private static void assign(Weight weight, int bucketNum, double[] loads, List<List<Weight>> buckets, Map<String, Integer> ret) {
+        loads[bucketNum] += weight.value;
+        buckets.get(bucketNum).add(weight);
+        ret.put(weight.key, bucketNum);
+    }
+
+    private static int leastLoaded(double[] loads) {
+        int index = 0;
+        for (int i = 1; i < loads.length; i++) {
+            if (loads[i] < loads[index]) {
+                index = i;
+            }
+        }
+        return index;
+    }
+
+    private static int mostLoaded(double[] loads) {
+        int index = 0;
+        for (int i = 1; i < loads.length; i++) {
+            if (loads[i] > loads[index]) {
+                index = i;
+            }
+        }
+        return index;
+    }
 }
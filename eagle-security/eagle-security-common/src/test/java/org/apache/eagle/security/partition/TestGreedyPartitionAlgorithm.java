@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.security.partition;
+
+import org.apache.eagle.dataproc.impl.storm.partition.DataDistributionDao;
+import org.apache.eagle.dataproc.impl.storm.partition.PartitionStrategyImpl;
+import org.apache.eagle.dataproc.impl.storm.partition.Weight;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class TestGreedyPartitionAlgorithm {
+
+    private static List<Weight> weights(double... values) {
+        List<Weight> weights = new ArrayList<>();
+        for (int i = 0; i < values.length; i++) {
+            weights.add(new Weight("user" + i, values[i]));
+        }
+        return weights;
+    }
+
+    private static double[] loads(List<Weight> weights, Map<String, Integer> table, int k) {
+        double[] loads = new double[k];
+        for (Weight weight : weights) {
+            loads[table.get(weight.key)] += weight.value;
+        }
+        return loads;
+    }
+
+    private static int moved(Map<String, Integer> previous, Map<String, Integer> current) {
+        int moved = 0;
+        for (Map.Entry<String, Integer> entry : current.entrySet()) {
+            Integer bucket = previous.get(entry.getKey());
+            if (bucket != null && !bucket.equals(entry.getValue())) {
+                moved++;
+            }
+        }
+        return moved;
+    }
+
+    @Test
+    public void testIncrementalPartitionKeepsAssignment() {
+        GreedyPartitionAlgorithm algorithm = new GreedyPartitionAlgorithm();
+        List<Weight> weights = weights(100, 90, 80, 70, 60, 50, 40, 30, 20, 10);
+        Map<String, Integer> previous = algorithm.partition(weights, 3);
+
+        // same weights
+        Assert.assertEquals(previous, algorithm.partition(weights, 3, previous));
+
+        // slightly shifted weights
+        List<Weight> shifted = weights(98, 93, 79, 72, 58, 51, 41, 29, 21, 10);
+        Assert.assertEquals(previous, algorithm.partition(shifted, 3, previous));
+
+        // new key goes to the least loaded bucket
+        List<Weight> withNewKey = weights(100, 90, 80, 70, 60, 50, 40, 30, 20, 10, 5);
+        Map<String, Integer> current = algorithm.partition(withNewKey, 3, previous);
+        Assert.assertEquals(0, moved(previous, current));
+        double[] loads = loads(weights, previous, 3);
+        int leastLoaded = 0;
+        for (int i = 1; i < loads.length; i++) {
+            if (loads[i] < loads[leastLoaded]) {
+                leastLoaded = i;
+            }
+        }
+        Assert.assertEquals(leastLoaded, (int) current.get("user10"));
+    }
+
+    @Test
+    public void testIncrementalPartitionRebalance() {
+        GreedyPartitionAlgorithm algorithm = new GreedyPartitionAlgorithm(0.1);
+        List<Weight> weights = weights(100, 90, 80, 70, 60, 50, 40, 30, 20, 10);
+        Map<String, Integer> previous = algorithm.partition(weights, 3);
+
+        // user0 becomes much heavier
+        List<Weight> shifted = weights(400, 90, 80, 70, 60, 50, 40, 30, 20, 10);
+        Map<String, Integer> current = algorithm.partition(shifted, 3, previous);
+        Assert.assertEquals(previous.get("user0"), current.get("user0"));
+        Assert.assertTrue(moved(previous, current) > 0);
+        Assert.assertTrue(moved(previous, current) < shifted.size() / 2);
+
+        // other keys of the overloaded bucket are moved out
+        Assert.assertEquals(400.0, loads(shifted, current, 3)[current.get("user0")], 0.001);
+    }
+
+    @Test
+    public void testStrategyRefreshInBackground() throws Exception {
+        CountDownLatch fetchStarted = new CountDownLatch(1);
+        CountDownLatch fetchAllowed = new CountDownLatch(1);
+        DataDistributionDao dao = (startTime, endTime) -> {
+            fetchStarted.countDown();
+            fetchAllowed.await();
+            return Arrays.asList(new Weight("a", 10.0), new Weight("b", 5.0));
+        };
+        PartitionStrategyImpl strategy = new PartitionStrategyImpl(dao, new GreedyPartitionAlgorithm(), 1000000, 1000);
+
+        // routed by hash without waiting for the refresh
+        Assert.assertEquals(Math.abs("a".hashCode()) % 4, strategy.balance("a", 4));
+        Assert.assertTrue(fetchStarted.await(10, TimeUnit.SECONDS));
+        Assert.assertFalse(strategy.refreshAsync(4));
+
+        fetchAllowed.countDown();
+        long deadline = System.currentTimeMillis() + 10000;
+        while (strategy.routingTable == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertNotNull(strategy.routingTable);
+        Assert.assertEquals((int) strategy.routingTable.get("b"), strategy.balance("b", 4));
+    }
+}
@@ -30,6 +30,7 @@ import org.apache.eagle.app.messaging.StormStreamSink;
 import org.apache.eagle.security.hive.jobrunning.HiveJobRunningSourcedStormSpoutProvider;
 import org.apache.eagle.security.hive.jobrunning.HiveQueryParserBolt;
 import org.apache.eagle.security.hive.jobrunning.JobFilterBolt;
+import org.apache.eagle.security.hive.ql.HiveQLParserCache;
 import org.apache.eagle.security.hive.sensitivity.HiveSensitivityDataEnrichBolt;
 
 /**
@@ -41,6 +42,7 @@ public class HiveQueryMonitoringApplication extends StormApplication {
     private static final String PARSER_TASK_NUM = "topology.numOfParserTasks";
     private static final String JOIN_TASK_NUM = "topology.numOfJoinTasks";
     private static final String SINK_TASK_NUM = "topology.numOfSinkTasks";
+    private static final String PARSER_CACHE_SIZE = "topology.parserCacheSize";
 
     @Override
     public StormTopology execute(Config config, StormEnvironment environment) {
@@ -60,7 +62,8 @@ public class HiveQueryMonitoringApplication extends StormApplication {
         BoltDeclarer boltDeclarer = builder.setBolt("filterBolt", bolt, numOfFilterTasks);
         boltDeclarer.fieldsGrouping("ingest", new Fields("jobId"));
 
-        HiveQueryParserBolt parserBolt = new HiveQueryParserBolt();
+        HiveQueryParserBolt parserBolt = new HiveQueryParserBolt(config.hasPath(PARSER_CACHE_SIZE)
+            ? config.getInt(PARSER_CACHE_SIZE) : HiveQLParserCache.DEFAULT_MAX_SIZE);
         BoltDeclarer parserBoltDeclarer = builder.setBolt("parserBolt", parserBolt, numOfParserTasks);
         parserBoltDeclarer.fieldsGrouping("filterBolt", new Fields("user"));
 
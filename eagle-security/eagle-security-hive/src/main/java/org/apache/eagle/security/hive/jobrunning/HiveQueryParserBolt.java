@@ -22,8 +22,8 @@ import backtype.storm.topology.OutputFieldsDeclarer;
 import backtype.storm.topology.base.BaseRichBolt;
 import backtype.storm.tuple.Fields;
 import backtype.storm.tuple.Tuple;
+import org.apache.eagle.security.hive.ql.HiveQLParserCache;
 import org.apache.eagle.security.hive.ql.HiveQLParserContent;
-import org.apache.eagle.security.hive.ql.Parser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -38,11 +38,24 @@ import java.util.TreeMap;
  */
 public class HiveQueryParserBolt extends BaseRichBolt {
 	private static final Logger LOG = LoggerFactory.getLogger(HiveQueryParserBolt.class);
+    private static final int METRIC_BUCKET_SIZE_SECS = 60;
     private OutputCollector collector;
+    private final int parserCacheSize;
+    private HiveQLParserCache parserCache;
+
+    public HiveQueryParserBolt() {
+        this(HiveQLParserCache.DEFAULT_MAX_SIZE);
+    }
+
+    public HiveQueryParserBolt(int parserCacheSize) {
+        this.parserCacheSize = parserCacheSize;
+    }
 
     @Override
     public void prepare(Map stormConf, TopologyContext context, OutputCollector collector) {
         this.collector = collector;
+        this.parserCache = new HiveQLParserCache(parserCacheSize);
+        context.registerMetric("hiveQLParserCache", () -> parserCache.getAndResetStats(), METRIC_BUCKET_SIZE_SECS);
     }
 
     @Override
@@ -91,20 +104,14 @@ public class HiveQueryParserBolt extends BaseRichBolt {
             }
         }
 
-        HiveQLParserContent parserContent = null;
-        Parser queryParser = new Parser();
-        try {
-            parserContent = queryParser.run(query);
-        } catch (Exception ex) {
-            LOG.error("Failed running hive query parser.", ex);
-            //throw new IllegalStateException(ex);
-        }
+        // parse failure is logged once by the cache
+        HiveQLParserContent parserContent = parserCache.parse(query);
         if(parserContent == null) {
-            LOG.warn("Event ignored as it can't be correctly parsed, the query log is " + query);
+            LOG.debug("Event ignored as it can't be correctly parsed, the query log is {}", query);
             return;
         }
         if(parserContent.getTableColumnMap().size() == 0) {
-            LOG.warn("Unsupported command for parsing " + query);
+            LOG.debug("Unsupported command for parsing {}", query);
             return;
         }
         /**
@@ -143,7 +150,9 @@ public class HiveQueryParserBolt extends BaseRichBolt {
         event.put("command", parserContent.getOperation());
         event.put("timestamp", timestamp);
         event.put("resource", resources.toString());
-        LOG.info("HiveQL Parser event stream. " + event);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("HiveQL Parser event stream. " + event);
+        }
 
         collector.emit(Arrays.asList(user, event));
         collector.ack(input);
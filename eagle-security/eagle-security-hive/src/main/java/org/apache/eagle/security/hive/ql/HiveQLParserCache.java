@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.security.hive.ql;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU cache of parsed HiveQL by query fingerprint, the query with literals replaced by "?".
+ * Scheduled queries resubmitted with only different literals are parsed once.
+ * Queries which fail to parse are cached too, so their failures are logged once.
+ *
+ * <p>Not thread safe, one instance is expected per executor. Cached content is shared and must not be modified.</p>
+ */
+public class HiveQLParserCache {
+  private static final Logger LOG = LoggerFactory.getLogger(HiveQLParserCache.class);
+  public static final int DEFAULT_MAX_SIZE = 10000;
+  private static final HiveQLParserContent UNPARSABLE = new HiveQLParserContent();
+  private static final String[] NUMERIC_SUFFIXES = {"BD", "L", "S", "Y"};
+
+  private final Parser parser = new Parser();
+  private final Map<String, HiveQLParserContent> cache;
+  private long hitCount = 0;
+  private long missCount = 0;
+
+  public HiveQLParserCache() {
+    this(DEFAULT_MAX_SIZE);
+  }
+
+  public HiveQLParserCache(final int maxSize) {
+    this.cache = new LinkedHashMap<String, HiveQLParserContent>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, HiveQLParserContent> eldest) {
+        return size() > maxSize;
+      }
+    };
+  }
+
+  /**
+   * @return parsed content, or null if the query can't be parsed
+   */
+  public HiveQLParserContent parse(String query) {
+    String fingerprint = fingerprint(query);
+    HiveQLParserContent content = cache.get(fingerprint);
+    if (content != null) {
+      hitCount++;
+    } else {
+      missCount++;
+      try {
+        content = parser.run(query);
+      } catch (Exception ex) {
+        LOG.error("Failed running hive query parser, query: " + query, ex);
+        content = UNPARSABLE;
+      }
+      cache.put(fingerprint, content);
+    }
+    return content == UNPARSABLE ? null : content;
+  }
+
+  /**
+   * Replace string and numeric literals with "?" and collapse whitespaces.
+   * Quoted identifiers and identifiers containing or starting with digits are kept.
+   */
+  public static String fingerprint(String query) {
+    int length = query.length();
+    StringBuilder sb = new StringBuilder(length);
+    int i = 0;
+    while (i < length) {
+      char c = query.charAt(i);
+      if (c == '\'' || c == '"') {
+        int end = i + 1;
+        while (end < length && query.charAt(end) != c) {
+          if (query.charAt(end) == '\\') {
+            end++;
+          }
+          end++;
+        }
+        sb.append('?');
+        i = end + 1;
+      } else if (c == '`') {
+        int end = query.indexOf('`', i + 1);
+        end = end < 0 ? length : end + 1;
+        sb.append(query, i, end);
+        i = end;
+      } else if (Character.isDigit(c) && (i == 0 || !isIdentifierPart(query.charAt(i - 1)))) {
+        int end = numericLiteralEnd(query, i);
+        if (end < length && isIdentifierPart(query.charAt(end))) {
+          // digit-led identifier such as db.2015_orders
+          end = i + 1;
+          while (end < length && isIdentifierPart(query.charAt(end))) {
+            end++;
+          }
+          sb.append(query, i, end);
+        } else {
+          sb.append('?');
+        }
+        i = end;
+      } else if (Character.isWhitespace(c)) {
+        while (i < length && Character.isWhitespace(query.charAt(i))) {
+          i++;
+        }
+        sb.append(' ');
+      } else {
+        sb.append(c);
+        i++;
+      }
+    }
+    return sb.toString();
+  }
+
+  /**
+   * @return end of the numeric literal starting at start, digits with optional fraction,
+   *     exponent and one of the type suffixes L, S, Y or BD
+   */
+  private static int numericLiteralEnd(String query, int start) {
+    int length = query.length();
+    int end = skipDigits(query, start);
+    if (end + 1 < length && query.charAt(end) == '.' && Character.isDigit(query.charAt(end + 1))) {
+      end = skipDigits(query, end + 1);
+    }
+    if (end + 1 < length && (query.charAt(end) == 'e' || query.charAt(end) == 'E')) {
+      int exponent = end + 1;
+      if (exponent + 1 < length && (query.charAt(exponent) == '+' || query.charAt(exponent) == '-')) {
+        exponent++;
+      }
+      if (Character.isDigit(query.charAt(exponent))) {
+        end = skipDigits(query, exponent);
+      }
+    }
+    for (String suffix : NUMERIC_SUFFIXES) {
+      int suffixEnd = end + suffix.length();
+      if (query.regionMatches(true, end, suffix, 0, suffix.length())
+          && (suffixEnd == length || !isIdentifierPart(query.charAt(suffixEnd)))) {
+        return suffixEnd;
+      }
+    }
+    return end;
+  }
+
+  private static int skipDigits(String query, int start) {
+    int end = start;
+    while (end < query.length() && Character.isDigit(query.charAt(end))) {
+      end++;
+    }
+    return end;
+  }
+
+  private static boolean isIdentifierPart(char c) {
+    return Character.isLetterOrDigit(c) || c == '_';
+  }
+
+  public int size() {
+    return cache.size();
+  }
+
+  /**
+   * @return hit, miss counts since last call and current size
+   */
+  public Map<String, Long> getAndResetStats() {
+    Map<String, Long> stats = new HashMap<>();
+    stats.put("hit", hitCount);
+    stats.put("miss", missCount);
+    stats.put("size", (long) cache.size());
+    hitCount = 0;
+    missCount = 0;
+    return stats;
+  }
+}
@@ -30,9 +30,13 @@ import java.util.Map;
 import java.util.Set;
 
 
+/**
+ * Not thread safe, but one instance can be reused for many queries.
+ */
 public class Parser {
   private static final Logger LOG = LoggerFactory.getLogger(Parser.class);
 
+  private final ParseDriver parseDriver = new ParseDriver();
   private Set<String> tableSet;
   private Set<String> columnSet;
   private Map<String, String> columnAliasMap;
@@ -40,6 +44,13 @@ public class Parser {
   private HiveQLParserContent parserContent;
 
   public Parser() {
+    reset();
+  }
+
+  /**
+   * Sets may be referenced by the returned content, so new ones are created for every query.
+   */
+  private void reset() {
     tableSet = new HashSet<String>();
     columnSet = new HashSet<String>();
     tableAliasMap = new HashMap<String, String>();
@@ -54,10 +65,11 @@ public class Parser {
    * @throws Exception
    */
   public HiveQLParserContent run(String query) throws Exception {
+    reset();
     ASTNode tree = generateAST(query);
     parseQL((ASTNode)tree.getChild(0));
 
-    LOG.info("HiveQL parse completed.");
+    LOG.debug("HiveQL parse completed.");
 
     return parserContent;
   }
@@ -69,8 +81,7 @@ public class Parser {
    * @throws ParseException
    */
   public ASTNode generateAST(String query) throws ParseException {
-    ParseDriver pd = new ParseDriver();
-    return pd.parse(query);
+    return parseDriver.parse(query);
   }
 
   private void parseQL(ASTNode ast) {
@@ -26,14 +26,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Arrays;
-import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class HiveSensitivityDataEnrichBolt extends AbstractDataEnrichBolt<HiveSensitivityEntity, String> {
     private final static Logger LOG = LoggerFactory.getLogger(HiveSensitivityDataEnrichBolt.class);
+    private static final Pattern RESOURCE_SEPARATOR = Pattern.compile("\\s*,\\s*");
+
+    private transient Map<String, HiveSensitivityEntity> indexedMap;
+    private transient HiveSensitivityIndex index;
 
     public HiveSensitivityDataEnrichBolt(Config config){
         super(config, new HiveSensitivityDataEnrichLCM(config));
@@ -45,23 +47,11 @@ public class HiveSensitivityDataEnrichBolt extends AbstractDataEnrichBolt<HiveSe
         Map<String, Object> event = (Map<String, Object>)input.getValue(1);
 
         String resource = (String)event.get("resource");
-        List<String> resourceList = Arrays.asList(resource.split("\\s*,\\s*"));
-        HiveSensitivityEntity sensitivityEntity = null;
+        HiveSensitivityIndex index = getIndex(map);
 
         // Check if hive resource contains sensitive data.
-        for (String s : resourceList) {
-            if (map != null) {
-                sensitivityEntity = null;
-                for (String r : map.keySet()) {
-                    Pattern pattern = Pattern.compile(r,Pattern.CASE_INSENSITIVE);
-                    Matcher matcher = pattern.matcher(s);
-                    boolean isMatched = matcher.matches();
-                    if (isMatched) {
-                        sensitivityEntity = map.get(r);
-                        break;
-                    }
-                }
-            }
+        for (String s : RESOURCE_SEPARATOR.split(resource)) {
+            HiveSensitivityEntity sensitivityEntity = index.lookup(s);
             Map<String, Object> newEvent = new TreeMap<String, Object>(event);
             newEvent.put("sensitivityType", sensitivityEntity  == null ?
                     "NA" : sensitivityEntity.getSensitivityType());
@@ -69,10 +59,21 @@ public class HiveSensitivityDataEnrichBolt extends AbstractDataEnrichBolt<HiveSe
             if(LOG.isDebugEnabled()) {
                 LOG.debug("After hive resource sensitivity lookup: " + newEvent);
             }
-            LOG.info("After hive resource sensitivity lookup: " + newEvent);
             collector.emit(Arrays.asList(user, newEvent));
-            collector.ack(input);
         }
+        collector.ack(input);
+    }
+
+    /**
+     * The index is only rebuilt when the sensitivity map is refreshed in ExternalDataCache.
+     */
+    private HiveSensitivityIndex getIndex(Map<String, HiveSensitivityEntity> map) {
+        if (index == null || map != indexedMap) {
+            index = new HiveSensitivityIndex(map);
+            indexedMap = map;
+            LOG.info("Built hive sensitivity index with {} rules", index.size());
+        }
+        return index;
     }
 
     @Override
@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.security.hive.sensitivity;
+
+import org.apache.eagle.security.service.HiveSensitivityEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Precompiled lookup of hive resources like /db/table/column against sensitivity rules.
+ *
+ * <p>Rule keys are regular expressions matched case insensitively against the whole resource.
+ * Keys without any regex meta character are indexed by path segment (db, table, column), so they are
+ * resolved with one hash lookup per segment. The remaining wildcard keys are combined into a single
+ * alternation pattern. As before, the first rule in the iteration order of the rule map wins.</p>
+ */
+public class HiveSensitivityIndex {
+    private static final Logger LOG = LoggerFactory.getLogger(HiveSensitivityIndex.class);
+    private static final String REGEX_META_CHARS = "\\^$.|?*+()[]{}";
+    private static final String PATH_SEPARATOR = "/";
+    private static final Pattern BACK_REFERENCE = Pattern.compile("\\\\([1-9]|k<)");
+
+    private final Node root = new Node();
+    private final List<Rule> wildcardRules = new ArrayList<>();
+    private Pattern combinedPattern;
+
+    public HiveSensitivityIndex(Map<String, HiveSensitivityEntity> map) {
+        if (map == null) {
+            return;
+        }
+        int order = 0;
+        for (Map.Entry<String, HiveSensitivityEntity> entry : map.entrySet()) {
+            String key = entry.getKey();
+            Rule rule = new Rule(order++, entry.getValue());
+            if (isLiteral(key)) {
+                Node node = root;
+                for (String segment : split(key)) {
+                    node = node.children.computeIfAbsent(segment, k -> new Node());
+                }
+                if (node.rule == null) {
+                    node.rule = rule;
+                }
+            } else {
+                try {
+                    rule.pattern = Pattern.compile(key, Pattern.CASE_INSENSITIVE);
+                } catch (PatternSyntaxException e) {
+                    LOG.warn("Ignore invalid hive sensitivity rule {}", key, e);
+                    continue;
+                }
+                wildcardRules.add(rule);
+            }
+        }
+        compileWildcardRules();
+    }
+
+    /**
+     * @return the first matching rule, or null if the resource is not sensitive.
+     */
+    public HiveSensitivityEntity lookup(String resource) {
+        Rule literal = lookupLiteral(resource);
+        // wildcard rules defined before the literal one take precedence
+        Rule wildcard = lookupWildcard(resource, literal == null ? Integer.MAX_VALUE : literal.order);
+        if (wildcard != null) {
+            return wildcard.entity;
+        }
+        return literal == null ? null : literal.entity;
+    }
+
+    private Rule lookupLiteral(String resource) {
+        Node node = root;
+        for (String segment : split(resource)) {
+            node = node.children.get(segment);
+            if (node == null) {
+                return null;
+            }
+        }
+        return node.rule;
+    }
+
+    private Rule lookupWildcard(String resource, int beforeOrder) {
+        if (wildcardRules.isEmpty() || wildcardRules.get(0).order > beforeOrder) {
+            return null;
+        }
+        if (combinedPattern != null) {
+            Matcher matcher = combinedPattern.matcher(resource);
+            if (!matcher.matches()) {
+                return null;
+            }
+            // alternatives are tried in order, so the matched group is the first matching rule
+            for (Rule rule : wildcardRules) {
+                if (matcher.start(rule.group) >= 0) {
+                    return rule.order < beforeOrder ? rule : null;
+                }
+            }
+            return null;
+        }
+        for (Rule rule : wildcardRules) {
+            if (rule.order >= beforeOrder) {
+                return null;
+            }
+            if (rule.pattern.matcher(resource).matches()) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    private void compileWildcardRules() {
+        if (wildcardRules.isEmpty()) {
+            return;
+        }
+        StringBuilder builder = new StringBuilder();
+        int group = 1;
+        for (Rule rule : wildcardRules) {
+            if (BACK_REFERENCE.matcher(rule.pattern.pattern()).find()) {
+                // numbered back references would be shifted by the combination, match rules one by one instead
+                LOG.info("Hive sensitivity rule {} has back reference, match rules one by one", rule.pattern.pattern());
+                return;
+            }
+            if (builder.length() > 0) {
+                builder.append('|');
+            }
+            builder.append('(').append(rule.pattern.pattern()).append(')');
+            rule.group = group;
+            group += rule.pattern.matcher("").groupCount() + 1;
+        }
+        try {
+            combinedPattern = Pattern.compile(builder.toString(), Pattern.CASE_INSENSITIVE);
+        } catch (PatternSyntaxException e) {
+            LOG.warn("Failed to combine {} hive sensitivity rules, match them one by one", wildcardRules.size(), e);
+            combinedPattern = null;
+        }
+    }
+
+    private static boolean isLiteral(String key) {
+        for (int i = 0; i < key.length(); i++) {
+            if (REGEX_META_CHARS.indexOf(key.charAt(i)) >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String[] split(String resource) {
+        return resource.toLowerCase(Locale.ROOT).split(PATH_SEPARATOR, -1);
+    }
+
+    public int size() {
+        return countLiteralRules(root) + wildcardRules.size();
+    }
+
+    private static int countLiteralRules(Node node) {
+        int count = node.rule == null ? 0 : 1;
+        for (Node child : node.children.values()) {
+            count += countLiteralRules(child);
+        }
+        return count;
+    }
+
+    private static class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        private Rule rule;
+    }
+
+    private static class Rule {
+        private final int order;
+        private final HiveSensitivityEntity entity;
+        private Pattern pattern;
+        private int group;
+
+        Rule(int order, HiveSensitivityEntity entity) {
+            this.order = order;
+            this.entity = entity;
+        }
+    }
+}
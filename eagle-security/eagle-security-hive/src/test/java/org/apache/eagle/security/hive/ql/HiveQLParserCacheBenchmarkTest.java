@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.security.hive.ql;
+
+import org.apache.commons.lang.time.StopWatch;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Ignore("Ignore automatic heavy benchmark test")
+public class HiveQLParserCacheBenchmarkTest {
+  private static final Logger LOG = LoggerFactory.getLogger(HiveQLParserCacheBenchmarkTest.class);
+  private static final String[] TEMPLATES = {
+      "select * from t%d where partner=%d and brand_id=%d and date_key>=2015071400",
+      "select a.col1, b.col2 from db.fact_%d a join dim_%d b on a.id = b.id where a.dt = '2016-01-%d'",
+      "insert overwrite table report_%d select user_id, count(*) from events where dt = '%d' group by user_id limit %d"
+  };
+
+  /**
+   * 90% of the queries are 100 scheduled statements resubmitted with different literals, 10% are unique.
+   */
+  private List<String> corpus(int size) {
+    List<String> queries = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      String template = TEMPLATES[i % TEMPLATES.length];
+      int statement = i % 10 == 0 ? 1000 + i : i % 100;
+      queries.add(String.format(template, statement, i, i % 28 + 1));
+    }
+    return queries;
+  }
+
+  @Test
+  public void testParse() throws Exception {
+    List<String> queries = corpus(20000);
+
+    StopWatch stopWatch = new StopWatch();
+    stopWatch.start();
+    for (String query : queries) {
+      new Parser().run(query);
+    }
+    stopWatch.stop();
+    LOG.info("Parsed {} queries without cache in {} ms", queries.size(), stopWatch.getTime());
+
+    HiveQLParserCache cache = new HiveQLParserCache();
+    stopWatch.reset();
+    stopWatch.start();
+    for (String query : queries) {
+      cache.parse(query);
+    }
+    stopWatch.stop();
+    Map<String, Long> stats = cache.getAndResetStats();
+    LOG.info("Parsed {} queries with cache in {} ms, {} hits, {} misses", queries.size(), stopWatch.getTime(), stats.get("hit"), stats.get("miss"));
+  }
+}
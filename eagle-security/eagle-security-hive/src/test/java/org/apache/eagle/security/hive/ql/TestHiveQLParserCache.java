@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.security.hive.ql;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+
+public class TestHiveQLParserCache {
+
+  @Test
+  public void testFingerprint() {
+    Assert.assertEquals("select * from t1 where partner=? and name=? and dt>=?",
+        HiveQLParserCache.fingerprint("select *  from t1\n where partner=965704 and name='it\\'s' and dt>=\"2015-07-14\""));
+    Assert.assertEquals(HiveQLParserCache.fingerprint("select a from t where b = 1.5 limit 10"),
+        HiveQLParserCache.fingerprint("select a from t where b = 2.25 limit 100"));
+    Assert.assertEquals("select col_1 from `2015_t` where x = ?",
+        HiveQLParserCache.fingerprint("select col_1 from `2015_t` where x = 3"));
+    Assert.assertNotEquals(HiveQLParserCache.fingerprint("select a from t1"),
+        HiveQLParserCache.fingerprint("select a from t2"));
+  }
+
+  @Test
+  public void testFingerprintDigitLedIdentifiers() {
+    Assert.assertEquals("select a from db.2015_orders where b > ?",
+        HiveQLParserCache.fingerprint("select a from db.2015_orders where b > 10"));
+    Assert.assertNotEquals(HiveQLParserCache.fingerprint("select a from db.2015_orders"),
+        HiveQLParserCache.fingerprint("select a from db.2016_orders"));
+    Assert.assertNotEquals(HiveQLParserCache.fingerprint("select 1d from t"),
+        HiveQLParserCache.fingerprint("select 2d from t"));
+    Assert.assertEquals("select a from t where b in (?, ?, ?, ?) and c = ?",
+        HiveQLParserCache.fingerprint("select a from t where b in (1.5e3, 10L, 2BD, 3Y) and c = 4E-2"));
+  }
+
+  @Test
+  public void testParseWithCache() throws Exception {
+    HiveQLParserCache cache = new HiveQLParserCache(2);
+    HiveQLParserContent content = cache.parse("select a, b from t1 where dt = '2016-01-01'");
+    Assert.assertEquals("SELECT", content.getOperation());
+    Assert.assertSame(content, cache.parse("select a, b from t1 where dt = '2016-01-02'"));
+    Assert.assertEquals(new Parser().run("select a, b from t1 where dt = '2016-01-02'").getTableColumnMap(), content.getTableColumnMap());
+
+    // failures are cached as well
+    Assert.assertNull(cache.parse("select from where"));
+    Assert.assertNull(cache.parse("select from where"));
+
+    Map<String, Long> stats = cache.getAndResetStats();
+    Assert.assertEquals(2L, (long) stats.get("hit"));
+    Assert.assertEquals(2L, (long) stats.get("miss"));
+    Assert.assertEquals(2L, (long) stats.get("size"));
+
+    // least recently used query is evicted
+    cache.parse("select c from t2");
+    Assert.assertEquals(2, cache.size());
+    Assert.assertNotSame(content, cache.parse("select a, b from t1 where dt = '2016-01-03'"));
+    stats = cache.getAndResetStats();
+    Assert.assertEquals(0L, (long) stats.get("hit"));
+    Assert.assertEquals(2L, (long) stats.get("miss"));
+  }
+
+  @Test
+  public void testReuseParser() throws Exception {
+    Parser parser = new Parser();
+    HiveQLParserContent first = parser.run("select a from t1");
+    HiveQLParserContent second = parser.run("select b from t2");
+    Assert.assertEquals(new Parser().run("select a from t1").getTableColumnMap(), first.getTableColumnMap());
+    Assert.assertEquals(new Parser().run("select b from t2").getTableColumnMap(), second.getTableColumnMap());
+  }
+}
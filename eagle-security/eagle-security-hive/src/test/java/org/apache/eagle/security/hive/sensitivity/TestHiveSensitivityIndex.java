@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.security.hive.sensitivity;
+
+import org.apache.eagle.security.service.HiveSensitivityEntity;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class TestHiveSensitivityIndex {
+
+    private static void addRule(Map<String, HiveSensitivityEntity> map, String resource, String type) {
+        HiveSensitivityEntity entity = new HiveSensitivityEntity();
+        entity.setSite("test");
+        entity.setHiveResource(resource);
+        entity.setSensitivityType(type);
+        map.put(resource, entity);
+    }
+
+    private static String lookup(HiveSensitivityIndex index, String resource) {
+        HiveSensitivityEntity entity = index.lookup(resource);
+        return entity == null ? null : entity.getSensitivityType();
+    }
+
+    @Test
+    public void testLiteralRules() {
+        Map<String, HiveSensitivityEntity> map = new LinkedHashMap<>();
+        addRule(map, "/xademo/customer_details/phone_number", "PHONE_NUMBER");
+        addRule(map, "/xademo/customer_details", "TABLE");
+        HiveSensitivityIndex index = new HiveSensitivityIndex(map);
+
+        Assert.assertEquals(2, index.size());
+        Assert.assertEquals("PHONE_NUMBER", lookup(index, "/xademo/customer_details/phone_number"));
+        Assert.assertEquals("PHONE_NUMBER", lookup(index, "/XADEMO/Customer_Details/PHONE_NUMBER"));
+        Assert.assertEquals("TABLE", lookup(index, "/xademo/customer_details"));
+        Assert.assertNull(lookup(index, "/xademo"));
+        Assert.assertNull(lookup(index, "/xademo/customer_details/name"));
+        Assert.assertNull(lookup(index, "/xademo/customer_details/phone_number/x"));
+    }
+
+    @Test
+    public void testWildcardRulesAndOrder() {
+        Map<String, HiveSensitivityEntity> map = new LinkedHashMap<>();
+        addRule(map, "/xademo/customer_details/phone_number", "PHONE_NUMBER");
+        addRule(map, "/xademo/(customer|account)_details/.*", "CUSTOMER");
+        addRule(map, "/xademo/customer_details/email", "EMAIL");
+        addRule(map, "/hr/.*/ssn", "SSN");
+        HiveSensitivityIndex index = new HiveSensitivityIndex(map);
+
+        Assert.assertEquals(4, index.size());
+        // literal rule defined first wins
+        Assert.assertEquals("PHONE_NUMBER", lookup(index, "/xademo/customer_details/phone_number"));
+        // wildcard rule defined before the literal one wins
+        Assert.assertEquals("CUSTOMER", lookup(index, "/xademo/customer_details/email"));
+        Assert.assertEquals("CUSTOMER", lookup(index, "/XADEMO/account_details/name"));
+        // groups inside a rule don't shift the following rules
+        Assert.assertEquals("SSN", lookup(index, "/hr/employee/ssn"));
+        Assert.assertNull(lookup(index, "/hr/employee/name"));
+    }
+
+    @Test
+    public void testEmptyAndInvalidRules() {
+        Assert.assertNull(new HiveSensitivityIndex(null).lookup("/db/table"));
+
+        Map<String, HiveSensitivityEntity> map = new LinkedHashMap<>();
+        addRule(map, "/db/(table", "INVALID");
+        addRule(map, "/db/(t)\\1", "BACK_REFERENCE");
+        addRule(map, "/db/x+", "X");
+        HiveSensitivityIndex index = new HiveSensitivityIndex(map);
+        Assert.assertEquals(2, index.size());
+        Assert.assertNull(lookup(index, "/db/(table"));
+        Assert.assertEquals("BACK_REFERENCE", lookup(index, "/db/tt"));
+        Assert.assertEquals("X", lookup(index, "/db/xxx"));
+    }
+}
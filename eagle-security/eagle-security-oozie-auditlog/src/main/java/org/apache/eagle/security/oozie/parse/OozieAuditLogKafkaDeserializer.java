@@ -28,6 +28,7 @@ import java.util.TreeMap;
 
 public class OozieAuditLogKafkaDeserializer implements SpoutKafkaMessageDeserializer {
     private static Logger LOG = LoggerFactory.getLogger(OozieAuditLogKafkaDeserializer.class);
+    private static final OozieAuditLogParser PARSER = new OozieAuditLogParser();
     private Properties props;
 
     public OozieAuditLogKafkaDeserializer(Properties props) {
@@ -38,10 +39,9 @@ public class OozieAuditLogKafkaDeserializer implements SpoutKafkaMessageDeserial
     public Object deserialize(byte[] arg0) {
         String logLine = new String(arg0);
 
-        OozieAuditLogParser parser = new OozieAuditLogParser();
         OozieAuditLogObject entity = null;
         try {
-            entity = parser.parse(logLine);
+            entity = PARSER.parse(logLine);
         } catch (Exception ex) {
             LOG.error("Failing oozie parse audit log message", ex);
         }
@@ -19,25 +19,30 @@ package org.apache.eagle.security.oozie.parse;
 
 import org.apache.eagle.common.DateTimeUtil;
 
-import org.apache.commons.lang.StringUtils;
-
 import java.text.ParseException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.text.SimpleDateFormat;
 
+/**
+ * Parse oozie audit log lines like
+ * <pre>
+ * 2016-04-27 15:01:14,526  INFO oozieaudit:520 - IP [192.168.7.199], USER [tangjijun], GROUP [pms], APP [My_Workflow],
+ * JOBID [0000000-160427140648764-oozie-oozi-W], OPERATION [start], PARAMETER [0000000-160427140648764-oozie-oozi-W],
+ * STATUS [SUCCESS], HTTPCODE [200], ERRORCODE [501], ERRORMESSAGE [no problem]
+ * </pre>
+ *
+ * <p>Fields are located with a linear scan instead of a regular expression. Values are read up to the first closing
+ * bracket, and if a field name occurs more than once, the last occurrence which still lets the following fields
+ * match is taken, which is what the greedy separators of the former regular expression did.</p>
+ *
+ * <p>Instances are thread safe.</p>
+ */
 public class OozieAuditLogParser {
 
-    public static final String MESSAGE_SPLIT_FLAG = "( - )";
-    private static final String COMMON_REGEX = "\\s([^\\]]*\\])";
-    public static final String ALLOW_ALL_REGEX = "(.*)";
-    private static final String TIMESTAMP_REGEX = "(\\d\\d\\d\\d-\\d\\d-\\d\\d \\d\\d:\\d\\d:\\d\\d,\\d\\d\\d)";
-    private static final String WHITE_SPACE_REGEX = "\\s+";
-    private static final String LOG_LEVEL_REGEX = "(\\w+)";
-    private static final String OOZIEAUDIT_FLAG = "(\\w+:\\d+)";
-    private static final String PREFIX_REGEX = TIMESTAMP_REGEX + WHITE_SPACE_REGEX + LOG_LEVEL_REGEX
-            + WHITE_SPACE_REGEX;
+    private static final String MESSAGE_SPLIT_FLAG = " - ";
+    private static final String TIMESTAMP_FORMAT = "yyyy-MM-dd HH:mm:ss,SSS";
+    private static final int TIMESTAMP_LENGTH = TIMESTAMP_FORMAT.length();
+    // length of the timestamp without milliseconds
+    private static final int SECOND_LENGTH = TIMESTAMP_FORMAT.indexOf(',');
     private static final String IP = "IP";
     private static final String USER = "USER";
     private static final String GROUP = "GROUP";
@@ -49,63 +54,218 @@ public class OozieAuditLogParser {
     private static final String HTTPCODE = "HTTPCODE";
     private static final String ERRORCODE = "ERRORCODE";
     private static final String ERRORMESSAGE = "ERRORMESSAGE";
-    private static final Pattern LOG_PATTERN = constructPattern();
+    private static final String[] FIELDS = {IP, USER, GROUP, APP, JOBID, OPERATION, PARAMETER, STATUS, HTTPCODE, ERRORCODE, ERRORMESSAGE};
+    private static final ThreadLocal<TimestampParser> TIMESTAMP_PARSER = ThreadLocal.withInitial(TimestampParser::new);
 
     public OozieAuditLogObject parse(String logLine) throws Exception {
+        int messageStart = parsePrefix(logLine);
+        if (messageStart < 0) {
+            return null;
+        }
+        String[] values = parseFields(logLine, messageStart);
+        if (values == null) {
+            return null;
+        }
 
         OozieAuditLogObject oozieAuditLogObject = new OozieAuditLogObject();
-        Matcher matcher = LOG_PATTERN.matcher(logLine);
-        if (!matcher.matches()) {
+        oozieAuditLogObject.timestamp = TIMESTAMP_PARSER.get().parse(logLine);
+        oozieAuditLogObject.level = parseLevel(logLine);
+        oozieAuditLogObject.ip = values[0];
+        oozieAuditLogObject.user = values[1];
+        oozieAuditLogObject.group = values[2];
+        oozieAuditLogObject.app = values[3];
+        oozieAuditLogObject.jobId = values[4];
+        oozieAuditLogObject.operation = values[5];
+        oozieAuditLogObject.parameter = values[6];
+        oozieAuditLogObject.status = values[7];
+        oozieAuditLogObject.httpcode = values[8];
+        oozieAuditLogObject.errorcode = values[9];
+        oozieAuditLogObject.errormessage = values[10];
+        return oozieAuditLogObject;
+    }
+
+    /**
+     * Match "timestamp level oozieaudit:520 - ".
+     *
+     * @return start of the message, or -1 if not matched
+     */
+    private static int parsePrefix(String logLine) {
+        if (!isTimestamp(logLine)) {
+            return -1;
+        }
+        int levelStart = skipWhitespaces(logLine, TIMESTAMP_LENGTH);
+        int levelEnd = skipWordChars(logLine, levelStart);
+        if (levelStart == TIMESTAMP_LENGTH || levelEnd == levelStart) {
+            return -1;
+        }
+        int flagStart = skipWhitespaces(logLine, levelEnd);
+        int flagEnd = skipWordChars(logLine, flagStart);
+        if (flagStart == levelEnd || flagEnd == flagStart || flagEnd >= logLine.length() || logLine.charAt(flagEnd) != ':') {
+            return -1;
+        }
+        int lineNumberEnd = flagEnd + 1;
+        while (lineNumberEnd < logLine.length() && isDigit(logLine.charAt(lineNumberEnd))) {
+            lineNumberEnd++;
+        }
+        if (lineNumberEnd == flagEnd + 1 || !logLine.startsWith(MESSAGE_SPLIT_FLAG, lineNumberEnd)) {
+            return -1;
+        }
+        return lineNumberEnd + MESSAGE_SPLIT_FLAG.length();
+    }
+
+    private static String parseLevel(String logLine) {
+        int levelStart = skipWhitespaces(logLine, TIMESTAMP_LENGTH);
+        return logLine.substring(levelStart, skipWordChars(logLine, levelStart));
+    }
+
+    /**
+     * Locate "NAME [value]" of every field. The first field starts the message, the last one ends the line,
+     * and any text may be in between. Fields are located from the last one backwards, each at its last
+     * occurrence closed before the next field.
+     *
+     * @return values without enclosing brackets, or null if not matched
+     */
+    private static String[] parseFields(String logLine, int messageStart) {
+        int length = logLine.length();
+        int last = FIELDS.length - 1;
+        if (length == 0 || logLine.charAt(length - 1) != ']') {
             return null;
         }
-        applyValueTo(oozieAuditLogObject, matcher);
+        int[] nameStarts = new int[FIELDS.length];
+        int[] closes = new int[FIELDS.length];
 
-        return oozieAuditLogObject;
+        // the value of the last field must not contain any other closing bracket
+        int lowerBound = Math.max(messageStart, logLine.lastIndexOf(']', length - 2) + 1);
+        nameStarts[last] = lastFieldOccurrence(logLine, FIELDS[last], length - 1, lowerBound);
+        if (nameStarts[last] < 0) {
+            return null;
+        }
+        closes[last] = length - 1;
+        for (int i = last - 1; i > 0; i--) {
+            int close = logLine.lastIndexOf(']', nameStarts[i + 1] - 1);
+            nameStarts[i] = close < 0 ? -1 : lastFieldOccurrence(logLine, FIELDS[i], close, messageStart);
+            if (nameStarts[i] < 0) {
+                return null;
+            }
+            closes[i] = logLine.indexOf(']', nameStarts[i] + FIELDS[i].length() + 1);
+        }
+        nameStarts[0] = messageStart;
+        if (!isFieldAt(logLine, FIELDS[0], messageStart)) {
+            return null;
+        }
+        closes[0] = logLine.indexOf(']', messageStart + FIELDS[0].length() + 1);
+        if (closes[0] < 0 || closes[0] >= nameStarts[1]) {
+            return null;
+        }
+
+        String[] values = new String[FIELDS.length];
+        for (int i = 0; i < FIELDS.length; i++) {
+            if (i > 0 && containsLineTerminator(logLine, closes[i - 1] + 1, nameStarts[i])) {
+                return null;
+            }
+            int valueStart = nameStarts[i] + FIELDS[i].length() + 1;
+            if (logLine.charAt(valueStart) == '[') {
+                valueStart++;
+            }
+            values[i] = logLine.substring(valueStart, closes[i]);
+        }
+        return values;
+    }
+
+    /**
+     * @return start of the last "NAME " in [lowerBound, close) whose value may be closed by the bracket at close
+     */
+    private static int lastFieldOccurrence(String logLine, String name, int close, int lowerBound) {
+        int nameStart = logLine.lastIndexOf(name, close - name.length() - 1);
+        while (nameStart >= lowerBound) {
+            if (isFieldAt(logLine, name, nameStart)) {
+                return nameStart;
+            }
+            nameStart = logLine.lastIndexOf(name, nameStart - 1);
+        }
+        return -1;
+    }
+
+    private static boolean isFieldAt(String logLine, String name, int nameStart) {
+        int separator = nameStart + name.length();
+        return separator < logLine.length() && logLine.startsWith(name, nameStart) && isWhitespace(logLine.charAt(separator));
+    }
+
+    private static boolean isTimestamp(String logLine) {
+        if (logLine.length() < TIMESTAMP_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < TIMESTAMP_LENGTH; i++) {
+            char expected = TIMESTAMP_FORMAT.charAt(i);
+            char c = logLine.charAt(i);
+            if (Character.isLetter(expected) ? !isDigit(c) : c != expected) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int skipWhitespaces(String logLine, int index) {
+        while (index < logLine.length() && isWhitespace(logLine.charAt(index))) {
+            index++;
+        }
+        return index;
     }
 
+    private static int skipWordChars(String logLine, int index) {
+        while (index < logLine.length() && isWordChar(logLine.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
 
-    private static Pattern constructPattern() {
-        List<String> patterns = new ArrayList<String>(11);
-        patterns.add(IP);
-        patterns.add(USER);
-        patterns.add(GROUP);
-        patterns.add(APP);
-        patterns.add(JOBID);
-        patterns.add(OPERATION);
-        patterns.add(PARAMETER);
-        patterns.add(STATUS);
-        patterns.add(HTTPCODE);
-        patterns.add(ERRORCODE);
-        patterns.add(ERRORMESSAGE);
-
-        StringBuilder sb = new StringBuilder();
-        sb.append(PREFIX_REGEX + OOZIEAUDIT_FLAG);
-        sb.append(MESSAGE_SPLIT_FLAG);
-        for (int i = 0; i < patterns.size(); i++) {
-            sb.append("(");
-            sb.append(patterns.get(i) + COMMON_REGEX);
-            sb.append(")");
-            sb.append(ALLOW_ALL_REGEX);
-        }
-        String rs = StringUtils.removeEnd(sb.toString(), ALLOW_ALL_REGEX);
-        return Pattern.compile(rs);
+    private static boolean containsLineTerminator(String logLine, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = logLine.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return true;
+            }
+        }
+        return false;
     }
 
-    private void applyValueTo(OozieAuditLogObject oozieAuditLogObject, Matcher matcher) throws ParseException {
-        oozieAuditLogObject.timestamp = DateTimeUtil.humanDateToMilliseconds(matcher.group(1));
-        oozieAuditLogObject.level = matcher.group(2);
-        oozieAuditLogObject.ip = StringUtils.removeEnd(StringUtils.removeStart(matcher.group(6), "["), "]");
-        oozieAuditLogObject.user = StringUtils.removeEnd(StringUtils.removeStart(matcher.group(9), "["), "]");
-        oozieAuditLogObject.group = StringUtils.removeEnd(StringUtils.removeStart(matcher.group(12), "["), "]");
-        oozieAuditLogObject.app = StringUtils.removeEnd(StringUtils.removeStart(matcher.group(15), "["), "]");
-        oozieAuditLogObject.jobId = StringUtils.removeEnd(StringUtils.removeStart(matcher.group(18), "["), "]");
-        oozieAuditLogObject.operation = StringUtils.removeEnd(StringUtils.removeStart(matcher.group(21), "["), "]");
-        oozieAuditLogObject.parameter = StringUtils.removeEnd(StringUtils.removeStart(matcher.group(24), "["), "]");
-        oozieAuditLogObject.status = StringUtils.removeEnd(StringUtils.removeStart(matcher.group(27), "["), "]");
-        oozieAuditLogObject.httpcode = StringUtils.removeEnd(StringUtils.removeStart(matcher.group(30), "["), "]");
-        oozieAuditLogObject.errorcode = StringUtils.removeEnd(StringUtils.removeStart(matcher.group(33), "["), "]");
-        oozieAuditLogObject.errormessage = StringUtils.removeEnd(StringUtils.removeStart(matcher.group(36), "["), "]");
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
     }
 
+    private static boolean isWordChar(char c) {
+        return isDigit(c) || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+    }
 
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    /**
+     * Parse yyyy-MM-dd HH:mm:ss,SSS like {@link DateTimeUtil#humanDateToMilliseconds(String)}. SimpleDateFormat is
+     * not thread safe, so one instance is kept per thread, and the last parsed second is reused as consecutive
+     * lines mostly share it.
+     */
+    private static class TimestampParser {
+        private final SimpleDateFormat format;
+        private String lastSecond;
+        private long lastSecondMillis;
+
+        TimestampParser() {
+            format = new SimpleDateFormat(TIMESTAMP_FORMAT.substring(0, SECOND_LENGTH));
+            format.setTimeZone(DateTimeUtil.CURRENT_TIME_ZONE);
+        }
+
+        long parse(String logLine) throws ParseException {
+            if (lastSecond == null || !logLine.regionMatches(0, lastSecond, 0, SECOND_LENGTH)) {
+                String second = logLine.substring(0, SECOND_LENGTH);
+                lastSecondMillis = format.parse(second).getTime();
+                lastSecond = second;
+            }
+            int millis = (logLine.charAt(SECOND_LENGTH + 1) - '0') * 100
+                + (logLine.charAt(SECOND_LENGTH + 2) - '0') * 10
+                + (logLine.charAt(SECOND_LENGTH + 3) - '0');
+            return lastSecondMillis + millis;
+        }
+    }
 }
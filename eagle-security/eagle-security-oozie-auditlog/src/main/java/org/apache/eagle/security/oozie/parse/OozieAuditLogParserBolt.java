@@ -39,10 +39,12 @@ import java.util.TreeMap;
 public class OozieAuditLogParserBolt extends BaseRichBolt {
     private static Logger LOG = LoggerFactory.getLogger(OozieAuditLogParserBolt.class);
     private OutputCollector collector;
+    private OozieAuditLogParser parser;
 
     @Override
     public void prepare(Map stormConf, TopologyContext context, OutputCollector collector) {
         this.collector = collector;
+        this.parser = new OozieAuditLogParser();
     }
 
     @Override
@@ -50,7 +52,6 @@ public class OozieAuditLogParserBolt extends BaseRichBolt {
         String logLine = new String(input.getString(0));
 
         try {
-            OozieAuditLogParser parser = new OozieAuditLogParser();
             OozieAuditLogObject entity = null;
             try {
                 entity = parser.parse(logLine);
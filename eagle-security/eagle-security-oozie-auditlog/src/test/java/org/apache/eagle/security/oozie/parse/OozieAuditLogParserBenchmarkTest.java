@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.eagle.security.oozie.parse;
+
+import org.apache.commons.lang.time.StopWatch;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+@Ignore("Ignore automatic heavy benchmark test")
+public class OozieAuditLogParserBenchmarkTest {
+    private static final Logger LOG = LoggerFactory.getLogger(OozieAuditLogParserBenchmarkTest.class);
+
+    private static final String[] LINES = {
+        "2016-04-27 15:01:14,526  INFO oozieaudit:520 - IP [192.168.7.199], USER [tangjijun], GROUP [pms], APP [My_Workflow], "
+            + "JOBID [0000000-160427140648764-oozie-oozi-W], OPERATION [start], PARAMETER [0000000-160427140648764-oozie-oozi-W], "
+            + "STATUS [SUCCESS], HTTPCODE [200], ERRORCODE [501], ERRORMESSAGE [no problem]",
+        "2016-04-27 15:01:14,871  INFO oozieaudit:520 - IP [192.168.7.199], USER [hue], GROUP [null], APP [null], JOBID [null], "
+            + "OPERATION [list], PARAMETER [filter=user=hue;status=RUNNING], STATUS [SUCCESS], HTTPCODE [200], ERRORCODE [null], ERRORMESSAGE [null]",
+        "2016-04-27 15:01:15,002  INFO oozieaudit:520 - Proxy user [hue] DoAs user [tangjijun] "
+            + "Request [http://localhost:11000/oozie/v1/job/0000001-160427140648764-oozie-oozi-W?action=rerun&user.name=hue&doAs=tangjijun]"
+    };
+
+    /**
+     * Single thread throughput, i.e. lines per second per core, of both parsers.
+     */
+    @Test
+    public void testParse() throws Exception {
+        int rounds = 1000000;
+        OozieAuditLogParser parser = new OozieAuditLogParser();
+        RegexOozieAuditLogParser regexParser = new RegexOozieAuditLogParser();
+        // warm up
+        parse(parser, rounds / 10);
+        parseWithRegex(regexParser, rounds / 10);
+
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
+        parse(parser, rounds);
+        stopWatch.stop();
+        LOG.info("Parsed {} lines in {} ms, {} lines/s", rounds, stopWatch.getTime(), rounds * 1000L / Math.max(1, stopWatch.getTime()));
+
+        stopWatch.reset();
+        stopWatch.start();
+        parseWithRegex(regexParser, rounds);
+        stopWatch.stop();
+        LOG.info("Parsed {} lines with regex in {} ms, {} lines/s", rounds, stopWatch.getTime(), rounds * 1000L / Math.max(1, stopWatch.getTime()));
+    }
+
+    private int parse(OozieAuditLogParser parser, int rounds) throws Exception {
+        int matched = 0;
+        for (int i = 0; i < rounds; i++) {
+            if (parser.parse(LINES[i % LINES.length]) != null) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+
+    private int parseWithRegex(RegexOozieAuditLogParser parser, int rounds) throws Exception {
+        int matched = 0;
+        for (int i = 0; i < rounds; i++) {
+            if (parser.parse(LINES[i % LINES.length]) != null) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+}
@@ -20,6 +20,7 @@ package org.apache.eagle.security.oozie.parse;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.Random;
 
 public class TestOozieAuditLogParser {
     OozieAuditLogParser parser = new OozieAuditLogParser();
@@ -53,4 +54,100 @@ public class TestOozieAuditLogParser {
         Assert.assertTrue(obj == null);
     }
 
+    @Test
+    public void testParserDuplicatedFieldName() throws Exception {
+        String logline = "2016-04-27 15:01:14,526 WARN oozieaudit:520 - IP [192.168.7.199], USER [tangjijun], GROUP [pms], APP [USER [x], y], JOBID [-], "
+                + "OPERATION [start], PARAMETER [null], STATUS [FAILED], HTTPCODE [400], ERRORCODE [E0508], ERRORMESSAGE [E0508: ERRORMESSAGE [denied]";
+        OozieAuditLogObject obj = parser.parse(logline);
+        assertSameObject(new RegexOozieAuditLogParser().parse(logline), obj);
+        Assert.assertEquals("WARN", obj.level);
+        Assert.assertEquals("tangjijun", obj.user);
+        Assert.assertEquals("USER [x", obj.app);
+        Assert.assertEquals("denied", obj.errormessage);
+    }
+
+    @Test
+    public void testParserSameAsRegexParser() throws Exception {
+        RegexOozieAuditLogParser regexParser = new RegexOozieAuditLogParser();
+        Random random = new Random(20160812);
+        int matched = 0;
+        for (int i = 0; i < 20000; i++) {
+            String logline = randomLogLine(random);
+            OozieAuditLogObject expected = regexParser.parse(logline);
+            OozieAuditLogObject actual = parser.parse(logline);
+            assertSameObject(expected, actual);
+            if (expected != null) {
+                matched++;
+            }
+        }
+        // both matched and unmatched lines are covered
+        Assert.assertTrue(matched > 1000 && matched < 19000);
+    }
+
+    private static final String[] FIELDS = {"IP", "USER", "GROUP", "APP", "JOBID", "OPERATION", "PARAMETER", "STATUS", "HTTPCODE", "ERRORCODE", "ERRORMESSAGE"};
+    private static final String VALUE_CHARS = "abcXYZ019 _-,:./[\t";
+
+    private static String randomLogLine(Random random) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%04d-%02d-%02d %02d:%02d:%02d,%03d", 2000 + random.nextInt(30), 1 + random.nextInt(12),
+                1 + random.nextInt(28), random.nextInt(24), random.nextInt(60), random.nextInt(60), random.nextInt(1000)));
+        sb.append(random.nextInt(10) == 0 ? "\t" : "  ").append(random.nextBoolean() ? "INFO" : "ERROR").append(' ');
+        sb.append("oozieaudit:520 - ");
+        for (int i = 0; i < FIELDS.length; i++) {
+            if (i > 0) {
+                sb.append(random.nextInt(10) == 0 ? randomText(random, 4) : ", ");
+            }
+            sb.append(FIELDS[random.nextInt(50) == 0 ? random.nextInt(FIELDS.length) : i]);
+            sb.append(random.nextInt(20) == 0 ? "\t" : " ");
+            if (random.nextInt(20) != 0) {
+                sb.append('[');
+            }
+            sb.append(randomText(random, 12));
+            if (random.nextInt(20) == 0) {
+                // field name inside a value
+                sb.append(FIELDS[random.nextInt(FIELDS.length)]).append(" [").append(randomText(random, 3));
+            }
+            sb.append(']');
+        }
+        if (random.nextInt(10) == 0) {
+            // drop or duplicate a random char
+            int index = random.nextInt(sb.length());
+            if (random.nextBoolean()) {
+                sb.deleteCharAt(index);
+            } else {
+                sb.insert(index, random.nextBoolean() ? ']' : sb.charAt(index));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String randomText(Random random, int maxLength) {
+        int length = random.nextInt(maxLength + 1);
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(VALUE_CHARS.charAt(random.nextInt(VALUE_CHARS.length())));
+        }
+        return sb.toString();
+    }
+
+    private static void assertSameObject(OozieAuditLogObject expected, OozieAuditLogObject actual) {
+        if (expected == null) {
+            Assert.assertNull(actual);
+            return;
+        }
+        Assert.assertNotNull(actual);
+        Assert.assertEquals(expected.timestamp, actual.timestamp);
+        Assert.assertEquals(expected.level, actual.level);
+        Assert.assertEquals(expected.ip, actual.ip);
+        Assert.assertEquals(expected.user, actual.user);
+        Assert.assertEquals(expected.group, actual.group);
+        Assert.assertEquals(expected.app, actual.app);
+        Assert.assertEquals(expected.jobId, actual.jobId);
+        Assert.assertEquals(expected.operation, actual.operation);
+        Assert.assertEquals(expected.parameter, actual.parameter);
+        Assert.assertEquals(expected.status, actual.status);
+        Assert.assertEquals(expected.httpcode, actual.httpcode);
+        Assert.assertEquals(expected.errorcode, actual.errorcode);
+        Assert.assertEquals(expected.errormessage, actual.errormessage);
+    }
 }
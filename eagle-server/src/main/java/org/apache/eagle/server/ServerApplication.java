@@ -38,6 +38,8 @@ import org.apache.eagle.log.base.taggedlog.EntityJsonModule;
 import org.apache.eagle.log.base.taggedlog.TaggedLogAPIEntity;
 import org.apache.eagle.log.entity.repo.EntityRepositoryScanner;
 import org.apache.eagle.metadata.service.ApplicationStatusUpdateService;
+import org.apache.eagle.query.aggregate.rollup.MetricRollupConfig;
+import org.apache.eagle.query.aggregate.rollup.MetricRollupService;
 import org.apache.eagle.server.security.BasicAuthBuilder;
 import org.apache.eagle.server.security.BasicAuthResourceFilterFactory;
 import org.apache.eagle.server.task.ManagedService;
@@ -151,6 +153,13 @@ public class ServerApplication extends Application<ServerConfig> {
             environment.lifecycle().manage(new ManagedService(applicationHealthCheckService));
         }
 
+        // Roll up generic metrics into hourly and daily tiers in background.
+        MetricRollupConfig metricRollupConfig = MetricRollupConfig.fromConfig(config);
+        if (metricRollupConfig.isEnabled()) {
+            LOG.debug("Registering MetricRollupService");
+            environment.lifecycle().manage(new ManagedService(new MetricRollupService(metricRollupConfig)));
+        }
+
         // Load application shared extension services.
         LOG.debug("Registering application shared extension services");
         for (ApplicationProvider<?> applicationProvider : applicationProviderService.getProviders()) {
@@ -38,6 +38,8 @@ public class TopologyCheckAppConfig implements Serializable {
     public static final String SINK_BOLT_NAME = "sinkBolt";
 
     private static final int MAX_NUM_THREADS = 10;
+    private static final int ENDPOINT_FAILURE_THRESHOLD = 3;
+    private static final long ENDPOINT_RETRY_INTERVAL_SECS = 300;
     private static final String HBASE_ZOOKEEPER_CLIENT_PORT = "2181";
 
     private static final Logger LOG = LoggerFactory.getLogger(TopologyCheckAppConfig.class);
@@ -77,6 +79,14 @@ public class TopologyCheckAppConfig implements Serializable {
         if (config.hasPath("topology.parseThreadPoolSize")) {
             this.dataExtractorConfig.parseThreadPoolSize = config.getInt("topology.parseThreadPoolSize");
         }
+        this.dataExtractorConfig.endpointFailureThreshold = ENDPOINT_FAILURE_THRESHOLD;
+        if (config.hasPath("topology.endpointFailureThreshold")) {
+            this.dataExtractorConfig.endpointFailureThreshold = config.getInt("topology.endpointFailureThreshold");
+        }
+        this.dataExtractorConfig.endpointRetryIntervalInSecs = ENDPOINT_RETRY_INTERVAL_SECS;
+        if (config.hasPath("topology.endpointRetryIntervalInSecs")) {
+            this.dataExtractorConfig.endpointRetryIntervalInSecs = config.getLong("topology.endpointRetryIntervalInSecs");
+        }
         this.dataExtractorConfig.numDataFetcherSpout = config.getInt("topology.numDataFetcherSpout");
         this.dataExtractorConfig.numEntityPersistBolt = config.getInt("topology.numEntityPersistBolt");
         this.dataExtractorConfig.numKafkaSinkBolt = config.getInt("topology.numOfKafkaSinkBolt");
@@ -133,6 +143,8 @@ public class TopologyCheckAppConfig implements Serializable {
         public int numKafkaSinkBolt;
         public long fetchDataIntervalInSecs;
         public int parseThreadPoolSize;
+        public int endpointFailureThreshold;
+        public long endpointRetryIntervalInSecs;
         public Class<? extends TopologyRackResolver> resolverCls;
     }
 
@@ -26,4 +26,13 @@ public interface TopologyCrawler {
      * @return
      */
     void extract();
+
+    /**
+     * Same as {@link #extract()}, giving up the endpoints which have not responded by the deadline.
+     *
+     * @param deadline time in milliseconds by which the result should be emitted
+     */
+    default void extract(long deadline) {
+        extract();
+    }
 }
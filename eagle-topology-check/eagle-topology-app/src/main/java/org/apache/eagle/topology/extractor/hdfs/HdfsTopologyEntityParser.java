@@ -30,13 +30,24 @@ import org.apache.eagle.topology.utils.*;
 import org.apache.commons.io.FileUtils;
 
 import org.json.JSONArray;
-import org.json.JSONException;
 import org.json.JSONObject;
-import org.json.JSONTokener;
 import org.slf4j.Logger;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -49,6 +60,8 @@ public class HdfsTopologyEntityParser implements TopologyEntityParser {
     private String[] namenodeUrls;
     private String site;
     private TopologyRackResolver rackResolver;
+    private EndpointCircuitBreaker circuitBreaker;
+    private ExecutorService executorService;
 
     private static final String JMX_URL = "/jmx?anonymous=true";
     private static final String JMX_FS_NAME_SYSTEM_BEAN_NAME = "Hadoop:service=NameNode,name=FSNamesystem";
@@ -77,43 +90,110 @@ public class HdfsTopologyEntityParser implements TopologyEntityParser {
     private static final String DATA_NODE_DECOMMISSIONED = "Decommissioned";
     private static final String DATA_NODE_DECOMMISSIONED_STATE = "decommissioned";
 
+    private static final Map<String, Set<String>> FS_NAME_SYSTEM_PROJECTION = Collections.singletonMap(JMX_FS_NAME_SYSTEM_BEAN_NAME,
+        new HashSet<>(Arrays.asList(HA_STATE, HA_NAME, CAPACITY_TOTAL_GB, CAPACITY_USED_GB, BLOCKS_TOTAL)));
+    private static final Map<String, Set<String>> NAMENODE_INFO_PROJECTION = Collections.singletonMap(JMX_NAMENODE_INFO,
+        new HashSet<>(Arrays.asList(LIVE_NODES, DEAD_NODES, JN_STATUS, JN_TRANSACTION_INFO, NAME_NODE_VERSION)));
+    private static final Set<String> DEAD_NODE_FIELDS = Collections.singleton(DATA_NODE_DECOMMISSIONED_STATE);
+    private static final Set<String> LIVE_NODE_FIELDS = new HashSet<>(Arrays.asList(DATA_NODE_CAPACITY, DATA_NODE_USED_SPACE,
+        DATA_NODE_NUM_BLOCKS, DATA_NODE_FAILED_VOLUMN, DATA_NODE_ADMIN_STATE, DATA_NODE_VERSION));
+
     private static final String STATUS_PATTERN = "([\\d\\.]+):\\d+\\s+\\([\\D]+(\\d+)\\)";
     private static final String QJM_PATTERN = "([\\d\\.]+):\\d+";
 
     public HdfsTopologyEntityParser(String site, TopologyCheckAppConfig.HdfsConfig hdfsConfig, TopologyRackResolver rackResolver) {
+        this(site, hdfsConfig, rackResolver, new EndpointCircuitBreaker(Integer.MAX_VALUE, 0));
+    }
+
+    public HdfsTopologyEntityParser(String site, TopologyCheckAppConfig.HdfsConfig hdfsConfig, TopologyRackResolver rackResolver,
+                                    EndpointCircuitBreaker circuitBreaker) {
         this.namenodeUrls = hdfsConfig.namenodeUrls;
         this.site = site;
         this.rackResolver = rackResolver;
+        this.circuitBreaker = circuitBreaker;
+        this.executorService = Executors.newFixedThreadPool(namenodeUrls.length, runnable -> {
+            Thread thread = new Thread(runnable, "hdfs-topology-fetcher");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     @Override
     public TopologyEntityParserResult parse(long timestamp) {
+        return parse(timestamp, Long.MAX_VALUE);
+    }
+
+    /**
+     * Namenodes are fetched concurrently, a namenode failing to respond neither delays the others nor drops their results.
+     * Namenodes which have not responded by the deadline, or when parsing is interrupted, are given up and count as failures.
+     */
+    public TopologyEntityParserResult parse(long timestamp, long deadline) {
         final TopologyEntityParserResult result = new TopologyEntityParserResult();
         int inActiveHosts = 0;
+        List<String> urls = new ArrayList<>();
+        List<Future<TopologyEntityParserResult>> futures = new ArrayList<>();
         for (String url : namenodeUrls) {
+            if (!circuitBreaker.allowRequest(url)) {
+                inActiveHosts++;
+                LOG.warn("skip namenode {} which keeps failing", url);
+                continue;
+            }
+            urls.add(url);
+            futures.add(executorService.submit(() -> parseNamenode(url, timestamp)));
+        }
+        boolean interrupted = false;
+        for (int i = 0; i < futures.size(); i++) {
+            String url = urls.get(i);
+            Future<TopologyEntityParserResult> future = futures.get(i);
             try {
-                final HdfsServiceTopologyAPIEntity namenodeEntity = createNamenodeEntity(url, timestamp);
-                if (namenodeEntity.getStatus().equalsIgnoreCase(NAME_NODE_ACTIVE_STATUS)) {
-                    String namenodeVersion = createSlaveNodeEntities(url, timestamp, result);
-                    namenodeEntity.setVersion(namenodeVersion);
+                // once interrupted, only the namenodes which have already responded are kept
+                long remaining = interrupted ? 0 : Math.max(deadline - System.currentTimeMillis(), 0);
+                TopologyEntityParserResult namenodeResult = future.get(remaining, TimeUnit.MILLISECONDS);
+                circuitBreaker.recordSuccess(url);
+                result.getMasterNodes().addAll(namenodeResult.getMasterNodes());
+                result.getSlaveNodes().addAll(namenodeResult.getSlaveNodes());
+                result.getMetrics().addAll(namenodeResult.getMetrics());
+            } catch (TimeoutException | InterruptedException e) {
+                if (e instanceof InterruptedException) {
+                    LOG.warn("parsing is interrupted, keep the namenodes which have responded");
+                    interrupted = true;
                 }
-                result.getMasterNodes().add(namenodeEntity);
-            } catch (ServiceNotResponseException e) {
+                future.cancel(true);
                 inActiveHosts++;
-                LOG.error(e.getMessage(), e);
-            } catch (Exception ex) {
-                LOG.error("fail to parse url {} due to {}, and will cancel this parsing", url, ex.getMessage(), ex);
-                result.getSlaveNodes().clear();
+                circuitBreaker.recordFailure(url);
+                LOG.error("namenode {} did not respond in time", url);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof ServiceNotResponseException) {
+                    inActiveHosts++;
+                    circuitBreaker.recordFailure(url);
+                    LOG.error(e.getCause().getMessage(), e.getCause());
+                } else {
+                    LOG.error("fail to parse url {} due to {}, and will cancel this parsing", url, e.getCause().getMessage(), e.getCause());
+                }
             }
         }
         double value = (namenodeUrls.length - inActiveHosts) * 1d / namenodeUrls.length;
         result.getMetrics().add(EntityBuilderHelper.generateMetric(TopologyConstants.NAME_NODE_ROLE, value, site, timestamp));
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return result;
+    }
+
+    private TopologyEntityParserResult parseNamenode(String url, long timestamp) throws IOException {
+        final TopologyEntityParserResult result = new TopologyEntityParserResult();
+        final HdfsServiceTopologyAPIEntity namenodeEntity = createNamenodeEntity(url, timestamp);
+        if (namenodeEntity.getStatus().equalsIgnoreCase(NAME_NODE_ACTIVE_STATUS)) {
+            String namenodeVersion = createSlaveNodeEntities(url, timestamp, result);
+            namenodeEntity.setVersion(namenodeVersion);
+        }
+        result.getMasterNodes().add(namenodeEntity);
         return result;
     }
 
     private HdfsServiceTopologyAPIEntity createNamenodeEntity(String url, long updateTime) throws ServiceNotResponseException {
         final String urlString = buildFSNamesystemURL(url);
-        final Map<String, JMXBean> jmxBeanMap = JMXQueryHelper.query(urlString);
+        final Map<String, JMXBean> jmxBeanMap = JMXQueryHelper.query(urlString, FS_NAME_SYSTEM_PROJECTION);
         final JMXBean bean = jmxBeanMap.get(JMX_FS_NAME_SYSTEM_BEAN_NAME);
 
         if (bean == null || bean.getPropertyMap() == null) {
@@ -137,9 +217,9 @@ public class HdfsTopologyEntityParser implements TopologyEntityParser {
 
     }
 
-    private String createSlaveNodeEntities(String url, long updateTime, TopologyEntityParserResult result) throws ServiceNotResponseException {
+    private String createSlaveNodeEntities(String url, long updateTime, TopologyEntityParserResult result) throws IOException {
         final String urlString = buildNamenodeInfo(url);
-        final Map<String, JMXBean> jmxBeanMap = JMXQueryHelper.query(urlString);
+        final Map<String, JMXBean> jmxBeanMap = JMXQueryHelper.query(urlString, NAMENODE_INFO_PROJECTION);
         final JMXBean bean = jmxBeanMap.get(JMX_NAMENODE_INFO);
         if (bean == null || bean.getPropertyMap() == null) {
             throw new ServiceNotResponseException("Invalid JMX format, NameNodeInfo bean is null!");
@@ -196,39 +276,28 @@ public class HdfsTopologyEntityParser implements TopologyEntityParser {
         result.getMetrics().add(EntityBuilderHelper.generateMetric(TopologyConstants.JOURNAL_NODE_ROLE, value, site, updateTime));
     }
 
-    private void createAllDataNodeEntities(JMXBean bean, long updateTime, TopologyEntityParserResult result) throws JSONException {
-        int numLiveNodes = 0;
-        int numLiveDecommNodes = 0;
-        int numDeadNodes = 0;
-        int numDeadDecommNodes = 0;
+    private void createAllDataNodeEntities(JMXBean bean, long updateTime, TopologyEntityParserResult result) throws IOException {
+        final int[] numLiveNodes = {0};
+        final int[] numLiveDecommNodes = {0};
+        final int[] numDeadNodes = {0};
+        final int[] numDeadDecommNodes = {0};
 
         String deadNodesStrings = (String) bean.getPropertyMap().get(DEAD_NODES);
-        JSONTokener tokener = new JSONTokener(deadNodesStrings);
-        JSONObject jsonNodesObject = new JSONObject(tokener);
-        final JSONArray deadNodes = jsonNodesObject.names();
-        for (int i = 0; deadNodes != null && i < deadNodes.length(); ++i) {
-            final String hostname = deadNodes.getString(i);
-            final JSONObject deadNode = jsonNodesObject.getJSONObject(hostname);
+        JMXQueryHelper.parseNodes(deadNodesStrings, DEAD_NODE_FIELDS, (hostname, deadNode) -> {
             HdfsServiceTopologyAPIEntity entity = createHdfsServiceEntity(TopologyConstants.DATA_NODE_ROLE, EntityBuilderHelper.getValidHostName(hostname), updateTime);
-            if (deadNode.getBoolean(DATA_NODE_DECOMMISSIONED_STATE)) {
-                ++numDeadDecommNodes;
+            if (Boolean.TRUE.equals(deadNode.get(DATA_NODE_DECOMMISSIONED_STATE))) {
+                ++numDeadDecommNodes[0];
                 entity.setStatus(TopologyConstants.DATA_NODE_DEAD_DECOMMISSIONED_STATUS);
             } else {
                 entity.setStatus(TopologyConstants.DATA_NODE_DEAD_STATUS);
             }
-            ++numDeadNodes;
+            ++numDeadNodes[0];
             result.getSlaveNodes().add(entity);
-        }
-        LOG.info("Dead nodes " + numDeadNodes + ", dead but decommissioned nodes: " + numDeadDecommNodes);
+        });
+        LOG.info("Dead nodes " + numDeadNodes[0] + ", dead but decommissioned nodes: " + numDeadDecommNodes[0]);
 
         String liveNodesStrings = (String) bean.getPropertyMap().get(LIVE_NODES);
-        tokener = new JSONTokener(liveNodesStrings);
-        jsonNodesObject = new JSONObject(tokener);
-        final JSONArray liveNodes = jsonNodesObject.names();
-        for (int i = 0; liveNodes != null && i < liveNodes.length(); ++i) {
-            final String hostname = liveNodes.getString(i);
-            final JSONObject liveNode = jsonNodesObject.getJSONObject(hostname);
-
+        JMXQueryHelper.parseNodes(liveNodesStrings, LIVE_NODE_FIELDS, (hostname, liveNode) -> {
             HdfsServiceTopologyAPIEntity entity = createHdfsServiceEntity(TopologyConstants.DATA_NODE_ROLE, EntityBuilderHelper.getValidHostName(hostname), updateTime);
             final Number configuredCapacity = (Number) liveNode.get(DATA_NODE_CAPACITY);
             entity.setConfiguredCapacityTB(Double.toString(configuredCapacity.doubleValue() / FileUtils.ONE_TB));
@@ -236,24 +305,24 @@ public class HdfsTopologyEntityParser implements TopologyEntityParser {
             entity.setUsedCapacityTB(Double.toString(capacityUsed.doubleValue() / FileUtils.ONE_TB));
             final Number blocksTotal = (Number) liveNode.get(DATA_NODE_NUM_BLOCKS);
             entity.setNumBlocks(Double.toString(blocksTotal.doubleValue()));
-            if (liveNode.has(DATA_NODE_FAILED_VOLUMN)) {
+            if (liveNode.containsKey(DATA_NODE_FAILED_VOLUMN)) {
                 final Number volFails = (Number) liveNode.get(DATA_NODE_FAILED_VOLUMN);
                 entity.setNumFailedVolumes(Double.toString(volFails.doubleValue()));
             }
-            final String adminState = liveNode.getString(DATA_NODE_ADMIN_STATE);
+            final String adminState = (String) liveNode.get(DATA_NODE_ADMIN_STATE);
             if (DATA_NODE_DECOMMISSIONED.equalsIgnoreCase(adminState)) {
-                ++numLiveDecommNodes;
+                ++numLiveDecommNodes[0];
                 entity.setStatus(TopologyConstants.DATA_NODE_LIVE_DECOMMISSIONED_STATUS);
             } else {
                 entity.setStatus(TopologyConstants.DATA_NODE_LIVE_STATUS);
             }
             entity.setVersion(String.valueOf(liveNode.get(DATA_NODE_VERSION)));
-            numLiveNodes++;
+            numLiveNodes[0]++;
             result.getSlaveNodes().add(entity);
-        }
-        LOG.info("Live nodes " + numLiveNodes + ", live but decommissioned nodes: " + numLiveDecommNodes);
+        });
+        LOG.info("Live nodes " + numLiveNodes[0] + ", live but decommissioned nodes: " + numLiveDecommNodes[0]);
 
-        double value = numLiveNodes * 1.0d / result.getSlaveNodes().size();
+        double value = numLiveNodes[0] * 1.0d / result.getSlaveNodes().size();
         result.getMetrics().add(EntityBuilderHelper.generateMetric(TopologyConstants.DATA_NODE_ROLE, value, site, updateTime));
     }
 
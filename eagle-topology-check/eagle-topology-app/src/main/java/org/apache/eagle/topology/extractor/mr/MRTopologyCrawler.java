@@ -26,6 +26,7 @@ import org.apache.eagle.topology.TopologyConstants;
 import org.apache.eagle.topology.extractor.TopologyEntityParserResult;
 import org.apache.eagle.topology.extractor.TopologyCrawler;
 import org.apache.eagle.topology.resolver.TopologyRackResolver;
+import org.apache.eagle.topology.utils.EndpointCircuitBreaker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -37,14 +38,20 @@ public class MRTopologyCrawler implements TopologyCrawler {
     private SpoutOutputCollector outputCollector;
 
     public MRTopologyCrawler(TopologyCheckAppConfig config, TopologyRackResolver rackResolver, SpoutOutputCollector collector) {
-        this.parser = new MRTopologyEntityParser(config.dataExtractorConfig.site, config.mrConfig, rackResolver);
+        this.parser = new MRTopologyEntityParser(config.dataExtractorConfig.site, config.mrConfig, rackResolver,
+            EndpointCircuitBreaker.newInstance(config.dataExtractorConfig));
         this.outputCollector = collector;
     }
 
     @Override
     public void extract() {
+        extract(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void extract(long deadline) {
         long updateTimestamp = System.currentTimeMillis();
-        TopologyEntityParserResult result = parser.parse(updateTimestamp);
+        TopologyEntityParserResult result = parser.parse(updateTimestamp, deadline);
         if (result == null || result.getMetrics().isEmpty()) {
             LOG.warn("No data fetched");
             return;
@@ -27,6 +27,7 @@ import org.apache.eagle.topology.extractor.TopologyEntityParserResult;
 import org.apache.eagle.topology.entity.MRServiceTopologyAPIEntity;
 import org.apache.eagle.topology.extractor.TopologyEntityParser;
 import org.apache.eagle.topology.resolver.TopologyRackResolver;
+import org.apache.eagle.topology.utils.EndpointCircuitBreaker;
 import org.apache.eagle.topology.utils.EntityBuilderHelper;
 import org.apache.eagle.app.utils.connection.ServiceNotResponseException;
 import org.apache.eagle.app.utils.connection.URLResourceFetcher;
@@ -38,6 +39,12 @@ import java.io.InputStream;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.regex.Matcher;
 
 import static org.apache.eagle.topology.TopologyConstants.*;
@@ -50,6 +57,8 @@ public class MRTopologyEntityParser implements TopologyEntityParser {
     private String historyServerUrl;
     private String site;
     private TopologyRackResolver rackResolver;
+    private EndpointCircuitBreaker circuitBreaker;
+    private ExecutorService executorService;
 
     private static final String YARN_NODES_URL = "/ws/v1/cluster/nodes?anonymous=true";
     private static final String YARN_HISTORY_SERVER_URL = "/ws/v1/history/info";
@@ -62,10 +71,21 @@ public class MRTopologyEntityParser implements TopologyEntityParser {
     }
 
     public MRTopologyEntityParser(String site, TopologyCheckAppConfig.MRConfig config, TopologyRackResolver rackResolver) {
+        this(site, config, rackResolver, new EndpointCircuitBreaker(Integer.MAX_VALUE, 0));
+    }
+
+    public MRTopologyEntityParser(String site, TopologyCheckAppConfig.MRConfig config, TopologyRackResolver rackResolver,
+                                  EndpointCircuitBreaker circuitBreaker) {
         this.site = site;
         this.rmUrls = config.rmUrls;
         this.historyServerUrl = config.historyServerUrl;
         this.rackResolver = rackResolver;
+        this.circuitBreaker = circuitBreaker;
+        this.executorService = Executors.newFixedThreadPool(rmUrls.length + 1, runnable -> {
+            Thread thread = new Thread(runnable, "mr-topology-fetcher");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     @Override
@@ -80,17 +100,41 @@ public class MRTopologyEntityParser implements TopologyEntityParser {
 
     @Override
     public TopologyEntityParserResult parse(long timestamp) {
+        return parse(timestamp, Long.MAX_VALUE);
+    }
+
+    /**
+     * Resource managers and history server are requested concurrently, the node list is parsed from the first
+     * resource manager which responds. Endpoints which have not responded by the deadline, or when parsing is
+     * interrupted, are given up and count as failures.
+     */
+    public TopologyEntityParserResult parse(long timestamp, long deadline) {
         final TopologyEntityParserResult result = new TopologyEntityParserResult();
 
+        Map<String, Future<InputStream>> rmStreams = new HashMap<>();
+        for (String url : rmUrls) {
+            if (circuitBreaker.allowRequest(url)) {
+                Future<InputStream> future = executorService.submit(() -> URLResourceFetcher.openURLStream(PathResolverHelper.buildUrlPath(url, YARN_NODES_URL)));
+                rmStreams.put(url, future);
+            }
+        }
+        Future<Double> historyServer = null;
+        if (historyServerUrl != null && !historyServerUrl.isEmpty()) {
+            historyServer = executorService.submit(this::doCheckHistoryServer);
+        }
+
         String rmStatus;
         int inActiveHosts = 0;
         boolean isSuccess = false;
+        boolean interrupted = false;
         for (String url : rmUrls) {
             MRServiceTopologyAPIEntity resourceManagerEntity = createEntity(TopologyConstants.RESOURCE_MANAGER_ROLE,
                     extractMasterHost(url), timestamp);
             rmStatus = RESOURCE_MANAGER_ACTIVE_STATUS;
+            InputStream is = null;
             try {
-                InputStream is = URLResourceFetcher.openURLStream(PathResolverHelper.buildUrlPath(url, YARN_NODES_URL));
+                // once interrupted, only the resource managers which have already responded are kept
+                is = getStream(url, rmStreams.get(url), interrupted ? 0 : deadline);
                 if (!isSuccess) {
                     isSuccess = doParse(timestamp, is, result);
                 }
@@ -98,9 +142,16 @@ public class MRTopologyEntityParser implements TopologyEntityParser {
                 inActiveHosts++;
                 LOGGER.warn(e.getMessage(), e);
                 rmStatus = RESOURCE_MANAGER_INACTIVE_STATUS;
+            } catch (InterruptedException e) {
+                LOGGER.warn("parsing is interrupted, keep the endpoints which have responded");
+                interrupted = true;
+                inActiveHosts++;
+                rmStatus = RESOURCE_MANAGER_INACTIVE_STATUS;
             } catch (Exception ex) {
                 LOGGER.error("fail to parse url {} due to {}, and will cancel this parsing", url, ex.getMessage(), ex);
                 result.getSlaveNodes().clear();
+            } finally {
+                URLResourceFetcher.closeInputStream(is);
             }
             resourceManagerEntity.setStatus(rmStatus);
             result.getMasterNodes().add(resourceManagerEntity);
@@ -108,26 +159,76 @@ public class MRTopologyEntityParser implements TopologyEntityParser {
         double value = (rmUrls.length - inActiveHosts) * 1.0 / rmUrls.length;
         result.getMetrics().add(EntityBuilderHelper.generateMetric(TopologyConstants.RESOURCE_MANAGER_ROLE, value, site, timestamp));
 
-        doCheckHistoryServer(timestamp, result);
+        if (historyServer != null) {
+            double activeHosts = 0;
+            try {
+                long remaining = interrupted ? 0 : Math.max(deadline - System.currentTimeMillis(), 0);
+                activeHosts = historyServer.get(remaining, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException | InterruptedException e) {
+                if (e instanceof InterruptedException) {
+                    interrupted = true;
+                }
+                historyServer.cancel(true);
+                circuitBreaker.recordFailure(buildHistoryServerUrl());
+                LOGGER.error("history server {} did not respond in time", historyServerUrl);
+            } catch (ExecutionException e) {
+                LOGGER.error(e.getMessage(), e);
+            }
+            result.getMetrics().add(EntityBuilderHelper.generateMetric(TopologyConstants.HISTORY_SERVER_ROLE, activeHosts, site, timestamp));
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
         return result;
     }
 
-    private void doCheckHistoryServer(long updateTime, TopologyEntityParserResult result) {
-        if (historyServerUrl == null || historyServerUrl.isEmpty()) {
-            return;
+    private InputStream getStream(String url, Future<InputStream> future, long deadline) throws IOException, InterruptedException {
+        if (future == null) {
+            throw new ServiceNotResponseException(String.format("skip %s which keeps failing", url));
+        }
+        try {
+            InputStream is = future.get(Math.max(deadline - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS);
+            circuitBreaker.recordSuccess(url);
+            return is;
+        } catch (ExecutionException e) {
+            circuitBreaker.recordFailure(url);
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new ServiceNotResponseException(e.getCause());
+        } catch (TimeoutException | InterruptedException e) {
+            future.cancel(true);
+            circuitBreaker.recordFailure(url);
+            if (e instanceof InterruptedException) {
+                throw (InterruptedException) e;
+            }
+            throw new ServiceNotResponseException(String.format("%s did not respond in time", url));
+        }
+    }
+
+    private String buildHistoryServerUrl() {
+        return PathResolverHelper.buildUrlPath(historyServerUrl, YARN_HISTORY_SERVER_URL);
+    }
+
+    private double doCheckHistoryServer() {
+        String url = buildHistoryServerUrl();
+        if (!circuitBreaker.allowRequest(url)) {
+            LOGGER.warn("skip {} which keeps failing", url);
+            return 0;
         }
-        String url = PathResolverHelper.buildUrlPath(historyServerUrl, YARN_HISTORY_SERVER_URL);
         double activeHosts = 0;
         InputStream is = null;
         try {
             is = URLResourceFetcher.openURLStream(url);
             activeHosts++;
+            circuitBreaker.recordSuccess(url);
         } catch (ServiceNotResponseException e) {
+            circuitBreaker.recordFailure(url);
             LOGGER.error(e.getMessage(), e);
         } finally {
             URLResourceFetcher.closeInputStream(is);
         }
-        result.getMetrics().add(EntityBuilderHelper.generateMetric(TopologyConstants.HISTORY_SERVER_ROLE, activeHosts, site, updateTime));
+        return activeHosts;
     }
 
     private boolean doParse(long timestamp, InputStream is, TopologyEntityParserResult result) throws IOException {
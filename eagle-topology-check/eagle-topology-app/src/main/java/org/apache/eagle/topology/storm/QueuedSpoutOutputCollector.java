@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.apache.eagle.topology.storm;
+
+import backtype.storm.spout.ISpoutOutputCollector;
+import backtype.storm.spout.SpoutOutputCollector;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Buffer tuples emitted by crawler threads, which are drained and emitted on the spout thread
+ * as SpoutOutputCollector is not thread safe.
+ */
+public class QueuedSpoutOutputCollector implements ISpoutOutputCollector {
+
+    private static final int NOT_DIRECT = -1;
+
+    private final Queue<PendingTuple> pendingTuples = new ConcurrentLinkedQueue<>();
+    private final SpoutOutputCollector delegate;
+
+    public QueuedSpoutOutputCollector(SpoutOutputCollector delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public List<Integer> emit(String streamId, List<Object> tuple, Object messageId) {
+        pendingTuples.add(new PendingTuple(NOT_DIRECT, streamId, tuple, messageId));
+        return Collections.emptyList();
+    }
+
+    @Override
+    public void emitDirect(int taskId, String streamId, List<Object> tuple, Object messageId) {
+        pendingTuples.add(new PendingTuple(taskId, streamId, tuple, messageId));
+    }
+
+    @Override
+    public void reportError(Throwable error) {
+        delegate.reportError(error);
+    }
+
+    /**
+     * Emit buffered tuples, must be called on the spout thread.
+     *
+     * @return number of tuples emitted
+     */
+    public int drain() {
+        int count = 0;
+        PendingTuple pending;
+        while ((pending = pendingTuples.poll()) != null) {
+            if (pending.taskId == NOT_DIRECT) {
+                delegate.emit(pending.streamId, pending.tuple, pending.messageId);
+            } else {
+                delegate.emitDirect(pending.taskId, pending.streamId, pending.tuple, pending.messageId);
+            }
+            count++;
+        }
+        return count;
+    }
+
+    private static class PendingTuple {
+        private final int taskId;
+        private final String streamId;
+        private final List<Object> tuple;
+        private final Object messageId;
+
+        PendingTuple(int taskId, String streamId, List<Object> tuple, Object messageId) {
+            this.taskId = taskId;
+            this.streamId = streamId;
+            this.tuple = tuple;
+            this.messageId = messageId;
+        }
+    }
+}
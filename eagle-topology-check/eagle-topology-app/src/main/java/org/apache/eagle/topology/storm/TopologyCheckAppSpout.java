@@ -68,6 +68,7 @@ public class TopologyCheckAppSpout extends BaseRichSpout {
             this.extractor.crawl();
             lastFetchTime = currentTime;
         }
+        this.extractor.emitPending();
     }
 
     @Override
@@ -36,35 +36,66 @@ import java.util.concurrent.*;
 
 import static org.apache.eagle.topology.TopologyConstants.*;
 
+/**
+ * Run all crawlers concurrently once per cycle without blocking the spout thread.
+ * Results are emitted incrementally from {@link #emitPending()} as each crawler finishes.
+ * Crawlers give up the endpoints which have not responded by the cycle deadline and emit what they have,
+ * those still running a grace period after it are cancelled.
+ */
 public class TopologyDataExtractor {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(TopologyDataExtractor.class);
     private static final int MIN_WAIT_TIME_SECS = 60;
     private static final double FETCH_TIMEOUT_FACTOR = 0.8;
+    private static final long CANCEL_GRACE_MS = 10000;
 
     private TopologyCheckAppConfig config;
     private List<TopologyCrawler> extractors;
     private ExecutorService executorService;
+    private QueuedSpoutOutputCollector queuedCollector;
+    private List<Future<?>> runningFutures = new ArrayList<>();
+    private long cycleDeadline;
 
     public TopologyDataExtractor(TopologyCheckAppConfig topologyCheckAppConfig, SpoutOutputCollector collector) {
         this.config = topologyCheckAppConfig;
-        extractors = getExtractors(collector);
+        this.queuedCollector = new QueuedSpoutOutputCollector(collector);
+        extractors = getExtractors(new SpoutOutputCollector(queuedCollector));
         executorService = Executors.newFixedThreadPool(topologyCheckAppConfig.dataExtractorConfig.parseThreadPoolSize);
     }
 
+    /**
+     * Start a new crawl cycle, the previous cycle is cancelled if it is still running.
+     */
     public void crawl() {
-        List<Future<?>> futures = new ArrayList<>();
+        cancelRunning();
+        long fetchTimeoutSecs = (long) Math.max(config.dataExtractorConfig.fetchDataIntervalInSecs * FETCH_TIMEOUT_FACTOR, MIN_WAIT_TIME_SECS);
+        cycleDeadline = System.currentTimeMillis() + fetchTimeoutSecs * 1000;
         for (TopologyCrawler topologyExtractor : extractors) {
-            futures.add(executorService.submit(new DataFetchRunnableWrapper(topologyExtractor)));
+            runningFutures.add(executorService.submit(new DataFetchRunnableWrapper(topologyExtractor, cycleDeadline)));
         }
-        long fetchTimeoutSecs = (long) Math.max(config.dataExtractorConfig.fetchDataIntervalInSecs * FETCH_TIMEOUT_FACTOR, MIN_WAIT_TIME_SECS);
-        futures.forEach(future -> {
-            try {
-                future.get(fetchTimeoutSecs, TimeUnit.SECONDS);
-            } catch (InterruptedException | ExecutionException | TimeoutException e) {
-                LOGGER.error("Caught an overtime exception with message" + e.getMessage(), e);
+    }
+
+    /**
+     * Emit the results of finished crawlers and cancel the cycle if it runs well over the deadline.
+     * Must be called on the spout thread.
+     */
+    public void emitPending() {
+        queuedCollector.drain();
+        if (!runningFutures.isEmpty()) {
+            runningFutures.removeIf(Future::isDone);
+            if (!runningFutures.isEmpty() && System.currentTimeMillis() > cycleDeadline + CANCEL_GRACE_MS) {
+                cancelRunning();
             }
-        });
+        }
+    }
+
+    private void cancelRunning() {
+        runningFutures.removeIf(Future::isDone);
+        if (!runningFutures.isEmpty()) {
+            LOGGER.error("{} crawlers are still running after deadline, cancel them", runningFutures.size());
+            runningFutures.forEach(future -> future.cancel(true));
+            runningFutures.clear();
+        }
     }
 
     private List<TopologyCrawler> getExtractors(SpoutOutputCollector collector) {
@@ -91,14 +122,20 @@ public class TopologyDataExtractor {
     private static class DataFetchRunnableWrapper implements Runnable {
 
         private TopologyCrawler topologyExtractor;
+        private long deadline;
 
-        public DataFetchRunnableWrapper(TopologyCrawler topologyExtractor) {
+        public DataFetchRunnableWrapper(TopologyCrawler topologyExtractor, long deadline) {
             this.topologyExtractor = topologyExtractor;
+            this.deadline = deadline;
         }
 
         @Override
         public void run() {
-            topologyExtractor.extract();
+            try {
+                topologyExtractor.extract(deadline);
+            } catch (Exception e) {
+                LOGGER.error("fail to crawl by {}: {}", topologyExtractor.getClass().getSimpleName(), e.getMessage(), e);
+            }
         }
     }
 
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.apache.eagle.topology.utils;
+
+import org.apache.eagle.topology.TopologyCheckAppConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Skip endpoints which keep failing.
+ * After failureThreshold consecutive failures an endpoint is skipped, and only one attempt is allowed every
+ * retryIntervalMs until it succeeds again.
+ */
+public class EndpointCircuitBreaker implements Serializable {
+    private static final Logger LOG = LoggerFactory.getLogger(EndpointCircuitBreaker.class);
+
+    private final int failureThreshold;
+    private final long retryIntervalMs;
+    private final Map<String, EndpointState> states = new ConcurrentHashMap<>();
+
+    public EndpointCircuitBreaker(int failureThreshold, long retryIntervalMs) {
+        this.failureThreshold = failureThreshold;
+        this.retryIntervalMs = retryIntervalMs;
+    }
+
+    public static EndpointCircuitBreaker newInstance(TopologyCheckAppConfig.DataExtractorConfig config) {
+        return new EndpointCircuitBreaker(config.endpointFailureThreshold, config.endpointRetryIntervalInSecs * 1000);
+    }
+
+    /**
+     * @return false if the endpoint should be skipped in this round.
+     */
+    public boolean allowRequest(String endpoint) {
+        EndpointState state = states.get(endpoint);
+        if (state == null) {
+            return true;
+        }
+        synchronized (state) {
+            if (state.consecutiveFailures < failureThreshold) {
+                return true;
+            }
+            long now = currentTimeMillis();
+            if (now - state.lastAttemptTime >= retryIntervalMs) {
+                state.lastAttemptTime = now;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    public void recordSuccess(String endpoint) {
+        if (states.remove(endpoint) != null) {
+            LOG.info("endpoint {} recovered", endpoint);
+        }
+    }
+
+    public void recordFailure(String endpoint) {
+        EndpointState state = states.computeIfAbsent(endpoint, key -> new EndpointState());
+        synchronized (state) {
+            state.consecutiveFailures++;
+            state.lastAttemptTime = currentTimeMillis();
+            if (state.consecutiveFailures == failureThreshold) {
+                LOG.warn("endpoint {} failed {} times in a row, will be retried every {} ms", endpoint, failureThreshold, retryIntervalMs);
+            }
+        }
+    }
+
+    protected long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    private static class EndpointState implements Serializable {
+        private int consecutiveFailures;
+        private long lastAttemptTime;
+    }
+}
@@ -18,33 +18,44 @@
 
 package org.apache.eagle.topology.utils;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.eagle.app.utils.connection.ServiceNotResponseException;
-import org.apache.eagle.app.utils.connection.URLConnectionUtils;
-
 import org.apache.eagle.app.utils.connection.URLResourceFetcher;
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
-import org.json.JSONTokener;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.URLConnection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
 
 /**
  * Helper class to query Hadoop JMX servlets.
+ *
+ * <p>Responses are parsed as a stream, only the projected beans and attributes are materialized.</p>
  */
 public final class JMXQueryHelper {
 
+    private static final String BEANS = "beans";
+    private static final String NAME = "name";
+    private static final ObjectMapper OBJ_MAPPER = new ObjectMapper();
+
     public static Map<String, JMXBean> query(String jmxQueryUrl) throws ServiceNotResponseException {
+        return query(jmxQueryUrl, null);
+    }
+
+    /**
+     * @param projection bean name to its attributes to extract, an empty attribute set means all attributes of the bean,
+     *                   null means all attributes of all beans.
+     */
+    public static Map<String, JMXBean> query(String jmxQueryUrl, Map<String, Set<String>> projection) throws ServiceNotResponseException {
         InputStream is = null;
         try {
             is = URLResourceFetcher.openURLStream(jmxQueryUrl);
-            return parseStream(is);
+            return parseStream(is, projection);
         } catch (Exception e) {
             throw new ServiceNotResponseException(e);
         } finally {
@@ -52,28 +63,138 @@ public final class JMXQueryHelper {
         }
     }
 
-    private static Map<String, JMXBean> parseStream(InputStream is) {
+    public static Map<String, JMXBean> parseStream(InputStream is, Map<String, Set<String>> projection) throws IOException {
         final Map<String, JMXBean> resultMap = new HashMap<String, JMXBean>();
-        final JSONTokener tokener = new JSONTokener(is);
-        final JSONObject jsonBeansObject = new JSONObject(tokener);
-        final JSONArray jsonArray = jsonBeansObject.getJSONArray("beans");
-        int size = jsonArray.length();
-        for (int i = 0; i < size; ++i) {
-            final JSONObject obj = (JSONObject) jsonArray.get(i);
+        final Set<String> bufferedAttributes = bufferedAttributes(projection);
+        try (JsonParser parser = OBJ_MAPPER.getFactory().createParser(is)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Invalid JMX format, expect a json object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if (!BEANS.equals(field) || token != JsonToken.START_ARRAY) {
+                    parser.skipChildren();
+                    continue;
+                }
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    parseBean(parser, projection, bufferedAttributes, resultMap);
+                }
+            }
+        }
+        return resultMap;
+    }
+
+    private static void parseBean(JsonParser parser, Map<String, Set<String>> projection, Set<String> bufferedAttributes,
+                                  Map<String, JMXBean> resultMap) throws IOException {
+        final Map<String, Object> map = new HashMap<String, Object>();
+        String name = null;
+        Set<String> attributes = null;
+        boolean skip = false;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String key = parser.getCurrentName();
+            final JsonToken token = parser.nextToken();
+            if (skip) {
+                parser.skipChildren();
+            } else if (NAME.equals(key)) {
+                name = parser.getText();
+                if (projection != null) {
+                    attributes = projection.get(name);
+                    skip = attributes == null;
+                    if (!skip && !attributes.isEmpty()) {
+                        map.keySet().retainAll(attributes);
+                    }
+                }
+                map.put(NAME, name);
+            } else if (isProjected(key, name, attributes, bufferedAttributes)) {
+                map.put(key, readValue(parser, token));
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (!skip && name != null) {
             final JMXBean bean = new JMXBean();
-            final Map<String, Object> map = new HashMap<String, Object>();
             bean.setPropertyMap(map);
-            final JSONArray names = obj.names();
-            int jsonSize = names.length();
-            for (int j = 0; j < jsonSize; ++j) {
-                final String key = names.getString(j);
-                Object value = obj.get(key);
-                map.put(key, value);
+            resultMap.put(name, bean);
+        }
+    }
+
+    private static boolean isProjected(String key, String name, Set<String> attributes, Set<String> bufferedAttributes) {
+        if (name == null) {
+            // bean name is unknown yet, buffer attributes which may be projected
+            return bufferedAttributes == null || bufferedAttributes.contains(key);
+        }
+        return attributes == null || attributes.isEmpty() || attributes.contains(key);
+    }
+
+    /**
+     * @return attributes of any projected bean, or null if all attributes of some bean are projected.
+     */
+    private static Set<String> bufferedAttributes(Map<String, Set<String>> projection) {
+        if (projection == null) {
+            return null;
+        }
+        Set<String> attributes = new HashSet<>();
+        for (Set<String> beanAttributes : projection.values()) {
+            if (beanAttributes.isEmpty()) {
+                return null;
             }
-            final String nameString = (String) map.get("name");
-            resultMap.put(nameString, bean);
+            attributes.addAll(beanAttributes);
+        }
+        return attributes;
+    }
+
+    /**
+     * Parse a json object of nodes such as NameNodeInfo LiveNodes and DeadNodes incrementally,
+     * the consumer is called with host name and projected fields of each node.
+     */
+    public static void parseNodes(String nodesJson, Set<String> fields, BiConsumer<String, Map<String, Object>> consumer) throws IOException {
+        if (nodesJson == null) {
+            return;
+        }
+        try (JsonParser parser = OBJ_MAPPER.getFactory().createParser(nodesJson)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Invalid nodes format, expect a json object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String hostname = parser.getCurrentName();
+                if (parser.nextToken() != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    continue;
+                }
+                final Map<String, Object> node = new HashMap<String, Object>();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    final String key = parser.getCurrentName();
+                    final JsonToken token = parser.nextToken();
+                    if (fields.contains(key)) {
+                        node.put(key, readValue(parser, token));
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                consumer.accept(hostname, node);
+            }
+        }
+    }
+
+    private static Object readValue(JsonParser parser, JsonToken token) throws IOException {
+        switch (token) {
+            case VALUE_STRING:
+                return parser.getText();
+            case VALUE_NUMBER_INT:
+                return parser.getNumberValue();
+            case VALUE_NUMBER_FLOAT:
+                return parser.getDoubleValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case START_OBJECT:
+            case START_ARRAY:
+                return parser.readValueAs(Object.class);
+            default:
+                return null;
         }
-        return resultMap;
     }
 
 }
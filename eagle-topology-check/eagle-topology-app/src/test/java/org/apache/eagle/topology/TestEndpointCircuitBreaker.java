@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.apache.eagle.topology;
+
+import org.apache.eagle.topology.utils.EndpointCircuitBreaker;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestEndpointCircuitBreaker {
+
+    private long now = 0;
+
+    private EndpointCircuitBreaker newCircuitBreaker() {
+        return new EndpointCircuitBreaker(2, 1000) {
+            @Override
+            protected long currentTimeMillis() {
+                return now;
+            }
+        };
+    }
+
+    @Test
+    public void testOpenAfterConsecutiveFailures() {
+        EndpointCircuitBreaker circuitBreaker = newCircuitBreaker();
+        String url = "http://nn1:50070";
+        Assert.assertTrue(circuitBreaker.allowRequest(url));
+        circuitBreaker.recordFailure(url);
+        Assert.assertTrue(circuitBreaker.allowRequest(url));
+        circuitBreaker.recordFailure(url);
+        Assert.assertFalse(circuitBreaker.allowRequest(url));
+        Assert.assertTrue(circuitBreaker.allowRequest("http://nn2:50070"));
+    }
+
+    @Test
+    public void testRetryAfterInterval() {
+        EndpointCircuitBreaker circuitBreaker = newCircuitBreaker();
+        String url = "http://rm1:8088";
+        circuitBreaker.recordFailure(url);
+        circuitBreaker.recordFailure(url);
+        now = 999;
+        Assert.assertFalse(circuitBreaker.allowRequest(url));
+        now = 1000;
+        Assert.assertTrue(circuitBreaker.allowRequest(url));
+        // only one attempt per interval
+        Assert.assertFalse(circuitBreaker.allowRequest(url));
+        circuitBreaker.recordSuccess(url);
+        Assert.assertTrue(circuitBreaker.allowRequest(url));
+    }
+}
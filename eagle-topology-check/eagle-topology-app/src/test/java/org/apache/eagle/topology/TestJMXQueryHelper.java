@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.apache.eagle.topology;
+
+import org.apache.eagle.topology.utils.JMXBean;
+import org.apache.eagle.topology.utils.JMXQueryHelper;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+public class TestJMXQueryHelper {
+
+    private static final String NAMENODE_INFO = "Hadoop:service=NameNode,name=NameNodeInfo";
+    private static final String FS_NAME_SYSTEM = "Hadoop:service=NameNode,name=FSNamesystem";
+
+    private Map<String, JMXBean> parse(Map<String, Set<String>> projection) throws IOException {
+        try (InputStream is = TestJMXQueryHelper.class.getResourceAsStream("/namenodeinfo.json")) {
+            return JMXQueryHelper.parseStream(is, projection);
+        }
+    }
+
+    @Test
+    public void testParseAll() throws IOException {
+        Map<String, JMXBean> beans = parse(null);
+        Assert.assertEquals(2, beans.size());
+        Assert.assertEquals(56, beans.get(NAMENODE_INFO).getPropertyMap().get("Threads"));
+        Assert.assertEquals(39.0, beans.get(FS_NAME_SYSTEM).getPropertyMap().get("CapacityTotalGB"));
+        Assert.assertEquals("active", beans.get(FS_NAME_SYSTEM).getPropertyMap().get("tag.HAState"));
+    }
+
+    @Test
+    public void testProjection() throws IOException {
+        // name of FSNamesystem bean comes after some of its attributes
+        Map<String, JMXBean> beans = parse(Collections.singletonMap(FS_NAME_SYSTEM, new HashSet<>(Arrays.asList("tag.HAState", "BlocksTotal"))));
+        Assert.assertEquals(1, beans.size());
+        Map<String, Object> properties = beans.get(FS_NAME_SYSTEM).getPropertyMap();
+        Assert.assertEquals("active", properties.get("tag.HAState"));
+        Assert.assertEquals(1042, properties.get("BlocksTotal"));
+        Assert.assertFalse(properties.containsKey("modelerType"));
+        Assert.assertFalse(properties.containsKey("CapacityTotalGB"));
+    }
+
+    @Test
+    public void testParseNodes() throws IOException {
+        Map<String, JMXBean> beans = parse(Collections.singletonMap(NAMENODE_INFO, new HashSet<>(Arrays.asList("LiveNodes", "DeadNodes"))));
+        Map<String, Object> properties = beans.get(NAMENODE_INFO).getPropertyMap();
+
+        Map<String, Map<String, Object>> liveNodes = new HashMap<>();
+        JMXQueryHelper.parseNodes((String) properties.get("LiveNodes"), new HashSet<>(Arrays.asList("capacity", "adminState")), liveNodes::put);
+        Assert.assertEquals(1, liveNodes.size());
+        Map<String, Object> liveNode = liveNodes.get("sandbox.hortonworks.com:50010");
+        Assert.assertEquals(2, liveNode.size());
+        Assert.assertEquals(42241163264L, ((Number) liveNode.get("capacity")).longValue());
+        Assert.assertEquals("In Service", liveNode.get("adminState"));
+
+        Map<String, Map<String, Object>> deadNodes = new HashMap<>();
+        JMXQueryHelper.parseNodes((String) properties.get("DeadNodes"), Collections.singleton("decommissioned"), deadNodes::put);
+        Assert.assertEquals(Boolean.TRUE, deadNodes.get("sandbox2.hortonworks.com:50010").get("decommissioned"));
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.eagle.topology;
+
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.eagle.topology.entity.MRServiceTopologyAPIEntity;
+import org.apache.eagle.topology.extractor.TopologyEntityParserResult;
+import org.apache.eagle.topology.extractor.hdfs.HdfsTopologyEntityParser;
+import org.apache.eagle.topology.extractor.mr.MRTopologyEntityParser;
+import org.apache.eagle.topology.resolver.impl.DefaultTopologyRackResolver;
+import org.apache.eagle.topology.utils.EndpointCircuitBreaker;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+
+public class TestTopologyEntityParserDeadline {
+
+    private static final String STANDBY_NAMENODE_JMX = "{\"beans\":[{\"name\":\"Hadoop:service=NameNode,name=FSNamesystem\","
+        + "\"tag.HAState\":\"standby\",\"tag.Hostname\":\"nn2\",\"CapacityTotalGB\":10.0,\"CapacityUsedGB\":1.0,\"BlocksTotal\":100}]}";
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private HttpServer hangingServer;
+    private HttpServer standbyServer;
+
+    @Before
+    public void setUp() throws Exception {
+        hangingServer = startServer(exchange -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.close();
+        });
+        standbyServer = startServer(exchange -> {
+            byte[] body = STANDBY_NAMENODE_JMX.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        hangingServer.stop(0);
+        standbyServer.stop(0);
+    }
+
+    @Test
+    public void testHangingNamenode() {
+        String hangingUrl = urlOf(hangingServer);
+        String standbyUrl = urlOf(standbyServer);
+        TopologyCheckAppConfig.HdfsConfig config = new TopologyCheckAppConfig.HdfsConfig();
+        config.namenodeUrls = new String[] {hangingUrl, standbyUrl};
+        EndpointCircuitBreaker circuitBreaker = new EndpointCircuitBreaker(1, 60000);
+        HdfsTopologyEntityParser parser = new HdfsTopologyEntityParser("site", config, new DefaultTopologyRackResolver(), circuitBreaker);
+
+        long start = System.currentTimeMillis();
+        TopologyEntityParserResult result = parser.parse(start, start + 1000);
+        Assert.assertTrue(System.currentTimeMillis() - start < 5000);
+
+        Assert.assertEquals(1, result.getMasterNodes().size());
+        Assert.assertEquals(1, result.getMetrics().size());
+        Assert.assertEquals(0.5, result.getMetrics().get(0).getValue()[0], 0.0001);
+        Assert.assertFalse(circuitBreaker.allowRequest(hangingUrl));
+        Assert.assertTrue(circuitBreaker.allowRequest(standbyUrl));
+    }
+
+    @Test
+    public void testHangingResourceManager() {
+        String hangingUrl = urlOf(hangingServer);
+        TopologyCheckAppConfig.MRConfig config = new TopologyCheckAppConfig.MRConfig();
+        config.rmUrls = new String[] {hangingUrl};
+        EndpointCircuitBreaker circuitBreaker = new EndpointCircuitBreaker(1, 60000);
+        MRTopologyEntityParser parser = new MRTopologyEntityParser("site", config, new DefaultTopologyRackResolver(), circuitBreaker);
+
+        long start = System.currentTimeMillis();
+        TopologyEntityParserResult result = parser.parse(start, start + 1000);
+        Assert.assertTrue(System.currentTimeMillis() - start < 5000);
+
+        Assert.assertEquals(1, result.getMasterNodes().size());
+        Assert.assertEquals(TopologyConstants.RESOURCE_MANAGER_INACTIVE_STATUS,
+            ((MRServiceTopologyAPIEntity) result.getMasterNodes().get(0)).getStatus());
+        Assert.assertEquals(0.0, result.getMetrics().get(0).getValue()[0], 0.0001);
+        Assert.assertFalse(circuitBreaker.allowRequest(hangingUrl));
+    }
+
+    private static HttpServer startServer(HttpHandler handler) throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", handler);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        return server;
+    }
+
+    private static String urlOf(HttpServer server) {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+}